@@ -1,11 +1,14 @@
 package org.batfish.common.plugin;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.answers.DataPlaneAnswerElement;
 
@@ -70,6 +73,19 @@ public abstract class DataPlanePlugin extends BatfishPlugin implements IDataPlan
   public abstract ComputeDataPlaneResult computeDataPlane(
       boolean differentialContext, Map<String, Configuration> configurations, Topology topology);
 
+  /**
+   * Computes the effect of each of {@code scenarios} on {@code dataPlane}, a data plane this plugin
+   * computed for the current snapshot. Implementations may recompute a full data plane for each
+   * scenario. By default, failure scenarios are not supported.
+   *
+   * @return the result of each scenario, by scenario name
+   */
+  public SortedMap<String, FailureScenarioResult> computeFailureScenarios(
+      DataPlane dataPlane, Collection<FailureScenario> scenarios) {
+    throw new UnsupportedOperationException(
+        "Data plane engine " + getName() + " does not support failure scenarios");
+  }
+
   protected void dataPlanePluginInitialize() {}
 
   public abstract SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> getRoutes(
@@ -1,5 +1,6 @@
 package org.batfish.common.plugin;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,6 +23,8 @@ import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowHistory;
 import org.batfish.datamodel.Ip;
@@ -102,6 +105,15 @@ public interface IBatfish extends IPluginConsumer {
   @Nullable
   Answerer createAnswerer(@Nonnull Question question);
 
+  /**
+   * Computes the effect of each of {@code scenarios} on the data plane of the current snapshot.
+   * Each scenario may cost as much as computing a data plane.
+   *
+   * @return the result of each scenario, by scenario name
+   */
+  SortedMap<String, FailureScenarioResult> computeFailureScenarios(
+      Collection<FailureScenario> scenarios);
+
   NetworkId getContainerName();
 
   DataPlanePlugin getDataPlanePlugin();
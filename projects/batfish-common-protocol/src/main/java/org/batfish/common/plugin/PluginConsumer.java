@@ -27,10 +27,13 @@ import java.util.ServiceLoader;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
 import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.batfish.common.BatfishException;
 import org.batfish.common.util.BatfishObjectInputStream;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.KryoCodec;
 
 public abstract class PluginConsumer implements IPluginConsumer {
 
@@ -39,9 +42,28 @@ public abstract class PluginConsumer implements IPluginConsumer {
     JAVA_SERIALIZED,
     LZ4,
     GZIP,
+    KRYO,
     UNKNOWN
   }
 
+  /** Supported formats for serializing objects in binary form */
+  public enum SerializationFormat {
+    /** LZ4-compressed Java serialization */
+    JAVA,
+    /** Version-tagged Kryo encoding via {@link KryoCodec}, falling back to {@link #JAVA} */
+    KRYO;
+
+    /**
+     * Returns whether a file of a snapshot serialized in this format may be stored in the given
+     * detected {@link Format}. Snapshots serialized with {@link #KRYO} also contain files written
+     * with {@link #JAVA}, for objects that Kryo could not encode, but snapshots serialized with
+     * {@link #JAVA} never contain Kryo files.
+     */
+    public boolean allows(Format format) {
+      return this == KRYO || format != Format.KRYO;
+    }
+  }
+
   public static final int DEFAULT_HEADER_LENGTH_BYTES = 4;
 
   private static final int GZIP_HEADER_LENGTH_BYTES = 2;
@@ -62,11 +84,23 @@ public abstract class PluginConsumer implements IPluginConsumer {
 
   private ClassLoader _currentClassLoader;
 
+  private final SerializationFormat _serializationFormat;
+
   private final boolean _serializeToText;
 
   public PluginConsumer(boolean serializeToText) {
+    this(serializeToText, SerializationFormat.JAVA);
+  }
+
+  /**
+   * Creates a {@link PluginConsumer} that serializes binary objects using the given {@link
+   * SerializationFormat}. Objects are always deserialized according to the format detected from
+   * their data, regardless of {@code serializationFormat}.
+   */
+  public PluginConsumer(boolean serializeToText, SerializationFormat serializationFormat) {
     _currentClassLoader = Thread.currentThread().getContextClassLoader();
     _serializeToText = serializeToText;
+    _serializationFormat = serializationFormat;
   }
 
   /**
@@ -88,6 +122,9 @@ public abstract class PluginConsumer implements IPluginConsumer {
 
   private <S extends Serializable> S deserializeObject(
       InputStream stream, Class<S> outputClass, Format format) throws IOException {
+    if (format == Format.KRYO) {
+      return KryoCodec.deserialize(stream, outputClass, _currentClassLoader);
+    }
     try {
       ObjectInputStream ois;
       if (format != Format.JAVA_SERIALIZED) {
@@ -108,34 +145,27 @@ public abstract class PluginConsumer implements IPluginConsumer {
 
   /** Deserialize object from file, with support for different compression methods. */
   protected <S extends Serializable> S deserializeObject(Path inputFile, Class<S> outputClass) {
-    try {
-      // Awkward nested try blocks required because we refuse to throw IOExceptions.
-      try (Closer closer = Closer.create()) {
-        FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
-        BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
-        // Allows us to peek at the beginning of the stream and then push the bytes back in for
-        // downstream consumers to read.
-        PushbackInputStream pbCompressed =
-            new PushbackInputStream(bis, DEFAULT_HEADER_LENGTH_BYTES);
-        Format f = detectFormat(pbCompressed);
-        if (f == Format.GZIP) {
-          InputStream gis = closer.register(new GZIPInputStream(pbCompressed));
-          // Update format after decompression
-          PushbackInputStream pbUncompressed =
-              new PushbackInputStream(gis, DEFAULT_HEADER_LENGTH_BYTES);
-          f = detectFormat(pbUncompressed);
-          return deserializeObject(pbUncompressed, outputClass, f);
-        } else if (f == Format.LZ4) {
-          InputStream lis = closer.register(new LZ4FrameInputStream(pbCompressed));
-          // Update format after decompression
-          PushbackInputStream pbUncompressed =
-              new PushbackInputStream(lis, DEFAULT_HEADER_LENGTH_BYTES);
-          f = detectFormat(pbUncompressed);
-          return deserializeObject(pbUncompressed, outputClass, f);
-        } else {
-          return deserializeObject(pbCompressed, outputClass, f);
-        }
+    return deserializeObject(inputFile, outputClass, null);
+  }
+
+  /**
+   * Deserialize object from a file of a snapshot serialized in {@code snapshotFormat}, or in an
+   * unknown format if {@code null}. Throws a {@link BatfishException} if the file is not in that
+   * format.
+   */
+  protected <S extends Serializable> S deserializeObject(
+      Path inputFile, Class<S> outputClass, @Nullable SerializationFormat snapshotFormat) {
+    try (FileInputStream fis = new FileInputStream(inputFile.toFile())) {
+      PushbackInputStream stream =
+          new PushbackInputStream(new BufferedInputStream(fis), DEFAULT_HEADER_LENGTH_BYTES);
+      Format format = detectFormat(stream);
+      if (snapshotFormat != null && !snapshotFormat.allows(format)) {
+        throw new BatfishException(
+            String.format(
+                "File %s is in format %s, which a snapshot serialized in format %s cannot contain",
+                inputFile, format, snapshotFormat));
       }
+      return deserializeObject(stream, outputClass);
     } catch (IOException e) {
       throw new BatfishException(
           String.format(
@@ -145,6 +175,35 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
+  /** Deserialize object from a stream, with support for different compression methods. */
+  public <S extends Serializable> S deserializeObject(InputStream stream, Class<S> outputClass)
+      throws IOException {
+    try (Closer closer = Closer.create()) {
+      BufferedInputStream bis = new BufferedInputStream(stream);
+      // Allows us to peek at the beginning of the stream and then push the bytes back in for
+      // downstream consumers to read.
+      PushbackInputStream pbCompressed = new PushbackInputStream(bis, DEFAULT_HEADER_LENGTH_BYTES);
+      Format f = detectFormat(pbCompressed);
+      if (f == Format.GZIP) {
+        InputStream gis = closer.register(new GZIPInputStream(pbCompressed));
+        // Update format after decompression
+        PushbackInputStream pbUncompressed =
+            new PushbackInputStream(gis, DEFAULT_HEADER_LENGTH_BYTES);
+        f = detectFormat(pbUncompressed);
+        return deserializeObject(pbUncompressed, outputClass, f);
+      } else if (f == Format.LZ4) {
+        InputStream lis = closer.register(new LZ4FrameInputStream(pbCompressed));
+        // Update format after decompression
+        PushbackInputStream pbUncompressed =
+            new PushbackInputStream(lis, DEFAULT_HEADER_LENGTH_BYTES);
+        f = detectFormat(pbUncompressed);
+        return deserializeObject(pbUncompressed, outputClass, f);
+      } else {
+        return deserializeObject(pbCompressed, outputClass, f);
+      }
+    }
+  }
+
   /**
    * Determines the format of stream data. Requires a {@link PushbackInputStream} so that the
    * inspected bytes can be put back into the stream after reading.
@@ -159,6 +218,8 @@ public abstract class PluginConsumer implements IPluginConsumer {
       format = Format.JAVA_SERIALIZED;
     } else if (Arrays.equals(header, LZ4_MAGIC_BYTES)) {
       format = Format.LZ4;
+    } else if (Arrays.equals(header, KryoCodec.MAGIC_BYTES)) {
+      format = Format.KRYO;
     } else if (Arrays.equals(Arrays.copyOf(header, GZIP_HEADER_LENGTH_BYTES), GZIP_MAGIC_BYTES)) {
       format = Format.GZIP;
     } else {
@@ -201,6 +262,34 @@ public abstract class PluginConsumer implements IPluginConsumer {
 
   /** Serializes the given object to a file with the given output name. */
   public void serializeObject(Serializable object, Path outputFile) {
+    serializeObject(object, outputFile, _serializationFormat);
+  }
+
+  /**
+   * Serializes the given object to a file with the given output name, using the given {@link
+   * SerializationFormat} rather than the one this {@link PluginConsumer} was created with.
+   */
+  public void serializeObject(
+      Serializable object, Path outputFile, SerializationFormat serializationFormat) {
+    // Replace rather than overwrite the file, which may be shared with a forked snapshot
+    CommonUtil.deleteIfExists(outputFile);
+    if (serializationFormat == SerializationFormat.KRYO && !_serializeToText) {
+      try {
+        try (Closer closer = Closer.create()) {
+          OutputStream out = closer.register(Files.newOutputStream(outputFile));
+          BufferedOutputStream bout = closer.register(new BufferedOutputStream(out));
+          KryoCodec.serialize(object, bout);
+        }
+        return;
+      } catch (IOException e) {
+        throw new BatfishException("Failed to serialize object to output file: " + outputFile, e);
+      } catch (RuntimeException e) {
+        // Some part of the object graph is not supported by Kryo, e.g. a JDK class whose fields
+        // are not accessible; overwrite with Java serialization.
+        getLogger()
+            .warnf("Falling back to Java serialization for %s: %s", outputFile, e.getMessage());
+      }
+    }
     try {
       try (Closer closer = Closer.create()) {
         OutputStream out = closer.register(Files.newOutputStream(outputFile));
@@ -212,6 +301,14 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
+  /**
+   * Serializes the given object to the given stream using LZ4-compressed Java serialization, which
+   * {@link #deserializeObject(InputStream, Class)} can read back. The stream is not closed.
+   */
+  public void serializeObject(Serializable object, OutputStream out) {
+    serializeToLz4Data(object, out);
+  }
+
   private static class CloseIgnoringOutputStream extends FilterOutputStream {
 
     protected CloseIgnoringOutputStream(OutputStream out) {
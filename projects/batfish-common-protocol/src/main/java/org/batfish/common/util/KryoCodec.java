@@ -0,0 +1,532 @@
+package org.batfish.common.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.ClosureSerializer;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.io.ByteStreams;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.BatfishException;
+import org.batfish.common.Version;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+/**
+ * Binary object codec backed by Kryo, used as a faster and more compact alternative to Java
+ * serialization for large serialized structures such as vendor-specific and vendor-independent
+ * configurations.
+ *
+ * <p>Encoded data starts with {@link #MAGIC_BYTES}, followed by the Batfish version and the codec
+ * version that produced it, followed by an LZ4 frame containing the Kryo payload. Kryo payloads
+ * depend on the exact field layout of every serialized class, so data written by any other Batfish
+ * version or codec version is rejected with a {@link BatfishException} rather than being decoded
+ * into corrupt objects.
+ */
+public final class KryoCodec {
+
+  /** The first bytes of any data written by this codec. */
+  public static final byte[] MAGIC_BYTES = {(byte) 'B', (byte) 'F', (byte) 'K', (byte) 'Y'};
+
+  /** Bump whenever the Kryo setup below changes in a way that affects the encoding. */
+  private static final int CODEC_VERSION = 2;
+
+  private static final ThreadLocal<Kryo> KRYO = ThreadLocal.withInitial(KryoCodec::newKryo);
+
+  private KryoCodec() {}
+
+  /**
+   * Reads an object of the given class from the given stream, which must be positioned at the
+   * beginning of data written by {@link #serialize(Object, OutputStream)}. Classes are resolved
+   * using the given class loader.
+   *
+   * @throws BatfishException if the data is malformed, was written by an incompatible version, or
+   *     does not contain an instance of {@code outputClass}
+   */
+  public static <S> S deserialize(InputStream in, Class<S> outputClass, ClassLoader classLoader)
+      throws IOException {
+    DataInputStream din = new DataInputStream(in);
+    byte[] magic = new byte[MAGIC_BYTES.length];
+    ByteStreams.readFully(din, magic);
+    if (!Arrays.equals(magic, MAGIC_BYTES)) {
+      throw new BatfishException("Data was not written by " + KryoCodec.class.getSimpleName());
+    }
+    String version = din.readUTF();
+    int codecVersion = din.readInt();
+    if (!version.equals(Version.getVersion()) || codecVersion != CODEC_VERSION) {
+      throw new BatfishException(
+          String.format(
+              "Incompatible serialized data: written by Batfish version %s with codec version %s,"
+                  + " but current Batfish version is %s with codec version %s",
+              version, codecVersion, Version.getVersion(), CODEC_VERSION));
+    }
+    Kryo kryo = KRYO.get();
+    ClassLoader oldClassLoader = kryo.getClassLoader();
+    kryo.setClassLoader(classLoader);
+    try (Input input = new Input(new LZ4FrameInputStream(din))) {
+      return outputClass.cast(kryo.readClassAndObject(input));
+    } catch (KryoException | ClassCastException e) {
+      throw new BatfishException(
+          "Failed to deserialize object of type '" + outputClass.getCanonicalName() + "'", e);
+    } finally {
+      kryo.setClassLoader(oldClassLoader);
+    }
+  }
+
+  /**
+   * Writes the given object to the given stream, including the header identifying the codec and
+   * Batfish version. Does not close {@code out}.
+   *
+   * @throws BatfishException if some part of the object graph cannot be encoded by Kryo
+   */
+  public static void serialize(Object object, OutputStream out) throws IOException {
+    DataOutputStream dout = new DataOutputStream(out);
+    dout.write(MAGIC_BYTES);
+    dout.writeUTF(Version.getVersion());
+    dout.writeInt(CODEC_VERSION);
+    dout.flush();
+    LZ4FrameOutputStream los = new LZ4FrameOutputStream(new CloseShieldOutputStream(out));
+    try (Output output = new Output(los)) {
+      KRYO.get().writeClassAndObject(output, object);
+    } catch (KryoException e) {
+      throw new BatfishException(
+          "Failed to serialize object of type '" + object.getClass().getCanonicalName() + "'", e);
+    }
+  }
+
+  private static Kryo newKryo() {
+    Kryo kryo = new BatfishKryo();
+    kryo.setRegistrationRequired(false);
+    kryo.setReferences(true);
+    // Like Java serialization, preserve references from inner class instances to their outer
+    // instances.
+    kryo.getFieldSerializerConfig().setIgnoreSyntheticFields(false);
+    kryo.setInstantiatorStrategy(
+        new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+    // Serializable lambdas are handled by Java serialization, which resolves them through their
+    // capturing class rather than through their synthetic class names.
+    kryo.register(ClosureSerializer.Closure.class, new JavaSerializer());
+    kryo.addDefaultSerializer(EnumMap.class, new EnumMapSerializer());
+    kryo.addDefaultSerializer(
+        ImmutableSortedSet.class,
+        new ImmutableCollectionSerializer<>(
+            (kryo2, input) -> {
+              @SuppressWarnings("unchecked")
+              Comparator<Object> comparator = (Comparator<Object>) kryo2.readClassAndObject(input);
+              return elements -> ImmutableSortedSet.copyOf(comparator, elements);
+            },
+            (kryo2, output, set) ->
+                kryo2.writeClassAndObject(output, ((ImmutableSortedSet<?>) set).comparator())));
+    kryo.addDefaultSerializer(
+        ImmutableSet.class, new ImmutableCollectionSerializer<>(ImmutableSet::copyOf));
+    kryo.addDefaultSerializer(
+        ImmutableList.class, new ImmutableCollectionSerializer<>(ImmutableList::copyOf));
+    kryo.addDefaultSerializer(
+        ImmutableMultiset.class, new ImmutableCollectionSerializer<>(ImmutableMultiset::copyOf));
+    kryo.addDefaultSerializer(
+        ImmutableCollection.class, new ImmutableCollectionSerializer<>(ImmutableList::copyOf));
+    kryo.addDefaultSerializer(ImmutableSortedMap.class, new ImmutableSortedMapSerializer());
+    kryo.addDefaultSerializer(ImmutableBiMap.class, new ImmutableMapSerializer(true));
+    kryo.addDefaultSerializer(ImmutableMap.class, new ImmutableMapSerializer(false));
+    return kryo;
+  }
+
+  /**
+   * Returns {@code true} if instances of the given class customize Java serialization, in which
+   * case the custom logic must be honored by delegating to Java serialization.
+   */
+  private static boolean customizesJavaSerialization(Class<?> type) {
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Method method : c.getDeclaredMethods()) {
+        if (Modifier.isStatic(method.getModifiers())) {
+          continue;
+        }
+        Class<?>[] params = method.getParameterTypes();
+        switch (method.getName()) {
+          case "writeObject":
+            if (params.length == 1 && params[0] == ObjectOutputStream.class) {
+              return true;
+            }
+            break;
+          case "readObject":
+            if (params.length == 1 && params[0] == ObjectInputStream.class) {
+              return true;
+            }
+            break;
+          case "writeReplace":
+          case "readResolve":
+            if (params.length == 0) {
+              return true;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} for the non-public serializable collection wrappers in {@code java.util}
+   * (e.g. the results of {@link java.util.Collections#unmodifiableList} or {@link Arrays#asList}).
+   * These cannot be rebuilt through the {@link Collection} or {@link Map} interfaces, and their
+   * fields are not accessible outside {@code java.base} on newer JDKs, so they are rebuilt through
+   * the factory that created them, or else handled by Java serialization.
+   */
+  private static boolean isJdkCollectionWrapper(Class<?> type) {
+    return (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+        && Serializable.class.isAssignableFrom(type)
+        && type.getName().startsWith("java.util.")
+        && type.getEnclosingClass() != null
+        && !Modifier.isPublic(type.getModifiers());
+  }
+
+  /**
+   * Returns {@code true} for collections outside the JDK whose state cannot be rebuilt through the
+   * {@link Collection} or {@link Map} interfaces, either because they customize Java serialization
+   * (e.g. Guava's mutable multisets) or because they add their own serializable fields.
+   */
+  private static boolean isCustomCollection(Class<?> type) {
+    if (!Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type)
+        || type.getName().startsWith("java.")
+        || ImmutableCollection.class.isAssignableFrom(type)
+        || ImmutableMap.class.isAssignableFrom(type)) {
+      return false;
+    }
+    if (customizesJavaSerialization(type)) {
+      return true;
+    }
+    for (Class<?> c = type;
+        c != null && !c.getName().startsWith("java.") && !c.getName().startsWith("com.google.");
+        c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Serializers for the common JDK collection wrappers, which copy the contents into a public
+   * collection and wrap the copy again when reading.
+   */
+  private static Map<Class<?>, Serializer<?>> jdkWrapperSerializers() {
+    ImmutableMap.Builder<Class<?>, Serializer<?>> serializers = ImmutableMap.builder();
+    addJdkWrapper(
+        serializers,
+        Collections.unmodifiableCollection(new ArrayList<>()),
+        (Collection<Object> c) -> new ArrayList<>(c),
+        Collections::unmodifiableCollection);
+    for (List<Object> list :
+        ImmutableList.<List<Object>>of(new ArrayList<>(), new LinkedList<>())) {
+      addJdkWrapper(
+          serializers,
+          Collections.unmodifiableList(list),
+          (List<Object> l) -> new ArrayList<>(l),
+          Collections::unmodifiableList);
+    }
+    addJdkWrapper(
+        serializers,
+        Collections.unmodifiableSet(new HashSet<>()),
+        (Set<Object> set) -> new LinkedHashSet<>(set),
+        Collections::unmodifiableSet);
+    addJdkWrapper(
+        serializers,
+        Collections.unmodifiableSortedSet(new TreeSet<>()),
+        (SortedSet<Object> set) -> new TreeSet<>(set),
+        Collections::unmodifiableSortedSet);
+    addJdkWrapper(
+        serializers,
+        Collections.unmodifiableMap(new HashMap<>()),
+        (Map<Object, Object> map) -> new LinkedHashMap<>(map),
+        Collections::unmodifiableMap);
+    addJdkWrapper(
+        serializers,
+        Collections.unmodifiableSortedMap(new TreeMap<>()),
+        (SortedMap<Object, Object> map) -> new TreeMap<>(map),
+        Collections::unmodifiableSortedMap);
+    addJdkWrapper(
+        serializers, Arrays.asList(), (List<Object> list) -> list.toArray(), Arrays::asList);
+    return serializers.build();
+  }
+
+  private static <W, C> void addJdkWrapper(
+      ImmutableMap.Builder<Class<?>, Serializer<?>> serializers,
+      W example,
+      Function<W, C> copy,
+      Function<C, W> wrap) {
+    serializers.put(example.getClass(), new JdkWrapperSerializer<>(copy, wrap));
+  }
+
+  private static final class BatfishKryo extends Kryo {
+
+    private final Map<Class<?>, Serializer<?>> _jdkWrapperSerializers = jdkWrapperSerializers();
+
+    @Override
+    public Serializer<?> getDefaultSerializer(@SuppressWarnings("rawtypes") Class type) {
+      if (isJdkCollectionWrapper(type)) {
+        Serializer<?> serializer = _jdkWrapperSerializers.get(type);
+        return serializer != null ? serializer : new JavaSerializer();
+      }
+      if (isCustomCollection(type)) {
+        return new JavaSerializer();
+      }
+      return super.getDefaultSerializer(type);
+    }
+
+    @Override
+    protected Serializer<?> newDefaultSerializer(@SuppressWarnings("rawtypes") Class type) {
+      if (customizesJavaSerialization(type)) {
+        return new JavaSerializer();
+      }
+      return super.newDefaultSerializer(type);
+    }
+  }
+
+  /** Writes any extra state needed to rebuild a collection before its elements. */
+  @FunctionalInterface
+  private interface ExtraWriter<C> {
+    void write(Kryo kryo, Output output, C collection);
+  }
+
+  /** Reads the extra state written by an {@link ExtraWriter} and returns the collection builder. */
+  @FunctionalInterface
+  private interface ExtraReader<C> {
+    Function<Collection<Object>, C> read(Kryo kryo, Input input);
+  }
+
+  private static final class ImmutableCollectionSerializer<C extends Collection<?>>
+      extends Serializer<C> {
+
+    private final ExtraReader<C> _extraReader;
+    private final ExtraWriter<C> _extraWriter;
+
+    ImmutableCollectionSerializer(Function<Collection<Object>, C> factory) {
+      this((kryo, input) -> factory, (kryo, output, collection) -> {});
+    }
+
+    ImmutableCollectionSerializer(ExtraReader<C> extraReader, ExtraWriter<C> extraWriter) {
+      super(false, true);
+      _extraReader = extraReader;
+      _extraWriter = extraWriter;
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, C collection) {
+      _extraWriter.write(kryo, output, collection);
+      output.writeInt(collection.size(), true);
+      for (Object element : collection) {
+        kryo.writeClassAndObject(output, element);
+      }
+    }
+
+    @Override
+    public C read(Kryo kryo, Input input, Class<C> type) {
+      Function<Collection<Object>, C> factory = _extraReader.read(kryo, input);
+      int size = input.readInt(true);
+      Object[] elements = new Object[size];
+      for (int i = 0; i < size; i++) {
+        elements[i] = kryo.readClassAndObject(input);
+      }
+      return factory.apply(Arrays.asList(elements));
+    }
+  }
+
+  /**
+   * Serializes a JDK collection wrapper as a copy of its contents, and wraps the copy again when
+   * reading.
+   */
+  private static final class JdkWrapperSerializer<W, C> extends Serializer<W> {
+
+    private final Function<W, C> _copy;
+    private final Function<C, W> _wrap;
+
+    JdkWrapperSerializer(Function<W, C> copy, Function<C, W> wrap) {
+      super(false, true);
+      _copy = copy;
+      _wrap = wrap;
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, W wrapper) {
+      kryo.writeClassAndObject(output, _copy.apply(wrapper));
+    }
+
+    @Override
+    public W read(Kryo kryo, Input input, Class<W> type) {
+      @SuppressWarnings("unchecked")
+      C contents = (C) kryo.readClassAndObject(input);
+      return _wrap.apply(contents);
+    }
+  }
+
+  private static final class ImmutableMapSerializer extends Serializer<ImmutableMap<?, ?>> {
+
+    private final boolean _bimap;
+
+    ImmutableMapSerializer(boolean bimap) {
+      super(false, true);
+      _bimap = bimap;
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, ImmutableMap<?, ?> map) {
+      writeEntries(kryo, output, map);
+    }
+
+    @Override
+    public ImmutableMap<?, ?> read(Kryo kryo, Input input, Class<ImmutableMap<?, ?>> type) {
+      ImmutableMap.Builder<Object, Object> builder =
+          _bimap ? ImmutableBiMap.builder() : ImmutableMap.builder();
+      readEntries(kryo, input, builder);
+      return builder.build();
+    }
+  }
+
+  private static final class ImmutableSortedMapSerializer
+      extends Serializer<ImmutableSortedMap<?, ?>> {
+
+    ImmutableSortedMapSerializer() {
+      super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, ImmutableSortedMap<?, ?> map) {
+      kryo.writeClassAndObject(output, map.comparator());
+      writeEntries(kryo, output, map);
+    }
+
+    @Override
+    public ImmutableSortedMap<?, ?> read(
+        Kryo kryo, Input input, Class<ImmutableSortedMap<?, ?>> type) {
+      @SuppressWarnings("unchecked")
+      Comparator<Object> comparator = (Comparator<Object>) kryo.readClassAndObject(input);
+      ImmutableSortedMap.Builder<Object, Object> builder =
+          new ImmutableSortedMap.Builder<>(comparator);
+      readEntries(kryo, input, builder);
+      return builder.build();
+    }
+  }
+
+  private static void writeEntries(Kryo kryo, Output output, Map<?, ?> map) {
+    output.writeInt(map.size(), true);
+    for (Entry<?, ?> entry : map.entrySet()) {
+      kryo.writeClassAndObject(output, entry.getKey());
+      kryo.writeClassAndObject(output, entry.getValue());
+    }
+  }
+
+  private static void readEntries(
+      Kryo kryo, Input input, ImmutableMap.Builder<Object, Object> builder) {
+    int size = input.readInt(true);
+    for (int i = 0; i < size; i++) {
+      Object key = kryo.readClassAndObject(input);
+      Object value = kryo.readClassAndObject(input);
+      builder.put(key, value);
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static final class EnumMapSerializer extends Serializer<EnumMap> {
+
+    private final JavaSerializer _javaSerializer = new JavaSerializer();
+
+    @Override
+    public void write(Kryo kryo, Output output, EnumMap map) {
+      output.writeInt(map.size(), true);
+      if (map.isEmpty()) {
+        // The key type of an empty EnumMap is private, but Java serialization records it.
+        _javaSerializer.write(kryo, output, map);
+        return;
+      }
+      kryo.writeClass(output, ((Enum) map.keySet().iterator().next()).getDeclaringClass());
+      for (Object o : map.entrySet()) {
+        Entry<Enum, Object> entry = (Entry<Enum, Object>) o;
+        output.writeInt(entry.getKey().ordinal(), true);
+        kryo.writeClassAndObject(output, entry.getValue());
+      }
+    }
+
+    @Override
+    public EnumMap read(Kryo kryo, Input input, Class<EnumMap> type) {
+      int size = input.readInt(true);
+      if (size == 0) {
+        return (EnumMap) _javaSerializer.read(kryo, input, (Class) type);
+      }
+      Class<Enum> keyType = kryo.readClass(input).getType();
+      EnumMap map = new EnumMap(keyType);
+      kryo.reference(map);
+      Enum[] constants = keyType.getEnumConstants();
+      for (int i = 0; i < size; i++) {
+        Enum key = constants[input.readInt(true)];
+        map.put(key, kryo.readClassAndObject(input));
+      }
+      return map;
+    }
+  }
+
+  /** Shields the wrapped stream from being closed when the LZ4 frame is finished. */
+  private static final class CloseShieldOutputStream extends FilterOutputStream {
+
+    CloseShieldOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    /** Flushes, but deliberately does not close, the wrapped stream. */
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.batfish.common.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A bounded, lock-free interner for immutable objects that are uniquely identified by a {@code
+ * long} key.
+ *
+ * <p>Objects are kept in a fixed-size open-addressing table indexed by a hash of their key. Each
+ * key may only live in a small window of slots; when the whole window is taken by other keys, one
+ * of them is evicted. Lookups therefore never box the key, never take a lock, and never allocate
+ * unless the object is not already interned.
+ *
+ * <p>Interning is best-effort: two threads interning the same key at the same time, or a key that
+ * has been evicted, may produce distinct (but equal) objects. Callers must not rely on reference
+ * equality.
+ *
+ * @param <T> type of the interned objects
+ */
+@ParametersAreNonnullByDefault
+public final class LongInterner<T> {
+
+  /** Number of consecutive slots in which an object for a given key may be stored */
+  private static final int PROBES = 4;
+
+  private final ToLongFunction<? super T> _keyFunction;
+
+  private final int _mask;
+
+  private final int _shift;
+
+  private final AtomicReferenceArray<T> _table;
+
+  /**
+   * Create a new interner.
+   *
+   * @param capacity The maximum number of interned objects, rounded up to a power of two
+   * @param keyFunction Returns the key of an interned object. Must be consistent with the keys
+   *     passed to {@link #intern(long, LongFunction)}.
+   */
+  public LongInterner(int capacity, ToLongFunction<? super T> keyFunction) {
+    checkArgument(
+        capacity >= PROBES && capacity <= 1 << 30, "Capacity must be between %s and 2^30", PROBES);
+    int bits = Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1);
+    _keyFunction = keyFunction;
+    _mask = (1 << bits) - 1;
+    _shift = Long.SIZE - bits;
+    _table = new AtomicReferenceArray<>(1 << bits);
+  }
+
+  /**
+   * Return the interned object for {@code key}, creating it with {@code factory} if there is none.
+   *
+   * @param key The key of the object
+   * @param factory Creates an object whose key is {@code key}. Should not capture any state, so
+   *     that passing it does not allocate.
+   */
+  @Nonnull
+  public T intern(long key, LongFunction<? extends T> factory) {
+    int start = slot(key);
+    T created = null;
+    for (int i = 0; i < PROBES; i++) {
+      int index = (start + i) & _mask;
+      T existing = _table.get(index);
+      if (existing == null) {
+        if (created == null) {
+          created = factory.apply(key);
+        }
+        if (_table.compareAndSet(index, null, created)) {
+          return created;
+        }
+        // Lost a race for the slot; the winner may have interned the same key
+        existing = _table.get(index);
+      }
+      if (_keyFunction.applyAsLong(existing) == key) {
+        return existing;
+      }
+    }
+    if (created == null) {
+      created = factory.apply(key);
+    }
+    // Every slot is taken by another key. Spread evictions over the window, so that a hot object
+    // is not always the one replaced.
+    int victim = (start + (int) ((key ^ (key >>> 32)) & (PROBES - 1))) & _mask;
+    _table.lazySet(victim, created);
+    return created;
+  }
+
+  /** Returns the first slot of the key, using Fibonacci hashing to spread nearby keys apart */
+  private int slot(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> _shift);
+  }
+
+  /** Returns the number of slots in the table, i.e. the maximum number of interned objects */
+  public int capacity() {
+    return _mask + 1;
+  }
+}
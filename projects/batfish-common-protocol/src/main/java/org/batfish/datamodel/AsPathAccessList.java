@@ -5,17 +5,16 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
-import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -24,19 +23,47 @@ import javax.annotation.Nullable;
     "An AsPathAccessList is used to filter e/iBGP routes according to their AS-path attribute.")
 public final class AsPathAccessList implements Serializable {
 
+  /** Compiles the regexes of the lines once, on first use. */
+  private final class PatternsSupplier implements Supplier<Pattern[]>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Pattern[] get() {
+      return _lines.stream().map(line -> Pattern.compile(line.getRegex())).toArray(Pattern[]::new);
+    }
+  }
+
+  private final class PermitsCacheSupplier
+      implements Supplier<LoadingCache<AsPath, Boolean>>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public LoadingCache<AsPath, Boolean> get() {
+      return CacheBuilder.newBuilder()
+          .maximumSize(PERMITS_CACHE_SIZE)
+          .build(CacheLoader.from(AsPathAccessList.this::newPermits));
+    }
+  }
+
+  /**
+   * The number of AS paths whose outcome is remembered. External BGP feeds can carry millions of
+   * distinct AS paths, so the least recently used are evicted.
+   */
+  private static final int PERMITS_CACHE_SIZE = 1 << 16;
+
   private static final String PROP_LINES = "lines";
 
   private static final String PROP_NAME = "name";
 
   private static final long serialVersionUID = 1L;
 
-  private transient Set<AsPath> _deniedCache;
-
   @Nonnull private final List<AsPathAccessListLine> _lines;
 
   private final String _name;
 
-  private transient Set<AsPath> _permittedCache;
+  private final Supplier<Pattern[]> _patterns;
+
+  private final Supplier<LoadingCache<AsPath, Boolean>> _permitsCache;
 
   @JsonCreator
   public AsPathAccessList(
@@ -44,6 +71,8 @@ public final class AsPathAccessList implements Serializable {
       @Nullable @JsonProperty(PROP_LINES) List<AsPathAccessListLine> lines) {
     _lines = firstNonNull(lines, ImmutableList.of());
     _name = name;
+    _patterns = Suppliers.memoize(new PatternsSupplier());
+    _permitsCache = Suppliers.memoize(new PermitsCacheSupplier());
   }
 
   @Override
@@ -77,38 +106,17 @@ public final class AsPathAccessList implements Serializable {
   }
 
   private boolean newPermits(AsPath asPath) {
-    boolean accept = false;
-    for (AsPathAccessListLine line : _lines) {
-      String regex = line.getRegex();
-      Pattern p = Pattern.compile(regex);
-      String asPathString = asPath.getAsPathString();
-      Matcher matcher = p.matcher(asPathString);
-      boolean match = matcher.find();
-      if (match) {
-        accept = line.getAction() == LineAction.PERMIT;
-        break;
+    String asPathString = asPath.getAsPathString();
+    Pattern[] patterns = _patterns.get();
+    for (int i = 0; i < patterns.length; i++) {
+      if (patterns[i].matcher(asPathString).find()) {
+        return _lines.get(i).getAction() == LineAction.PERMIT;
       }
     }
-    if (accept) {
-      _permittedCache.add(asPath);
-    } else {
-      _deniedCache.add(asPath);
-    }
-    return accept;
+    return false;
   }
 
   public boolean permits(AsPath asPath) {
-    if (_deniedCache.contains(asPath)) {
-      return false;
-    } else if (_permittedCache.contains(asPath)) {
-      return true;
-    }
-    return newPermits(asPath);
-  }
-
-  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-    in.defaultReadObject();
-    _deniedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _permittedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    return _permitsCache.get().getUnchecked(asPath);
   }
 }
@@ -1,7 +1,6 @@
 package org.batfish.datamodel;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
-import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
@@ -11,6 +10,7 @@ import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.SortedSet;
 import java.util.concurrent.ExecutionException;
@@ -24,35 +24,36 @@ public class AsSet implements Serializable, Comparable<AsSet> {
   // Soft values: let it be garbage collected in times of pressure.
   // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
   //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
-  private static final Cache<ImmutableSortedSet<Long>, AsSet> CACHE =
+  // Keys are interned, so equal AsSets share their ASNs with each other and with BGP attributes.
+  private static final Cache<LongSortedSet, AsSet> CACHE =
       CacheBuilder.newBuilder().softValues().maximumSize(1 << 16).build();
 
   private static final long serialVersionUID = 1L;
 
-  private final ImmutableSortedSet<Long> _value;
+  private final LongSortedSet _value;
 
-  private AsSet(ImmutableSortedSet<Long> value) {
+  private AsSet(LongSortedSet value) {
     _value = value;
   }
 
   /** Create a new empty {@link AsSet}. */
   public static AsSet empty() {
-    return of(ImmutableSortedSet.of());
+    return of(LongSortedSet.empty());
   }
 
   /** Create a new {@link AsSet} containing only the given ASN. */
   public static AsSet of(Long value) {
-    return of(ImmutableSortedSet.of(value));
+    return of(LongSortedSet.of(value));
   }
 
   /** Create a new {@link AsSet} containing only the given ASN. */
   public static AsSet of(Long... value) {
-    return of(ImmutableSortedSet.copyOf(value));
+    return of(Arrays.asList(value));
   }
 
   /** Create a new {@link AsSet} that is an immutable copy of {@code value}. */
   public static AsSet of(Collection<Long> value) {
-    ImmutableSortedSet<Long> immutableValues = ImmutableSortedSet.copyOf(value);
+    LongSortedSet immutableValues = LongSortedSet.of(value);
     try {
       return CACHE.get(immutableValues, () -> new AsSet(immutableValues));
     } catch (ExecutionException e) {
@@ -72,7 +73,7 @@ public class AsSet implements Serializable, Comparable<AsSet> {
   }
 
   public boolean containsAs(Long asn) {
-    return _value.contains(asn);
+    return _value.containsLong(asn);
   }
 
   @Override
@@ -101,8 +102,7 @@ public class AsSet implements Serializable, Comparable<AsSet> {
 
   /** Returns a new {@link AsSet} that consists of this set with any private ASNs removed. */
   public AsSet removePrivateAs() {
-    return AsSet.of(
-        _value.stream().filter(asn -> !AsPath.isPrivateAs(asn)).collect(toImmutableList()));
+    return AsSet.of(_value.filter(asn -> !AsPath.isPrivateAs(asn)));
   }
 
   public int size() {
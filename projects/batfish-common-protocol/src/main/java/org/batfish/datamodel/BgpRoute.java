@@ -6,13 +6,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Ordering;
 import java.util.Comparator;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -32,8 +29,8 @@ public final class BgpRoute extends AbstractRoute {
   public static final class Builder extends AbstractRouteBuilder<Builder, BgpRoute> {
 
     @Nonnull private AsPath _asPath;
-    @Nonnull private ImmutableSortedSet.Builder<Long> _clusterList;
-    @Nonnull private SortedSet<Long> _communities;
+    @Nonnull private LongSortedSet _clusterList;
+    @Nonnull private LongSortedSet _communities;
     private boolean _discard;
     private long _localPreference;
     @Nullable private Ip _originatorIp;
@@ -46,8 +43,8 @@ public final class BgpRoute extends AbstractRoute {
 
     public Builder() {
       _asPath = AsPath.empty();
-      _communities = new TreeSet<>();
-      _clusterList = new ImmutableSortedSet.Builder<>(Ordering.natural());
+      _communities = LongSortedSet.empty();
+      _clusterList = LongSortedSet.empty();
     }
 
     @Override
@@ -65,7 +62,7 @@ public final class BgpRoute extends AbstractRoute {
           _localPreference,
           getMetric(),
           _originatorIp,
-          _clusterList.build(),
+          _clusterList,
           _receivedFromRouteReflectorClient,
           _originType,
           _protocol,
@@ -82,12 +79,12 @@ public final class BgpRoute extends AbstractRoute {
     }
 
     @Nonnull
-    public SortedSet<Long> getClusterList() {
-      return _clusterList.build();
+    public LongSortedSet getClusterList() {
+      return _clusterList;
     }
 
     @Nonnull
-    public SortedSet<Long> getCommunities() {
+    public LongSortedSet getCommunities() {
       return _communities;
     }
 
@@ -127,45 +124,43 @@ public final class BgpRoute extends AbstractRoute {
 
     /** Overwrite the clusterList attribute */
     public Builder setClusterList(Set<Long> clusterList) {
-      _clusterList = new ImmutableSortedSet.Builder<>(Ordering.natural());
-      _clusterList.addAll(clusterList);
+      _clusterList = LongSortedSet.of(clusterList);
       return getThis();
     }
 
     /** Add to the cluster list attribute */
     public Builder addClusterList(Set<Long> clusterList) {
-      _clusterList.addAll(clusterList);
+      _clusterList = _clusterList.union(clusterList);
       return getThis();
     }
 
     /** Add to the cluster list attribute */
     public Builder addToClusterList(Long cluster) {
-      _clusterList.add(cluster);
+      _clusterList = _clusterList.with(cluster);
       return getThis();
     }
 
     /** Overwrite communities */
     public Builder setCommunities(Set<Long> communities) {
-      _communities = new TreeSet<>();
-      _communities.addAll(communities);
+      _communities = LongSortedSet.of(communities);
       return getThis();
     }
 
     /** Add communities */
     public Builder addCommunities(Set<Long> communities) {
-      _communities.addAll(communities);
+      _communities = _communities.union(communities);
       return getThis();
     }
 
     /** Add a single community */
     public Builder addCommunity(Long community) {
-      _communities.add(community);
+      _communities = _communities.with(community);
       return getThis();
     }
 
-    /** Add communities */
+    /** Remove communities */
     public Builder removeCommunities(Set<Long> communities) {
-      _communities.removeAll(communities);
+      _communities = _communities.difference(communities);
       return getThis();
     }
 
@@ -257,8 +252,8 @@ public final class BgpRoute extends AbstractRoute {
   private static final long serialVersionUID = 1L;
 
   @Nonnull private final AsPath _asPath;
-  @Nonnull private final SortedSet<Long> _clusterList;
-  @Nonnull private final SortedSet<Long> _communities;
+  @Nonnull private final LongSortedSet _clusterList;
+  @Nonnull private final LongSortedSet _communities;
   private final boolean _discard;
   private final long _localPreference;
   private final long _med;
@@ -338,10 +333,8 @@ public final class BgpRoute extends AbstractRoute {
       boolean nonRouting) {
     super(network, admin, nonRouting, nonForwarding);
     _asPath = firstNonNull(asPath, AsPath.empty());
-    _clusterList =
-        clusterList == null ? ImmutableSortedSet.of() : ImmutableSortedSet.copyOf(clusterList);
-    _communities =
-        communities == null ? ImmutableSortedSet.of() : ImmutableSortedSet.copyOf(communities);
+    _clusterList = clusterList == null ? LongSortedSet.empty() : LongSortedSet.of(clusterList);
+    _communities = communities == null ? LongSortedSet.empty() : LongSortedSet.of(communities);
     _discard = discard;
     _localPreference = localPreference;
     _med = med;
@@ -422,13 +415,13 @@ public final class BgpRoute extends AbstractRoute {
 
   @Nonnull
   @JsonProperty(PROP_CLUSTER_LIST)
-  public SortedSet<Long> getClusterList() {
+  public LongSortedSet getClusterList() {
     return _clusterList;
   }
 
   @Nonnull
   @JsonProperty(PROP_COMMUNITIES)
-  public SortedSet<Long> getCommunities() {
+  public LongSortedSet getCommunities() {
     return _communities;
   }
 
@@ -0,0 +1,68 @@
+package org.batfish.datamodel;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+
+/**
+ * A named set of interfaces that fail together, evaluated by {@link
+ * org.batfish.common.plugin.IBatfish#computeFailureScenarios(Collection)}.
+ */
+@ParametersAreNonnullByDefault
+public final class FailureScenario {
+
+  private final SortedSet<NodeInterfacePair> _failedInterfaces;
+
+  private final String _name;
+
+  public FailureScenario(String name, Collection<NodeInterfacePair> failedInterfaces) {
+    _name = name;
+    _failedInterfaces = ImmutableSortedSet.copyOf(failedInterfaces);
+  }
+
+  /** Returns the failure of {@code edge}, which brings down the interfaces at both of its ends. */
+  public static @Nonnull FailureScenario linkFailure(Edge edge) {
+    return new FailureScenario(
+        edge.toString(), ImmutableSortedSet.of(edge.getTail(), edge.getHead()));
+  }
+
+  @Nonnull
+  public SortedSet<NodeInterfacePair> getFailedInterfaces() {
+    return _failedInterfaces;
+  }
+
+  @Nonnull
+  public String getName() {
+    return _name;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof FailureScenario)) {
+      return false;
+    }
+    FailureScenario other = (FailureScenario) o;
+    return _name.equals(other._name) && _failedInterfaces.equals(other._failedInterfaces);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_name, _failedInterfaces);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(FailureScenario.class)
+        .add("name", _name)
+        .add("failedInterfaces", _failedInterfaces)
+        .toString();
+  }
+}
@@ -0,0 +1,58 @@
+package org.batfish.datamodel;
+
+import java.util.SortedMap;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * The difference between the data plane of a {@link FailureScenario} and the data plane it was
+ * evaluated against. Maps are keyed by hostname, then VRF name, and only contain entries for VRFs
+ * that changed.
+ */
+@ParametersAreNonnullByDefault
+public final class FailureScenarioResult {
+
+  private final SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> _addedRoutes;
+
+  private final SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>>
+      _fibChanges;
+
+  private final SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> _removedRoutes;
+
+  public FailureScenarioResult(
+      SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> addedRoutes,
+      SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> removedRoutes,
+      SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>> fibChanges) {
+    _addedRoutes = addedRoutes;
+    _removedRoutes = removedRoutes;
+    _fibChanges = fibChanges;
+  }
+
+  /** Main RIB routes that are only present after the failure. */
+  @Nonnull
+  public SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> getAddedRoutes() {
+    return _addedRoutes;
+  }
+
+  /**
+   * The FIB entries that changed: for each prefix whose next-hop interfaces changed, its next-hop
+   * interfaces after the failure, which are empty if the prefix is no longer forwarded.
+   */
+  @Nonnull
+  public SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>>
+      getFibChanges() {
+    return _fibChanges;
+  }
+
+  /** Main RIB routes that are only present before the failure. */
+  @Nonnull
+  public SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> getRemovedRoutes() {
+    return _removedRoutes;
+  }
+
+  /** Returns whether the failure did not change any route or FIB entry. */
+  public boolean isEmpty() {
+    return _addedRoutes.isEmpty() && _removedRoutes.isEmpty() && _fibChanges.isEmpty();
+  }
+}
@@ -9,6 +9,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
@@ -34,6 +35,20 @@ public class FibImpl implements Fib {
     }
   }
 
+  /**
+   * Create a FIB for {@code rib} from next hop interfaces that have already been resolved, e.g. by
+   * a subclass that maintains them as the RIB changes.
+   *
+   * @param nextHopInterfaces Mapping: route -&gt; nextHopInterface -&gt; resolved nextHopIp -&gt;
+   *     interfaceRoutes. Not copied.
+   */
+  protected FibImpl(
+      @Nonnull GenericRib<AbstractRoute> rib,
+      @Nonnull Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfaces) {
+    _rib = rib;
+    _nextHopInterfaces = nextHopInterfaces;
+  }
+
   /**
    * Attempt to resolve a RIB route down to an interface route.
    *
@@ -45,6 +60,16 @@ public class FibImpl implements Fib {
    */
   public static Map<String, Map<Ip, Set<AbstractRoute>>> collectNextHopInterfaces(
       GenericRib<AbstractRoute> rib, AbstractRoute route) {
+    return collectNextHopInterfaces(rib, route, ip -> {});
+  }
+
+  /**
+   * Like {@link #collectNextHopInterfaces(GenericRib, AbstractRoute)}, but also passes each next
+   * hop IP looked up in {@code rib} to {@code lookedUpIps}. The result can only change if a route
+   * for a prefix containing one of those IPs is added to or removed from {@code rib}.
+   */
+  public static Map<String, Map<Ip, Set<AbstractRoute>>> collectNextHopInterfaces(
+      GenericRib<AbstractRoute> rib, AbstractRoute route, Consumer<Ip> lookedUpIps) {
     Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces = new HashMap<>();
     collectNextHopInterfaces(
         rib,
@@ -54,7 +79,8 @@ public class FibImpl implements Fib {
         new HashSet<>(),
         0,
         Prefix.MAX_PREFIX_LENGTH,
-        null);
+        null,
+        lookedUpIps);
     return ImmutableMap.copyOf(nextHopInterfaces);
   }
 
@@ -66,7 +92,8 @@ public class FibImpl implements Fib {
       Set<Prefix> seenNetworks,
       int depth,
       int maxPrefixLength,
-      @Nullable AbstractRoute parentRoute) {
+      @Nullable AbstractRoute parentRoute,
+      Consumer<Ip> lookedUpIps) {
     Prefix network = route.getNetwork();
     if (seenNetworks.contains(network)) {
       return;
@@ -93,7 +120,8 @@ public class FibImpl implements Fib {
             seenNetworks,
             depth + 1,
             maxPrefixLength - 1,
-            null);
+            null,
+            lookedUpIps);
         return;
       }
     }
@@ -124,6 +152,7 @@ public class FibImpl implements Fib {
     } else {
       Ip nextHopIp = route.getNextHopIp();
       if (!nextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)) {
+        lookedUpIps.accept(nextHopIp);
         Set<AbstractRoute> nextHopLongestPrefixMatchRoutes =
             rib.longestPrefixMatch(nextHopIp, maxPrefixLength);
 
@@ -144,7 +173,8 @@ public class FibImpl implements Fib {
               seenNetworks,
               depth + 1,
               maxPrefixLength - 1,
-              parentRoute);
+              parentRoute,
+              lookedUpIps);
         } else {
           // We have at least one valid longest-prefix match
           for (AbstractRoute nextHopLongestPrefixMatchRoute : forwardingRoutes) {
@@ -156,7 +186,8 @@ public class FibImpl implements Fib {
                 newSeenNetworks,
                 depth + 1,
                 Prefix.MAX_PREFIX_LENGTH,
-                route);
+                route,
+                lookedUpIps);
           }
         }
       } else {
@@ -167,6 +198,11 @@ public class FibImpl implements Fib {
     }
   }
 
+  /** Returns the RIB from which this FIB was computed. */
+  protected @Nonnull GenericRib<AbstractRoute> getRib() {
+    return _rib;
+  }
+
   /** Mapping: route -&gt; nextHopInterface -&gt; resolved nextHopIp -&gt; interfaceRoutes */
   @Override
   public @Nonnull Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>
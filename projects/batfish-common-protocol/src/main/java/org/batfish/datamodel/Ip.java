@@ -2,20 +2,16 @@ package org.batfish.datamodel;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import java.io.Serializable;
-import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
+import org.batfish.common.util.LongInterner;
 
 public class Ip implements Comparable<Ip>, Serializable {
 
-  // Soft values: let it be garbage collected in times of pressure.
   // Maximum size 2^20: Just some upper bound on cache size, well less than GiB.
-  //   (8 bytes seems smallest possible entry (long), would be 8 MiB total).
-  private static final Cache<Long, Ip> CACHE =
-      CacheBuilder.newBuilder().softValues().maximumSize(1 << 20).build();
+  //   (4-8 bytes per slot plus 24 bytes per Ip, would be ~32 MiB total when full).
+  private static final LongInterner<Ip> CACHE = new LongInterner<>(1 << 20, Ip::asLong);
 
   public static final Ip AUTO = create(-1L);
 
@@ -112,12 +108,7 @@ public class Ip implements Comparable<Ip>, Serializable {
   }
 
   public static Ip create(long ipAsLong) {
-    try {
-      return CACHE.get(ipAsLong, () -> new Ip(ipAsLong));
-    } catch (ExecutionException e) {
-      // This shouldn't happen, but handle anyway.
-      return new Ip(ipAsLong);
-    }
+    return CACHE.intern(ipAsLong, Ip::new);
   }
 
   public long asLong() {
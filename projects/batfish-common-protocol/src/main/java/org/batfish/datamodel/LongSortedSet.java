@@ -0,0 +1,346 @@
+package org.batfish.datamodel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.function.LongPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * An immutable, interned {@link SortedSet} of longs in natural order, backed by a primitive array.
+ *
+ * <p>Used for BGP attributes such as communities and cluster lists, which are copied into every
+ * route derived from a route during route propagation. Equal sets are represented by the same
+ * instance, so routes with the same attributes share them, and copying a set between routes and
+ * builders is free. Membership tests are binary searches, and operations on two {@link
+ * LongSortedSet}s are merges of the underlying arrays, without boxing.
+ */
+@ParametersAreNonnullByDefault
+public final class LongSortedSet extends AbstractSet<Long>
+    implements SortedSet<Long>, Serializable {
+
+  private static final long[] EMPTY_ARRAY = new long[0];
+
+  /** Weak: a set is kept only while some route or builder refers to it. */
+  private static final Interner<LongSortedSet> INTERNER = Interners.newWeakInterner();
+
+  private static final LongSortedSet EMPTY = INTERNER.intern(new LongSortedSet(EMPTY_ARRAY));
+
+  private static final long serialVersionUID = 1L;
+
+  /** Sorted in ascending order, without duplicates. Never modified. */
+  @Nonnull private final long[] _values;
+
+  /* Cache the hashcode */
+  private transient int _hashCode;
+
+  private LongSortedSet(long[] values) {
+    _values = values;
+    int hashCode = 0;
+    for (long value : values) {
+      hashCode += Long.hashCode(value);
+    }
+    _hashCode = hashCode;
+  }
+
+  /** Returns the empty {@link LongSortedSet}. */
+  public static @Nonnull LongSortedSet empty() {
+    return EMPTY;
+  }
+
+  /** Returns the {@link LongSortedSet} containing the given values. */
+  public static @Nonnull LongSortedSet of(long... values) {
+    return ofUnsorted(values.clone(), values.length);
+  }
+
+  /** Returns the {@link LongSortedSet} containing the elements of {@code values}. */
+  public static @Nonnull LongSortedSet of(Collection<Long> values) {
+    if (values instanceof LongSortedSet) {
+      return (LongSortedSet) values;
+    }
+    long[] array = new long[values.size()];
+    int i = 0;
+    for (Long value : values) {
+      array[i++] = value;
+    }
+    return ofUnsorted(array, i);
+  }
+
+  /**
+   * Returns the set of the first {@code length} elements of {@code values}, which may be sorted in
+   * place.
+   */
+  private static @Nonnull LongSortedSet ofUnsorted(long[] values, int length) {
+    if (length == 0) {
+      return EMPTY;
+    }
+    Arrays.sort(values, 0, length);
+    int distinct = 1;
+    for (int i = 1; i < length; i++) {
+      if (values[i] != values[distinct - 1]) {
+        values[distinct++] = values[i];
+      }
+    }
+    return ofSorted(values, distinct);
+  }
+
+  /**
+   * Returns the set of the first {@code length} elements of {@code values}, which must be sorted in
+   * ascending order without duplicates.
+   */
+  private static @Nonnull LongSortedSet ofSorted(long[] values, int length) {
+    if (length == 0) {
+      return EMPTY;
+    }
+    return INTERNER.intern(
+        new LongSortedSet(length == values.length ? values : Arrays.copyOf(values, length)));
+  }
+
+  /** Returns whether this set contains {@code value}. */
+  public boolean containsLong(long value) {
+    return Arrays.binarySearch(_values, value) >= 0;
+  }
+
+  /** Returns whether this set and {@code other} have any element in common. */
+  public boolean containsAny(Collection<Long> other) {
+    if (!(other instanceof LongSortedSet)) {
+      return other.stream().anyMatch(this::contains);
+    }
+    long[] otherValues = ((LongSortedSet) other)._values;
+    int i = 0;
+    int j = 0;
+    while (i < _values.length && j < otherValues.length) {
+      if (_values[i] < otherValues[j]) {
+        i++;
+      } else if (_values[i] > otherValues[j]) {
+        j++;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether any element of this set satisfies {@code predicate}. */
+  public boolean anyMatch(LongPredicate predicate) {
+    for (long value : _values) {
+      if (predicate.test(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the subset of this set whose elements satisfy {@code predicate}. */
+  public @Nonnull LongSortedSet filter(LongPredicate predicate) {
+    long[] filtered = new long[_values.length];
+    int length = 0;
+    for (long value : _values) {
+      if (predicate.test(value)) {
+        filtered[length++] = value;
+      }
+    }
+    return length == _values.length ? this : ofSorted(filtered, length);
+  }
+
+  /** Returns the union of this set and {@code other}. */
+  public @Nonnull LongSortedSet union(Collection<Long> other) {
+    LongSortedSet otherSet = of(other);
+    if (otherSet._values.length == 0 || otherSet == this) {
+      return this;
+    } else if (_values.length == 0) {
+      return otherSet;
+    }
+    long[] otherValues = otherSet._values;
+    long[] union = new long[_values.length + otherValues.length];
+    int i = 0;
+    int j = 0;
+    int length = 0;
+    while (i < _values.length && j < otherValues.length) {
+      if (_values[i] < otherValues[j]) {
+        union[length++] = _values[i++];
+      } else if (_values[i] > otherValues[j]) {
+        union[length++] = otherValues[j++];
+      } else {
+        union[length++] = _values[i++];
+        j++;
+      }
+    }
+    while (i < _values.length) {
+      union[length++] = _values[i++];
+    }
+    while (j < otherValues.length) {
+      union[length++] = otherValues[j++];
+    }
+    return length == _values.length ? this : ofSorted(union, length);
+  }
+
+  /** Returns the union of this set and {@code {value}}. */
+  public @Nonnull LongSortedSet with(long value) {
+    int index = Arrays.binarySearch(_values, value);
+    if (index >= 0) {
+      return this;
+    }
+    int insertionPoint = -index - 1;
+    long[] values = new long[_values.length + 1];
+    System.arraycopy(_values, 0, values, 0, insertionPoint);
+    values[insertionPoint] = value;
+    System.arraycopy(
+        _values, insertionPoint, values, insertionPoint + 1, _values.length - insertionPoint);
+    return ofSorted(values, values.length);
+  }
+
+  /** Returns the elements of this set not in {@code other}. */
+  public @Nonnull LongSortedSet difference(Collection<Long> other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    LongSortedSet otherSet = of(other);
+    return otherSet == this ? EMPTY : filter(value -> !otherSet.containsLong(value));
+  }
+
+  /** Returns a copy of the elements of this set, in ascending order. */
+  public @Nonnull long[] toLongArray() {
+    return _values.clone();
+  }
+
+  @Override
+  public boolean contains(@Nullable Object o) {
+    return o instanceof Long && containsLong((Long) o);
+  }
+
+  @Override
+  public boolean containsAll(Collection<?> c) {
+    if (!(c instanceof LongSortedSet)) {
+      return super.containsAll(c);
+    }
+    long[] otherValues = ((LongSortedSet) c)._values;
+    if (otherValues.length > _values.length) {
+      return false;
+    }
+    int i = 0;
+    for (long otherValue : otherValues) {
+      while (i < _values.length && _values[i] < otherValue) {
+        i++;
+      }
+      if (i == _values.length || _values[i] != otherValue) {
+        return false;
+      }
+      i++;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _values.length == 0;
+  }
+
+  @Override
+  public @Nonnull Iterator<Long> iterator() {
+    return new Iterator<Long>() {
+      private int _next;
+
+      @Override
+      public boolean hasNext() {
+        return _next < _values.length;
+      }
+
+      @Override
+      public Long next() {
+        if (_next == _values.length) {
+          throw new NoSuchElementException();
+        }
+        return _values[_next++];
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return _values.length;
+  }
+
+  /** Returns {@code null}, since the elements are in natural order. */
+  @Override
+  public @Nullable Comparator<? super Long> comparator() {
+    return null;
+  }
+
+  @Override
+  public @Nonnull LongSortedSet subSet(Long fromElement, Long toElement) {
+    checkArgument(fromElement <= toElement, "fromElement is greater than toElement");
+    return slice(lowerBound(fromElement), lowerBound(toElement));
+  }
+
+  @Override
+  public @Nonnull LongSortedSet headSet(Long toElement) {
+    return slice(0, lowerBound(toElement));
+  }
+
+  @Override
+  public @Nonnull LongSortedSet tailSet(Long fromElement) {
+    return slice(lowerBound(fromElement), _values.length);
+  }
+
+  @Override
+  public @Nonnull Long first() {
+    if (_values.length == 0) {
+      throw new NoSuchElementException();
+    }
+    return _values[0];
+  }
+
+  @Override
+  public @Nonnull Long last() {
+    if (_values.length == 0) {
+      throw new NoSuchElementException();
+    }
+    return _values[_values.length - 1];
+  }
+
+  /** Returns the index of the first element not less than {@code value}. */
+  private int lowerBound(long value) {
+    int index = Arrays.binarySearch(_values, value);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  private @Nonnull LongSortedSet slice(int from, int to) {
+    return from == 0 && to == _values.length
+        ? this
+        : ofSorted(Arrays.copyOfRange(_values, from, to), to - from);
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o == this) {
+      return true;
+    } else if (o instanceof LongSortedSet) {
+      LongSortedSet other = (LongSortedSet) o;
+      return _hashCode == other._hashCode && Arrays.equals(_values, other._values);
+    }
+    return super.equals(o);
+  }
+
+  /** Consistent with {@link java.util.Set#hashCode()}. */
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  /** Re-computes the hash code and interns the deserialized set. */
+  private Object readResolve() {
+    return ofSorted(_values, _values.length);
+  }
+}
@@ -4,25 +4,25 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.BatfishException;
+import org.batfish.common.util.LongInterner;
 
 /** An IPv4 Prefix */
 @ParametersAreNonnullByDefault
 public final class Prefix implements Comparable<Prefix>, Serializable {
 
-  // Soft values: let it be garbage collected in times of pressure.
   // Maximum size 2^20: Just some upper bound on cache size, well less than GiB.
-  //   (12 bytes seems smallest possible entry (long + int), would be 12 MiB total).
-  private static final Cache<Prefix, Prefix> CACHE =
-      CacheBuilder.newBuilder().softValues().maximumSize(1 << 20).build();
+  //   (4-8 bytes per slot plus 24 bytes per Prefix, would be ~32 MiB total when full).
+  private static final LongInterner<Prefix> CACHE =
+      new LongInterner<>(1 << 20, p -> cacheKey(p._ip.asLong(), p._prefixLength));
+
+  /** Number of low-order bits of a cache key that hold the prefix length */
+  private static final int CACHE_KEY_LENGTH_BITS = 6;
 
   /** Maximum prefix length (number of bits) for a IPv4 address, which is 32 */
   public static final int MAX_PREFIX_LENGTH = 32;
@@ -89,13 +89,22 @@ public final class Prefix implements Comparable<Prefix>, Serializable {
   }
 
   public static Prefix create(Ip ip, int prefixLength) {
-    Prefix p = new Prefix(ip, prefixLength);
-    try {
-      return CACHE.get(p, () -> p);
-    } catch (ExecutionException e) {
-      // This shouldn't happen, but handle anyway.
-      return p;
+    if (!ip.valid() || prefixLength < 0 || prefixLength > MAX_PREFIX_LENGTH) {
+      // Not expressible as a cache key
+      return new Prefix(ip, prefixLength);
     }
+    long networkAddress = ip.asLong() & Ip.numSubnetBitsToSubnetLong(prefixLength);
+    return CACHE.intern(cacheKey(networkAddress, prefixLength), Prefix::fromCacheKey);
+  }
+
+  /** Pack a valid network address and prefix length into a single {@code long} */
+  private static long cacheKey(long networkAddress, int prefixLength) {
+    return (networkAddress << CACHE_KEY_LENGTH_BITS) | prefixLength;
+  }
+
+  private static Prefix fromCacheKey(long key) {
+    return new Prefix(
+        Ip.create(key >>> CACHE_KEY_LENGTH_BITS), (int) (key & ((1 << CACHE_KEY_LENGTH_BITS) - 1)));
   }
 
   public static Prefix create(Ip address, Ip mask) {
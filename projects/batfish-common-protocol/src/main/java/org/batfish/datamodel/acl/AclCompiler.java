@@ -0,0 +1,279 @@
+package org.batfish.datamodel.acl;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.SubRange;
+
+/**
+ * Compiles the {@link IpAccessList IpAccessLists} defined in one set of ACLs and named {@link
+ * IpSpace IpSpaces} to {@link CompiledAcl CompiledAcls}, and caches them by identity.
+ *
+ * <p>Each line is compiled to a tree of {@link FlowMatcher FlowMatchers} with the same structure as
+ * its match expression, except that a {@link HeaderSpace} becomes a conjunction of checks of only
+ * the fields it constrains, with IP spaces flattened by {@link IpSpaceCompiler}. ACLs referenced by
+ * {@link PermittedByAcl} are compiled when they are first evaluated, so that circular references
+ * fail the same way as in {@link Evaluator}.
+ */
+@ParametersAreNonnullByDefault
+final class AclCompiler {
+
+  /** A compiled {@link AclLineMatchExpr}. */
+  @FunctionalInterface
+  interface FlowMatcher {
+    boolean matches(Flow flow, @Nullable String srcInterface);
+  }
+
+  private static final FlowMatcher FALSE = (flow, srcInterface) -> false;
+
+  private static final HeaderSpace EMPTY_HEADER_SPACE = HeaderSpace.builder().build();
+
+  private static final FlowMatcher TRUE = (flow, srcInterface) -> true;
+
+  private final Map<String, IpAccessList> _availableAcls;
+
+  private final LoadingCache<IpAccessList, CompiledAcl> _compiledAcls;
+
+  private final Map<String, IpSpace> _namedIpSpaces;
+
+  AclCompiler(Map<String, IpAccessList> availableAcls, Map<String, IpSpace> namedIpSpaces) {
+    _availableAcls = availableAcls;
+    _namedIpSpaces = namedIpSpaces;
+    _compiledAcls =
+        CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(this::newCompiledAcl));
+  }
+
+  @Nonnull
+  CompiledAcl compile(IpAccessList acl) {
+    return _compiledAcls.getUnchecked(acl);
+  }
+
+  private @Nonnull CompiledAcl newCompiledAcl(IpAccessList acl) {
+    List<IpAccessListLine> lines = acl.getLines();
+    FlowMatcher[] matchers = new FlowMatcher[lines.size()];
+    LineAction[] actions = new LineAction[lines.size()];
+    LineCompiler lineCompiler = new LineCompiler();
+    for (int i = 0; i < matchers.length; i++) {
+      matchers[i] = lines.get(i).getMatchCondition().accept(lineCompiler);
+      actions[i] = lines.get(i).getAction();
+    }
+    return new CompiledAcl(acl.getName(), matchers, actions);
+  }
+
+  /** Compiles the match expressions of the lines of one ACL. */
+  private final class LineCompiler implements GenericAclLineMatchExprVisitor<FlowMatcher> {
+
+    private final IpSpaceCompiler _ipSpaceCompiler = new IpSpaceCompiler(_namedIpSpaces);
+
+    private List<FlowMatcher> compileAll(Collection<AclLineMatchExpr> exprs) {
+      return exprs.stream().map(expr -> expr.accept(this)).collect(ImmutableList.toImmutableList());
+    }
+
+    private @Nullable LongPredicate compileIpSpace(@Nullable IpSpace ipSpace) {
+      return ipSpace == null ? null : ipSpace.accept(_ipSpaceCompiler);
+    }
+
+    @Override
+    public FlowMatcher visitAndMatchExpr(AndMatchExpr andMatchExpr) {
+      return and(compileAll(andMatchExpr.getConjuncts()));
+    }
+
+    @Override
+    public FlowMatcher visitFalseExpr(FalseExpr falseExpr) {
+      return FALSE;
+    }
+
+    @Override
+    public FlowMatcher visitMatchHeaderSpace(MatchHeaderSpace matchHeaderSpace) {
+      HeaderSpace headerSpace = matchHeaderSpace.getHeaderspace();
+      List<FlowMatcher> checks = new ArrayList<>();
+
+      // Cheapest checks first
+      if (!headerSpace.getIpProtocols().isEmpty()) {
+        Set<IpProtocol> ipProtocols = EnumSet.copyOf(headerSpace.getIpProtocols());
+        checks.add((flow, srcInterface) -> ipProtocols.contains(flow.getIpProtocol()));
+      }
+      if (!headerSpace.getNotIpProtocols().isEmpty()) {
+        Set<IpProtocol> notIpProtocols = EnumSet.copyOf(headerSpace.getNotIpProtocols());
+        checks.add((flow, srcInterface) -> !notIpProtocols.contains(flow.getIpProtocol()));
+      }
+      if (!headerSpace.getDstPorts().isEmpty()) {
+        int[] ranges = compileRanges(headerSpace.getDstPorts());
+        checks.add((flow, srcInterface) -> rangesContain(ranges, flow.getDstPort()));
+      }
+      if (!headerSpace.getNotDstPorts().isEmpty()) {
+        int[] ranges = compileRanges(headerSpace.getNotDstPorts());
+        checks.add((flow, srcInterface) -> !rangesContain(ranges, flow.getDstPort()));
+      }
+      if (!headerSpace.getSrcPorts().isEmpty()) {
+        int[] ranges = compileRanges(headerSpace.getSrcPorts());
+        checks.add((flow, srcInterface) -> rangesContain(ranges, flow.getSrcPort()));
+      }
+      if (!headerSpace.getNotSrcPorts().isEmpty()) {
+        int[] ranges = compileRanges(headerSpace.getNotSrcPorts());
+        checks.add((flow, srcInterface) -> !rangesContain(ranges, flow.getSrcPort()));
+      }
+      LongPredicate dstIps = compileIpSpace(headerSpace.getDstIps());
+      if (dstIps != null) {
+        checks.add((flow, srcInterface) -> dstIps.test(flow.getDstIp().asLong()));
+      }
+      LongPredicate notDstIps = compileIpSpace(headerSpace.getNotDstIps());
+      if (notDstIps != null) {
+        checks.add((flow, srcInterface) -> !notDstIps.test(flow.getDstIp().asLong()));
+      }
+      LongPredicate srcIps = compileIpSpace(headerSpace.getSrcIps());
+      if (srcIps != null) {
+        checks.add((flow, srcInterface) -> srcIps.test(flow.getSrcIp().asLong()));
+      }
+      LongPredicate notSrcIps = compileIpSpace(headerSpace.getNotSrcIps());
+      if (notSrcIps != null) {
+        checks.add((flow, srcInterface) -> !notSrcIps.test(flow.getSrcIp().asLong()));
+      }
+      LongPredicate srcOrDstIps = compileIpSpace(headerSpace.getSrcOrDstIps());
+      if (srcOrDstIps != null) {
+        checks.add(
+            (flow, srcInterface) ->
+                srcOrDstIps.test(flow.getSrcIp().asLong())
+                    || srcOrDstIps.test(flow.getDstIp().asLong()));
+      }
+
+      // The remaining fields are rarely constrained, so leave them to HeaderSpace#matches.
+      HeaderSpace rest =
+          headerSpace
+              .toBuilder()
+              .setDstIps((IpSpace) null)
+              .setDstPorts(ImmutableList.of())
+              .setIpProtocols(ImmutableList.of())
+              .setNegate(false)
+              .setNotDstIps((IpSpace) null)
+              .setNotDstPorts(ImmutableList.of())
+              .setNotIpProtocols(ImmutableList.of())
+              .setNotSrcIps((IpSpace) null)
+              .setNotSrcPorts(ImmutableList.of())
+              .setSrcIps((IpSpace) null)
+              .setSrcOrDstIps((IpSpace) null)
+              .setSrcPorts(ImmutableList.of())
+              .build();
+      if (!rest.equals(EMPTY_HEADER_SPACE)) {
+        checks.add((flow, srcInterface) -> rest.matches(flow, ImmutableMap.of()));
+      }
+
+      return and(checks);
+    }
+
+    @Override
+    public FlowMatcher visitMatchSrcInterface(MatchSrcInterface matchSrcInterface) {
+      Set<String> srcInterfaces = ImmutableSet.copyOf(matchSrcInterface.getSrcInterfaces());
+      return (flow, srcInterface) -> srcInterfaces.contains(srcInterface);
+    }
+
+    @Override
+    public FlowMatcher visitNotMatchExpr(NotMatchExpr notMatchExpr) {
+      FlowMatcher operand = notMatchExpr.getOperand().accept(this);
+      return (flow, srcInterface) -> !operand.matches(flow, srcInterface);
+    }
+
+    @Override
+    public FlowMatcher visitOriginatingFromDevice(OriginatingFromDevice originatingFromDevice) {
+      return (flow, srcInterface) -> srcInterface == null;
+    }
+
+    @Override
+    public FlowMatcher visitOrMatchExpr(OrMatchExpr orMatchExpr) {
+      FlowMatcher[] disjuncts = compileAll(orMatchExpr.getDisjuncts()).toArray(new FlowMatcher[0]);
+      return (flow, srcInterface) -> {
+        for (FlowMatcher disjunct : disjuncts) {
+          if (disjunct.matches(flow, srcInterface)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+
+    @Override
+    public FlowMatcher visitPermittedByAcl(PermittedByAcl permittedByAcl) {
+      String aclName = permittedByAcl.getAclName();
+      LineAction defaultAction =
+          permittedByAcl.getDefaultAccept() ? LineAction.PERMIT : LineAction.DENY;
+      Supplier<CompiledAcl> acl =
+          Suppliers.memoize(
+              () -> {
+                IpAccessList referencedAcl = _availableAcls.get(aclName);
+                if (referencedAcl == null) {
+                  throw new BatfishException("Reference to undefined ACL: " + aclName);
+                }
+                return compile(referencedAcl);
+              });
+      return (flow, srcInterface) ->
+          acl.get().action(flow, srcInterface, defaultAction) == LineAction.PERMIT;
+    }
+
+    @Override
+    public FlowMatcher visitTrueExpr(TrueExpr trueExpr) {
+      return TRUE;
+    }
+  }
+
+  private static @Nonnull FlowMatcher and(List<FlowMatcher> checks) {
+    switch (checks.size()) {
+      case 0:
+        return TRUE;
+      case 1:
+        return checks.get(0);
+      default:
+        FlowMatcher[] conjuncts = checks.toArray(new FlowMatcher[0]);
+        return (flow, srcInterface) -> {
+          for (FlowMatcher conjunct : conjuncts) {
+            if (!conjunct.matches(flow, srcInterface)) {
+              return false;
+            }
+          }
+          return true;
+        };
+    }
+  }
+
+  /** Returns the bounds of {@code ranges}, as consecutive start and end pairs. */
+  private static @Nonnull int[] compileRanges(Collection<SubRange> ranges) {
+    int[] bounds = new int[ranges.size() * 2];
+    int i = 0;
+    for (SubRange range : ranges) {
+      bounds[i++] = range.getStart();
+      bounds[i++] = range.getEnd();
+    }
+    return bounds;
+  }
+
+  private static boolean rangesContain(int[] bounds, int num) {
+    for (int i = 0; i < bounds.length; i += 2) {
+      if (bounds[i] <= num && num <= bounds[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,107 @@
+package org.batfish.datamodel.acl;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.acl.AclCompiler.FlowMatcher;
+
+/**
+ * An {@link IpAccessList} compiled for fast evaluation of concrete flows. Filtering a flow with a
+ * compiled ACL gives the same {@link FilterResult} as {@link IpAccessList#filter(Flow, String, Map,
+ * Map)}, without walking the match expressions of the ACL or the {@link IpSpace IpSpaces} they
+ * reference.
+ *
+ * <p>Use {@link #forConfiguration(Configuration, IpAccessList)} to evaluate the ACLs of a {@link
+ * Configuration}: each ACL is compiled once, and reused for as long as its configuration is in use.
+ * The configuration must not be modified once its ACLs are compiled.
+ */
+@ParametersAreNonnullByDefault
+public final class CompiledAcl {
+
+  /** The ACL compiler of each configuration, which caches the ACLs it compiles. */
+  private static final LoadingCache<Configuration, AclCompiler> COMPILERS =
+      CacheBuilder.newBuilder()
+          .weakKeys()
+          .build(CacheLoader.from(c -> new AclCompiler(c.getIpAccessLists(), c.getIpSpaces())));
+
+  /**
+   * Compiles {@code acl}, whose references are resolved in {@code availableAcls} and {@code
+   * namedIpSpaces}. The ACLs it references are compiled when they are first needed.
+   */
+  public static @Nonnull CompiledAcl compile(
+      IpAccessList acl,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    return new AclCompiler(availableAcls, namedIpSpaces).compile(acl);
+  }
+
+  /** Returns {@code acl}, which is defined in {@code c}, compiled. */
+  public static @Nonnull CompiledAcl forConfiguration(Configuration c, IpAccessList acl) {
+    return COMPILERS.getUnchecked(c).compile(acl);
+  }
+
+  private final LineAction[] _actions;
+
+  private final FlowMatcher[] _lines;
+
+  private final String _name;
+
+  CompiledAcl(String name, FlowMatcher[] lines, LineAction[] actions) {
+    _name = name;
+    _lines = lines;
+    _actions = actions;
+  }
+
+  /**
+   * Returns the action taken on {@code flow} entering at {@code srcInterface}, or {@code
+   * defaultAction} if no line matches it.
+   */
+  @Nonnull
+  LineAction action(Flow flow, @Nullable String srcInterface, LineAction defaultAction) {
+    int line = matchLine(flow, srcInterface);
+    return line < 0 ? defaultAction : _actions[line];
+  }
+
+  /** Same as {@link IpAccessList#filter(Flow, String, Map, Map)} on the compiled ACL. */
+  @Nonnull
+  public FilterResult filter(Flow flow, @Nullable String srcInterface) {
+    return filter(flow, srcInterface, LineAction.DENY);
+  }
+
+  /**
+   * Same as {@link IpAccessList#filter(Flow, String, Map, Map, LineAction)} on the compiled ACL.
+   */
+  @Nonnull
+  public FilterResult filter(Flow flow, @Nullable String srcInterface, LineAction defaultAction) {
+    int line = matchLine(flow, srcInterface);
+    return line < 0
+        ? new FilterResult(null, defaultAction)
+        : new FilterResult(line, _actions[line]);
+  }
+
+  @Nonnull
+  public String getName() {
+    return _name;
+  }
+
+  /** Returns the index of the first line matching the flow, or -1 if there is none. */
+  private int matchLine(Flow flow, @Nullable String srcInterface) {
+    FlowMatcher[] lines = _lines;
+    for (int i = 0; i < lines.length; i++) {
+      if (lines[i].matches(flow, srcInterface)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
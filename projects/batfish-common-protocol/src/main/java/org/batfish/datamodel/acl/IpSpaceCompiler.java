@@ -0,0 +1,252 @@
+package org.batfish.datamodel.acl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.AclIpSpaceLine;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpIpSpace;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardIpSpace;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixIpSpace;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.datamodel.visitors.GenericIpSpaceVisitor;
+
+/**
+ * Compiles an {@link IpSpace} to a predicate on IP addresses (as returned by {@link Ip#asLong()})
+ * that agrees with {@link IpSpace#containsIp(Ip, Map)}.
+ *
+ * <p>Wherever possible, the result is a single {@link WildcardList}, which tests an address with a
+ * loop over primitive arrays: prefixes, wildcards, wildcard sets, and IP ACLs whose lines are made
+ * of those are all flattened into one. Named IP spaces are resolved once, at compile time.
+ */
+@ParametersAreNonnullByDefault
+final class IpSpaceCompiler implements GenericIpSpaceVisitor<LongPredicate> {
+
+  /**
+   * A first-match list of IP wildcards, each with the result for the addresses it matches, and a
+   * result for the addresses none of them match.
+   */
+  static final class WildcardList implements LongPredicate {
+
+    private static final WildcardList EMPTY =
+        new WildcardList(new long[0], new long[0], new boolean[0], false);
+
+    private static final WildcardList UNIVERSE =
+        new WildcardList(new long[0], new long[0], new boolean[0], true);
+
+    private final boolean _defaultResult;
+
+    /** The address of each wildcard, with its wildcard bits set */
+    private final long[] _ips;
+
+    private final boolean[] _results;
+
+    /** The wildcard bits of each wildcard */
+    private final long[] _wildcards;
+
+    private WildcardList(long[] ips, long[] wildcards, boolean[] results, boolean defaultResult) {
+      _ips = ips;
+      _wildcards = wildcards;
+      _results = results;
+      _defaultResult = defaultResult;
+    }
+
+    /** Whether the result of every wildcard is {@code true}, and the default result is not. */
+    private boolean isPositive() {
+      if (_defaultResult) {
+        return false;
+      }
+      for (boolean result : _results) {
+        if (!result) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean test(long ip) {
+      long[] ips = _ips;
+      long[] wildcards = _wildcards;
+      for (int i = 0; i < ips.length; i++) {
+        if ((ip | wildcards[i]) == ips[i]) {
+          return _results[i];
+        }
+      }
+      return _defaultResult;
+    }
+  }
+
+  /** Accumulates the entries of a {@link WildcardList}. */
+  private static final class WildcardListBuilder {
+    private long[] _ips = new long[4];
+    private boolean[] _results = new boolean[4];
+    private int _size;
+    private long[] _wildcards = new long[4];
+
+    private void add(long ip, long wildcard, boolean result) {
+      if (_size == _ips.length) {
+        _ips = Arrays.copyOf(_ips, _size * 2);
+        _results = Arrays.copyOf(_results, _size * 2);
+        _wildcards = Arrays.copyOf(_wildcards, _size * 2);
+      }
+      _ips[_size] = ip | wildcard;
+      _results[_size] = result;
+      _wildcards[_size] = wildcard;
+      _size++;
+    }
+
+    private void add(IpWildcard wildcard, boolean result) {
+      add(wildcard.getIp().asLong(), wildcard.getWildcard().asLong(), result);
+    }
+
+    private WildcardList build(boolean defaultResult) {
+      return new WildcardList(
+          Arrays.copyOf(_ips, _size),
+          Arrays.copyOf(_wildcards, _size),
+          Arrays.copyOf(_results, _size),
+          defaultResult);
+    }
+  }
+
+  /** A first-match list of arbitrary compiled IP spaces, each with its action. */
+  private static final class LineList implements LongPredicate {
+    private final LongPredicate[] _ipSpaces;
+    private final boolean[] _permits;
+
+    private LineList(LongPredicate[] ipSpaces, boolean[] permits) {
+      _ipSpaces = ipSpaces;
+      _permits = permits;
+    }
+
+    @Override
+    public boolean test(long ip) {
+      for (int i = 0; i < _ipSpaces.length; i++) {
+        if (_ipSpaces[i].test(ip)) {
+          return _permits[i];
+        }
+      }
+      return false;
+    }
+  }
+
+  private final Map<String, IpSpace> _namedIpSpaces;
+
+  /** Names of the IP spaces being compiled, to detect circular references */
+  private final Set<String> _referencesInProgress;
+
+  IpSpaceCompiler(Map<String, IpSpace> namedIpSpaces) {
+    _namedIpSpaces = namedIpSpaces;
+    _referencesInProgress = new HashSet<>();
+  }
+
+  @Override
+  public LongPredicate castToGenericIpSpaceVisitorReturnType(Object o) {
+    return (LongPredicate) o;
+  }
+
+  @Override
+  public LongPredicate visitAclIpSpace(AclIpSpace aclIpSpace) {
+    List<AclIpSpaceLine> lines = aclIpSpace.getLines();
+    LongPredicate[] ipSpaces = new LongPredicate[lines.size()];
+    boolean[] permits = new boolean[lines.size()];
+    boolean flat = true;
+    for (int i = 0; i < ipSpaces.length; i++) {
+      ipSpaces[i] = lines.get(i).getIpSpace().accept(this);
+      permits[i] = lines.get(i).getAction() == LineAction.PERMIT;
+      flat &= ipSpaces[i] == WildcardList.UNIVERSE || isPositiveWildcardList(ipSpaces[i]);
+    }
+    if (!flat) {
+      return new LineList(ipSpaces, permits);
+    }
+    WildcardListBuilder builder = new WildcardListBuilder();
+    for (int i = 0; i < ipSpaces.length; i++) {
+      if (ipSpaces[i] == WildcardList.UNIVERSE) {
+        // later lines are unreachable
+        return builder.build(permits[i]);
+      }
+      WildcardList wildcards = (WildcardList) ipSpaces[i];
+      for (int j = 0; j < wildcards._ips.length; j++) {
+        builder.add(wildcards._ips[j], wildcards._wildcards[j], permits[i]);
+      }
+    }
+    return builder.build(false);
+  }
+
+  private static boolean isPositiveWildcardList(LongPredicate ipSpace) {
+    return ipSpace instanceof WildcardList && ((WildcardList) ipSpace).isPositive();
+  }
+
+  @Override
+  public LongPredicate visitEmptyIpSpace(EmptyIpSpace emptyIpSpace) {
+    return WildcardList.EMPTY;
+  }
+
+  @Override
+  public LongPredicate visitIpIpSpace(IpIpSpace ipIpSpace) {
+    WildcardListBuilder builder = new WildcardListBuilder();
+    builder.add(ipIpSpace.getIp().asLong(), 0L, true);
+    return builder.build(false);
+  }
+
+  @Override
+  public LongPredicate visitIpSpaceReference(IpSpaceReference ipSpaceReference) {
+    String name = ipSpaceReference.getName();
+    IpSpace ipSpace = _namedIpSpaces.get(name);
+    if (ipSpace == null) {
+      return WildcardList.EMPTY;
+    }
+    if (!_referencesInProgress.add(name)) {
+      // Circular reference: leave it to the interpreter, which only fails if it is reached.
+      return ip -> ipSpaceReference.containsIp(Ip.create(ip), _namedIpSpaces);
+    }
+    try {
+      return ipSpace.accept(this);
+    } finally {
+      _referencesInProgress.remove(name);
+    }
+  }
+
+  @Override
+  public LongPredicate visitIpWildcardIpSpace(IpWildcardIpSpace ipWildcardIpSpace) {
+    WildcardListBuilder builder = new WildcardListBuilder();
+    builder.add(ipWildcardIpSpace.getIpWildcard(), true);
+    return builder.build(false);
+  }
+
+  @Override
+  public LongPredicate visitIpWildcardSetIpSpace(IpWildcardSetIpSpace ipWildcardSetIpSpace) {
+    WildcardListBuilder builder = new WildcardListBuilder();
+    ipWildcardSetIpSpace.getBlacklist().forEach(wildcard -> builder.add(wildcard, false));
+    ipWildcardSetIpSpace.getWhitelist().forEach(wildcard -> builder.add(wildcard, true));
+    return builder.build(false);
+  }
+
+  @Override
+  public LongPredicate visitPrefixIpSpace(PrefixIpSpace prefixIpSpace) {
+    Prefix prefix = prefixIpSpace.getPrefix();
+    if (!prefix.getStartIp().valid()) {
+      return ip -> prefix.containsIp(Ip.create(ip));
+    }
+    WildcardListBuilder builder = new WildcardListBuilder();
+    builder.add(prefix.getStartIp().asLong(), 0xFFFFFFFFL >>> prefix.getPrefixLength(), true);
+    return builder.build(false);
+  }
+
+  @Override
+  public LongPredicate visitUniverseIpSpace(UniverseIpSpace universeIpSpace) {
+    return WildcardList.UNIVERSE;
+  }
+}
@@ -54,6 +54,8 @@ public class ConvertConfigurationAnswerElement extends InitStepAnswerElement
 
   @Nonnull private SortedMap<String, BatfishException.BatfishStackTrace> _errors;
 
+  @Nullable private JobTimings _jobTimings;
+
   // This is just to support legacy objects, before _convertStatus map was used
   @Nullable private Set<String> _failed;
 
@@ -135,6 +137,12 @@ public class ConvertConfigurationAnswerElement extends InitStepAnswerElement
     return _errors;
   }
 
+  @Override
+  @Nullable
+  public JobTimings getJobTimings() {
+    return _jobTimings;
+  }
+
   @JsonProperty(PROP_REFERENCED_STRUCTURES)
   @Nonnull
   public SortedMap<
@@ -242,6 +250,11 @@ public class ConvertConfigurationAnswerElement extends InitStepAnswerElement
     _errors = errors;
   }
 
+  @Override
+  public void setJobTimings(@Nullable JobTimings jobTimings) {
+    _jobTimings = jobTimings;
+  }
+
   @VisibleForTesting
   @JsonIgnore
   void setFailed(Set<String> failed) {
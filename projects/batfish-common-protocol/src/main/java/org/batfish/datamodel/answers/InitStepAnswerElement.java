@@ -1,24 +1,37 @@
 package org.batfish.datamodel.answers;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.SortedMap;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.Warnings;
 
 public abstract class InitStepAnswerElement extends AnswerElement {
 
   protected static final String PROP_ERRORS = "errors";
+  protected static final String PROP_JOB_TIMINGS = "jobTimings";
   protected static final String PROP_WARNINGS = "warnings";
 
   @JsonProperty(PROP_ERRORS)
   public abstract SortedMap<String, BatfishException.BatfishStackTrace> getErrors();
 
+  /** Returns how long the jobs of this step took, or {@code null} if they were not timed. */
+  @JsonInclude(Include.NON_NULL)
+  @JsonProperty(PROP_JOB_TIMINGS)
+  @Nullable
+  public abstract JobTimings getJobTimings();
+
   @JsonProperty(PROP_WARNINGS)
   public abstract SortedMap<String, Warnings> getWarnings();
 
   @JsonProperty(PROP_ERRORS)
   public abstract void setErrors(SortedMap<String, BatfishException.BatfishStackTrace> errors);
 
+  @JsonProperty(PROP_JOB_TIMINGS)
+  public abstract void setJobTimings(@Nullable JobTimings jobTimings);
+
   @JsonProperty(PROP_WARNINGS)
   public abstract void setWarnings(SortedMap<String, Warnings> warnings);
 }
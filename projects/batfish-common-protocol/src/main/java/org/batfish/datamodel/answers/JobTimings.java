@@ -0,0 +1,188 @@
+package org.batfish.datamodel.answers;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * How long the jobs of an initialization step took: a histogram of per-job running times, and how
+ * the total work compares to the wall time of the step.
+ */
+public final class JobTimings implements Serializable {
+
+  /** Accumulates the running times of jobs. */
+  public static final class Builder {
+    private final SortedMap<Long, Integer> _histogram;
+    private long _maxMs;
+    private long _totalMs;
+    private int _count;
+
+    private Builder() {
+      _histogram = new TreeMap<>();
+    }
+
+    /** Record a job that ran for {@code elapsedMs} milliseconds. */
+    public Builder add(long elapsedMs) {
+      _histogram.merge(bucket(elapsedMs), 1, Integer::sum);
+      _maxMs = Math.max(_maxMs, elapsedMs);
+      _totalMs += elapsedMs;
+      _count++;
+      return this;
+    }
+
+    /** Record the jobs of {@code timings}, which ran as part of the same step. */
+    public Builder addAll(JobTimings timings) {
+      timings._histogram.forEach((bucket, count) -> _histogram.merge(bucket, count, Integer::sum));
+      _maxMs = Math.max(_maxMs, timings._maxMs);
+      _totalMs += timings._totalMs;
+      _count += timings._count;
+      return this;
+    }
+
+    /**
+     * Returns the timings of the recorded jobs.
+     *
+     * @param wallMs How long it took to run all of the jobs
+     * @param threads The number of threads the jobs ran on
+     */
+    public JobTimings build(long wallMs, int threads) {
+      return new JobTimings(_count, _histogram, _maxMs, threads, _totalMs, wallMs);
+    }
+  }
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String PROP_COUNT = "count";
+  private static final String PROP_HISTOGRAM = "histogram";
+  private static final String PROP_MAX_MS = "maxMs";
+  private static final String PROP_THREADS = "threads";
+  private static final String PROP_TOTAL_MS = "totalMs";
+  private static final String PROP_WALL_MS = "wallMs";
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the histogram bucket of a job that ran for {@code elapsedMs} milliseconds: the smallest
+   * power of two that is at least {@code elapsedMs}, or {@code 0} for jobs that took no measurable
+   * time.
+   */
+  static long bucket(long elapsedMs) {
+    return elapsedMs <= 1 ? Math.max(elapsedMs, 0L) : Long.highestOneBit(elapsedMs - 1) << 1;
+  }
+
+  private final int _count;
+
+  @Nonnull private final SortedMap<Long, Integer> _histogram;
+
+  private final long _maxMs;
+
+  private final int _threads;
+
+  private final long _totalMs;
+
+  private final long _wallMs;
+
+  @JsonCreator
+  private JobTimings(
+      @JsonProperty(PROP_COUNT) int count,
+      @Nullable @JsonProperty(PROP_HISTOGRAM) SortedMap<Long, Integer> histogram,
+      @JsonProperty(PROP_MAX_MS) long maxMs,
+      @JsonProperty(PROP_THREADS) int threads,
+      @JsonProperty(PROP_TOTAL_MS) long totalMs,
+      @JsonProperty(PROP_WALL_MS) long wallMs) {
+    _count = count;
+    _histogram = ImmutableSortedMap.copyOf(firstNonNull(histogram, ImmutableSortedMap.of()));
+    _maxMs = maxMs;
+    _threads = threads;
+    _totalMs = totalMs;
+    _wallMs = wallMs;
+  }
+
+  /** Returns the number of jobs. */
+  @JsonProperty(PROP_COUNT)
+  public int getCount() {
+    return _count;
+  }
+
+  /**
+   * Returns the number of jobs in each bucket of running times. A job is in bucket {@code b} if it
+   * ran for more than {@code b/2} and at most {@code b} milliseconds.
+   */
+  @JsonProperty(PROP_HISTOGRAM)
+  @Nonnull
+  public SortedMap<Long, Integer> getHistogram() {
+    return _histogram;
+  }
+
+  /** Returns the running time of the longest job, in milliseconds. */
+  @JsonProperty(PROP_MAX_MS)
+  public long getMaxMs() {
+    return _maxMs;
+  }
+
+  /** Returns the number of threads the jobs ran on. */
+  @JsonProperty(PROP_THREADS)
+  public int getThreads() {
+    return _threads;
+  }
+
+  /** Returns the sum of the running times of all jobs, in milliseconds. */
+  @JsonProperty(PROP_TOTAL_MS)
+  public long getTotalMs() {
+    return _totalMs;
+  }
+
+  /**
+   * Returns how long it took to run all of the jobs, in milliseconds. With perfect scheduling, this
+   * is close to {@code max(totalMs / threads, maxMs)}.
+   */
+  @JsonProperty(PROP_WALL_MS)
+  public long getWallMs() {
+    return _wallMs;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof JobTimings)) {
+      return false;
+    }
+    JobTimings other = (JobTimings) o;
+    return _count == other._count
+        && _histogram.equals(other._histogram)
+        && _maxMs == other._maxMs
+        && _threads == other._threads
+        && _totalMs == other._totalMs
+        && _wallMs == other._wallMs;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_count, _histogram, _maxMs, _threads, _totalMs, _wallMs);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add(PROP_COUNT, _count)
+        .add(PROP_TOTAL_MS, _totalMs)
+        .add(PROP_MAX_MS, _maxMs)
+        .add(PROP_WALL_MS, _wallMs)
+        .add(PROP_THREADS, _threads)
+        .add(PROP_HISTOGRAM, _histogram)
+        .toString();
+  }
+}
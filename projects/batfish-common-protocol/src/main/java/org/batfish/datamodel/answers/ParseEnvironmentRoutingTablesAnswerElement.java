@@ -3,6 +3,7 @@ package org.batfish.datamodel.answers;
 import java.io.Serializable;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warnings;
@@ -15,6 +16,8 @@ public class ParseEnvironmentRoutingTablesAnswerElement extends ParseAnswerEleme
 
   private SortedMap<String, BatfishException.BatfishStackTrace> _errors;
 
+  @Nullable private JobTimings _jobTimings;
+
   private SortedMap<String, ParseStatus> _parseStatus;
 
   private SortedMap<String, ParseTreeSentences> _parseTrees;
@@ -35,6 +38,12 @@ public class ParseEnvironmentRoutingTablesAnswerElement extends ParseAnswerEleme
     return _errors;
   }
 
+  @Override
+  @Nullable
+  public JobTimings getJobTimings() {
+    return _jobTimings;
+  }
+
   @Override
   public SortedMap<String, ParseStatus> getParseStatus() {
     return _parseStatus;
@@ -59,6 +68,11 @@ public class ParseEnvironmentRoutingTablesAnswerElement extends ParseAnswerEleme
     _errors = errors;
   }
 
+  @Override
+  public void setJobTimings(@Nullable JobTimings jobTimings) {
+    _jobTimings = jobTimings;
+  }
+
   @Override
   public void setParseStatus(SortedMap<String, ParseStatus> parseStatus) {
     _parseStatus = parseStatus;
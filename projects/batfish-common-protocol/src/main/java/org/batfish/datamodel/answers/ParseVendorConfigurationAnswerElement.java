@@ -6,6 +6,7 @@ import com.google.common.collect.TreeMultimap;
 import java.io.Serializable;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warning;
@@ -22,6 +23,8 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
 
   private SortedMap<String, BatfishException.BatfishStackTrace> _errors;
 
+  @Nullable private JobTimings _jobTimings;
+
   /* Map of hostname to source filenames (e.g. "configs/foo.cfg") */
   private Multimap<String, String> _fileMap;
 
@@ -55,6 +58,12 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
     return _errors;
   }
 
+  @Override
+  @Nullable
+  public JobTimings getJobTimings() {
+    return _jobTimings;
+  }
+
   @JsonProperty(PROP_FILE_MAP)
   public Multimap<String, String> getFileMap() {
     return _fileMap;
@@ -118,6 +127,11 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
     _errors = errors;
   }
 
+  @Override
+  public void setJobTimings(@Nullable JobTimings jobTimings) {
+    _jobTimings = jobTimings;
+  }
+
   @JsonProperty(PROP_FILE_MAP)
   public void setFileMap(Multimap<String, String> fileMap) {
     _fileMap = fileMap;
@@ -51,6 +51,8 @@ public class Environment {
 
   @Nullable private final Ip _peerAddress;
 
+  private boolean _peerAttributesRead;
+
   @Nullable private final Prefix _peerPrefix;
 
   private boolean _readFromIntermediateBgpAttributes;
@@ -163,11 +165,21 @@ public class Environment {
 
   @Nullable
   public Ip getPeerAddress() {
+    _peerAttributesRead = true;
     return _peerAddress;
   }
 
+  /**
+   * Returns whether {@link #getPeerAddress()} or {@link #getPeerPrefix()} has been called, i.e.
+   * whether evaluation so far may depend on the peer.
+   */
+  public boolean getPeerAttributesRead() {
+    return _peerAttributesRead;
+  }
+
   @Nullable
   public Prefix getPeerPrefix() {
+    _peerAttributesRead = true;
     return _peerPrefix;
   }
 
@@ -201,16 +201,49 @@ public class RoutingPolicy implements Serializable {
       @Nullable Prefix peerPrefix,
       String vrf,
       Direction direction) {
-    checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
+    return process(
+        buildEnvironment(inputRoute, outputRoute, peerAddress, peerPrefix, vrf, direction));
+  }
+
+  /**
+   * Like {@link #process(AbstractRoute, AbstractRouteBuilder, Ip, Prefix, String, Direction)}, but
+   * returns {@code null} if evaluation read {@code peerAddress} or {@code peerPrefix}. Otherwise,
+   * the result and the contents of {@code outputRoute} are the same for any peer, so they may be
+   * shared among peers. If {@code null} is returned, {@code outputRoute} must be discarded.
+   */
+  @Nullable
+  public Boolean processForAnyPeer(
+      AbstractRoute inputRoute,
+      AbstractRouteBuilder<?, ?> outputRoute,
+      @Nullable Ip peerAddress,
+      @Nullable Prefix peerPrefix,
+      String vrf,
+      Direction direction) {
     Environment environment =
-        Environment.builder(_owner)
-            .setVrf(vrf)
-            .setOriginalRoute(inputRoute)
-            .setOutputRoute(outputRoute)
-            .setPeerAddress(peerAddress)
-            .setDirection(direction)
-            .setPeerPrefix(peerPrefix)
-            .build();
+        buildEnvironment(inputRoute, outputRoute, peerAddress, peerPrefix, vrf, direction);
+    boolean result = process(environment);
+    return environment.getPeerAttributesRead() ? null : result;
+  }
+
+  private Environment buildEnvironment(
+      AbstractRoute inputRoute,
+      AbstractRouteBuilder<?, ?> outputRoute,
+      @Nullable Ip peerAddress,
+      @Nullable Prefix peerPrefix,
+      String vrf,
+      Direction direction) {
+    checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
+    return Environment.builder(_owner)
+        .setVrf(vrf)
+        .setOriginalRoute(inputRoute)
+        .setOutputRoute(outputRoute)
+        .setPeerAddress(peerAddress)
+        .setDirection(direction)
+        .setPeerPrefix(peerPrefix)
+        .build();
+  }
+
+  private boolean process(Environment environment) {
     Result result = call(environment);
     return result.getBooleanValue() && !(Boolean.TRUE.equals(environment.getSuppressed()));
   }
@@ -8,6 +8,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.datamodel.LongSortedSet;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.visitors.CommunitySetExprVisitor;
 import org.batfish.datamodel.visitors.VoidCommunitySetExprVisitor;
@@ -48,6 +49,10 @@ public abstract class CommunitySetExpr implements Serializable {
    * CommunitySetExpr} under the provided {@code environment}.
    */
   public boolean matchAnyCommunity(Environment environment, Set<Long> communityCandidates) {
+    if (communityCandidates instanceof LongSortedSet) {
+      return ((LongSortedSet) communityCandidates)
+          .anyMatch(communityCandidate -> matchCommunity(environment, communityCandidate));
+    }
     return communityCandidates.stream()
         .anyMatch(communityCandidate -> matchCommunity(environment, communityCandidate));
   }
@@ -71,6 +76,10 @@ public abstract class CommunitySetExpr implements Serializable {
    */
   public SortedSet<Long> matchedCommunities(
       @Nullable Environment environment, Set<Long> communityCandidates) {
+    if (communityCandidates instanceof LongSortedSet) {
+      return ((LongSortedSet) communityCandidates)
+          .filter(communityCandidate -> matchCommunity(environment, communityCandidate));
+    }
     return communityCandidates.stream()
         .filter(communityCandidate -> matchCommunity(environment, communityCandidate))
         .collect(ImmutableSortedSet.toImmutableSortedSet(Comparator.naturalOrder()));
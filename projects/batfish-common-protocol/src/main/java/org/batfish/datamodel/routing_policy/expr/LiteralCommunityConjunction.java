@@ -6,11 +6,11 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Sets;
 import java.util.Collection;
 import java.util.Set;
 import java.util.SortedSet;
 import javax.annotation.Nonnull;
+import org.batfish.datamodel.LongSortedSet;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.visitors.CommunitySetExprVisitor;
 import org.batfish.datamodel.visitors.VoidCommunitySetExprVisitor;
@@ -32,10 +32,10 @@ public final class LiteralCommunityConjunction extends CommunitySetExpr {
         firstNonNull(requiredCommunities, ImmutableSortedSet.of()));
   }
 
-  private SortedSet<Long> _requiredCommunities;
+  private LongSortedSet _requiredCommunities;
 
   public LiteralCommunityConjunction(@Nonnull Collection<Long> requiredCommunities) {
-    _requiredCommunities = ImmutableSortedSet.copyOf(requiredCommunities);
+    _requiredCommunities = LongSortedSet.of(requiredCommunities);
   }
 
   @Override
@@ -82,8 +82,7 @@ public final class LiteralCommunityConjunction extends CommunitySetExpr {
 
   @Override
   public boolean matchCommunities(Environment environment, Set<Long> communitySetCandidate) {
-    return Sets.intersection(_requiredCommunities, communitySetCandidate).size()
-        == _requiredCommunities.size();
+    return communitySetCandidate.containsAll(_requiredCommunities);
   }
 
   @Override
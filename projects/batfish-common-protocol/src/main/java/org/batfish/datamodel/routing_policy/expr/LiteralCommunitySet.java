@@ -10,6 +10,7 @@ import java.util.Collection;
 import java.util.Set;
 import java.util.SortedSet;
 import javax.annotation.Nonnull;
+import org.batfish.datamodel.LongSortedSet;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.visitors.CommunitySetExprVisitor;
 import org.batfish.datamodel.visitors.VoidCommunitySetExprVisitor;
@@ -30,10 +31,10 @@ public class LiteralCommunitySet extends CommunitySetExpr {
     return new LiteralCommunitySet(firstNonNull(communities, ImmutableSortedSet.of()));
   }
 
-  private final SortedSet<Long> _communities;
+  private final LongSortedSet _communities;
 
   public LiteralCommunitySet(@Nonnull Collection<Long> communities) {
-    _communities = ImmutableSortedSet.copyOf(communities);
+    _communities = LongSortedSet.of(communities);
   }
 
   @Override
@@ -83,12 +84,12 @@ public class LiteralCommunitySet extends CommunitySetExpr {
 
   @Override
   public boolean matchCommunities(Environment environment, Set<Long> communitySetCandidate) {
-    return communitySetCandidate.stream().anyMatch(_communities::contains);
+    return _communities.containsAny(communitySetCandidate);
   }
 
   @Override
   public boolean matchCommunity(Environment environment, long community) {
-    return _communities.contains(community);
+    return _communities.containsLong(community);
   }
 
   @Override
@@ -3,7 +3,7 @@ package org.batfish.datamodel.table;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.collect.ImmutableList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import javax.annotation.Nonnull;
@@ -60,6 +60,6 @@ public class ExcludedRows {
 
   @JsonProperty(PROP_ROWS)
   public List<Row> getRowsList() {
-    return ImmutableList.copyOf(_rowsList);
+    return Collections.unmodifiableList(_rowsList);
   }
 }
@@ -5,8 +5,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import javax.annotation.Nonnull;
@@ -150,7 +150,7 @@ public final class TableAnswerElement extends AnswerElement {
 
   @JsonProperty(PROP_ROWS)
   public List<Row> getRowsList() {
-    return ImmutableList.copyOf(_rowsList);
+    return Collections.unmodifiableList(_rowsList);
   }
 
   /**
@@ -1,6 +1,7 @@
 package org.batfish.specifier;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -51,8 +52,10 @@ public abstract class NodeRoleRegexLocationSpecifier implements LocationSpecifie
                 .collect(ImmutableSet.toImmutableSet())
             : ImmutableSet.of();
 
-    return ctxt.getConfigs().values().stream()
-        .filter(node -> matchingRoles.stream().anyMatch(role -> role.matches(node.getHostname())))
+    Map<String, Configuration> configs = ctxt.getConfigs();
+    return configs.keySet().stream()
+        .filter(node -> matchingRoles.stream().anyMatch(role -> role.matches(node)))
+        .map(configs::get)
         .flatMap(this::getNodeLocations)
         .collect(ImmutableSet.toImmutableSet());
   }
@@ -1,12 +1,14 @@
 package org.batfish.specifier;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.questions.InterfacesSpecifier;
 
@@ -41,9 +43,10 @@ public final class ShorthandInterfaceSpecifier implements InterfaceSpecifier {
 
   @Override
   public Set<Interface> resolve(Set<String> nodes, SpecifierContext ctxt) {
-    return ctxt.getConfigs().values().stream()
-        .filter(c -> nodes.contains(c.getHostname()))
-        .map(c -> c.getAllInterfaces().values())
+    Map<String, Configuration> configs = ctxt.getConfigs();
+    return configs.keySet().stream()
+        .filter(nodes::contains)
+        .map(node -> configs.get(node).getAllInterfaces().values())
         .flatMap(Collection::stream)
         .filter(_shorthandSpecifier::matches)
         .collect(Collectors.toSet());
@@ -2,6 +2,8 @@ package org.batfish.specifier;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,28 +25,36 @@ public class SpecifierContextImpl implements SpecifierContext {
 
   private final @Nonnull Map<String, Configuration> _configs;
 
-  private final @Nonnull Map<String, Map<String, IpSpace>> _interfaceOwnedIps;
+  private final @Nonnull Supplier<Map<String, Map<String, IpSpace>>> _interfaceOwnedIps;
 
-  private final @Nonnull IpSpace _snapshotDeviceOwnedIps;
+  private final @Nonnull Supplier<IpSpace> _snapshotDeviceOwnedIps;
 
   public SpecifierContextImpl(@Nonnull IBatfish batfish, @Nonnull NetworkSnapshot networkSnapshot) {
     _batfish = batfish;
     _configs = _batfish.loadConfigurations(networkSnapshot);
-    IpOwners ipOwners = _batfish.getTopologyProvider().getIpOwners(networkSnapshot);
+
+    /* IP ownership depends on every configuration in the snapshot, so it is only computed if some
+     * specifier actually needs it. Otherwise, resolving specifiers only touches the configurations
+     * of the nodes they resolve to.
+     */
+    Supplier<IpOwners> ipOwners =
+        Suppliers.memoize(() -> _batfish.getTopologyProvider().getIpOwners(networkSnapshot));
 
     /* Include inactive interfaces here so their IPs are considered part of the network (even though
      * they are unreachable). This means when ARP fails for those IPs we'll use NEIGHBOR_UNREACHABLE
      * or INSUFFICIENT_INFO dispositions rather than DELIVERED_TO_SUBNET or EXITS_NETWORK.
      */
     _snapshotDeviceOwnedIps =
-        firstNonNull(
-            AclIpSpace.union(
-                ipOwners.getAllDeviceOwnedIps().keySet().stream()
-                    .map(Ip::toIpSpace)
-                    .collect(Collectors.toList())),
-            EmptyIpSpace.INSTANCE);
+        Suppliers.memoize(
+            () ->
+                firstNonNull(
+                    AclIpSpace.union(
+                        ipOwners.get().getAllDeviceOwnedIps().keySet().stream()
+                            .map(Ip::toIpSpace)
+                            .collect(Collectors.toList())),
+                    EmptyIpSpace.INSTANCE));
 
-    _interfaceOwnedIps = ipOwners.getInterfaceOwnedIpSpaces();
+    _interfaceOwnedIps = Suppliers.memoize(() -> ipOwners.get().getInterfaceOwnedIpSpaces());
   }
 
   @Nonnull
@@ -67,12 +77,12 @@ public class SpecifierContextImpl implements SpecifierContext {
   @Nonnull
   @Override
   public Map<String, Map<String, IpSpace>> getInterfaceOwnedIps() {
-    return _interfaceOwnedIps;
+    return _interfaceOwnedIps.get();
   }
 
   @Override
   @Nonnull
   public IpSpace getSnapshotDeviceOwnedIps() {
-    return _snapshotDeviceOwnedIps;
+    return _snapshotDeviceOwnedIps.get();
   }
 }
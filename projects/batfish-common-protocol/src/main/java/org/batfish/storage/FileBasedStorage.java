@@ -5,12 +5,15 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.batfish.common.plugin.PluginConsumer.DEFAULT_HEADER_LENGTH_BYTES;
 import static org.batfish.common.plugin.PluginConsumer.detectFormat;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
 import com.google.errorprone.annotations.MustBeClosed;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -22,18 +25,25 @@ import java.io.PushbackInputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -48,16 +58,20 @@ import org.batfish.common.BfConsts;
 import org.batfish.common.CompletionMetadata;
 import org.batfish.common.Version;
 import org.batfish.common.plugin.PluginConsumer.Format;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.KryoCodec;
 import org.batfish.common.util.ZipUtility;
 import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
+import org.batfish.datamodel.answers.AnswerMetadataUtil;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.collections.NodeInterfacePair;
@@ -77,9 +91,12 @@ import org.batfish.role.NodeRolesData;
 public final class FileBasedStorage implements StorageProvider {
 
   private static final String RELPATH_COMPLETION_METADATA_FILE = "completion_metadata.json";
+  private static final String RELPATH_FORKED_CONFIGURATIONS_FILE = "forked_configurations";
+  private static final String RELPATH_SERIALIZATION_FORMAT_FILE = "serialization_format";
 
   private final BatfishLogger _logger;
   private final BiFunction<String, Integer, AtomicInteger> _newBatch;
+  private final SerializationFormat _serializationFormat;
   private FileBasedStorageDirectoryProvider _d;
 
   @VisibleForTesting
@@ -94,8 +111,23 @@ public final class FileBasedStorage implements StorageProvider {
    */
   public FileBasedStorage(
       Path baseDir, BatfishLogger logger, BiFunction<String, Integer, AtomicInteger> newBatch) {
+    this(baseDir, logger, newBatch, SerializationFormat.JAVA);
+  }
+
+  /**
+   * Create a new {@link FileBasedStorage} instance that uses the given root path and job batch
+   * provider function, and that stores the serialized objects of new snapshots using the given
+   * {@link SerializationFormat}. Snapshots that already have serialized objects keep the format
+   * recorded for them; see {@link #storeSerializationFormatIfAbsent}.
+   */
+  public FileBasedStorage(
+      Path baseDir,
+      BatfishLogger logger,
+      BiFunction<String, Integer, AtomicInteger> newBatch,
+      SerializationFormat serializationFormat) {
     _logger = logger;
     _newBatch = newBatch;
+    _serializationFormat = serializationFormat;
     _d = new FileBasedStorageDirectoryProvider(baseDir);
   }
 
@@ -165,12 +197,52 @@ public final class FileBasedStorage implements StorageProvider {
           "Error reading vendor-independent configs directory: '" + indepDir + "'", e);
     }
     try {
-      return deserializeObjects(namesByPath, Configuration.class);
+      return deserializeObjects(
+          namesByPath, Configuration.class, loadSerializationFormat(network, snapshot));
     } catch (BatfishException e) {
       return null;
     }
   }
 
+  @Override
+  public @Nullable SortedSet<String> loadConfigurationHostnames(
+      NetworkId network, SnapshotId snapshot) {
+    Path indepDir = _d.getVendorIndependentConfigDir(network, snapshot);
+    if (!Files.exists(indepDir)) {
+      _logger.debugf("Unable to load config hostnames for %s: no cache directory", snapshot);
+      return null;
+    }
+    if (!cachedConfigsAreCompatible(network, snapshot)) {
+      _logger.debugf(
+          "Unable to load config hostnames for %s: error or incompatible version", snapshot);
+      return null;
+    }
+    SortedSet<String> hostnames = new TreeSet<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(indepDir)) {
+      for (Path serializedConfig : stream) {
+        hostnames.add(serializedConfig.getFileName().toString());
+      }
+    } catch (IOException e) {
+      throw new BatfishException(
+          "Error reading vendor-independent configs directory: '" + indepDir + "'", e);
+    }
+    return hostnames;
+  }
+
+  @Override
+  public @Nullable Configuration loadConfiguration(
+      NetworkId network, SnapshotId snapshot, String hostname) {
+    Path indepDir = _d.getVendorIndependentConfigDir(network, snapshot);
+    Path configPath = indepDir.resolve(hostname);
+    if (!configPath.normalize().getParent().equals(indepDir.normalize())
+        || !Files.exists(configPath)) {
+      return null;
+    }
+    _logger.debugf("Reading configuration '%s' from '%s'\n", hostname, configPath);
+    return deserializeObject(
+        configPath, Configuration.class, loadSerializationFormat(network, snapshot));
+  }
+
   @Override
   public @Nullable ConvertConfigurationAnswerElement loadConvertConfigurationAnswerElement(
       NetworkId network, SnapshotId snapshot) {
@@ -181,7 +253,10 @@ public final class FileBasedStorage implements StorageProvider {
       return null;
     }
     try {
-      return deserializeObject(ccaePath, ConvertConfigurationAnswerElement.class);
+      return deserializeObject(
+          ccaePath,
+          ConvertConfigurationAnswerElement.class,
+          loadSerializationFormat(network, snapshot));
     } catch (BatfishException e) {
       _logger.errorf(
           "Failed to deserialize ConvertConfigurationAnswerElement: %s",
@@ -347,7 +422,11 @@ public final class FileBasedStorage implements StorageProvider {
         String.format(
             "Serializing %s compressed configuration structures for snapshot %s",
             configurations.size(), snapshot);
-    storeConfigurations(outputDir, batchName, configurations);
+    storeConfigurations(
+        outputDir,
+        batchName,
+        configurations,
+        storeSerializationFormatIfAbsent(_serializationFormat, network, snapshot));
   }
 
   /**
@@ -361,12 +440,14 @@ public final class FileBasedStorage implements StorageProvider {
       NetworkId network,
       SnapshotId snapshot) {
     mkdirs(_d.getSnapshotDir(network, snapshot));
+    SerializationFormat serializationFormat =
+        storeSerializationFormatIfAbsent(_serializationFormat, network, snapshot);
 
     // Save the convert configuration answer element.
     Path ccaePath = getConvertAnswerPath(network, snapshot);
     mkdirs(ccaePath);
     CommonUtil.deleteIfExists(ccaePath);
-    serializeObject(convertAnswerElement, ccaePath);
+    serializeObject(convertAnswerElement, ccaePath, serializationFormat);
 
     Path outputDir = _d.getVendorIndependentConfigDir(network, snapshot);
 
@@ -375,7 +456,80 @@ public final class FileBasedStorage implements StorageProvider {
             "Serializing %s vendor-independent configuration structures for snapshot %s",
             configurations.size(), snapshot);
 
-    storeConfigurations(outputDir, batchName, configurations);
+    storeConfigurations(outputDir, batchName, configurations, serializationFormat);
+  }
+
+  /**
+   * Shares the configurations by hard-linking their files, falling back to copying them if the file
+   * system does not support links. Since serialized objects are always replaced rather than
+   * overwritten in place, a snapshot that stores its own configurations does not affect the other.
+   */
+  @Override
+  public boolean forkConfigurations(NetworkId network, SnapshotId baseSnapshot, SnapshotId snapshot)
+      throws IOException {
+    Path baseParseAnswerPath = getParseAnswerPath(network, baseSnapshot);
+    if (!Files.exists(baseParseAnswerPath) || !cachedConfigsAreCompatible(network, baseSnapshot)) {
+      return false;
+    }
+    linkOrCopy(
+        _d.getVendorSpecificConfigDir(network, baseSnapshot),
+        _d.getVendorSpecificConfigDir(network, snapshot));
+    linkOrCopy(
+        _d.getVendorIndependentConfigDir(network, baseSnapshot),
+        _d.getVendorIndependentConfigDir(network, snapshot));
+    linkOrCopy(baseParseAnswerPath, getParseAnswerPath(network, snapshot));
+    linkOrCopy(
+        getConvertAnswerPath(network, baseSnapshot), getConvertAnswerPath(network, snapshot));
+    // the shared objects are in the format of the base snapshot
+    linkOrCopy(
+        getSerializationFormatPath(network, baseSnapshot),
+        getSerializationFormatPath(network, snapshot));
+    Files.write(
+        getForkedConfigurationsPath(network, snapshot), baseSnapshot.getId().getBytes(UTF_8));
+    return true;
+  }
+
+  @Override
+  public boolean hasForkedConfigurations(NetworkId network, SnapshotId snapshot) {
+    return Files.exists(getForkedConfigurationsPath(network, snapshot))
+        && Files.exists(getParseAnswerPath(network, snapshot))
+        && cachedConfigsAreCompatible(network, snapshot);
+  }
+
+  /**
+   * Hard-links the file or the files under the directory {@code source} to the corresponding paths
+   * under {@code target}, or copies them if links are not supported. Does nothing if {@code source}
+   * does not exist.
+   */
+  private static void linkOrCopy(Path source, Path target) throws IOException {
+    if (!Files.exists(source)) {
+      return;
+    }
+    List<Path> sourcePaths;
+    try (Stream<Path> paths = Files.walk(source)) {
+      sourcePaths = paths.collect(ImmutableList.toImmutableList());
+    }
+    for (Path sourcePath : sourcePaths) {
+      Path targetPath = target.resolve(source.relativize(sourcePath));
+      if (Files.isDirectory(sourcePath)) {
+        Files.createDirectories(targetPath);
+        continue;
+      }
+      Files.createDirectories(targetPath.getParent());
+      try {
+        Files.createLink(targetPath, sourcePath);
+      } catch (UnsupportedOperationException | FileSystemException e) {
+        Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+  }
+
+  private @Nonnull Path getForkedConfigurationsPath(NetworkId network, SnapshotId snapshot) {
+    return _d.getSnapshotOutputDir(network, snapshot).resolve(RELPATH_FORKED_CONFIGURATIONS_FILE);
+  }
+
+  private @Nonnull Path getParseAnswerPath(NetworkId network, SnapshotId snapshot) {
+    return _d.getSnapshotOutputDir(network, snapshot).resolve(BfConsts.RELPATH_PARSE_ANSWER_PATH);
   }
 
   private @Nonnull Path getConvertAnswerPath(NetworkId network, SnapshotId snapshot) {
@@ -384,7 +538,10 @@ public final class FileBasedStorage implements StorageProvider {
   }
 
   private void storeConfigurations(
-      Path outputDir, String batchName, Map<String, Configuration> configurations) {
+      Path outputDir,
+      String batchName,
+      Map<String, Configuration> configurations,
+      SerializationFormat serializationFormat) {
     _logger.infof("\n*** %s***\n", batchName.toUpperCase());
     AtomicInteger progressCount = _newBatch.apply(batchName, configurations.size());
 
@@ -398,7 +555,7 @@ public final class FileBasedStorage implements StorageProvider {
         .forEach(
             e -> {
               Path currentOutputPath = outputDir.resolve(e.getKey());
-              serializeObject(e.getValue(), currentOutputPath);
+              serializeObject(e.getValue(), currentOutputPath, serializationFormat);
               progressCount.incrementAndGet();
             });
   }
@@ -410,6 +567,21 @@ public final class FileBasedStorage implements StorageProvider {
     CommonUtil.writeFile(answerPath, answerStr);
   }
 
+  @Override
+  public void storeAnswer(Answer answer, AnswerId answerId) {
+    Path answerPath = getAnswerPath(answerId);
+    mkdirs(answerPath.getParent());
+    try (OutputStream out = Files.newOutputStream(answerPath);
+        BufferedOutputStream bout = new BufferedOutputStream(out)) {
+      BatfishObjectMapper.writer()
+          .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .writeValue(bout, answer);
+    } catch (IOException e) {
+      throw new BatfishException("Could not write answer", e);
+    }
+    storeAnswerMetadata(AnswerMetadataUtil.computeAnswerMetadata(answer, _logger), answerId);
+  }
+
   @Override
   public void storeAnswerMetadata(AnswerMetadata answerMetadata, AnswerId answerId) {
     String metricsStr;
@@ -424,15 +596,27 @@ public final class FileBasedStorage implements StorageProvider {
   }
 
   /**
-   * Returns a single object of the given class deserialized from the given file. Uses the {@link
+   * Returns a single object of the given class deserialized from the given file of a snapshot
+   * serialized in {@code snapshotFormat}, or in an unknown format if {@code null}. Uses the {@link
    * FileBasedStorage} default file encoding including serialization format and compression.
    */
-  private static <S extends Serializable> S deserializeObject(Path inputFile, Class<S> outputClass)
+  private static <S extends Serializable> S deserializeObject(
+      Path inputFile, Class<S> outputClass, @Nullable SerializationFormat snapshotFormat)
       throws BatfishException {
     try (Closer closer = Closer.create()) {
       FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
       PushbackInputStream pbstream = new PushbackInputStream(fis, DEFAULT_HEADER_LENGTH_BYTES);
       Format f = detectFormat(pbstream);
+      if (snapshotFormat != null && !snapshotFormat.allows(f)) {
+        throw new BatfishException(
+            String.format(
+                "File %s is in format %s, which a snapshot serialized in format %s cannot contain",
+                inputFile, f, snapshotFormat));
+      }
+      if (f == Format.KRYO) {
+        return KryoCodec.deserialize(
+            pbstream, outputClass, Thread.currentThread().getContextClassLoader());
+      }
       ObjectInputStream ois;
       if (f == Format.GZIP) {
         GZIPInputStream gis =
@@ -459,7 +643,9 @@ public final class FileBasedStorage implements StorageProvider {
   }
 
   private <S extends Serializable> SortedMap<String, S> deserializeObjects(
-      Map<Path, String> namesByPath, Class<S> outputClass) {
+      Map<Path, String> namesByPath,
+      Class<S> outputClass,
+      @Nullable SerializationFormat snapshotFormat) {
     String outputClassName = outputClass.getName();
     AtomicInteger completed =
         _newBatch.apply(
@@ -477,17 +663,34 @@ public final class FileBasedStorage implements StorageProvider {
                       String name = entry.getValue();
                       _logger.debugf(
                           "Reading %s '%s' from '%s'\n", outputClassName, name, inputPath);
-                      S output = deserializeObject(inputPath, outputClass);
+                      S output = deserializeObject(inputPath, outputClass, snapshotFormat);
                       completed.incrementAndGet();
                       return output;
                     })));
   }
 
   /**
-   * Writes a single object of the given class to the given file. Uses the {@link FileBasedStorage}
-   * default file encoding including serialization format and compression.
+   * Writes a single object of the given class to the given file, in the given serialization format.
+   * Uses the {@link FileBasedStorage} default file encoding including compression.
    */
-  private static void serializeObject(Serializable object, Path outputFile) {
+  private void serializeObject(
+      Serializable object, Path outputFile, SerializationFormat serializationFormat) {
+    // Replace rather than overwrite the file, which may be shared with a forked snapshot
+    CommonUtil.deleteIfExists(outputFile);
+    if (serializationFormat == SerializationFormat.KRYO) {
+      try {
+        try (OutputStream out = Files.newOutputStream(outputFile);
+            BufferedOutputStream bout = new BufferedOutputStream(out)) {
+          KryoCodec.serialize(object, bout);
+        }
+        return;
+      } catch (IOException e) {
+        throw new BatfishException("Failed to serialize object to output file: " + outputFile, e);
+      } catch (BatfishException e) {
+        _logger.debugf(
+            "Falling back to Java serialization for %s: %s\n", outputFile, e.getMessage());
+      }
+    }
     try {
       try (OutputStream out = Files.newOutputStream(outputFile);
           LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
@@ -887,6 +1090,48 @@ public final class FileBasedStorage implements StorageProvider {
         UTF_8);
   }
 
+  @Override
+  public @Nullable SerializationFormat loadSerializationFormat(
+      NetworkId network, SnapshotId snapshot) {
+    Path path = getSerializationFormatPath(network, snapshot);
+    if (!Files.exists(path)) {
+      return null;
+    }
+    String name;
+    try {
+      name = new String(Files.readAllBytes(path), UTF_8).trim();
+    } catch (IOException e) {
+      throw new BatfishException("Could not read serialization format of snapshot " + snapshot, e);
+    }
+    try {
+      return SerializationFormat.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      throw new BatfishException(
+          String.format("Unknown serialization format '%s' of snapshot %s", name, snapshot), e);
+    }
+  }
+
+  @Override
+  public synchronized @Nonnull SerializationFormat storeSerializationFormatIfAbsent(
+      SerializationFormat serializationFormat, NetworkId network, SnapshotId snapshot) {
+    Path path = getSerializationFormatPath(network, snapshot);
+    mkdirs(path.getParent());
+    try {
+      Files.write(path, serializationFormat.name().getBytes(UTF_8), StandardOpenOption.CREATE_NEW);
+      return serializationFormat;
+    } catch (FileAlreadyExistsException e) {
+      SerializationFormat recorded = loadSerializationFormat(network, snapshot);
+      assert recorded != null; // the file exists
+      return recorded;
+    } catch (IOException e) {
+      throw new BatfishException("Could not write serialization format of snapshot " + snapshot, e);
+    }
+  }
+
+  private @Nonnull Path getSerializationFormatPath(NetworkId network, SnapshotId snapshot) {
+    return _d.getSnapshotOutputDir(network, snapshot).resolve(RELPATH_SERIALIZATION_FORMAT_FILE);
+  }
+
   private @Nonnull Path getSnapshotCompletionMetadataPath(
       NetworkId networkId, SnapshotId snapshotId) {
     return _d.getSnapshotOutputDir(networkId, snapshotId).resolve(RELPATH_COMPLETION_METADATA_FILE);
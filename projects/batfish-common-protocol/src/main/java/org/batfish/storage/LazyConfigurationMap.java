@@ -0,0 +1,94 @@
+package org.batfish.storage;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ForwardingSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Configuration;
+
+/**
+ * A read-only map from hostname to {@link Configuration} whose keys are known up front, but whose
+ * values are only loaded when they are accessed. Loaded configurations are softly referenced, so
+ * the same instance is returned for as long as it is in use elsewhere; configurations the garbage
+ * collector releases under memory pressure are reloaded on their next access.
+ *
+ * <p>Lookups of single nodes, {@link #containsKey(Object)}, {@link #keySet()}, and {@link #size()}
+ * do not load any other nodes, so consumers that only need a few nodes of a large network only pay
+ * for those nodes. Iterating over values or entries loads each node as it is reached.
+ *
+ * <p>Since released configurations are reloaded from their source, modifications made to a loaded
+ * {@link Configuration} are only guaranteed to be visible in later lookups while a reference to it
+ * is held.
+ */
+@ParametersAreNonnullByDefault
+public final class LazyConfigurationMap extends ForwardingSortedMap<String, Configuration> {
+
+  private final @Nonnull LoadingCache<String, Configuration> _cache;
+  private final @Nonnull SortedMap<String, Configuration> _delegate;
+  private final @Nonnull ImmutableSortedSet<String> _hostnames;
+
+  /**
+   * Create a new {@link LazyConfigurationMap}.
+   *
+   * @param hostnames The hostnames of all nodes in the map
+   * @param loader Loads the configuration for a hostname in {@code hostnames}. Must not return
+   *     {@code null}.
+   */
+  public LazyConfigurationMap(SortedSet<String> hostnames, Function<String, Configuration> loader) {
+    _cache = CacheBuilder.newBuilder().softValues().build(CacheLoader.from(loader::apply));
+    _hostnames = ImmutableSortedSet.copyOfSorted(hostnames);
+    _delegate = Maps.asMap(_hostnames, this::load);
+  }
+
+  @Override
+  protected SortedMap<String, Configuration> delegate() {
+    return _delegate;
+  }
+
+  /*
+   * The delegate implements the following methods by iterating over its entries, which would load
+   * every configuration.
+   */
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return _hostnames.contains(key);
+  }
+
+  @Override
+  public String firstKey() {
+    return _hostnames.first();
+  }
+
+  @Override
+  public String lastKey() {
+    return _hostnames.last();
+  }
+
+  /** Returns the number of configurations currently held in memory. */
+  @VisibleForTesting
+  long getCachedSize() {
+    _cache.cleanUp();
+    return _cache.size();
+  }
+
+  private @Nonnull Configuration load(String hostname) {
+    try {
+      return _cache.getUnchecked(hostname);
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+}
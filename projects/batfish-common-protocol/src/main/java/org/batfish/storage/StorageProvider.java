@@ -10,13 +10,16 @@ import java.util.SortedSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
 import org.batfish.common.CompletionMetadata;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
@@ -50,6 +53,23 @@ public interface StorageProvider {
   @Nullable
   SortedMap<String, Configuration> loadConfigurations(NetworkId network, SnapshotId snapshot);
 
+  /**
+   * Returns the hostnames of the configuration files for the given snapshot, without loading the
+   * configurations themselves. If a serialized copy of these configurations is not already present,
+   * then this function returns {@code null}.
+   */
+  @Nullable
+  SortedSet<String> loadConfigurationHostnames(NetworkId network, SnapshotId snapshot);
+
+  /**
+   * Returns the configuration file for the given node in the given snapshot. If a serialized copy
+   * of this configuration is not present, then this function returns {@code null}.
+   *
+   * @throws BatfishException if the serialized configuration could not be loaded
+   */
+  @Nullable
+  Configuration loadConfiguration(NetworkId network, SnapshotId snapshot, String hostname);
+
   /**
    * Returns the {@link ConvertConfigurationAnswerElement} that is the result of the phase that
    * converts vendor-specific configurations to vendor-independent configurations.
@@ -143,6 +163,57 @@ public interface StorageProvider {
       NetworkId network,
       SnapshotId snapshot);
 
+  /**
+   * Shares the parsed vendor-specific and converted vendor-independent configurations of {@code
+   * baseSnapshot}, along with the answer elements of parsing and converting them, with {@code
+   * snapshot}, so that they need not be parsed and converted again. The configuration files of
+   * {@code snapshot} must be the same as those of {@code baseSnapshot}. The shared configurations
+   * remain valid for both snapshots until either stores its own.
+   *
+   * @param network The name of the network
+   * @param baseSnapshot The name of the snapshot whose configurations are shared
+   * @param snapshot The name of the snapshot forked from {@code baseSnapshot}
+   * @return {@code false} if {@code baseSnapshot} has no compatible converted configurations to
+   *     share
+   * @throws IOException if there is an error sharing the configurations
+   */
+  boolean forkConfigurations(NetworkId network, SnapshotId baseSnapshot, SnapshotId snapshot)
+      throws IOException;
+
+  /**
+   * Returns whether the parsed and converted configurations of {@code snapshot} were shared with it
+   * by {@link #forkConfigurations(NetworkId, SnapshotId, SnapshotId)}.
+   *
+   * @param network The name of the network
+   * @param snapshot The name of the snapshot
+   */
+  boolean hasForkedConfigurations(NetworkId network, SnapshotId snapshot);
+
+  /**
+   * Returns the {@link SerializationFormat} in which the binary objects of {@code snapshot} are
+   * serialized, or {@code null} if none was recorded, e.g. because nothing was serialized yet or
+   * the snapshot predates recording formats.
+   *
+   * @param network The name of the network
+   * @param snapshot The name of the snapshot
+   */
+  @Nullable
+  SerializationFormat loadSerializationFormat(NetworkId network, SnapshotId snapshot);
+
+  /**
+   * Records {@code serializationFormat} as the format in which the binary objects of {@code
+   * snapshot} are serialized, unless a format is already recorded for it, and returns the recorded
+   * format. Binary objects of a snapshot should all be serialized in the format returned, so that
+   * changing the configured format only affects new snapshots.
+   *
+   * @param serializationFormat The format to record if none is recorded yet
+   * @param network The name of the network
+   * @param snapshot The name of the snapshot
+   */
+  @Nonnull
+  SerializationFormat storeSerializationFormatIfAbsent(
+      SerializationFormat serializationFormat, NetworkId network, SnapshotId snapshot);
+
   /**
    * Store the answer to an ad-hoc or analysis question.
    *
@@ -151,6 +222,16 @@ public interface StorageProvider {
    */
   void storeAnswer(String answerStr, AnswerId answerId);
 
+  /**
+   * Store the answer to an ad-hoc or analysis question, along with its metadata. The answer is
+   * serialized as compact JSON directly to storage, so large answers are never held in memory as
+   * text.
+   *
+   * @param answer The answer
+   * @param answerId The ID of the answer
+   */
+  void storeAnswer(Answer answer, AnswerId answerId);
+
   /**
    * Store the metadata for the answer to an ad-hoc or analysis question.
    *
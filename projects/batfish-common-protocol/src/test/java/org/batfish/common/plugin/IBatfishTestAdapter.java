@@ -1,5 +1,6 @@
 package org.batfish.common.plugin;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,6 +27,8 @@ import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowHistory;
 import org.batfish.datamodel.Ip;
@@ -503,6 +506,12 @@ public class IBatfishTestAdapter implements IBatfish {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public SortedMap<String, FailureScenarioResult> computeFailureScenarios(
+      Collection<FailureScenario> scenarios) {
+    throw new UnsupportedOperationException();
+  }
+
   public NetworkSnapshot networkSnapshot() {
     return new NetworkSnapshot(
         new NetworkId(UUID.randomUUID().toString()), new SnapshotId(UUID.randomUUID().toString()));
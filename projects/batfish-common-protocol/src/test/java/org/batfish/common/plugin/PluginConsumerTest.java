@@ -3,8 +3,14 @@ package org.batfish.common.plugin;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import org.batfish.common.BatfishLogger;
+import org.batfish.common.plugin.PluginConsumer.Format;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -20,6 +26,10 @@ public class PluginConsumerTest {
       super(serializeToText);
     }
 
+    private TestPluginConsumer(SerializationFormat serializationFormat) {
+      super(false, serializationFormat);
+    }
+
     @Override
     public PluginClientType getType() {
       throw new UnsupportedOperationException();
@@ -32,8 +42,11 @@ public class PluginConsumerTest {
   }
 
   private void runSerializationTest(boolean serializeToText) throws Exception {
+    runSerializationTest(new TestPluginConsumer(serializeToText));
+  }
+
+  private void runSerializationTest(TestPluginConsumer consumer) throws Exception {
     Path serializeFile = _folder.newFile().toPath();
-    TestPluginConsumer consumer = new TestPluginConsumer(serializeToText);
 
     int[] ints = new int[] {1, 2, 3};
     consumer.serializeObject(ints, serializeFile);
@@ -47,8 +60,49 @@ public class PluginConsumerTest {
     runSerializationTest(false);
   }
 
+  @Test
+  public void testSerializingAndDeserializingKryo() throws Exception {
+    runSerializationTest(new TestPluginConsumer(SerializationFormat.KRYO));
+  }
+
   @Test
   public void testSerializingAndDeserializingText() throws Exception {
     runSerializationTest(true);
   }
+
+  @Test
+  public void testSerializingAndDeserializingStream() throws Exception {
+    TestPluginConsumer consumer = new TestPluginConsumer(false);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    int[] ints = new int[] {1, 2, 3};
+    consumer.serializeObject(ints, out);
+
+    int[] value =
+        consumer.deserializeObject(new ByteArrayInputStream(out.toByteArray()), int[].class);
+    assertThat(value, equalTo(ints));
+  }
+
+  @Test
+  public void testDetectFormatKryo() throws Exception {
+    Path serializeFile = _folder.newFile().toPath();
+    new TestPluginConsumer(SerializationFormat.KRYO).serializeObject(1, serializeFile);
+
+    try (PushbackInputStream stream =
+        new PushbackInputStream(
+            Files.newInputStream(serializeFile), PluginConsumer.DEFAULT_HEADER_LENGTH_BYTES)) {
+      assertThat(PluginConsumer.detectFormat(stream), equalTo(Format.KRYO));
+    }
+  }
+
+  @Test
+  public void testDeserializingKryoWithJavaConsumer() throws Exception {
+    Path serializeFile = _folder.newFile().toPath();
+    new TestPluginConsumer(SerializationFormat.KRYO).serializeObject("foo", serializeFile);
+
+    // The format is detected from the data, not from the consumer's serialization format.
+    assertThat(
+        new TestPluginConsumer(false).deserializeObject(serializeFile, String.class),
+        equalTo("foo"));
+  }
 }
@@ -0,0 +1,173 @@
+package org.batfish.common.util;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.InterfaceAddress;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixSpace;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.collections.RoutesByVrf;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class KryoCodecTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    KryoCodec.serialize(object, out);
+    return out.toByteArray();
+  }
+
+  private static <T> T roundTrip(T object, Class<T> clazz) throws IOException {
+    return KryoCodec.deserialize(
+        new ByteArrayInputStream(serialize(object)), clazz, KryoCodec.class.getClassLoader());
+  }
+
+  @Test
+  public void testConfiguration() throws IOException {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    Vrf vrf = nf.vrfBuilder().setOwner(c).setName(Configuration.DEFAULT_VRF_NAME).build();
+    nf.interfaceBuilder()
+        .setOwner(c)
+        .setVrf(vrf)
+        .setAddress(new InterfaceAddress("10.0.0.1/24"))
+        .build();
+
+    Configuration copy = roundTrip(c, Configuration.class);
+
+    assertThat(
+        BatfishObjectMapper.writePrettyString(copy),
+        equalTo(BatfishObjectMapper.writePrettyString(c)));
+    // References back to the owning configuration are preserved.
+    assertTrue(copy.getAllInterfaces().values().iterator().next().getOwner() == copy);
+  }
+
+  @Test
+  public void testCustomJavaSerialization() throws IOException {
+    PrefixSpace prefixSpace = new PrefixSpace();
+    prefixSpace.addPrefix(Prefix.parse("10.0.0.0/8"));
+
+    PrefixSpace copy = roundTrip(prefixSpace, PrefixSpace.class);
+
+    assertThat(copy, equalTo(prefixSpace));
+    assertTrue(copy.containsPrefix(Prefix.parse("10.0.0.0/8")));
+  }
+
+  @Test
+  public void testCollectionWithExtraState() throws IOException {
+    RoutesByVrf routesByVrf = new RoutesByVrf();
+    routesByVrf.setUnrecognized(true);
+
+    assertTrue(roundTrip(routesByVrf, RoutesByVrf.class).getUnrecognized());
+  }
+
+  @Test
+  public void testEnumMap() throws IOException {
+    EnumMap<ConfigurationFormat, String> empty = new EnumMap<>(ConfigurationFormat.class);
+    EnumMap<ConfigurationFormat, String> map = new EnumMap<>(ConfigurationFormat.class);
+    map.put(ConfigurationFormat.JUNIPER, "a");
+    map.put(ConfigurationFormat.ARISTA, "b");
+
+    assertThat(roundTrip(empty, EnumMap.class), equalTo(empty));
+    assertThat(roundTrip(map, EnumMap.class), equalTo(map));
+  }
+
+  @Test
+  public void testGuavaCollections() throws IOException {
+    Map<String, Object> map =
+        ImmutableMap.of(
+            "list",
+            ImmutableList.of(3, 1, 2),
+            "map",
+            ImmutableMap.of("b", 1, "a", 2),
+            "bimap",
+            ImmutableBiMap.of("a", 1),
+            "sortedMap",
+            ImmutableSortedMap.reverseOrder().put("a", 1).put("b", 2).build(),
+            "sortedSet",
+            ImmutableSortedSet.reverseOrder().add("a", "b", "c").build());
+
+    assertThat(roundTrip(map, Map.class), equalTo(map));
+    assertThat(roundTrip(map, Map.class), instanceOf(ImmutableMap.class));
+  }
+
+  @Test
+  public void testJdkCollectionWrappers() throws IOException {
+    List<String> unmodifiable = Collections.unmodifiableList(new ArrayList<>(Arrays.asList("a")));
+    List<String> asList = Arrays.asList("a", "b");
+    SortedSet<String> reversed = new TreeSet<>(Comparator.<String>reverseOrder());
+    reversed.addAll(ImmutableList.of("a", "c", "b"));
+    SortedSet<String> sortedSet = Collections.unmodifiableSortedSet(reversed);
+    Map<String, Integer> map = Collections.unmodifiableMap(new HashMap<>(ImmutableMap.of("a", 1)));
+    List<String> singleton = Collections.singletonList("a");
+
+    assertThat(roundTrip(unmodifiable, List.class), equalTo(unmodifiable));
+    assertThat(roundTrip(asList, List.class), equalTo(asList));
+    assertThat(roundTrip(map, Map.class), equalTo(map));
+    assertThat(roundTrip(singleton, List.class), equalTo(singleton));
+
+    @SuppressWarnings("unchecked")
+    SortedSet<String> sortedSetCopy = roundTrip(sortedSet, SortedSet.class);
+
+    assertThat(sortedSetCopy, contains("c", "b", "a"));
+  }
+
+  @Test
+  public void testSerializableLambda() throws IOException {
+    SortedSet<String> set =
+        ImmutableSortedSet.orderedBy((Comparator<String> & Serializable) (a, b) -> b.compareTo(a))
+            .add("a", "c", "b")
+            .build();
+
+    @SuppressWarnings("unchecked")
+    SortedSet<String> copy = roundTrip(set, SortedSet.class);
+
+    assertThat(copy, contains("c", "b", "a"));
+  }
+
+  @Test
+  public void testIncompatibleVersion() throws IOException {
+    byte[] data = serialize("foo");
+    // Corrupt the first character of the version string following the magic bytes and its length.
+    data[KryoCodec.MAGIC_BYTES.length + 2]++;
+
+    _thrown.expect(BatfishException.class);
+    KryoCodec.deserialize(
+        new ByteArrayInputStream(data), String.class, KryoCodec.class.getClassLoader());
+  }
+}
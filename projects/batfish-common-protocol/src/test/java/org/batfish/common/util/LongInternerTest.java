@@ -0,0 +1,70 @@
+package org.batfish.common.util;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link LongInterner} */
+public class LongInternerTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  /** An immutable box, compared by identity */
+  private static final class Box {
+    private final long _value;
+
+    private Box(long value) {
+      _value = value;
+    }
+
+    private long getValue() {
+      return _value;
+    }
+  }
+
+  @Test
+  public void testCapacityRoundedUp() {
+    assertThat(new LongInterner<>(5, Box::getValue).capacity(), equalTo(8));
+    assertThat(new LongInterner<>(8, Box::getValue).capacity(), equalTo(8));
+  }
+
+  @Test
+  public void testCapacityTooSmall() {
+    _thrown.expect(IllegalArgumentException.class);
+    new LongInterner<>(1, Box::getValue);
+  }
+
+  @Test
+  public void testIntern() {
+    LongInterner<Box> interner = new LongInterner<>(1 << 10, Box::getValue);
+    AtomicInteger created = new AtomicInteger();
+    Box first =
+        interner.intern(
+            5L,
+            k -> {
+              created.incrementAndGet();
+              return new Box(k);
+            });
+    assertThat(first.getValue(), equalTo(5L));
+    assertThat(interner.intern(5L, Box::new), sameInstance(first));
+    assertThat(interner.intern(-5L, Box::new), not(sameInstance(first)));
+    assertThat(created.get(), equalTo(1));
+  }
+
+  @Test
+  public void testEviction() {
+    // Interning more keys than fit must still return correct objects
+    LongInterner<Box> interner = new LongInterner<>(4, Box::getValue);
+    for (long i = 0; i < 100; i++) {
+      assertThat(interner.intern(i, Box::new).getValue(), equalTo(i));
+    }
+    Box last = interner.intern(99L, Box::new);
+    assertThat(interner.intern(99L, Box::new), sameInstance(last));
+  }
+}
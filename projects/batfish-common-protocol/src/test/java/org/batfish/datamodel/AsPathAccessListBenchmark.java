@@ -0,0 +1,128 @@
+package org.batfish.datamodel;
+
+import com.google.common.collect.ImmutableList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of {@link AsPathAccessList#permits(AsPath)} on a stream of mostly
+ * distinct AS paths, as in a large external BGP feed, compared with compiling each line's regex on
+ * every cache miss and caching every outcome, as {@link AsPathAccessList} used to. Each invocation
+ * filters every path with a fresh list, so that every path is a cache miss; scores are per path.
+ *
+ * <p>Not run as part of the test suite. Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class AsPathAccessListBenchmark {
+
+  private static final int NUM_PATHS = 100_000;
+
+  private static final long SEED = 42L;
+
+  /** A typical list: deny bogon and private ASNs anywhere in the path, then filter by origin */
+  private static final List<AsPathAccessListLine> LINES =
+      ImmutableList.of(
+          new AsPathAccessListLine(LineAction.DENY, "(^|[^0-9])0($|[^0-9])"),
+          new AsPathAccessListLine(LineAction.DENY, "(^|[^0-9])23456($|[^0-9])"),
+          new AsPathAccessListLine(LineAction.DENY, "(^|[^0-9])6449[6-9]($|[^0-9])"),
+          new AsPathAccessListLine(LineAction.DENY, "(^|[^0-9])645[0-1][0-9]($|[^0-9])"),
+          new AsPathAccessListLine(LineAction.DENY, "(^|[^0-9])6[5-9][0-9][0-9][0-9]($|[^0-9])"),
+          new AsPathAccessListLine(LineAction.DENY, "^([0-9]+ ){30,}"),
+          new AsPathAccessListLine(LineAction.PERMIT, "^174( |$)"),
+          new AsPathAccessListLine(LineAction.PERMIT, "^3356( |$)"),
+          new AsPathAccessListLine(LineAction.PERMIT, "(^| )(1299|2914|6453)$"),
+          new AsPathAccessListLine(LineAction.DENY, ".*"));
+
+  /** {@link AsPathAccessList#permits(AsPath)} as it was: compile on miss, cache forever */
+  private static final class LegacyAsPathAccessList implements Predicate<AsPath> {
+    private final Set<AsPath> _deniedCache = new HashSet<>();
+    private final Set<AsPath> _permittedCache = new HashSet<>();
+
+    @Override
+    public boolean test(AsPath asPath) {
+      if (_deniedCache.contains(asPath)) {
+        return false;
+      } else if (_permittedCache.contains(asPath)) {
+        return true;
+      }
+      boolean accept = false;
+      for (AsPathAccessListLine line : LINES) {
+        if (Pattern.compile(line.getRegex()).matcher(asPath.getAsPathString()).find()) {
+          accept = line.getAction() == LineAction.PERMIT;
+          break;
+        }
+      }
+      (accept ? _permittedCache : _deniedCache).add(asPath);
+      return accept;
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AsPathAccessListBenchmark.class.getName()).build())
+        .run();
+  }
+
+  private AsPath[] _paths;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(SEED);
+    long[] transit = {174L, 3356L, 1299L, 2914L, 6453L};
+    _paths = new AsPath[NUM_PATHS];
+    for (int i = 0; i < NUM_PATHS; i++) {
+      int length = 1 + random.nextInt(6);
+      ImmutableList.Builder<Long> asns = ImmutableList.builder();
+      asns.add(transit[random.nextInt(transit.length)]);
+      for (int j = 1; j < length; j++) {
+        asns.add(1L + random.nextInt(400_000));
+      }
+      _paths[i] = AsPath.ofSingletonAsSets(asns.build());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_PATHS)
+  public int compiledList() {
+    return countPermitted(new AsPathAccessList("list", LINES)::permits);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_PATHS)
+  public int perLineCompile() {
+    return countPermitted(new LegacyAsPathAccessList());
+  }
+
+  private int countPermitted(Predicate<AsPath> permits) {
+    int permitted = 0;
+    for (AsPath path : _paths) {
+      if (permits.test(path)) {
+        permitted++;
+      }
+    }
+    return permitted;
+  }
+}
@@ -0,0 +1,52 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+/** Tests of {@link AsPathAccessList}. */
+public final class AsPathAccessListTest {
+
+  private static AsPathAccessListLine permit(String regex) {
+    return new AsPathAccessListLine(LineAction.PERMIT, regex);
+  }
+
+  private static AsPathAccessListLine deny(String regex) {
+    return new AsPathAccessListLine(LineAction.DENY, regex);
+  }
+
+  @Test
+  public void testPermits() {
+    AsPathAccessList list =
+        new AsPathAccessList(
+            "list",
+            ImmutableList.of(
+                deny("(^|[^0-9])65000($|[^0-9])"), permit("^1 "), deny("^1"), permit("2$")));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(1L, 65000L)), equalTo(false));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(1L, 650001L)), equalTo(true));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(12L)), equalTo(false));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(3L, 2L)), equalTo(true));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(3L)), equalTo(false));
+    // cached outcomes are the same
+    assertThat(list.permits(AsPath.ofSingletonAsSets(1L, 65000L)), equalTo(false));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(3L, 2L)), equalTo(true));
+  }
+
+  @Test
+  public void testNoLines() {
+    assertThat(new AsPathAccessList("list", null).permits(AsPath.empty()), equalTo(false));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    AsPathAccessList list = new AsPathAccessList("list", ImmutableList.of(permit("^1$")));
+    assertThat(list.permits(AsPath.ofSingletonAsSets(1L)), equalTo(true));
+    AsPathAccessList clone = SerializationUtils.clone(list);
+    assertThat(clone, equalTo(list));
+    assertThat(clone.permits(AsPath.ofSingletonAsSets(1L)), equalTo(true));
+    assertThat(clone.permits(AsPath.ofSingletonAsSets(2L)), equalTo(false));
+  }
+}
@@ -2,6 +2,7 @@ package org.batfish.datamodel;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.testing.EqualsTester;
@@ -53,6 +54,40 @@ public class BgpRouteTest {
     assertThat(br, equalTo(br.toBuilder().build()));
   }
 
+  @Test
+  public void testAttributesShared() {
+    BgpRoute br =
+        BgpRoute.builder()
+            .setNetwork(Prefix.parse("1.1.1.0/24"))
+            .setOriginatorIp(Ip.parse("1.1.1.1"))
+            .setOriginType(OriginType.IGP)
+            .setProtocol(RoutingProtocol.BGP)
+            .setClusterList(ImmutableSet.of(3L, 1L))
+            .setCommunities(ImmutableSet.of(2L, 1L))
+            .build();
+    BgpRoute copy = br.toBuilder().addCommunity(1L).build();
+    assertThat(copy.getClusterList(), sameInstance(br.getClusterList()));
+    assertThat(copy.getCommunities(), sameInstance(br.getCommunities()));
+
+    BgpRoute deserialized = SerializationUtils.clone(br);
+    assertThat(deserialized, equalTo(br));
+    assertThat(deserialized.getCommunities(), sameInstance(br.getCommunities()));
+  }
+
+  @Test
+  public void testCommunitiesJsonSerialization() throws IOException {
+    BgpRoute br =
+        BgpRoute.builder()
+            .setNetwork(Prefix.parse("1.1.1.0/24"))
+            .setOriginatorIp(Ip.parse("1.1.1.1"))
+            .setOriginType(OriginType.IGP)
+            .setProtocol(RoutingProtocol.BGP)
+            .setClusterList(ImmutableSet.of(3L, 1L))
+            .setCommunities(ImmutableSet.of(2L, 1L))
+            .build();
+    assertThat(BatfishObjectMapper.clone(br, BgpRoute.class), equalTo(br));
+  }
+
   @Test
   public void testEquals() {
     Builder brb =
@@ -0,0 +1,69 @@
+package org.batfish.datamodel;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of {@link Ip#create(long)} under multi-threaded contention, compared with
+ * the Guava {@link Cache} with soft values that it used to be backed by.
+ *
+ * <p>Not run as part of the test suite. Run {@link #main} from the test classpath; by default, one
+ * thread runs per processor. Use {@code -t} to set the number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Threads(Threads.MAX)
+@Warmup(iterations = 3)
+public class IpCreateBenchmark {
+
+  /** Number of distinct addresses drawn from, so that most lookups are hits */
+  private static final int DISTINCT_IPS = 1 << 16;
+
+  private static final long SEED = 42L;
+
+  private static final long[] IPS = new Random(SEED).longs(DISTINCT_IPS, 0L, 1L << 32).toArray();
+
+  private static final Cache<Long, Ip> GUAVA_CACHE =
+      CacheBuilder.newBuilder().softValues().maximumSize(1 << 20).build();
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(IpCreateBenchmark.class.getName()).build()).run();
+  }
+
+  /** Index of the next address to look up; threads start at different offsets */
+  private int _next = (int) (Thread.currentThread().getId() * 7919);
+
+  @Benchmark
+  public Ip guavaCache() throws ExecutionException {
+    long ipAsLong = nextIp();
+    return GUAVA_CACHE.get(ipAsLong, () -> Ip.create(ipAsLong));
+  }
+
+  @Benchmark
+  public Ip interner() {
+    return Ip.create(nextIp());
+  }
+
+  private long nextIp() {
+    return IPS[_next++ & (DISTINCT_IPS - 1)];
+  }
+}
@@ -0,0 +1,95 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.testing.EqualsTester;
+import java.io.IOException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.junit.Test;
+
+/** Tests of {@link LongSortedSet}. */
+public final class LongSortedSetTest {
+
+  @Test
+  public void testOf() {
+    LongSortedSet set = LongSortedSet.of(3L, 1L, 2L, 1L);
+    assertThat(set.size(), equalTo(3));
+    assertThat(set.toLongArray(), equalTo(new long[] {1L, 2L, 3L}));
+    assertThat(ImmutableList.copyOf(set), equalTo(ImmutableList.of(1L, 2L, 3L)));
+    assertThat(set.first(), equalTo(1L));
+    assertThat(set.last(), equalTo(3L));
+    assertThat(LongSortedSet.of(ImmutableList.of(2L, 3L, 1L)), sameInstance(set));
+    assertThat(LongSortedSet.of(), sameInstance(LongSortedSet.empty()));
+  }
+
+  @Test
+  public void testEquals() {
+    new EqualsTester()
+        .addEqualityGroup(
+            LongSortedSet.of(1L, 2L),
+            LongSortedSet.of(2L, 1L),
+            ImmutableSortedSet.of(1L, 2L),
+            ImmutableSet.of(2L, 1L))
+        .addEqualityGroup(LongSortedSet.empty(), ImmutableSortedSet.of())
+        .addEqualityGroup(LongSortedSet.of(1L))
+        .testEquals();
+  }
+
+  @Test
+  public void testContains() {
+    LongSortedSet set = LongSortedSet.of(1L, 3L, 5L);
+    assertThat(set.contains(3L), equalTo(true));
+    assertThat(set.contains(3), equalTo(false));
+    assertThat(set.containsLong(4L), equalTo(false));
+    assertThat(set.containsAll(LongSortedSet.of(1L, 5L)), equalTo(true));
+    assertThat(set.containsAll(LongSortedSet.of(1L, 4L)), equalTo(false));
+    assertThat(set.containsAll(ImmutableSet.of(5L, 3L)), equalTo(true));
+    assertThat(set.containsAny(LongSortedSet.of(0L, 5L)), equalTo(true));
+    assertThat(set.containsAny(LongSortedSet.of(0L, 2L, 4L)), equalTo(false));
+    assertThat(set.containsAny(ImmutableSet.of(2L, 3L)), equalTo(true));
+    assertThat(set.anyMatch(value -> value > 4L), equalTo(true));
+    assertThat(set.anyMatch(value -> value > 5L), equalTo(false));
+  }
+
+  @Test
+  public void testSetOperations() {
+    LongSortedSet set = LongSortedSet.of(1L, 3L, 5L);
+    assertThat(set.union(ImmutableSet.of(2L, 3L)), equalTo(LongSortedSet.of(1L, 2L, 3L, 5L)));
+    assertThat(set.union(LongSortedSet.of(1L)), sameInstance(set));
+    assertThat(set.with(4L), equalTo(LongSortedSet.of(1L, 3L, 4L, 5L)));
+    assertThat(set.with(3L), sameInstance(set));
+    assertThat(set.difference(ImmutableSet.of(3L, 4L)), equalTo(LongSortedSet.of(1L, 5L)));
+    assertThat(set.difference(set), sameInstance(LongSortedSet.empty()));
+    assertThat(set.filter(value -> value != 1L), equalTo(LongSortedSet.of(3L, 5L)));
+  }
+
+  @Test
+  public void testSubSets() {
+    LongSortedSet set = LongSortedSet.of(1L, 3L, 5L);
+    assertThat(set.subSet(2L, 5L), equalTo(LongSortedSet.of(3L)));
+    assertThat(set.headSet(3L), equalTo(LongSortedSet.of(1L)));
+    assertThat(set.tailSet(3L), equalTo(LongSortedSet.of(3L, 5L)));
+    assertThat(set.tailSet(0L), sameInstance(set));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    LongSortedSet set = LongSortedSet.of(1L, 2L);
+    LongSortedSet clone = SerializationUtils.clone(set);
+    assertThat(clone, sameInstance(set));
+    assertThat(clone.hashCode(), equalTo(ImmutableSet.of(1L, 2L).hashCode()));
+  }
+
+  @Test
+  public void testJsonSerialization() throws IOException {
+    assertThat(
+        BatfishObjectMapper.writeString(LongSortedSet.of(2L, 1L)),
+        equalTo(BatfishObjectMapper.writeString(ImmutableList.of(1L, 2L))));
+  }
+}
@@ -5,6 +5,7 @@ import static org.batfish.datamodel.Prefix.strict;
 import static org.batfish.datamodel.matchers.IpSpaceMatchers.containsIp;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import net.sf.javabdd.BDD;
@@ -29,6 +30,15 @@ public class PrefixTest {
     assertThat(p.getPrefixLength(), equalTo(15));
   }
 
+  @Test
+  public void testCreateInterned() {
+    Prefix prefix = Prefix.create(Ip.parse("10.1.2.3"), 8);
+    assertThat(prefix, equalTo(parse("10.0.0.0/8")));
+    assertThat(Prefix.create(Ip.parse("10.0.0.0"), 8), sameInstance(prefix));
+    assertThat(Prefix.create(Ip.parse("10.0.0.0"), 16), not(equalTo(prefix)));
+    assertThat(Prefix.create(Ip.AUTO, 32).getStartIp(), equalTo(Ip.AUTO));
+  }
+
   @Test
   public void testContains() {
     PrefixIpSpace p = Prefix.parse("1.2.3.4/31").toIpSpace();
@@ -0,0 +1,182 @@
+package org.batfish.datamodel.acl;
+
+import static org.batfish.datamodel.IpAccessListLine.accepting;
+import static org.batfish.datamodel.IpAccessListLine.rejecting;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of {@link CompiledAcl#filter(Flow, String)} on a firewall-style ACL whose
+ * lines match object groups of prefixes, compared with {@link IpAccessList#filter(Flow, String,
+ * Map, Map)}, which walks the ACL with an {@link Evaluator}, and the cost of compiling the ACL.
+ *
+ * <p>Not run as part of the test suite. Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class CompiledAclBenchmark {
+
+  private static final int NUM_FLOWS = 1 << 16;
+
+  private static final int NUM_GROUPS = 50;
+
+  private static final int NUM_LINES = 200;
+
+  private static final long SEED = 42L;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CompiledAclBenchmark.class.getName()).build()).run();
+  }
+
+  private IpAccessList _acl;
+
+  private Map<String, IpAccessList> _acls;
+
+  private CompiledAcl _compiled;
+
+  private Flow[] _flows;
+
+  private Map<String, IpSpace> _namedIpSpaces;
+
+  /** Index of the next flow to filter */
+  private int _next;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(SEED);
+    _namedIpSpaces = randomGroups(random);
+    _acl = randomAcl(random);
+    _acls = ImmutableMap.of(_acl.getName(), _acl);
+    _compiled = CompiledAcl.compile(_acl, _acls, _namedIpSpaces);
+    _flows = randomFlows(random);
+  }
+
+  @Benchmark
+  public CompiledAcl compile() {
+    return CompiledAcl.compile(_acl, _acls, _namedIpSpaces);
+  }
+
+  @Benchmark
+  public FilterResult filterCompiled() {
+    return _compiled.filter(nextFlow(), "inside");
+  }
+
+  @Benchmark
+  public FilterResult filterEvaluator() {
+    return _acl.filter(nextFlow(), "inside", _acls, _namedIpSpaces);
+  }
+
+  private Flow nextFlow() {
+    return _flows[_next++ & (NUM_FLOWS - 1)];
+  }
+
+  /** Object groups of 1 to 20 prefixes in 10.0.0.0/12, some with excluded hosts */
+  private static Map<String, IpSpace> randomGroups(Random random) {
+    ImmutableMap.Builder<String, IpSpace> groups = ImmutableMap.builder();
+    for (int i = 0; i < NUM_GROUPS; i++) {
+      AclIpSpace.Builder group = AclIpSpace.builder();
+      if (random.nextBoolean()) {
+        group.thenRejecting(randomIp(random).toIpSpace());
+      }
+      int size = 1 + random.nextInt(20);
+      for (int j = 0; j < size; j++) {
+        group.thenPermitting(randomPrefix(random).toIpSpace());
+      }
+      groups.put("group" + i, group.build());
+    }
+    return groups.build();
+  }
+
+  /** Lines from source group to destination prefix and service, then a default deny */
+  private static IpAccessList randomAcl(Random random) {
+    ImmutableList.Builder<IpAccessListLine> lines = ImmutableList.builder();
+    for (int i = 0; i < NUM_LINES; i++) {
+      HeaderSpace.Builder headerSpace =
+          HeaderSpace.builder()
+              .setSrcIps(new IpSpaceReference("group" + random.nextInt(NUM_GROUPS)))
+              .setDstIps(
+                  IpWildcardSetIpSpace.builder()
+                      .including(new IpWildcard(randomPrefix(random)))
+                      .including(new IpWildcard(randomPrefix(random)))
+                      .build());
+      if (random.nextBoolean()) {
+        int port = 1 + random.nextInt(1024);
+        headerSpace
+            .setIpProtocols(ImmutableList.of(IpProtocol.TCP))
+            .setDstPorts(ImmutableList.of(new SubRange(port, port)));
+      }
+      IpAccessListLine line =
+          random.nextInt(4) == 0
+              ? rejecting(AclLineMatchExprs.match(headerSpace.build()))
+              : accepting(AclLineMatchExprs.match(headerSpace.build()));
+      lines.add(line);
+    }
+    lines.add(
+        new IpAccessListLine(
+            LineAction.DENY, AclLineMatchExprs.matchDst(UniverseIpSpace.INSTANCE), "deny any"));
+    return IpAccessList.builder().setName("acl").setLines(lines.build()).build();
+  }
+
+  private static Flow[] randomFlows(Random random) {
+    Flow[] flows = new Flow[NUM_FLOWS];
+    for (int i = 0; i < NUM_FLOWS; i++) {
+      flows[i] =
+          Flow.builder()
+              .setIngressNode("node")
+              .setTag("tag")
+              .setSrcIp(randomIp(random))
+              .setDstIp(randomIp(random))
+              .setIpProtocol(random.nextBoolean() ? IpProtocol.TCP : IpProtocol.UDP)
+              .setSrcPort(1024 + random.nextInt(60000))
+              .setDstPort(1 + random.nextInt(1024))
+              .build();
+    }
+    return flows;
+  }
+
+  /** An address in 10.0.0.0/12, so that flows regularly hit the prefixes of the ACL */
+  private static Ip randomIp(Random random) {
+    return Ip.create(Ip.parse("10.0.0.0").asLong() + random.nextInt(1 << 20));
+  }
+
+  private static Prefix randomPrefix(Random random) {
+    return Prefix.create(randomIp(random), 12 + random.nextInt(13));
+  }
+}
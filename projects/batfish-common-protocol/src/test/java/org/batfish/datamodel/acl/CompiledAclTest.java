@@ -0,0 +1,207 @@
+package org.batfish.datamodel.acl;
+
+import static org.batfish.datamodel.IpAccessListLine.accepting;
+import static org.batfish.datamodel.IpAccessListLine.rejecting;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.match;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrc;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrcInterface;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.or;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.annotation.Nullable;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.TcpFlags;
+import org.batfish.datamodel.TcpFlagsMatchConditions;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.junit.Test;
+
+/** Tests of {@link CompiledAcl}. */
+public final class CompiledAclTest {
+
+  private static final Map<String, IpSpace> NAMED_IP_SPACES =
+      ImmutableMap.of(
+          "servers",
+          AclIpSpace.rejecting(Ip.parse("10.0.1.1").toIpSpace())
+              .thenPermitting(Prefix.parse("10.0.1.0/24").toIpSpace())
+              .thenPermitting(new IpWildcard("10.0.0.0:0.0.2.3").toIpSpace())
+              .build(),
+          "clients",
+          AclIpSpace.permitting(
+                  IpWildcardSetIpSpace.builder()
+                      .including(new IpWildcard("10.0.2.0/23"))
+                      .excluding(new IpWildcard("10.0.3.0/28"))
+                      .build())
+              .thenPermitting(new IpSpaceReference("servers"))
+              .build(),
+          "everything",
+          AclIpSpace.permitting(Prefix.parse("10.0.0.0/8").toIpSpace())
+              .thenRejecting(UniverseIpSpace.INSTANCE)
+              .thenPermitting(EmptyIpSpace.INSTANCE)
+              .build(),
+          "loop",
+          AclIpSpace.rejecting(Ip.parse("10.0.0.1").toIpSpace())
+              .thenPermitting(UniverseIpSpace.INSTANCE)
+              .thenPermitting(new IpSpaceReference("loop"))
+              .build());
+
+  private static final IpAccessList REFERENCED =
+      IpAccessList.builder()
+          .setName("referenced")
+          .setLines(
+              ImmutableList.of(
+                  rejecting(matchSrc(new IpSpaceReference("servers"))),
+                  accepting(
+                      match(
+                          HeaderSpace.builder()
+                              .setIpProtocols(ImmutableList.of(IpProtocol.UDP))
+                              .setDstPorts(ImmutableList.of(new SubRange(53, 53)))
+                              .build()))))
+          .build();
+
+  private static final IpAccessList ACL =
+      IpAccessList.builder()
+          .setName("acl")
+          .setLines(
+              ImmutableList.of(
+                  rejecting(matchDst(new IpSpaceReference("undefined"))),
+                  accepting(
+                      and(
+                          matchSrcInterface("i1"),
+                          matchSrc(new IpSpaceReference("clients")),
+                          match(
+                              HeaderSpace.builder()
+                                  .setIpProtocols(ImmutableList.of(IpProtocol.TCP))
+                                  .setNotDstPorts(ImmutableList.of(new SubRange(0, 1023)))
+                                  .setTcpFlags(
+                                      ImmutableList.of(
+                                          TcpFlagsMatchConditions.builder()
+                                              .setTcpFlags(TcpFlags.builder().setAck(true).build())
+                                              .setUseAck(true)
+                                              .build()))
+                                  .build()))),
+                  rejecting(
+                      match(
+                          HeaderSpace.builder()
+                              .setNotIpProtocols(ImmutableList.of(IpProtocol.TCP, IpProtocol.UDP))
+                              .setIcmpTypes(ImmutableList.of(new SubRange(8, 8)))
+                              .build())),
+                  accepting(
+                      or(
+                          AclLineMatchExprs.ORIGINATING_FROM_DEVICE,
+                          new PermittedByAcl("referenced", true))),
+                  rejecting(
+                      match(
+                          HeaderSpace.builder()
+                              .setSrcOrDstIps(new IpSpaceReference("servers"))
+                              .setNotSrcIps(Prefix.parse("10.0.2.0/24").toIpSpace())
+                              .setSrcPorts(ImmutableList.of(new SubRange(1000, 2000)))
+                              .setNotSrcPorts(ImmutableList.of(new SubRange(1500, 1500)))
+                              .build())),
+                  accepting(
+                      and(
+                          AclLineMatchExprs.not(matchSrcInterface("i2")),
+                          matchDst(new IpSpaceReference("everything")),
+                          match(
+                              HeaderSpace.builder()
+                                  .setNotDstIps(new IpSpaceReference("loop"))
+                                  .setDstPorts(
+                                      ImmutableList.of(
+                                          new SubRange(22, 22), new SubRange(8000, 8999)))
+                                  .build())))))
+          .build();
+
+  private static final Map<String, IpAccessList> ACLS =
+      ImmutableMap.of(ACL.getName(), ACL, REFERENCED.getName(), REFERENCED);
+
+  private static Flow randomFlow(Random random) {
+    IpProtocol[] protocols = {IpProtocol.TCP, IpProtocol.UDP, IpProtocol.ICMP};
+    int[] ports = {22, 53, 80, 1500, 1800, 8080, 50000};
+    return Flow.builder()
+        .setIngressNode("node")
+        .setTag("tag")
+        .setSrcIp(Ip.create(Ip.parse("10.0.0.0").asLong() + random.nextInt(1024)))
+        .setDstIp(Ip.create(Ip.parse("10.0.0.0").asLong() + random.nextInt(1024)))
+        .setIpProtocol(protocols[random.nextInt(protocols.length)])
+        .setSrcPort(ports[random.nextInt(ports.length)])
+        .setDstPort(ports[random.nextInt(ports.length)])
+        .setIcmpType(random.nextInt(10))
+        .setTcpFlagsAck(random.nextInt(2))
+        .build();
+  }
+
+  @Test
+  public void testMatchesEvaluator() {
+    Random random = new Random(0);
+    List<String> srcInterfaces = Arrays.asList(null, "i1", "i2");
+    for (IpAccessList acl : ACLS.values()) {
+      CompiledAcl compiled = CompiledAcl.compile(acl, ACLS, NAMED_IP_SPACES);
+      for (int i = 0; i < 10_000; i++) {
+        Flow flow = randomFlow(random);
+        @Nullable String srcInterface = srcInterfaces.get(random.nextInt(srcInterfaces.size()));
+        FilterResult expected = acl.filter(flow, srcInterface, ACLS, NAMED_IP_SPACES);
+        assertThat(
+            String.format("%s on %s from %s", acl.getName(), flow, srcInterface),
+            compiled.filter(flow, srcInterface),
+            equalTo(expected));
+      }
+    }
+  }
+
+  @Test
+  public void testDefaultAction() {
+    Flow flow = randomFlow(new Random(0));
+    IpAccessList empty = IpAccessList.builder().setName("empty").build();
+    CompiledAcl compiled = CompiledAcl.compile(empty, ImmutableMap.of(), ImmutableMap.of());
+
+    assertThat(compiled.filter(flow, null), equalTo(new FilterResult(null, LineAction.DENY)));
+    assertThat(
+        compiled.filter(flow, null, LineAction.PERMIT),
+        equalTo(new FilterResult(null, LineAction.PERMIT)));
+  }
+
+  @Test
+  public void testForConfiguration() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Configuration c1 = cb.build();
+    Configuration c2 = cb.build();
+    for (Configuration c : ImmutableList.of(c1, c2)) {
+      c.getIpAccessLists().putAll(ACLS);
+      c.getIpSpaces().putAll(NAMED_IP_SPACES);
+    }
+    CompiledAcl compiled = CompiledAcl.forConfiguration(c1, ACL);
+
+    assertThat(compiled.getName(), equalTo(ACL.getName()));
+    assertThat(CompiledAcl.forConfiguration(c1, ACL), sameInstance(compiled));
+    assertThat(CompiledAcl.forConfiguration(c2, ACL), not(sameInstance(compiled)));
+  }
+}
@@ -0,0 +1,68 @@
+package org.batfish.datamodel.answers;
+
+import static org.batfish.datamodel.answers.JobTimings.bucket;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.IOException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.junit.Test;
+
+/** Tests of {@link JobTimings}. */
+public final class JobTimingsTest {
+
+  @Test
+  public void testBucket() {
+    assertThat(bucket(-1L), equalTo(0L));
+    assertThat(bucket(0L), equalTo(0L));
+    assertThat(bucket(1L), equalTo(1L));
+    assertThat(bucket(2L), equalTo(2L));
+    assertThat(bucket(3L), equalTo(4L));
+    assertThat(bucket(4L), equalTo(4L));
+    assertThat(bucket(1000L), equalTo(1024L));
+  }
+
+  @Test
+  public void testBuilder() {
+    JobTimings timings = JobTimings.builder().add(3L).add(4L).add(1000L).add(0L).build(500L, 2);
+    assertThat(timings.getCount(), equalTo(4));
+    assertThat(timings.getMaxMs(), equalTo(1000L));
+    assertThat(timings.getThreads(), equalTo(2));
+    assertThat(timings.getTotalMs(), equalTo(1007L));
+    assertThat(timings.getWallMs(), equalTo(500L));
+    assertThat(timings.getHistogram(), equalTo(ImmutableSortedMap.of(0L, 1, 4L, 2, 1024L, 1)));
+  }
+
+  @Test
+  public void testBuilderAddAll() {
+    JobTimings first = JobTimings.builder().add(3L).add(1000L).build(1000L, 2);
+    JobTimings timings = JobTimings.builder().add(4L).addAll(first).build(600L, 4);
+    assertThat(timings, equalTo(JobTimings.builder().add(3L).add(4L).add(1000L).build(600L, 4)));
+  }
+
+  @Test
+  public void testJsonSerialization() throws IOException {
+    JobTimings timings = JobTimings.builder().add(3L).add(17L).build(20L, 4);
+    assertThat(BatfishObjectMapper.clone(timings, JobTimings.class), equalTo(timings));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    JobTimings timings = JobTimings.builder().add(3L).add(17L).build(20L, 4);
+    assertThat(SerializationUtils.clone(timings), equalTo(timings));
+  }
+
+  @Test
+  public void testAnswerElementJsonSerialization() throws IOException {
+    ParseVendorConfigurationAnswerElement answerElement =
+        new ParseVendorConfigurationAnswerElement();
+    JobTimings timings = JobTimings.builder().add(3L).build(3L, 1);
+    answerElement.setJobTimings(timings);
+    assertThat(
+        BatfishObjectMapper.clone(answerElement, ParseVendorConfigurationAnswerElement.class)
+            .getJobTimings(),
+        equalTo(timings));
+  }
+}
@@ -0,0 +1,94 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableList;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.expr.PeerAddressNextHop;
+import org.batfish.datamodel.routing_policy.statement.SetNextHop;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link RoutingPolicy}. */
+public final class RoutingPolicyTest {
+
+  private static final Ip PEER_ADDRESS = Ip.parse("10.0.0.2");
+
+  private NetworkFactory _nf;
+  private Configuration _c;
+  private BgpRoute _route;
+
+  @Before
+  public void setup() {
+    _nf = new NetworkFactory();
+    _c =
+        _nf.configurationBuilder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    _nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME).setOwner(_c).build();
+    _route =
+        new BgpRoute.Builder()
+            .setNetwork(Prefix.parse("1.1.1.0/24"))
+            .setOriginatorIp(Ip.parse("2.2.2.2"))
+            .setOriginType(OriginType.IGP)
+            .setProtocol(RoutingProtocol.BGP)
+            .setReceivedFromIp(Ip.parse("3.3.3.3"))
+            .build();
+  }
+
+  private Boolean processForAnyPeer(RoutingPolicy policy, BgpRoute.Builder outputRoute) {
+    return policy.processForAnyPeer(
+        _route, outputRoute, PEER_ADDRESS, null, Configuration.DEFAULT_VRF_NAME, Direction.OUT);
+  }
+
+  @Test
+  public void testProcessForAnyPeerIndependent() {
+    RoutingPolicy accept =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .setStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()))
+            .build();
+    RoutingPolicy reject =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .setStatements(ImmutableList.of(Statements.ExitReject.toStaticStatement()))
+            .build();
+
+    assertThat(processForAnyPeer(accept, _route.toBuilder()), equalTo(true));
+    assertThat(processForAnyPeer(reject, _route.toBuilder()), equalTo(false));
+  }
+
+  @Test
+  public void testProcessForAnyPeerDependent() {
+    RoutingPolicy setPeerNextHop =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .setStatements(
+                ImmutableList.of(
+                    new SetNextHop(PeerAddressNextHop.getInstance(), false),
+                    Statements.ExitAccept.toStaticStatement()))
+            .build();
+
+    assertThat(processForAnyPeer(setPeerNextHop, _route.toBuilder()), nullValue());
+
+    // The result is the same as process, which also reads the peer address
+    BgpRoute.Builder outputRoute = _route.toBuilder();
+    assertThat(
+        setPeerNextHop.process(
+            _route, outputRoute, PEER_ADDRESS, null, Configuration.DEFAULT_VRF_NAME, Direction.OUT),
+        equalTo(true));
+    assertThat(outputRoute.getNextHopIp(), equalTo(PEER_ADDRESS));
+  }
+}
@@ -0,0 +1,89 @@
+package org.batfish.specifier;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.plugin.IBatfishTestAdapter;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.questions.InterfacesSpecifier;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.batfish.storage.LazyConfigurationMap;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link SpecifierContextImpl} over a {@link LazyConfigurationMap}, checking that
+ * resolving specifiers only loads the configurations of the nodes they resolve to.
+ */
+public final class SpecifierContextImplTest {
+
+  private SpecifierContext _ctxt;
+
+  private List<String> _loaded;
+
+  @Before
+  public void setup() {
+    _loaded = new ArrayList<>();
+    LazyConfigurationMap configs =
+        new LazyConfigurationMap(
+            ImmutableSortedSet.of("node1", "node2", "other"),
+            hostname -> {
+              _loaded.add(hostname);
+              Configuration c = new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
+              Interface.builder().setName(hostname + "-eth0").setOwner(c).build();
+              return c;
+            });
+    _ctxt =
+        new SpecifierContextImpl(
+            new IBatfishTestAdapter() {
+              @Override
+              public SortedMap<String, Configuration> loadConfigurations(NetworkSnapshot snapshot) {
+                return configs;
+              }
+            },
+            new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot")));
+  }
+
+  @Test
+  public void testResolveInterfaces() {
+    Set<String> nodes = new NameRegexNodeSpecifier(Pattern.compile("node.*")).resolve(_ctxt);
+
+    assertThat(
+        new ShorthandInterfaceSpecifier(new InterfacesSpecifier(".*"))
+            .resolve(nodes, _ctxt).stream()
+                .map(Interface::getName)
+                .collect(ImmutableSet.toImmutableSet()),
+        containsInAnyOrder("node1-eth0", "node2-eth0"));
+    assertThat(_loaded, containsInAnyOrder("node1", "node2"));
+  }
+
+  @Test
+  public void testResolveLocations() {
+    assertThat(
+        new NodeNameRegexInterfaceLocationSpecifier(Pattern.compile("node1")).resolve(_ctxt),
+        equalTo(ImmutableSet.of(new InterfaceLocation("node1", "node1-eth0"))));
+    assertThat(_loaded, contains("node1"));
+  }
+
+  @Test
+  public void testResolveNodes() {
+    assertThat(
+        new NameRegexNodeSpecifier(Pattern.compile("node.*")).resolve(_ctxt),
+        equalTo(ImmutableSet.of("node1", "node2")));
+    assertThat(_loaded, empty());
+  }
+}
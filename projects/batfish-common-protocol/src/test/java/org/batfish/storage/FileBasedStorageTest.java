@@ -3,6 +3,7 @@ package org.batfish.storage;
 import static org.batfish.common.Version.INCOMPATIBLE_VERSION;
 import static org.batfish.storage.FileBasedStorage.mkdirs;
 import static org.batfish.storage.FileBasedStorage.objectKeyToRelativePath;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
@@ -11,7 +12,9 @@ import static org.hamcrest.io.FileMatchers.anExistingDirectory;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -22,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,16 +35,29 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
+import org.batfish.common.BfConsts;
 import org.batfish.common.CompletionMetadata;
 import org.batfish.common.Version;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
+import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.KryoCodec;
 import org.batfish.common.util.UnzipUtility;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.answers.Answer;
+import org.batfish.datamodel.answers.AnswerMetadataUtil;
+import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.MinorIssueConfig;
+import org.batfish.datamodel.answers.Schema;
 import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.datamodel.table.TableMetadata;
+import org.batfish.identifiers.AnswerId;
 import org.batfish.identifiers.IssueSettingsId;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionSettingsId;
@@ -87,6 +104,115 @@ public final class FileBasedStorageTest {
     assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
   }
 
+  @Test
+  public void roundTripConfigurationsKryoSucceeds() {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    FileBasedStorage kryoStorage =
+        new FileBasedStorage(
+            _containerDir.getParent(),
+            _logger,
+            (m, n) -> new AtomicInteger(),
+            SerializationFormat.KRYO);
+
+    Map<String, Configuration> configs = new HashMap<>();
+    configs.put("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+
+    kryoStorage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, snapshot);
+
+    // The format recorded for the snapshot is used on load, whatever the storage is configured with
+    Map<String, Configuration> deserialized = kryoStorage.loadConfigurations(network, snapshot);
+    assertThat(deserialized, not(nullValue()));
+    assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
+    deserialized = _storage.loadConfigurations(network, snapshot);
+    assertThat(deserialized, not(nullValue()));
+    assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
+  }
+
+  @Test
+  public void loadMixedFormatSnapshots() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId javaSnapshot = new SnapshotId("javaSnapshot");
+    SnapshotId kryoSnapshot = new SnapshotId("kryoSnapshot");
+    FileBasedStorage kryoStorage =
+        new FileBasedStorage(
+            _containerDir.getParent(),
+            _logger,
+            (m, n) -> new AtomicInteger(),
+            SerializationFormat.KRYO);
+    Map<String, Configuration> configs =
+        ImmutableMap.of("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+
+    assertThat(_storage.loadSerializationFormat(network, kryoSnapshot), nullValue());
+    kryoStorage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, kryoSnapshot);
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, javaSnapshot);
+
+    // Each snapshot records its own format, and is loaded according to it by the same storage
+    assertThat(
+        _storage.loadSerializationFormat(network, kryoSnapshot), equalTo(SerializationFormat.KRYO));
+    assertThat(
+        _storage.loadSerializationFormat(network, javaSnapshot), equalTo(SerializationFormat.JAVA));
+    for (SnapshotId snapshot : ImmutableList.of(javaSnapshot, kryoSnapshot)) {
+      Map<String, Configuration> deserialized = _storage.loadConfigurations(network, snapshot);
+      assertThat(deserialized, not(nullValue()));
+      assertThat(deserialized.keySet(), equalTo(ImmutableSet.of("node1")));
+    }
+
+    // Storing again keeps the format of the snapshot rather than that of the storage
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, kryoSnapshot);
+    Path kryoConfig =
+        _storage.getDirectoryProvider().getVendorIndependentConfigDir(network, kryoSnapshot);
+    byte[] header = Arrays.copyOf(Files.readAllBytes(kryoConfig.resolve("node1")), 4);
+    assertThat(header, equalTo(KryoCodec.MAGIC_BYTES));
+    assertThat(
+        _storage.storeSerializationFormatIfAbsent(SerializationFormat.JAVA, network, kryoSnapshot),
+        equalTo(SerializationFormat.KRYO));
+
+    // A Kryo file cannot be part of a Java-serialized snapshot
+    Files.copy(
+        kryoConfig.resolve("node1"),
+        _storage
+            .getDirectoryProvider()
+            .getVendorIndependentConfigDir(network, javaSnapshot)
+            .resolve("node2"));
+    _thrown.expect(BatfishException.class);
+    _storage.loadConfiguration(network, javaSnapshot, "node2");
+  }
+
+  @Test
+  public void loadConfigurationsOneAtATime() {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+
+    Map<String, Configuration> configs = new HashMap<>();
+    configs.put("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+    configs.put("node2", new Configuration("node2", ConfigurationFormat.CISCO_IOS));
+
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, snapshot);
+
+    assertThat(
+        _storage.loadConfigurationHostnames(network, snapshot),
+        equalTo(ImmutableSortedSet.of("node1", "node2")));
+    Configuration node2 = _storage.loadConfiguration(network, snapshot, "node2");
+    assertThat(node2, not(nullValue()));
+    assertThat(node2.getHostname(), equalTo("node2"));
+    assertThat(_storage.loadConfiguration(network, snapshot, "node3"), nullValue());
+    assertThat(_storage.loadConfiguration(network, snapshot, "../node1"), nullValue());
+  }
+
+  @Test
+  public void loadMissingConfigurationHostnamesReturnsNull() {
+    assertThat(
+        _storage.loadConfigurationHostnames(
+            new NetworkId("nonexistent"), new SnapshotId("nonexistent")),
+        nullValue());
+  }
+
   @Test
   public void loadMissingConfigurationsReturnsNull() {
     assertThat(
@@ -112,6 +238,46 @@ public final class FileBasedStorageTest {
     assertThat(_storage.loadConfigurations(network, snapshot), nullValue());
   }
 
+  @Test
+  public void testForkConfigurations() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId base = new SnapshotId("base");
+    SnapshotId fork = new SnapshotId("fork");
+    _storage.storeConfigurations(
+        ImmutableMap.of("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS)),
+        new ConvertConfigurationAnswerElement(),
+        network,
+        base);
+    FileBasedStorageDirectoryProvider d =
+        new FileBasedStorageDirectoryProvider(_containerDir.getParent());
+    CommonUtil.writeFile(
+        d.getSnapshotOutputDir(network, base).resolve(BfConsts.RELPATH_PARSE_ANSWER_PATH), "");
+
+    assertThat(_storage.forkConfigurations(network, base, fork), equalTo(true));
+    assertThat(_storage.hasForkedConfigurations(network, fork), equalTo(true));
+    assertThat(_storage.hasForkedConfigurations(network, base), equalTo(false));
+    assertThat(_storage.loadConfigurationHostnames(network, fork), contains("node1"));
+
+    // Storing configurations for the fork replaces rather than modifies the shared ones
+    _storage.storeConfigurations(
+        ImmutableMap.of("node2", new Configuration("node2", ConfigurationFormat.CISCO_IOS)),
+        new ConvertConfigurationAnswerElement(),
+        network,
+        fork);
+    assertThat(_storage.loadConfigurationHostnames(network, fork), contains("node2"));
+    assertThat(_storage.loadConfigurationHostnames(network, base), contains("node1"));
+    assertThat(_storage.loadConvertConfigurationAnswerElement(network, base), not(nullValue()));
+  }
+
+  @Test
+  public void testForkConfigurationsUnparsedBase() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId fork = new SnapshotId("fork");
+
+    assertThat(_storage.forkConfigurations(network, new SnapshotId("base"), fork), equalTo(false));
+    assertThat(_storage.hasForkedConfigurations(network, fork), equalTo(false));
+  }
+
   @Test
   public void testMajorIssueConfigRoundTrip() throws IOException {
     String majorIssue = "majorIssue";
@@ -125,6 +291,29 @@ public final class FileBasedStorageTest {
     assertThat(_storage.loadMajorIssueConfig(network, issueSettingsId), equalTo(majorIssueConfig));
   }
 
+  @Test
+  public void testStoreAnswer() throws IOException {
+    String column = "col";
+    Answer answer = new Answer();
+    answer.addAnswerElement(
+        new TableAnswerElement(
+                new TableMetadata(
+                    ImmutableList.of(new ColumnMetadata(column, Schema.INTEGER, "desc")), "text"))
+            .addRow(Row.of(column, 1))
+            .addRow(Row.of(column, 2)));
+    answer.setStatus(AnswerStatus.SUCCESS);
+    AnswerId answerId = new AnswerId("answer");
+    _storage.storeAnswer(answer, answerId);
+
+    String answerStr = _storage.loadAnswer(answerId);
+    // compact JSON
+    assertThat(answerStr, not(containsString("\n")));
+    assertThat(answerStr, equalTo(BatfishObjectMapper.writeString(answer)));
+    assertThat(
+        _storage.loadAnswerMetadata(answerId),
+        equalTo(AnswerMetadataUtil.computeAnswerMetadata(answer, _logger)));
+  }
+
   @Test
   public void testLoadMissingMajorIssueConfig() {
     IssueSettingsId majorIssue = new IssueSettingsId("majorIssue");
@@ -0,0 +1,99 @@
+package org.batfish.storage;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class LazyConfigurationMapTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private List<String> _loaded;
+
+  @Before
+  public void setup() {
+    _loaded = new ArrayList<>();
+  }
+
+  private LazyConfigurationMap newMap(String... hostnames) {
+    return new LazyConfigurationMap(
+        ImmutableSortedSet.copyOf(hostnames),
+        hostname -> {
+          _loaded.add(hostname);
+          return new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
+        });
+  }
+
+  @Test
+  public void testIndexDoesNotLoad() {
+    LazyConfigurationMap map = newMap("c", "a", "b");
+
+    assertThat(map.keySet(), contains("a", "b", "c"));
+    assertThat(map.size(), equalTo(3));
+    assertThat(map.containsKey("b"), equalTo(true));
+    assertThat(map.containsKey("d"), equalTo(false));
+    assertThat(map.get("d"), nullValue());
+    assertThat(map.firstKey(), equalTo("a"));
+    assertThat(_loaded, equalTo(new ArrayList<>()));
+  }
+
+  @Test
+  public void testGetLoadsOnlyRequestedNode() {
+    LazyConfigurationMap map = newMap("a", "b", "c");
+
+    Configuration b = map.get("b");
+
+    assertThat(b.getHostname(), equalTo("b"));
+    assertThat(map.get("b"), sameInstance(b));
+    assertThat(_loaded, contains("b"));
+  }
+
+  @Test
+  public void testLoadedConfigurationsAreKept() {
+    LazyConfigurationMap map = newMap("a", "b");
+
+    Configuration a = map.get("a");
+    map.get("b");
+
+    // identity is preserved, e.g. for caches keyed by configuration
+    assertThat(map.get("a"), sameInstance(a));
+    assertThat(_loaded, contains("a", "b"));
+    assertThat(map.getCachedSize(), equalTo(2L));
+  }
+
+  @Test
+  public void testValuesLoadAll() {
+    LazyConfigurationMap map = newMap("a", "b");
+
+    map.values().forEach(c -> {});
+
+    assertThat(_loaded, contains("a", "b"));
+  }
+
+  @Test
+  public void testLoaderException() {
+    LazyConfigurationMap map =
+        new LazyConfigurationMap(
+            ImmutableSortedSet.of("a"),
+            hostname -> {
+              throw new BatfishException("missing " + hostname);
+            });
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("missing a");
+    map.get("a");
+  }
+}
@@ -9,12 +9,14 @@ import java.util.SortedSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.CompletionMetadata;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
@@ -42,6 +44,16 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public SortedSet<String> loadConfigurationHostnames(NetworkId network, SnapshotId snapshot) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public Configuration loadConfiguration(NetworkId network, SnapshotId snapshot, String hostname) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public ConvertConfigurationAnswerElement loadConvertConfigurationAnswerElement(
       NetworkId network, SnapshotId snapshot) {
@@ -104,6 +116,28 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public boolean forkConfigurations(
+      NetworkId network, SnapshotId baseSnapshot, SnapshotId snapshot) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public boolean hasForkedConfigurations(NetworkId network, SnapshotId snapshot) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public SerializationFormat loadSerializationFormat(NetworkId network, SnapshotId snapshot) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public SerializationFormat storeSerializationFormatIfAbsent(
+      SerializationFormat serializationFormat, NetworkId network, SnapshotId snapshot) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public String loadQuestion(NetworkId network, QuestionId analysis, AnalysisId question) {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -143,6 +177,11 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public void storeAnswer(Answer answer, AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public void storeAnswerMetadata(AnswerMetadata answerMetadata, AnswerId answerId) {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -4,15 +4,19 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.batfish.common.util.CommonUtil.toImmutableMap;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import net.sf.javabdd.BDD;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.z3.IngressLocation;
@@ -59,16 +63,39 @@ public class BDDReachabilityAnalysis {
 
   private final BDD _queryHeaderSpaceBdd;
 
+  /*
+   * Strongly connected components of the graph, in reverse topological order: edges between
+   * components go from a component to one with a lower index.
+   */
+  private final Supplier<List<Set<StateExpr>>> _components;
+
+  // state --> index of its component in _components
+  private final Supplier<Map<StateExpr, Integer>> _componentIndices;
+
+  private final FixpointStats _stats;
+
   BDDReachabilityAnalysis(
       BDDPacket packet,
       Set<StateExpr> ingressLocationStates,
       Map<StateExpr, Map<StateExpr, Edge>> edges,
       BDD queryHeaderSpaceBdd) {
+    this(packet, ingressLocationStates, edges, queryHeaderSpaceBdd, new FixpointStats());
+  }
+
+  BDDReachabilityAnalysis(
+      BDDPacket packet,
+      Set<StateExpr> ingressLocationStates,
+      Map<StateExpr, Map<StateExpr, Edge>> edges,
+      BDD queryHeaderSpaceBdd,
+      FixpointStats stats) {
     _bddPacket = packet;
     _edges = edges;
     _reverseEdges = computeReverseEdges(_edges);
     _ingressLocationStates = ImmutableSet.copyOf(ingressLocationStates);
     _queryHeaderSpaceBdd = queryHeaderSpaceBdd;
+    _components = Suppliers.memoize(this::computeComponents);
+    _componentIndices = Suppliers.memoize(this::computeComponentIndices);
+    _stats = stats;
   }
 
   private static Map<StateExpr, Map<StateExpr, Edge>> computeReverseEdges(
@@ -86,6 +113,44 @@ public class BDDReachabilityAnalysis {
         reverseEdges, Entry::getKey, entry -> ImmutableMap.copyOf(entry.getValue()));
   }
 
+  private List<Set<StateExpr>> computeComponents() {
+    Set<StateExpr> states = new LinkedHashSet<>(_edges.keySet());
+    states.addAll(_reverseEdges.keySet());
+    return StronglyConnectedComponents.compute(
+        states, state -> _edges.getOrDefault(state, ImmutableMap.of()).keySet());
+  }
+
+  private Map<StateExpr, Integer> computeComponentIndices() {
+    List<Set<StateExpr>> components = _components.get();
+    ImmutableMap.Builder<StateExpr, Integer> indices = ImmutableMap.builder();
+    for (int i = 0; i < components.size(); i++) {
+      int index = i;
+      components.get(i).forEach(state -> indices.put(state, index));
+    }
+    return indices.build();
+  }
+
+  /**
+   * Or {@code bdd} into the {@link BDD} of {@code state}. Returns whether the state's {@link BDD}
+   * changed.
+   */
+  private boolean addToState(Map<StateExpr, BDD> bdds, StateExpr state, BDD bdd) {
+    BDD oldBdd = bdds.get(state);
+    BDD newBdd;
+    if (oldBdd == null) {
+      newBdd = bdd;
+    } else {
+      _stats.orPerformed();
+      newBdd = oldBdd.or(bdd);
+      if (oldBdd.equals(newBdd)) {
+        return false;
+      }
+    }
+    bdds.put(state, newBdd);
+    _stats.stateUpdated();
+    return true;
+  }
+
   private Map<StateExpr, BDD> computeReverseReachableStates() {
     Map<StateExpr, BDD> reverseReachableStates = new HashMap<>();
     reverseReachableStates.put(Query.INSTANCE, _queryHeaderSpaceBdd);
@@ -95,154 +160,149 @@ public class BDDReachabilityAnalysis {
     return ImmutableMap.copyOf(reverseReachableStates);
   }
 
+  /**
+   * Propagate the {@link BDD BDDs} of the given states backward until a fixpoint is reached. The
+   * strongly connected components of the graph are processed in reverse topological order, and each
+   * is saturated before moving on, so that a state is only visited once all of the states it can
+   * reach (outside of its own component) have their final {@link BDD}.
+   */
   private void backwardFixpoint(Map<StateExpr, BDD> reverseReachableStates) {
-    Set<StateExpr> dirty = ImmutableSet.copyOf(reverseReachableStates.keySet());
-
-    while (!dirty.isEmpty()) {
-      Set<StateExpr> newDirty = new HashSet<>();
-
-      dirty.forEach(
-          postState -> {
-            Map<StateExpr, Edge> postStateInEdges = _reverseEdges.get(postState);
-            if (postStateInEdges == null) {
-              // postState has no in-edges
-              return;
-            }
-
-            BDD postStateBDD = reverseReachableStates.get(postState);
-            postStateInEdges.forEach(
-                (preState, edge) -> {
-                  BDD result = edge.traverseBackward(postStateBDD);
-                  if (result.isZero()) {
-                    return;
-                  }
-
-                  // update preState BDD reverse-reachable from leaf
-                  BDD oldReach = reverseReachableStates.get(preState);
-                  BDD newReach = oldReach == null ? result : oldReach.or(result);
-                  if (oldReach == null || !oldReach.equals(newReach)) {
-                    reverseReachableStates.put(preState, newReach);
-                    newDirty.add(preState);
-                  }
-                });
-          });
-
-      dirty = newDirty;
-    }
-  }
-
-  private Map<StateExpr, BDD> reachableInNRounds(int numRounds) {
-    BDD one = _bddPacket.getFactory().one();
-
-    // All ingress locations are reachable in 0 rounds.
-    Map<StateExpr, BDD> reachableInNRounds =
-        toImmutableMap(_ingressLocationStates, Function.identity(), k -> one);
+    Map<StateExpr, Integer> componentIndices = _componentIndices.get();
+    List<Set<StateExpr>> components = _components.get();
+
+    Set<StateExpr> dirty = new HashSet<>();
+    BitSet dirtyComponents = new BitSet();
+    reverseReachableStates
+        .keySet()
+        .forEach(
+            state -> {
+              Integer index = componentIndices.get(state);
+              if (index != null) {
+                dirty.add(state);
+                dirtyComponents.set(index);
+              }
+            });
+
+    for (int i = dirtyComponents.nextSetBit(0); i >= 0; i = dirtyComponents.nextSetBit(i + 1)) {
+      int component = i;
+      Set<StateExpr> worklist = new LinkedHashSet<>();
+      components.get(component).stream().filter(dirty::remove).forEach(worklist::add);
+
+      while (!worklist.isEmpty()) {
+        Iterator<StateExpr> iterator = worklist.iterator();
+        StateExpr postState = iterator.next();
+        iterator.remove();
+
+        Map<StateExpr, Edge> postStateInEdges = _reverseEdges.get(postState);
+        if (postStateInEdges == null) {
+          // postState has no in-edges
+          continue;
+        }
 
-    for (int round = 0; !reachableInNRounds.isEmpty() && round < numRounds; round++) {
-      reachableInNRounds = propagate(reachableInNRounds);
+        BDD postStateBDD = reverseReachableStates.get(postState);
+        postStateInEdges.forEach(
+            (preState, edge) -> {
+              _stats.edgeTraversed();
+              BDD result = edge.traverseBackward(postStateBDD);
+              if (result.isZero()) {
+                return;
+              }
+
+              // update preState BDD reverse-reachable from leaf
+              if (addToState(reverseReachableStates, preState, result)) {
+                int preStateComponent = componentIndices.get(preState);
+                if (preStateComponent == component) {
+                  worklist.add(preState);
+                } else {
+                  // preState's component comes later in the order
+                  dirty.add(preState);
+                  dirtyComponents.set(preStateComponent);
+                }
+              }
+            });
+      }
     }
-    return reachableInNRounds;
   }
 
-  /*
+  /**
    * Detect infinite routing loops in the network.
+   *
+   * <p>Since we don't model TTL, a packet loops forever if and only if it can follow an infinite
+   * path through the graph. Any such path eventually stays within a single cyclic strongly
+   * connected component, so we compute the packets that can stay forever within each cyclic
+   * component (see {@link #loopingBDDs}), and then run backward to find the ingress
+   * locations/headerspaces that lead to them.
    */
   public Map<IngressLocation, BDD> detectLoops() {
-    /*
-     * Run enough rounds to exceed the max TTL (255). It takes at most 5 iterations to go between
-     * hops:
-     * PreInInterface -> PostInVrf -> PreOutVrf -> PreOutEdge -> PreOutEdgePostNat -> PreInInterface
-     *
-     * Since we don't model TTL, all packets on loops will loop forever. But most paths will stop
-     * long before numRounds. What's left will be a few candidate location/headerspace pairs that
-     * may be on loops. In practice this is most likely way more iterations than necessary.
-     */
-    int numRounds = 256 * 5;
-    Map<StateExpr, BDD> reachableInNRounds = reachableInNRounds(numRounds);
-
-    /*
-     * Identify which of the candidates are actually on loops
-     */
-    Map<StateExpr, BDD> loopBDDs =
-        reachableInNRounds.entrySet().stream()
-            .filter(entry -> confirmLoop(entry.getKey(), entry.getValue()))
-            .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-
-    /*
-     * Run backward to find the ingress locations/headerspaces that lead to loops.
-     */
+    Map<StateExpr, BDD> loopBDDs = new HashMap<>();
+    _components.get().stream()
+        .filter(this::isCyclic)
+        .forEach(component -> loopBDDs.putAll(loopingBDDs(component)));
+
     backwardFixpoint(loopBDDs);
 
-    /*
-     * Extract the ingress location BDDs.
-     */
     return getIngressLocationBDDs(loopBDDs);
   }
 
-  private Map<StateExpr, BDD> propagate(Map<StateExpr, BDD> bdds) {
-    BDD zero = _bddPacket.getFactory().zero();
-    Map<StateExpr, BDD> newReachableInNRounds = new HashMap<>();
-    bdds.forEach(
-        (source, sourceBdd) ->
-            _edges
-                .getOrDefault(source, ImmutableMap.of())
-                .forEach(
-                    (target, edge) -> {
-                      BDD targetBdd = newReachableInNRounds.getOrDefault(target, zero);
-                      BDD newTragetBdd = targetBdd.or(edge.traverseForward(sourceBdd));
-                      if (!newTragetBdd.isZero()) {
-                        newReachableInNRounds.put(target, newTragetBdd);
-                      }
-                    }));
-    return newReachableInNRounds;
+  /** Whether {@code component} contains a cycle, i.e. has several states or a self-loop. */
+  private boolean isCyclic(Set<StateExpr> component) {
+    if (component.size() > 1) {
+      return true;
+    }
+    StateExpr state = component.iterator().next();
+    return _edges.getOrDefault(state, ImmutableMap.of()).containsKey(state);
   }
 
   /**
-   * Run BFS from one step past the initial state. Each round, check if the initial state has been
-   * reached yet.
+   * Compute, for each state of a cyclic strongly connected {@code component}, the packets that can
+   * follow an infinite path from that state without leaving the component. This is the greatest
+   * fixpoint of "a packet loops at a state if it can traverse an edge to another state of the
+   * component at which it loops": we start with all packets at every state and remove those that
+   * cannot continue, until nothing changes. Only states with a nonempty {@link BDD} are returned.
    */
-  private boolean confirmLoop(StateExpr stateExpr, BDD bdd) {
-    Map<StateExpr, BDD> reachable = propagate(ImmutableMap.of(stateExpr, bdd));
-    Set<StateExpr> dirty = new HashSet<>(reachable.keySet());
-
+  private Map<StateExpr, BDD> loopingBDDs(Set<StateExpr> component) {
     BDD zero = _bddPacket.getFactory().zero();
-    while (!dirty.isEmpty()) {
-      Set<StateExpr> newDirty = new HashSet<>();
-
-      dirty.forEach(
-          preState -> {
-            Map<StateExpr, Edge> preStateOutEdges = _edges.get(preState);
-            if (preStateOutEdges == null) {
-              // preState has no out-edges
-              return;
-            }
-
-            BDD preStateBDD = reachable.get(preState);
-            preStateOutEdges.forEach(
-                (postState, edge) -> {
-                  BDD result = edge.traverseForward(preStateBDD);
-                  if (result.isZero()) {
-                    return;
-                  }
-
-                  // update postState BDD reverse-reachable from leaf
-                  BDD oldReach = reachable.getOrDefault(postState, zero);
-                  BDD newReach = oldReach == null ? result : oldReach.or(result);
-                  if (oldReach == null || !oldReach.equals(newReach)) {
-                    reachable.put(postState, newReach);
-                    newDirty.add(postState);
-                  }
-                });
-          });
-
-      dirty = newDirty;
-      if (dirty.contains(stateExpr)) {
-        if (!reachable.get(stateExpr).and(bdd).isZero()) {
-          return true;
+    BDD one = _bddPacket.getFactory().one();
+    Map<StateExpr, BDD> looping = new HashMap<>();
+    component.forEach(state -> looping.put(state, one));
+
+    Set<StateExpr> worklist = new LinkedHashSet<>(component);
+    while (!worklist.isEmpty()) {
+      Iterator<StateExpr> iterator = worklist.iterator();
+      StateExpr preState = iterator.next();
+      iterator.remove();
+
+      BDD preStateBdd = zero;
+      for (Entry<StateExpr, Edge> entry : _edges.get(preState).entrySet()) {
+        BDD postStateBdd = looping.get(entry.getKey());
+        if (postStateBdd == null) {
+          // not in the component
+          continue;
         }
+        _stats.edgeTraversed();
+        _stats.orPerformed();
+        preStateBdd = preStateBdd.or(entry.getValue().traverseBackward(postStateBdd));
       }
+      if (preStateBdd.equals(looping.get(preState))) {
+        continue;
+      }
+
+      // preState lost some packets, so its predecessors in the component may lose some too
+      looping.put(preState, preStateBdd);
+      _stats.stateShrunk();
+      _reverseEdges.get(preState).keySet().stream()
+          .filter(component::contains)
+          .forEach(worklist::add);
     }
-    return false;
+
+    return looping.entrySet().stream()
+        .filter(entry -> !entry.getValue().isZero())
+        .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue));
+  }
+
+  /** Returns the work done by the fixpoint computations of this analysis so far. */
+  public FixpointStats getStats() {
+    return _stats;
   }
 
   public BDDPacket getBDDPacket() {
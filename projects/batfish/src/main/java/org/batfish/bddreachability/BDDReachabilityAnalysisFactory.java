@@ -9,6 +9,7 @@ import static org.batfish.datamodel.transformation.TransformationUtil.visitTrans
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -147,10 +148,16 @@ public final class BDDReachabilityAnalysisFactory {
   private final IpSpaceToBDD _dstIpSpaceToBDD;
   private final IpSpaceToBDD _srcIpSpaceToBDD;
 
+  // work done by the fixpoint computations of all analyses created by this factory
+  private final FixpointStats _fixpointStats;
+
   private final ForwardingAnalysis _forwardingAnalysis;
 
   private final boolean _ignoreFilters;
 
+  // edges of the reachability graph that are the same for every query, generated on first use
+  private final Supplier<List<Edge>> _queryIndependentEdges;
+
   /*
    * node --> vrf --> interface --> set of packets that get routed out the interface but do not
    * reach the neighbor, or exits network, or delivered to subnet
@@ -201,9 +208,11 @@ public final class BDDReachabilityAnalysisFactory {
     _one = packet.getFactory().one();
     _zero = packet.getFactory().zero();
     _ignoreFilters = ignoreFilters;
-    _requiredTransitNodeBDD = _bddPacket.allocateBDDBit("requiredTransitNodes");
-    _bddSourceManagers = BDDSourceManager.forNetwork(_bddPacket, configs);
+    Variables variables = allocateVariables(_bddPacket, configs);
+    _requiredTransitNodeBDD = variables._requiredTransitNodeBDD;
+    _bddSourceManagers = variables._bddSourceManagers;
     _configs = configs;
+    _fixpointStats = new FixpointStats();
     _forwardingAnalysis = forwardingAnalysis;
     _dstIpSpaceToBDD = new MemoizedIpSpaceToBDD(_bddPacket.getDstIp(), ImmutableMap.of());
     _srcIpSpaceToBDD = new MemoizedIpSpaceToBDD(_bddPacket.getSrcIp(), ImmutableMap.of());
@@ -231,6 +240,30 @@ public final class BDDReachabilityAnalysisFactory {
     _sourceIpVars = Arrays.stream(_bddPacket.getSrcIp().getBitvec()).reduce(_one, BDD::and);
 
     _transformationRanges = computeTransformationRanges();
+
+    _queryIndependentEdges = Suppliers.memoize(this::generateQueryIndependentEdges);
+  }
+
+  /** The variables that a factory allocates on its {@link BDDPacket}. */
+  static final class Variables {
+    private final Map<String, BDDSourceManager> _bddSourceManagers;
+    private final BDD _requiredTransitNodeBDD;
+
+    private Variables(BDD requiredTransitNodeBDD, Map<String, BDDSourceManager> bddSourceManagers) {
+      _requiredTransitNodeBDD = requiredTransitNodeBDD;
+      _bddSourceManagers = bddSourceManagers;
+    }
+  }
+
+  /**
+   * Allocate on {@code packet} the variables that a factory for {@code configs} allocates on its
+   * {@link BDDPacket}, in the same order. After this, a new {@link BDDPacket} has the same
+   * variables as that of any factory for {@code configs}, so {@link BDD BDDs} can be transferred
+   * between them.
+   */
+  static Variables allocateVariables(BDDPacket packet, Map<String, Configuration> configs) {
+    BDD requiredTransitNodeBDD = packet.allocateBDDBit("requiredTransitNodes");
+    return new Variables(requiredTransitNodeBDD, BDDSourceManager.forNetwork(packet, configs));
   }
 
   /**
@@ -488,8 +521,8 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   /*
-   * These edges do not depend on the query. Compute them separately so that we can later cache them
-   * across queries if we want to.
+   * These edges depend on the query only through the final nodes. The rest are generated once and
+   * reused by every analysis created by this factory.
    */
   private Stream<Edge> generateEdges(Set<String> finalNodes) {
     return Streams.concat(
@@ -502,22 +535,34 @@ public final class BDDReachabilityAnalysisFactory {
         generateRules_NodeInterfaceExitsNetwork_ExitsNetwork(finalNodes),
         generateRules_NodeInterfaceInsufficientInfo_InsufficientInfo(finalNodes),
         generateRules_NodeInterfaceNeighborUnreachable_NeighborUnreachable(finalNodes),
-        generateRules_PreInInterface_NodeDropAclIn(),
-        generateRules_PreInInterface_PostInVrf(),
-        generateRules_PostInVrf_NodeAccept(),
-        generateRules_PostInVrf_NodeDropNoRoute(),
-        generateRules_PostInVrf_PreOutVrf(),
-        generateRules_PreOutEdge_NodeDropAclOut(),
-        generateRules_PreOutEdge_PreOutEdgePostNat(),
-        generateRules_PreOutEdgePostNat_NodeDropAclOut(),
-        generateRules_PreOutEdgePostNat_PreInInterface(),
-        generateRules_PreOutVrf_NodeDropAclOut(),
-        generateRules_PreOutVrf_NodeDropNullRoute(),
-        generateRules_PreOutVrf_NodeInterfaceNeighborUnreachable(),
-        generateRules_PreOutVrf_NodeInterfaceDeliveredToSubnet(),
-        generateRules_PreOutVrf_NodeInterfaceExitsNetwork(),
-        generateRules_PreOutVrf_NodeInterfaceInsufficientInfo(),
-        generateRules_PreOutVrf_PreOutEdge());
+        _queryIndependentEdges.get().stream());
+  }
+
+  /** Generate the edges that do not depend on the query now, rather than on first use. */
+  void generateQueryIndependentEdgesNow() {
+    _queryIndependentEdges.get();
+  }
+
+  /* These edges do not depend on the query. */
+  private List<Edge> generateQueryIndependentEdges() {
+    return Streams.concat(
+            generateRules_PreInInterface_NodeDropAclIn(),
+            generateRules_PreInInterface_PostInVrf(),
+            generateRules_PostInVrf_NodeAccept(),
+            generateRules_PostInVrf_NodeDropNoRoute(),
+            generateRules_PostInVrf_PreOutVrf(),
+            generateRules_PreOutEdge_NodeDropAclOut(),
+            generateRules_PreOutEdge_PreOutEdgePostNat(),
+            generateRules_PreOutEdgePostNat_NodeDropAclOut(),
+            generateRules_PreOutEdgePostNat_PreInInterface(),
+            generateRules_PreOutVrf_NodeDropAclOut(),
+            generateRules_PreOutVrf_NodeDropNullRoute(),
+            generateRules_PreOutVrf_NodeInterfaceNeighborUnreachable(),
+            generateRules_PreOutVrf_NodeInterfaceDeliveredToSubnet(),
+            generateRules_PreOutVrf_NodeInterfaceExitsNetwork(),
+            generateRules_PreOutVrf_NodeInterfaceInsufficientInfo(),
+            generateRules_PreOutVrf_PreOutEdge())
+        .collect(ImmutableList.toImmutableList());
   }
 
   private static Stream<Edge> generateRules_NodeAccept_Accept(Set<String> finalNodes) {
@@ -1056,6 +1101,16 @@ public final class BDDReachabilityAnalysisFactory {
     };
   }
 
+  /** Returns the {@link BDDPacket} of the BDDs of the analyses created by this factory. */
+  public BDDPacket getBDDPacket() {
+    return _bddPacket;
+  }
+
+  /** Returns the total work done by all of the analyses created by this factory so far. */
+  public FixpointStats getFixpointStats() {
+    return _fixpointStats;
+  }
+
   public BDDReachabilityAnalysis bddReachabilityAnalysis(IpSpaceAssignment srcIpSpaceAssignment) {
     return bddReachabilityAnalysis(
         srcIpSpaceAssignment,
@@ -1150,7 +1205,12 @@ public final class BDDReachabilityAnalysisFactory {
 
     Map<StateExpr, Map<StateExpr, Edge>> edgeMap = computeEdges(edgeStream);
 
-    return new BDDReachabilityAnalysis(_bddPacket, roots.keySet(), edgeMap, finalHeaderSpaceBdd);
+    return new BDDReachabilityAnalysis(
+        _bddPacket,
+        roots.keySet(),
+        edgeMap,
+        finalHeaderSpaceBdd,
+        new FixpointStats(_fixpointStats));
   }
 
   /**
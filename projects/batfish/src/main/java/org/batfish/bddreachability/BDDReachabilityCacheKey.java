@@ -0,0 +1,83 @@
+package org.batfish.bddreachability;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.NetworkSnapshot;
+
+/**
+ * Identifies cached {@link BDDReachabilityAnalysisFactory factories} for a list of snapshots. With
+ * a parallelism of 1, there is one factory per snapshot, and they share a {@link
+ * org.batfish.common.bdd.BDDPacket} so that the BDDs computed for different snapshots can be
+ * compared. Otherwise, there is a single snapshot, and the factories are the worker factories of a
+ * {@link ParallelBDDReachabilityAnalysis}, each on its own {@link
+ * org.batfish.common.bdd.BDDPacket}.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDReachabilityCacheKey {
+  private final boolean _ignoreFilters;
+
+  private final int _parallelism;
+
+  private final List<NetworkSnapshot> _snapshots;
+
+  public BDDReachabilityCacheKey(List<NetworkSnapshot> snapshots, boolean ignoreFilters) {
+    this(snapshots, ignoreFilters, 1);
+  }
+
+  public BDDReachabilityCacheKey(
+      List<NetworkSnapshot> snapshots, boolean ignoreFilters, int parallelism) {
+    checkArgument(
+        parallelism == 1 || snapshots.size() == 1,
+        "Parallel reachability graphs are only cached for a single snapshot");
+    _snapshots = ImmutableList.copyOf(snapshots);
+    _ignoreFilters = ignoreFilters;
+    _parallelism = parallelism;
+  }
+
+  public boolean getIgnoreFilters() {
+    return _ignoreFilters;
+  }
+
+  public int getParallelism() {
+    return _parallelism;
+  }
+
+  @Nonnull
+  public List<NetworkSnapshot> getSnapshots() {
+    return _snapshots;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof BDDReachabilityCacheKey)) {
+      return false;
+    }
+    BDDReachabilityCacheKey other = (BDDReachabilityCacheKey) o;
+    return _ignoreFilters == other._ignoreFilters
+        && _parallelism == other._parallelism
+        && _snapshots.equals(other._snapshots);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_ignoreFilters, _parallelism, _snapshots);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(BDDReachabilityCacheKey.class)
+        .add("snapshots", _snapshots)
+        .add("ignoreFilters", _ignoreFilters)
+        .add("parallelism", _parallelism)
+        .toString();
+  }
+}
@@ -0,0 +1,112 @@
+package org.batfish.bddreachability;
+
+import com.google.common.base.MoreObjects;
+import javax.annotation.Nullable;
+import net.sf.javabdd.BDD;
+
+/**
+ * Counts the work done by the fixpoint computations of {@link BDDReachabilityAnalysis}. Not
+ * thread-safe; each analysis updates its own instance, which also adds its counts to those of the
+ * {@link BDDReachabilityAnalysisFactory} that created it.
+ */
+public final class FixpointStats {
+  private long _edgeTraversals;
+
+  private long _orOperations;
+
+  /** Also counts everything counted by this instance, or {@code null} */
+  @Nullable private final FixpointStats _parent;
+
+  private long _stateShrinks;
+
+  private long _stateUpdates;
+
+  public FixpointStats() {
+    this(null);
+  }
+
+  /** Creates an instance whose counts are also added to {@code parent}, if it is not null. */
+  FixpointStats(@Nullable FixpointStats parent) {
+    _parent = parent;
+  }
+
+  /** Add the counts of {@code other} to this instance. */
+  public void add(FixpointStats other) {
+    _edgeTraversals += other._edgeTraversals;
+    _orOperations += other._orOperations;
+    _stateShrinks += other._stateShrinks;
+    _stateUpdates += other._stateUpdates;
+  }
+
+  /** Subtract the counts of {@code other} from this instance. */
+  void subtract(FixpointStats other) {
+    _edgeTraversals -= other._edgeTraversals;
+    _orOperations -= other._orOperations;
+    _stateShrinks -= other._stateShrinks;
+    _stateUpdates -= other._stateUpdates;
+  }
+
+  /** Number of times a {@link BDD} was propagated along an {@link Edge}. */
+  public long getEdgeTraversals() {
+    return _edgeTraversals;
+  }
+
+  /**
+   * Number of {@link BDD#or} operations used to grow the {@link BDD} of a state, or to combine the
+   * {@link BDD BDDs} of its successors when computing loops.
+   */
+  public long getOrOperations() {
+    return _orOperations;
+  }
+
+  /**
+   * Number of times the {@link BDD} of a state shrank in the greatest fixpoint that detects loops,
+   * each of which schedules its predecessors for a visit.
+   */
+  public long getStateShrinks() {
+    return _stateShrinks;
+  }
+
+  /** Number of times the {@link BDD} of a state grew, each of which schedules it for a visit. */
+  public long getStateUpdates() {
+    return _stateUpdates;
+  }
+
+  void edgeTraversed() {
+    _edgeTraversals++;
+    if (_parent != null) {
+      _parent.edgeTraversed();
+    }
+  }
+
+  void orPerformed() {
+    _orOperations++;
+    if (_parent != null) {
+      _parent.orPerformed();
+    }
+  }
+
+  void stateShrunk() {
+    _stateShrinks++;
+    if (_parent != null) {
+      _parent.stateShrunk();
+    }
+  }
+
+  void stateUpdated() {
+    _stateUpdates++;
+    if (_parent != null) {
+      _parent.stateUpdated();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("edgeTraversals", _edgeTraversals)
+        .add("orOperations", _orOperations)
+        .add("stateShrinks", _stateShrinks)
+        .add("stateUpdates", _stateUpdates)
+        .toString();
+  }
+}
@@ -0,0 +1,284 @@
+package org.batfish.bddreachability;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.batfish.common.util.CommonUtil.toImmutableMap;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.ForwardingAnalysis;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpRange;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.datamodel.acl.AclLineMatchExpr;
+import org.batfish.specifier.IpSpaceAssignment;
+import org.batfish.z3.IngressLocation;
+
+/**
+ * Computes the same results as {@link BDDReachabilityAnalysisFactory#getAllBDDs} using several
+ * threads.
+ *
+ * <p>{@link net.sf.javabdd.JFactory} is not thread-safe, and the edges of a reachability graph
+ * close over the {@link BDD BDDs} of their {@link BDDPacket}, so each worker thread needs its own
+ * {@link BDDReachabilityAnalysisFactory} on its own {@link BDDPacket}. These are built
+ * concurrently, once per snapshot, by {@link #createWorkerFactories}. Callers are expected to cache
+ * and reuse them, so that every later query only adds its own root and query edges to the
+ * query-independent edges that each worker factory already built.
+ *
+ * <p>The work is split by partitioning the destination IP space into disjoint ranges: the packets
+ * of the initial headerspace that reach the query are the union of those that reach it within each
+ * range. Ranges are chosen so that each contains about the same number of interface subnets of the
+ * network, which is a rough proxy for the amount of forwarding state involved. Each worker's
+ * results are then transferred to the caller's {@link BDDPacket}, which must have been created by
+ * {@link #createBDDPacket} so that it has the same variables as those of the workers, and merged.
+ */
+@ParametersAreNonnullByDefault
+public final class ParallelBDDReachabilityAnalysis {
+
+  private static final long MAX_IP = Ip.MAX.asLong();
+
+  private final BDDPacket _bddPacket;
+
+  private final Map<String, Configuration> _configs;
+
+  private final FixpointStats _fixpointStats;
+
+  private final List<BDDReachabilityAnalysisFactory> _workerFactories;
+
+  /** The results of one partition, in a form that can be loaded into another factory */
+  private static final class PartitionResult {
+    private final Map<IngressLocation, String> _savedBdds;
+    private final FixpointStats _fixpointStats;
+    private final int _varNum;
+
+    private PartitionResult(
+        Map<IngressLocation, String> savedBdds, FixpointStats fixpointStats, int varNum) {
+      _savedBdds = savedBdds;
+      _fixpointStats = fixpointStats;
+      _varNum = varNum;
+    }
+  }
+
+  /**
+   * Create a new parallel analysis.
+   *
+   * @param bddPacket The {@link BDDPacket} in which results are returned, as created by {@link
+   *     #createBDDPacket} for {@code configs}
+   * @param configs The configurations of the network
+   * @param workerFactories The factories of the worker threads, as created by {@link
+   *     #createWorkerFactories} for {@code configs}. There is one thread per factory.
+   */
+  public ParallelBDDReachabilityAnalysis(
+      BDDPacket bddPacket,
+      Map<String, Configuration> configs,
+      List<BDDReachabilityAnalysisFactory> workerFactories) {
+    checkArgument(!workerFactories.isEmpty(), "At least one worker factory is required");
+    for (BDDReachabilityAnalysisFactory factory : workerFactories) {
+      checkArgument(
+          factory.getBDDPacket().getFactory().varNum() == bddPacket.getFactory().varNum(),
+          "BDDPacket does not have the variables of the worker factories");
+    }
+    _bddPacket = bddPacket;
+    _configs = configs;
+    _workerFactories = workerFactories;
+    _fixpointStats = new FixpointStats();
+  }
+
+  /**
+   * Returns a new {@link BDDPacket} with the same variables as those of the factories created by
+   * {@link #createWorkerFactories} for {@code configs}, into which their results can be loaded.
+   */
+  public static BDDPacket createBDDPacket(Map<String, Configuration> configs) {
+    BDDPacket pkt = new BDDPacket();
+    BDDReachabilityAnalysisFactory.allocateVariables(pkt, configs);
+    return pkt;
+  }
+
+  /**
+   * Build, concurrently, one {@link BDDReachabilityAnalysisFactory} per worker thread, each on its
+   * own {@link BDDPacket}, with its query-independent edges. There are at most {@code parallelism}
+   * workers, and fewer if the network has too few subnets to keep them all busy.
+   */
+  public static List<BDDReachabilityAnalysisFactory> createWorkerFactories(
+      Map<String, Configuration> configs,
+      ForwardingAnalysis forwardingAnalysis,
+      boolean ignoreFilters,
+      int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be positive");
+    int numWorkers = partitionDstIps(configs.values(), parallelism).size();
+    Callable<BDDReachabilityAnalysisFactory> createFactory =
+        () -> {
+          BDDReachabilityAnalysisFactory factory =
+              new BDDReachabilityAnalysisFactory(
+                  new BDDPacket(), configs, forwardingAnalysis, ignoreFilters);
+          factory.generateQueryIndependentEdgesNow();
+          return factory;
+        };
+    return runOnWorkers(
+        numWorkers,
+        Collections.nCopies(numWorkers, createFactory),
+        "Error building BDD reachability graph");
+  }
+
+  /** Returns the work done by the analyses of all partitions so far. */
+  public FixpointStats getFixpointStats() {
+    return _fixpointStats;
+  }
+
+  /**
+   * Same as {@link BDDReachabilityAnalysisFactory#getAllBDDs}, but with the returned {@link BDD
+   * BDDs} owned by the {@link BDDPacket} of this analysis.
+   */
+  public Map<IngressLocation, BDD> getAllBDDs(
+      IpSpaceAssignment srcIpSpaceAssignment,
+      AclLineMatchExpr initialHeaderSpace,
+      Set<String> forbiddenTransitNodes,
+      Set<String> requiredTransitNodes,
+      Set<String> finalNodes,
+      Set<FlowDisposition> actions) {
+    List<IpSpace> partitions = partitionDstIps(_configs.values(), _workerFactories.size());
+    List<Callable<PartitionResult>> tasks = new ArrayList<>(partitions.size());
+    for (int i = 0; i < partitions.size(); i++) {
+      BDDReachabilityAnalysisFactory factory = _workerFactories.get(i);
+      AclLineMatchExpr headerSpace = and(initialHeaderSpace, matchDst(partitions.get(i)));
+      tasks.add(
+          () -> {
+            // Cached worker factories may be shared by concurrent queries, so use one at a time
+            synchronized (factory) {
+              BDDFactory bddFactory = factory.getBDDPacket().getFactory();
+              FixpointStats stats = new FixpointStats();
+              stats.subtract(factory.getFixpointStats());
+              Map<IngressLocation, BDD> bdds =
+                  factory.getAllBDDs(
+                      srcIpSpaceAssignment,
+                      headerSpace,
+                      forbiddenTransitNodes,
+                      requiredTransitNodes,
+                      finalNodes,
+                      actions);
+              stats.add(factory.getFixpointStats());
+              return new PartitionResult(
+                  toImmutableMap(bdds, Entry::getKey, entry -> save(bddFactory, entry.getValue())),
+                  stats,
+                  bddFactory.varNum());
+            }
+          });
+    }
+    List<PartitionResult> partitionResults =
+        runOnWorkers(tasks.size(), tasks, "Error computing BDD reachability");
+
+    // Only this thread touches the caller's BDDPacket
+    BDDFactory bddFactory = _bddPacket.getFactory();
+    Map<IngressLocation, BDD> result = new HashMap<>();
+    for (PartitionResult partitionResult : partitionResults) {
+      checkState(
+          partitionResult._varNum == bddFactory.varNum(),
+          "Worker BDDPacket has %s variables, but the result BDDPacket has %s",
+          partitionResult._varNum,
+          bddFactory.varNum());
+      partitionResult._savedBdds.forEach(
+          (location, saved) -> result.merge(location, load(bddFactory, saved), BDD::or));
+      _fixpointStats.add(partitionResult._fixpointStats);
+    }
+    return result;
+  }
+
+  /** Run {@code tasks} on {@code numThreads} new threads, and return their results in order. */
+  private static <T> List<T> runOnWorkers(
+      int numThreads, Collection<? extends Callable<T>> tasks, String errorMessage) {
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      ImmutableList.Builder<T> results = ImmutableList.builder();
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results.build();
+    } catch (ExecutionException e) {
+      throw new BatfishException(errorMessage, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BatfishException("Interrupted: " + errorMessage, e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Split the destination IP space into at most {@code numPartitions} disjoint ranges, each
+   * containing about the same number of distinct interface subnets of the given configurations.
+   */
+  @VisibleForTesting
+  static List<IpSpace> partitionDstIps(Collection<Configuration> configs, int numPartitions) {
+    long[] subnetStarts =
+        configs.stream()
+            .flatMap(c -> c.getAllInterfaces().values().stream())
+            .flatMap(iface -> iface.getAllAddresses().stream())
+            .mapToLong(address -> address.getPrefix().getStartIp().asLong())
+            .distinct()
+            .sorted()
+            .toArray();
+    if (numPartitions == 1 || subnetStarts.length < 2) {
+      return ImmutableList.of(UniverseIpSpace.INSTANCE);
+    }
+    ImmutableList.Builder<IpSpace> partitions = ImmutableList.builder();
+    long low = 0L;
+    for (int i = 1; i < numPartitions; i++) {
+      long boundary = subnetStarts[(int) ((long) i * subnetStarts.length / numPartitions)];
+      if (boundary <= low) {
+        // More partitions than subnets
+        continue;
+      }
+      partitions.add(IpRange.range(Ip.create(low), Ip.create(boundary - 1)));
+      low = boundary;
+    }
+    partitions.add(IpRange.range(Ip.create(low), Ip.create(MAX_IP)));
+    return partitions.build();
+  }
+
+  /** Serialize a {@link BDD} so that it can be loaded into another factory with the same vars */
+  private static String save(BDDFactory factory, BDD bdd) {
+    StringWriter out = new StringWriter();
+    try (BufferedWriter writer = new BufferedWriter(out)) {
+      factory.save(writer, bdd);
+    } catch (IOException e) {
+      throw new BatfishException("Could not serialize BDD", e);
+    }
+    return out.toString();
+  }
+
+  private static BDD load(BDDFactory factory, String saved) {
+    try (BufferedReader reader = new BufferedReader(new StringReader(saved))) {
+      return factory.load(reader);
+    } catch (IOException e) {
+      throw new BatfishException("Could not deserialize BDD", e);
+    }
+  }
+}
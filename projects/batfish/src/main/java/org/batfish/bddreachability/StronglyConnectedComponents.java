@@ -0,0 +1,104 @@
+package org.batfish.bddreachability;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/** Computes the strongly connected components of a directed graph, using Tarjan's algorithm. */
+@ParametersAreNonnullByDefault
+final class StronglyConnectedComponents {
+
+  /** A vertex whose successors are being explored */
+  private static final class Frame<T> {
+    private final T _vertex;
+    private final Iterator<T> _successors;
+
+    private Frame(T vertex, Iterator<T> successors) {
+      _vertex = vertex;
+      _successors = successors;
+    }
+  }
+
+  /**
+   * Returns the strongly connected components of the graph in reverse topological order, i.e. every
+   * edge between two different components goes from a component to one that appears earlier in the
+   * list.
+   *
+   * @param vertices The vertices of the graph
+   * @param successors The successors of each vertex. Successors must also be in {@code vertices}.
+   */
+  static <T> List<Set<T>> compute(Collection<T> vertices, Function<T, Collection<T>> successors) {
+    ImmutableList.Builder<Set<T>> components = ImmutableList.builder();
+    Map<T, Integer> indices = new HashMap<>();
+    Map<T, Integer> lowLinks = new HashMap<>();
+    Deque<T> stack = new ArrayDeque<>();
+    Set<T> onStack = new HashSet<>();
+
+    // Iterative depth-first search, since the graph may be deeper than the Java stack allows
+    Deque<Frame<T>> callStack = new ArrayDeque<>();
+    for (T root : vertices) {
+      if (indices.containsKey(root)) {
+        continue;
+      }
+      visit(root, successors, indices, lowLinks, stack, onStack, callStack);
+      while (!callStack.isEmpty()) {
+        Frame<T> frame = callStack.peek();
+        if (frame._successors.hasNext()) {
+          T next = frame._successors.next();
+          if (!indices.containsKey(next)) {
+            visit(next, successors, indices, lowLinks, stack, onStack, callStack);
+          } else if (onStack.contains(next)) {
+            lowLinks.merge(frame._vertex, indices.get(next), Math::min);
+          }
+          continue;
+        }
+        callStack.pop();
+        T vertex = frame._vertex;
+        int lowLink = lowLinks.get(vertex);
+        if (!callStack.isEmpty()) {
+          lowLinks.merge(callStack.peek()._vertex, lowLink, Math::min);
+        }
+        if (lowLink == indices.get(vertex)) {
+          // vertex is the root of a component
+          ImmutableSet.Builder<T> component = ImmutableSet.builder();
+          T member;
+          do {
+            member = stack.pop();
+            onStack.remove(member);
+            component.add(member);
+          } while (!member.equals(vertex));
+          components.add(component.build());
+        }
+      }
+    }
+    return components.build();
+  }
+
+  private static <T> void visit(
+      T vertex,
+      Function<T, Collection<T>> successors,
+      Map<T, Integer> indices,
+      Map<T, Integer> lowLinks,
+      Deque<T> stack,
+      Set<T> onStack,
+      Deque<Frame<T>> callStack) {
+    int index = indices.size();
+    indices.put(vertex, index);
+    lowLinks.put(vertex, index);
+    stack.push(vertex);
+    onStack.add(vertex);
+    callStack.push(new Frame<>(vertex, successors.apply(vertex).iterator()));
+  }
+
+  private StronglyConnectedComponents() {}
+}
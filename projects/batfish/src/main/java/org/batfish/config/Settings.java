@@ -13,6 +13,7 @@ import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.CoordConsts;
 import org.batfish.common.Version;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.Ip;
 import org.batfish.grammar.GrammarSettings;
@@ -25,6 +26,8 @@ import org.batfish.storage.FileBasedStorageDirectoryProvider;
 
 public final class Settings extends BaseSettings implements GrammarSettings {
 
+  private static final String ARG_BDD_REACHABILITY_PARALLELISM = "bddreachabilityparallelism";
+
   public static final String ARG_CHECK_BGP_REACHABILITY = "checkbgpsessionreachability";
 
   public static final String ARG_COORDINATOR_HOST = "coordinatorhost";
@@ -45,6 +48,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_FLATTEN_DESTINATION = "flattendst";
 
+  private static final String ARG_FUSE_PARSE_CONVERT = "fuseparseconvert";
+
+  private static final String ARG_FUSED_SERIALIZE_VENDOR = "fusedserializevendor";
+
   private static final String ARG_HELP = "help";
 
   private static final String ARG_HISTOGRAM = "histogram";
@@ -55,6 +62,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_JOBS = "jobs";
 
+  private static final String ARG_LAZY_CONFIGURATIONS = "lazyconfigurations";
+
   private static final String ARG_LOG_TEE = "logtee";
 
   private static final String ARG_MAX_PARSER_CONTEXT_LINES = "maxparsercontextlines";
@@ -69,6 +78,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   public static final String ARG_PARENT_PID = "parentpid";
 
+  private static final String ARG_PARSE_CACHE = "parsecache";
+
+  private static final String ARG_PARSE_PIPELINE_WINDOW = "parsepipelinewindow";
+
   private static final String ARG_PRINT_PARSE_TREES = "ppt";
 
   private static final String ARG_PRINT_PARSE_TREE_LINE_NUMS = "printparsetreelinenums";
@@ -77,6 +90,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_SEQUENTIAL = "sequential";
 
+  private static final String ARG_SERIALIZATION_FORMAT = "serializationformat";
+
   private static final String ARG_SERIALIZE_TO_TEXT = "stext";
 
   private static final String ARG_SERVICE_BIND_HOST = "servicebindhost";
@@ -207,6 +222,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return Math.min(Runtime.getRuntime().availableProcessors(), getJobs());
   }
 
+  /**
+   * Returns the number of threads used to compute BDD reachability questions. With a value of 1,
+   * the analysis runs on the calling thread.
+   */
+  public int getBddReachabilityParallelism() {
+    return _config.getInt(ARG_BDD_REACHABILITY_PARALLELISM);
+  }
+
   public TestrigSettings getBaseTestrigSettings() {
     return _baseTestrigSettings;
   }
@@ -274,6 +297,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return Paths.get(_config.getString(ARG_FLATTEN_DESTINATION));
   }
 
+  public boolean getFuseParseConvert() {
+    return _config.getBoolean(ARG_FUSE_PARSE_CONVERT);
+  }
+
+  public boolean getFusedSerializeVendor() {
+    return _config.getBoolean(ARG_FUSED_SERIALIZE_VENDOR);
+  }
+
   public boolean getHaltOnConvertError() {
     return _config.getBoolean(BfConsts.ARG_HALT_ON_CONVERT_ERROR);
   }
@@ -317,6 +348,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getString(BfConsts.ARG_LOG_LEVEL);
   }
 
+  /**
+   * Whether the serialized configuration of each node is loaded only when it is accessed, rather
+   * than all configurations up front.
+   */
+  public boolean getLazyConfigurations() {
+    return _config.getBoolean(ARG_LAZY_CONFIGURATIONS);
+  }
+
   public boolean getLogTee() {
     return _config.getBoolean(ARG_LOG_TEE);
   }
@@ -325,6 +364,22 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getInt(ARG_PARENT_PID);
   }
 
+  /**
+   * Whether parse results should be stored in and reused from a network-wide cache keyed by file
+   * content, so that files unchanged since a previous snapshot are not parsed again.
+   */
+  public boolean getParseCache() {
+    return _config.getBoolean(ARG_PARSE_CACHE);
+  }
+
+  /**
+   * Returns the maximum number of configuration files being read, parsed, or serialized at once, or
+   * {@code 0} if all files should be read into memory before parsing.
+   */
+  public int getParsePipelineWindow() {
+    return _config.getInt(ARG_PARSE_PIPELINE_WINDOW);
+  }
+
   @Override
   public int getMaxParserContextLines() {
     return _config.getInt(ARG_MAX_PARSER_CONTEXT_LINES);
@@ -379,6 +434,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getBoolean(ARG_SEQUENTIAL);
   }
 
+  public SerializationFormat getSerializationFormat() {
+    return SerializationFormat.valueOf(_config.getString(ARG_SERIALIZATION_FORMAT).toUpperCase());
+  }
+
   public boolean getSerializeIndependent() {
     return _config.getBoolean(BfConsts.COMMAND_PARSE_VENDOR_INDEPENDENT);
   }
@@ -544,6 +603,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_EXIT_ON_FIRST_ERROR, false);
     setDefaultProperty(ARG_FLATTEN, false);
     setDefaultProperty(ARG_FLATTEN_DESTINATION, null);
+    setDefaultProperty(ARG_FUSE_PARSE_CONVERT, false);
+    setDefaultProperty(ARG_FUSED_SERIALIZE_VENDOR, true);
     setDefaultProperty(BfConsts.ARG_HALT_ON_CONVERT_ERROR, false);
     setDefaultProperty(BfConsts.ARG_HALT_ON_PARSE_ERROR, false);
     setDefaultProperty(ARG_HELP, false);
@@ -553,23 +614,28 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_IGNORE_UNSUPPORTED, true);
     setDefaultProperty(ARG_IGNORE_UNKNOWN, true);
     setDefaultProperty(ARG_JOBS, Integer.MAX_VALUE);
+    setDefaultProperty(ARG_LAZY_CONFIGURATIONS, false);
     setDefaultProperty(ARG_LOG_TEE, false);
     setDefaultProperty(BfConsts.ARG_LOG_LEVEL, "debug");
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
+    setDefaultProperty(ARG_BDD_REACHABILITY_PARALLELISM, 1);
     setDefaultProperty(ARG_CHECK_BGP_REACHABILITY, true);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(BfConsts.ARG_PEDANTIC_SUPPRESS, false);
     setDefaultProperty(BfConsts.ARG_PRETTY_PRINT_ANSWER, false);
     setDefaultProperty(ARG_PARENT_PID, -1);
+    setDefaultProperty(ARG_PARSE_CACHE, false);
+    setDefaultProperty(ARG_PARSE_PIPELINE_WINDOW, 0);
     setDefaultProperty(ARG_PRINT_PARSE_TREES, false);
     setDefaultProperty(ARG_PRINT_PARSE_TREE_LINE_NUMS, false);
     setDefaultProperty(BfConsts.ARG_QUESTION_NAME, null);
     setDefaultProperty(BfConsts.ARG_RED_FLAG_SUPPRESS, false);
     setDefaultProperty(ARG_RUN_MODE, RunMode.WORKER.toString());
     setDefaultProperty(ARG_SEQUENTIAL, false);
+    setDefaultProperty(ARG_SERIALIZATION_FORMAT, SerializationFormat.JAVA.toString());
     setDefaultProperty(ARG_SERIALIZE_TO_TEXT, false);
     setDefaultProperty(ARG_SERVICE_BIND_HOST, Ip.ZERO.toString());
     setDefaultProperty(ARG_SERVICE_HOST, "localhost");
@@ -639,6 +705,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
         "Set to true to record all iterations, including during oscillation. Ignores max recorded "
             + "iterations value.");
 
+    addOption(
+        ARG_BDD_REACHABILITY_PARALLELISM,
+        "number of threads used to compute BDD reachability questions",
+        ARGNAME_NUMBER);
+
     addBooleanOption(
         ARG_CHECK_BGP_REACHABILITY,
         "whether to check BGP session reachability during data plane computation");
@@ -683,6 +754,17 @@ public final class Settings extends BaseSettings implements GrammarSettings {
             + "placed",
         ARGNAME_PATH);
 
+    addBooleanOption(
+        ARG_FUSE_PARSE_CONVERT,
+        "convert each network configuration right after it is parsed, instead of reading the "
+            + "vendor-specific configurations back from disk");
+
+    addBooleanOption(
+        ARG_FUSED_SERIALIZE_VENDOR,
+        "with "
+            + ARG_FUSE_PARSE_CONVERT
+            + ", still write vendor-specific network configurations to disk");
+
     addBooleanOption(
         BfConsts.COMMAND_INIT_INFO, "include parse/convert initialization info in answer");
 
@@ -718,6 +800,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_HISTOGRAM, "build histogram of unimplemented features");
 
+    addBooleanOption(
+        ARG_LAZY_CONFIGURATIONS,
+        "load the serialized configuration of each node only when accessed, instead of all "
+            + "configurations up front");
+
     addBooleanOption(ARG_LOG_TEE, "print output to both logfile and standard out");
 
     addOption(
@@ -742,6 +829,17 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(ARG_PARENT_PID, "name of parent PID", ARGNAME_NUMBER);
 
+    addBooleanOption(
+        ARG_PARSE_CACHE,
+        "reuse parse results of configuration files unchanged since a previous snapshot of the "
+            + "network");
+
+    addOption(
+        ARG_PARSE_PIPELINE_WINDOW,
+        "max number of configuration files in flight when streaming them through parsing and "
+            + "serialization (0 reads all files up front)",
+        ARGNAME_NUMBER);
+
     addBooleanOption(BfConsts.ARG_PEDANTIC_SUPPRESS, "suppresses pedantic warnings");
 
     addBooleanOption(BfConsts.ARG_PRETTY_PRINT_ANSWER, "pretty print answer");
@@ -762,6 +860,13 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_SEQUENTIAL, "force sequential operation");
 
+    addOption(
+        ARG_SERIALIZATION_FORMAT,
+        "binary format used to serialize parsed configurations and other cached structures",
+        Arrays.stream(SerializationFormat.values())
+            .map(Object::toString)
+            .collect(Collectors.joining("|")));
+
     addBooleanOption(ARG_SERIALIZE_TO_TEXT, "serialize to text");
 
     addOption(
@@ -882,6 +987,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getIntOptionValue(BfConsts.ARG_BDP_MAX_RECORDED_ITERATIONS);
     getBooleanOptionValue(BfConsts.ARG_BDP_PRINT_ALL_ITERATIONS);
     getBooleanOptionValue(BfConsts.ARG_BDP_PRINT_OSCILLATING_ITERATIONS);
+    getIntOptionValue(ARG_BDD_REACHABILITY_PARALLELISM);
     getBooleanOptionValue(ARG_CHECK_BGP_REACHABILITY);
     getStringOptionValue(BfConsts.ARG_CONTAINER);
     getStringOptionValue(ARG_COORDINATOR_HOST);
@@ -896,6 +1002,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(ARG_EXIT_ON_FIRST_ERROR);
     getBooleanOptionValue(ARG_FLATTEN);
     getPathOptionValue(ARG_FLATTEN_DESTINATION);
+    getBooleanOptionValue(ARG_FUSE_PARSE_CONVERT);
+    getBooleanOptionValue(ARG_FUSED_SERIALIZE_VENDOR);
     getBooleanOptionValue(BfConsts.ARG_HALT_ON_CONVERT_ERROR);
     getBooleanOptionValue(BfConsts.ARG_HALT_ON_PARSE_ERROR);
     getBooleanOptionValue(ARG_HISTOGRAM);
@@ -905,12 +1013,15 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(ARG_IGNORE_UNSUPPORTED);
     getBooleanOptionValue(BfConsts.COMMAND_INIT_INFO);
     getIntOptionValue(ARG_JOBS);
+    getBooleanOptionValue(ARG_LAZY_CONFIGURATIONS);
     getBooleanOptionValue(ARG_LOG_TEE);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     getIntOptionValue(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
     getIntOptionValue(ARG_MAX_RUNTIME_MS);
     getIntOptionValue(ARG_PARENT_PID);
+    getBooleanOptionValue(ARG_PARSE_CACHE);
+    getIntOptionValue(ARG_PARSE_PIPELINE_WINDOW);
     getBooleanOptionValue(BfConsts.ARG_PEDANTIC_SUPPRESS);
     getBooleanOptionValue(BfConsts.ARG_PRETTY_PRINT_ANSWER);
     getBooleanOptionValue(ARG_PRINT_PARSE_TREES);
@@ -919,6 +1030,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(BfConsts.ARG_RED_FLAG_SUPPRESS);
     getStringOptionValue(ARG_RUN_MODE);
     getBooleanOptionValue(ARG_SEQUENTIAL);
+    getStringOptionValue(ARG_SERIALIZATION_FORMAT);
     getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_INDEPENDENT);
     getBooleanOptionValue(ARG_SERIALIZE_TO_TEXT);
     getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_SPECIFIC);
@@ -954,6 +1066,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _activeTestrigSettings = activeTestrigSettings;
   }
 
+  public void setBddReachabilityParallelism(int parallelism) {
+    _config.setProperty(ARG_BDD_REACHABILITY_PARALLELISM, parallelism);
+  }
+
   public void setCanExecute(boolean canExecute) {
     _config.setProperty(CAN_EXECUTE, canExecute);
   }
@@ -983,6 +1099,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(BfConsts.ARG_DISABLE_UNRECOGNIZED, b);
   }
 
+  public void setFuseParseConvert(boolean fuseParseConvert) {
+    _config.setProperty(ARG_FUSE_PARSE_CONVERT, fuseParseConvert);
+  }
+
+  public void setFusedSerializeVendor(boolean fusedSerializeVendor) {
+    _config.setProperty(ARG_FUSED_SERIALIZE_VENDOR, fusedSerializeVendor);
+  }
+
   public void setHaltOnConvertError(boolean haltOnConvertError) {
     _config.setProperty(BfConsts.ARG_HALT_ON_CONVERT_ERROR, haltOnConvertError);
   }
@@ -999,6 +1123,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(BfConsts.COMMAND_INIT_INFO, initInfo);
   }
 
+  public void setLazyConfigurations(boolean lazyConfigurations) {
+    _config.setProperty(ARG_LAZY_CONFIGURATIONS, lazyConfigurations);
+  }
+
   public void setLogger(BatfishLogger logger) {
     _logger = logger;
   }
@@ -1019,6 +1147,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_MAX_RUNTIME_MS, runtimeMs);
   }
 
+  public void setParseCache(boolean parseCache) {
+    _config.setProperty(ARG_PARSE_CACHE, parseCache);
+  }
+
+  public void setParsePipelineWindow(int parsePipelineWindow) {
+    _config.setProperty(ARG_PARSE_PIPELINE_WINDOW, parsePipelineWindow);
+  }
+
   @Override
   public void setPrintParseTree(boolean printParseTree) {
     _config.setProperty(ARG_PRINT_PARSE_TREES, printParseTree);
@@ -1033,6 +1169,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_RUN_MODE, runMode.toString());
   }
 
+  public void setSerializationFormat(SerializationFormat serializationFormat) {
+    _config.setProperty(ARG_SERIALIZATION_FORMAT, serializationFormat.toString());
+  }
+
   public void setSequential(boolean sequential) {
     _config.setProperty(ARG_SEQUENTIAL, sequential);
   }
@@ -0,0 +1,151 @@
+package org.batfish.dataplane;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.FibImpl;
+import org.batfish.datamodel.GenericRib;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.dataplane.rib.AbstractRib;
+import org.batfish.dataplane.rib.RibDelta;
+import org.batfish.dataplane.rib.RouteAdvertisement;
+
+/**
+ * A {@link FibImpl} that is kept up to date as its RIB changes, without resolving every route
+ * again.
+ *
+ * <p>While resolving a route, the FIB records the next hop IPs looked up in the RIB, including
+ * those looked up while resolving the routes it recursively depends on. When routes for a prefix
+ * are added or removed, only the routes that looked up an IP in that prefix are resolved again. The
+ * changes are recorded by the RIB as they are made (see {@link AbstractRib#takeChanges()}), so
+ * finding them does not scan the RIB.
+ */
+@ParametersAreNonnullByDefault
+public final class IncrementalFib extends FibImpl {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Routes by the next hop IPs looked up while resolving them. Not serialized; rebuilt by resolving
+   * every route again the first time a deserialized FIB is updated.
+   */
+  @Nullable private transient NavigableMap<Ip, Set<AbstractRoute>> _dependentRoutes;
+
+  /** Next hop IPs looked up while resolving each route. Not serialized, like the above. */
+  @Nullable private transient Map<AbstractRoute, Set<Ip>> _lookedUpIps;
+
+  /** The RIB of this FIB, which records its changes for {@link #getRibDelta()} */
+  private final AbstractRib<AbstractRoute> _trackedRib;
+
+  public IncrementalFib(AbstractRib<AbstractRoute> rib) {
+    super(rib, new HashMap<>());
+    _trackedRib = rib;
+    resolveAll();
+  }
+
+  /** Returns whether this FIB was computed from {@code rib}. */
+  public boolean isFibOf(GenericRib<AbstractRoute> rib) {
+    return getRib() == rib;
+  }
+
+  /**
+   * Returns the changes to the RIB since this FIB was computed or last updated, as recorded by the
+   * RIB. If this FIB was deserialized since, the RIB no longer records its changes, so every route
+   * is resolved again instead and the delta is empty.
+   */
+  @Nonnull
+  public RibDelta<AbstractRoute> getRibDelta() {
+    if (_dependentRoutes == null) {
+      resolveAll();
+      return RibDelta.empty();
+    }
+    return _trackedRib.takeChanges();
+  }
+
+  /** Resolves every route of the RIB from scratch, and starts tracking its changes. */
+  private void resolveAll() {
+    getNextHopInterfaces().clear();
+    _dependentRoutes = new TreeMap<>();
+    _lookedUpIps = new HashMap<>();
+    _trackedRib.trackChanges();
+    getRib().getRoutes().forEach(this::resolve);
+  }
+
+  /**
+   * Brings this FIB up to date after {@code delta} was applied to the RIB. Resolves the added
+   * routes, and resolves again every route whose resolution looked up a next hop IP in a prefix
+   * that {@code delta} changes.
+   *
+   * @return the number of routes resolved
+   */
+  public int update(RibDelta<? extends AbstractRoute> delta) {
+    if (delta.isEmpty()) {
+      return 0;
+    }
+    if (_dependentRoutes == null) {
+      resolveAll();
+      return getRib().getRoutes().size();
+    }
+    Set<AbstractRoute> toResolve = new HashSet<>();
+    for (RouteAdvertisement<? extends AbstractRoute> action : delta.getActions()) {
+      AbstractRoute route = action.getRoute();
+      unresolve(route);
+      toResolve.add(route);
+    }
+    for (Prefix prefix : delta.getPrefixes()) {
+      // Copy, since unresolving a route modifies the map
+      Set<AbstractRoute> dependentRoutes = new HashSet<>();
+      _dependentRoutes
+          .subMap(prefix.getStartIp(), true, prefix.getEndIp(), true)
+          .values()
+          .forEach(dependentRoutes::addAll);
+      for (AbstractRoute route : dependentRoutes) {
+        unresolve(route);
+        toResolve.add(route);
+      }
+    }
+    int resolved = 0;
+    for (AbstractRoute route : toResolve) {
+      if (_trackedRib.containsRoute(route)) {
+        resolve(route);
+        resolved++;
+      }
+    }
+    return resolved;
+  }
+
+  private void resolve(AbstractRoute route) {
+    Set<Ip> lookedUpIps = new HashSet<>();
+    getNextHopInterfaces().put(route, collectNextHopInterfaces(getRib(), route, lookedUpIps::add));
+    if (lookedUpIps.isEmpty()) {
+      return;
+    }
+    _lookedUpIps.put(route, lookedUpIps);
+    for (Ip ip : lookedUpIps) {
+      _dependentRoutes.computeIfAbsent(ip, k -> new HashSet<>()).add(route);
+    }
+  }
+
+  private void unresolve(AbstractRoute route) {
+    getNextHopInterfaces().remove(route);
+    Set<Ip> lookedUpIps = _lookedUpIps.remove(route);
+    if (lookedUpIps == null) {
+      return;
+    }
+    for (Ip ip : lookedUpIps) {
+      Set<AbstractRoute> dependentRoutes = _dependentRoutes.get(ip);
+      dependentRoutes.remove(route);
+      if (dependentRoutes.isEmpty()) {
+        _dependentRoutes.remove(ip);
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.base.MoreObjects;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.BgpActivePeerConfig;
+import org.batfish.datamodel.BgpPassivePeerConfig;
+import org.batfish.datamodel.BgpPeerConfig;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Ip;
+import org.batfish.dataplane.protocols.BgpProtocolHelper;
+
+/**
+ * Identifies an update group: the BGP sessions of a {@link VirtualRouter} over which a route is
+ * exported identically. Two sessions have the same key if they agree on the session properties, the
+ * export policy, and every other attribute of either peer that {@link
+ * BgpProtocolHelper#transformBgpRouteOnExport(BgpPeerConfig, BgpPeerConfig, BgpSessionProperties,
+ * org.batfish.datamodel.Vrf, org.batfish.datamodel.AbstractRoute)} reads.
+ */
+@ParametersAreNonnullByDefault
+final class BgpUpdateGroupKey {
+
+  private final boolean _allowRemoteAsOut;
+  @Nullable private final String _exportPolicy;
+  @Nullable private final Long _localAs;
+  @Nullable private final Ip _localIp;
+  @Nullable private final Ip _passiveNextHopIp;
+  @Nullable private final Long _remoteLocalAs;
+  private final boolean _remoteRouteReflectorClient;
+  private final boolean _routeReflectorClient;
+  private final boolean _sendCommunity;
+  private final BgpSessionProperties _session;
+
+  /**
+   * @param ourConfig the peer that exports routes
+   * @param remoteConfig the peer that receives them
+   * @param session the properties of the session between the two
+   */
+  BgpUpdateGroupKey(
+      BgpPeerConfig ourConfig, BgpPeerConfig remoteConfig, BgpSessionProperties session) {
+    _allowRemoteAsOut = ourConfig.getAllowRemoteAsOut();
+    _exportPolicy = ourConfig.getExportPolicy();
+    _localAs = ourConfig.getLocalAs();
+    _localIp = ourConfig.getLocalIp();
+    // A passive peer uses the remote peer's address as the next hop of some routes
+    _passiveNextHopIp =
+        ourConfig instanceof BgpPassivePeerConfig
+            ? ((BgpActivePeerConfig) remoteConfig).getPeerAddress()
+            : null;
+    _remoteLocalAs = remoteConfig.getLocalAs();
+    _remoteRouteReflectorClient = remoteConfig.getRouteReflectorClient();
+    _routeReflectorClient = ourConfig.getRouteReflectorClient();
+    _sendCommunity = ourConfig.getSendCommunity();
+    _session = session;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof BgpUpdateGroupKey)) {
+      return false;
+    }
+    BgpUpdateGroupKey that = (BgpUpdateGroupKey) o;
+    return _allowRemoteAsOut == that._allowRemoteAsOut
+        && _remoteRouteReflectorClient == that._remoteRouteReflectorClient
+        && _routeReflectorClient == that._routeReflectorClient
+        && _sendCommunity == that._sendCommunity
+        && Objects.equals(_exportPolicy, that._exportPolicy)
+        && Objects.equals(_localAs, that._localAs)
+        && Objects.equals(_localIp, that._localIp)
+        && Objects.equals(_passiveNextHopIp, that._passiveNextHopIp)
+        && Objects.equals(_remoteLocalAs, that._remoteLocalAs)
+        && _session.equals(that._session);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        _allowRemoteAsOut,
+        _exportPolicy,
+        _localAs,
+        _localIp,
+        _passiveNextHopIp,
+        _remoteLocalAs,
+        _remoteRouteReflectorClient,
+        _routeReflectorClient,
+        _sendCommunity,
+        _session);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("session", _session)
+        .add("exportPolicy", _exportPolicy)
+        .add("localIp", _localIp)
+        .add("localAs", _localAs)
+        .add("remoteLocalAs", _remoteLocalAs)
+        .toString();
+  }
+}
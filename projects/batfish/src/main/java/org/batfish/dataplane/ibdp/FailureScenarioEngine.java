@@ -0,0 +1,285 @@
+package org.batfish.dataplane.ibdp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.batfish.common.util.CommonUtil.toImmutableSortedMap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.BatfishLogger;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.BgpAdvertisement;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.NetworkConfigurations;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.main.Batfish;
+
+/**
+ * Evaluates a batch of {@link FailureScenario}s against a converged {@link IncrementalDataPlane},
+ * and reports how each changes its routes and FIBs.
+ *
+ * <p>This is a batching convenience, not incremental re-convergence: the data plane of each
+ * scenario is computed from scratch by a full {@link IncrementalBdpEngine} run, one scenario at a
+ * time, so a batch costs about as much as computing each data plane separately. The converged data
+ * plane is only the baseline that the results are compared against. What the batch saves is
+ * everything around those runs: only the configurations of nodes with failed interfaces are copied,
+ * scenarios that fail no active interface are not computed at all, and only the differences from
+ * the baseline routes and FIBs are kept, so the data plane of each scenario can be discarded as
+ * soon as it is computed.
+ */
+@ParametersAreNonnullByDefault
+public final class FailureScenarioEngine {
+
+  private final BatfishLogger _logger;
+
+  private final BiFunction<String, Integer, AtomicInteger> _newBatch;
+
+  private final IncrementalDataPlaneSettings _settings;
+
+  public FailureScenarioEngine(
+      IncrementalDataPlaneSettings settings,
+      BatfishLogger logger,
+      BiFunction<String, Integer, AtomicInteger> newBatch) {
+    _settings = settings;
+    _logger = logger;
+    _newBatch = newBatch;
+  }
+
+  /**
+   * Computes the effect of each of {@code scenarios} on {@code baseDataPlane}, which was computed
+   * with the given external BGP advertisements.
+   *
+   * @return the result of each scenario, by scenario name
+   * @throws IllegalArgumentException if two scenarios have the same name
+   */
+  @Nonnull
+  public SortedMap<String, FailureScenarioResult> computeFailureScenarios(
+      IncrementalDataPlane baseDataPlane,
+      Set<BgpAdvertisement> externalAdverts,
+      Collection<FailureScenario> scenarios) {
+    checkArgument(
+        scenarios.stream().map(FailureScenario::getName).distinct().count() == scenarios.size(),
+        "Failure scenario names must be unique");
+    SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> baseRoutes =
+        IncrementalBdpEngine.getRoutes(baseDataPlane);
+    SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>> baseFibEntries =
+        getFibEntries(baseDataPlane);
+    AtomicInteger progress =
+        _newBatch.apply("Computing data planes of failure scenarios", scenarios.size());
+    // One scenario at a time: each data plane computation is already parallel across nodes, and
+    // holds a whole data plane in memory until it is reduced to its differences.
+    ImmutableSortedMap.Builder<String, FailureScenarioResult> results =
+        ImmutableSortedMap.naturalOrder();
+    for (FailureScenario scenario : scenarios) {
+      results.put(
+          scenario.getName(),
+          computeFailureScenario(
+              baseDataPlane, baseRoutes, baseFibEntries, externalAdverts, scenario));
+      progress.incrementAndGet();
+    }
+    return results.build();
+  }
+
+  private @Nonnull FailureScenarioResult computeFailureScenario(
+      IncrementalDataPlane baseDataPlane,
+      SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> baseRoutes,
+      SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>> baseFibEntries,
+      Set<BgpAdvertisement> externalAdverts,
+      FailureScenario scenario) {
+    Map<String, Configuration> baseConfigurations = baseDataPlane.getConfigurations();
+    NetworkConfigurations nc = NetworkConfigurations.of(baseConfigurations);
+    Set<NodeInterfacePair> failedInterfaces =
+        scenario.getFailedInterfaces().stream()
+            .filter(
+                iface ->
+                    nc.getInterface(iface.getHostname(), iface.getInterface())
+                        .map(Interface::getActive)
+                        .orElse(false))
+            .collect(ImmutableSet.toImmutableSet());
+    if (failedInterfaces.isEmpty()) {
+      return new FailureScenarioResult(
+          ImmutableSortedMap.of(), ImmutableSortedMap.of(), ImmutableSortedMap.of());
+    }
+
+    // Copy the configurations of the nodes whose interfaces fail, and share the rest
+    Map<String, Configuration> failedNodes =
+        failedInterfaces.stream()
+            .map(NodeInterfacePair::getHostname)
+            .distinct()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Function.identity(),
+                    hostname -> SerializationUtils.clone(baseConfigurations.get(hostname))));
+    failedInterfaces.forEach(
+        iface ->
+            failedNodes
+                .get(iface.getHostname())
+                .getAllInterfaces()
+                .get(iface.getInterface())
+                .blacklist());
+    // Also bring down the interfaces that depend on failed ones, like subinterfaces and
+    // port-channels, as is done for blacklisted interfaces
+    Batfish.postProcessInterfaceDependencies(failedNodes);
+    Set<NodeInterfacePair> downInterfaces =
+        failedNodes.values().stream()
+            .flatMap(c -> c.getAllInterfaces().values().stream())
+            .filter(
+                iface ->
+                    !iface.getActive()
+                        && baseConfigurations
+                            .get(iface.getOwner().getHostname())
+                            .getAllInterfaces()
+                            .get(iface.getName())
+                            .getActive())
+            .map(NodeInterfacePair::new)
+            .collect(ImmutableSet.toImmutableSet());
+    Map<String, Configuration> configurations = new HashMap<>(baseConfigurations);
+    configurations.putAll(failedNodes);
+    Topology topology =
+        new Topology(
+            baseDataPlane.getTopologyEdges().stream()
+                .filter(
+                    edge ->
+                        !downInterfaces.contains(edge.getTail())
+                            && !downInterfaces.contains(edge.getHead()))
+                .collect(ImmutableSortedSet.toImmutableSortedSet(Comparator.<Edge>naturalOrder())));
+
+    _logger.debugf("Computing data plane of failure scenario %s\n", scenario.getName());
+    IncrementalDataPlane dataPlane =
+        (IncrementalDataPlane)
+            new IncrementalBdpEngine(_settings, _logger, _newBatch)
+                .computeDataPlane(configurations, topology, externalAdverts)
+                ._dataPlane;
+    SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> routes =
+        IncrementalBdpEngine.getRoutes(dataPlane);
+    return new FailureScenarioResult(
+        difference(routes, baseRoutes),
+        difference(baseRoutes, routes),
+        fibChanges(baseFibEntries, getFibEntries(dataPlane)));
+  }
+
+  /** Returns the next-hop interfaces of each prefix in each FIB of {@code dataPlane}. */
+  private static @Nonnull SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>>
+      getFibEntries(IncrementalDataPlane dataPlane) {
+    return toImmutableSortedMap(
+        dataPlane.getNodes(),
+        Entry::getKey,
+        nodeEntry ->
+            toImmutableSortedMap(
+                nodeEntry.getValue().getVirtualRouters(),
+                Entry::getKey,
+                vrfEntry -> getFibEntries(vrfEntry.getValue().getFib())));
+  }
+
+  private static @Nonnull SortedMap<Prefix, SortedSet<String>> getFibEntries(Fib fib) {
+    SortedMap<Prefix, SortedSet<String>> entries = new TreeMap<>();
+    fib.getNextHopInterfaces()
+        .forEach(
+            (route, nextHopInterfaces) ->
+                entries
+                    .computeIfAbsent(route.getNetwork(), p -> new TreeSet<>())
+                    .addAll(nextHopInterfaces.keySet()));
+    return entries;
+  }
+
+  /** Returns the routes in {@code minuend} but not {@code subtrahend}, for each changed VRF. */
+  private static @Nonnull SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> difference(
+      SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> minuend,
+      SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> subtrahend) {
+    ImmutableSortedMap.Builder<String, SortedMap<String, SortedSet<AbstractRoute>>> nodes =
+        ImmutableSortedMap.naturalOrder();
+    minuend.forEach(
+        (hostname, minuendVrfs) -> {
+          SortedMap<String, SortedSet<AbstractRoute>> subtrahendVrfs =
+              subtrahend.getOrDefault(hostname, ImmutableSortedMap.of());
+          ImmutableSortedMap.Builder<String, SortedSet<AbstractRoute>> vrfs =
+              ImmutableSortedMap.naturalOrder();
+          minuendVrfs.forEach(
+              (vrfName, minuendRoutes) -> {
+                SortedSet<AbstractRoute> routes =
+                    ImmutableSortedSet.copyOf(
+                        Sets.difference(
+                            minuendRoutes,
+                            subtrahendVrfs.getOrDefault(vrfName, ImmutableSortedSet.of())));
+                if (!routes.isEmpty()) {
+                  vrfs.put(vrfName, routes);
+                }
+              });
+          SortedMap<String, SortedSet<AbstractRoute>> changedVrfs = vrfs.build();
+          if (!changedVrfs.isEmpty()) {
+            nodes.put(hostname, changedVrfs);
+          }
+        });
+    return nodes.build();
+  }
+
+  /**
+   * Returns the FIB entries of {@code after} whose next-hop interfaces differ from those of {@code
+   * before}, with empty next-hop interfaces for prefixes that are only in {@code before}.
+   */
+  private static @Nonnull SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>>
+      fibChanges(
+          SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>> before,
+          SortedMap<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>> after) {
+    ImmutableSortedMap.Builder<String, SortedMap<String, SortedMap<Prefix, SortedSet<String>>>>
+        nodes = ImmutableSortedMap.naturalOrder();
+    for (String hostname : Sets.union(before.keySet(), after.keySet())) {
+      SortedMap<String, SortedMap<Prefix, SortedSet<String>>> beforeVrfs =
+          before.getOrDefault(hostname, ImmutableSortedMap.of());
+      SortedMap<String, SortedMap<Prefix, SortedSet<String>>> afterVrfs =
+          after.getOrDefault(hostname, ImmutableSortedMap.of());
+      ImmutableSortedMap.Builder<String, SortedMap<Prefix, SortedSet<String>>> vrfs =
+          ImmutableSortedMap.naturalOrder();
+      for (String vrfName : Sets.union(beforeVrfs.keySet(), afterVrfs.keySet())) {
+        SortedMap<Prefix, SortedSet<String>> beforeEntries =
+            beforeVrfs.getOrDefault(vrfName, ImmutableSortedMap.of());
+        SortedMap<Prefix, SortedSet<String>> afterEntries =
+            afterVrfs.getOrDefault(vrfName, ImmutableSortedMap.of());
+        ImmutableSortedMap.Builder<Prefix, SortedSet<String>> entries =
+            ImmutableSortedMap.naturalOrder();
+        for (Prefix prefix : Sets.union(beforeEntries.keySet(), afterEntries.keySet())) {
+          SortedSet<String> nextHopInterfaces =
+              afterEntries.getOrDefault(prefix, ImmutableSortedSet.of());
+          if (!Objects.equals(beforeEntries.get(prefix), nextHopInterfaces)) {
+            entries.put(prefix, ImmutableSortedSet.copyOf(nextHopInterfaces));
+          }
+        }
+        SortedMap<Prefix, SortedSet<String>> changedEntries = entries.build();
+        if (!changedEntries.isEmpty()) {
+          vrfs.put(vrfName, changedEntries);
+        }
+      }
+      SortedMap<String, SortedMap<Prefix, SortedSet<String>>> changedVrfs = vrfs.build();
+      if (!changedVrfs.isEmpty()) {
+        nodes.put(hostname, changedVrfs);
+      }
+    }
+    return nodes.build();
+  }
+}
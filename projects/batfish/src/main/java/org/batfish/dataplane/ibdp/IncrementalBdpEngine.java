@@ -54,6 +54,7 @@ import org.batfish.dataplane.ibdp.schedule.IbdpSchedule;
 import org.batfish.dataplane.ibdp.schedule.IbdpSchedule.Schedule;
 import org.batfish.dataplane.rib.BgpRib;
 import org.batfish.dataplane.rib.RibDelta;
+import org.batfish.dataplane.rib.RibStorage;
 
 class IncrementalBdpEngine {
 
@@ -149,8 +150,10 @@ class IncrementalBdpEngine {
           IsisTopology.initIsisTopology(configurations, topology);
 
       // Generate our nodes, keyed by name, sorted for determinism
+      RibStorage ribStorage = _settings.getRibStorage();
       SortedMap<String, Node> nodes =
-          toImmutableSortedMap(configurations.values(), Configuration::getHostname, Node::new);
+          toImmutableSortedMap(
+              configurations.values(), Configuration::getHostname, c -> new Node(c, ribStorage));
       NetworkConfigurations networkConfigurations = NetworkConfigurations.of(configurations);
 
       /*
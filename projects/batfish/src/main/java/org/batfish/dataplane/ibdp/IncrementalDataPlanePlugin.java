@@ -1,6 +1,7 @@
 package org.batfish.dataplane.ibdp;
 
 import com.google.auto.service.AutoService;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -11,6 +12,8 @@ import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
 
@@ -22,6 +25,8 @@ public class IncrementalDataPlanePlugin extends DataPlanePlugin {
 
   private IncrementalBdpEngine _engine;
 
+  private FailureScenarioEngine _failureScenarioEngine;
+
   public IncrementalDataPlanePlugin() {}
 
   @Override
@@ -66,13 +71,23 @@ public class IncrementalDataPlanePlugin extends DataPlanePlugin {
     return computeDataPlane(configurations, topology);
   }
 
+  @Override
+  public SortedMap<String, FailureScenarioResult> computeFailureScenarios(
+      DataPlane dataPlane, Collection<FailureScenario> scenarios) {
+    IncrementalDataPlane baseDataPlane = (IncrementalDataPlane) dataPlane;
+    return _failureScenarioEngine.computeFailureScenarios(
+        baseDataPlane,
+        _batfish.loadExternalBgpAnnouncements(baseDataPlane.getConfigurations()),
+        scenarios);
+  }
+
   @Override
   protected void dataPlanePluginInitialize() {
-    _engine =
-        new IncrementalBdpEngine(
-            new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration()),
-            _batfish.getLogger(),
-            _batfish::newBatch);
+    IncrementalDataPlaneSettings settings =
+        new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration());
+    _engine = new IncrementalBdpEngine(settings, _batfish.getLogger(), _batfish::newBatch);
+    _failureScenarioEngine =
+        new FailureScenarioEngine(settings, _batfish.getLogger(), _batfish::newBatch);
   }
 
   @Override
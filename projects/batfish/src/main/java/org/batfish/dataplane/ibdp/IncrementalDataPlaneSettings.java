@@ -10,6 +10,7 @@ import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.batfish.dataplane.ibdp.schedule.IbdpSchedule.Schedule;
 import org.batfish.dataplane.ibdp.schedule.NodeColoredSchedule;
 import org.batfish.dataplane.ibdp.schedule.NodeColoredSchedule.Coloring;
+import org.batfish.dataplane.rib.RibStorage;
 
 /** Settings for {@link IncrementalDataPlanePlugin} */
 public class IncrementalDataPlaneSettings {
@@ -20,6 +21,7 @@ public class IncrementalDataPlaneSettings {
   public static final String PROP_SCHEDULE = "schedule";
   public static final String PROP_LOG_ROUTES = "logiterationroutes";
   public static final String PROP_CHECK_BGP_REACHABILITY = "checkbgpsessionreachability";
+  public static final String PROP_RIB_STORAGE = "ribstorage";
 
   /**
    * Return the underlying configuration (it will be mutable).
@@ -53,6 +55,7 @@ public class IncrementalDataPlaneSettings {
     _config.setProperty(PROP_SCHEDULE, NODE_COLORED.toString());
     _config.setProperty(PROP_LOG_ROUTES, true);
     _config.setProperty(PROP_CHECK_BGP_REACHABILITY, true);
+    _config.setProperty(PROP_RIB_STORAGE, RibStorage.TREE.toString());
   }
 
   /** Return the dataplane computation {@link Schedule} */
@@ -74,6 +77,20 @@ public class IncrementalDataPlaneSettings {
     _config.setProperty(PROP_SCHEDULE, schedule.toString());
   }
 
+  /** Return the data structure backing the main and BGP RIBs of each virtual router */
+  public RibStorage getRibStorage() {
+    return RibStorage.valueOf(_config.getString(PROP_RIB_STORAGE));
+  }
+
+  /**
+   * Set the data structure backing the main and BGP RIBs of each virtual router
+   *
+   * @param ribStorage the new {@link RibStorage}
+   */
+  public void setRibStorage(RibStorage ribStorage) {
+    _config.setProperty(PROP_RIB_STORAGE, ribStorage.toString());
+  }
+
   /**
    * If the schedule is of type {@link NodeColoredSchedule}, get the type of {@link Coloring} to
    * perform
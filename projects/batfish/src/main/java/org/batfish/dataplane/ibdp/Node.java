@@ -8,6 +8,7 @@ import javax.annotation.Nonnull;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.dataplane.rib.RibId;
 import org.batfish.dataplane.rib.Rib;
+import org.batfish.dataplane.rib.RibStorage;
 
 /** Dataplane-specific encapsulation of {@link Configuration} */
 public final class Node implements Serializable {
@@ -16,6 +17,8 @@ public final class Node implements Serializable {
 
   private final Configuration _c;
 
+  private final RibStorage _ribStorage;
+
   private final SortedMap<String, VirtualRouter> _virtualRouters;
 
   /**
@@ -25,7 +28,19 @@ public final class Node implements Serializable {
    * @param configuration the {@link Configuration} backing this node
    */
   public Node(@Nonnull Configuration configuration) {
+    this(configuration, RibStorage.TREE);
+  }
+
+  /**
+   * Create a new node based on the configuration. Initializes virtual routers based on {@link
+   * Configuration} VRFs.
+   *
+   * @param configuration the {@link Configuration} backing this node
+   * @param ribStorage the data structure backing the main and BGP RIBs of the virtual routers
+   */
+  public Node(@Nonnull Configuration configuration, @Nonnull RibStorage ribStorage) {
     _c = configuration;
+    _ribStorage = ribStorage;
     ImmutableSortedMap.Builder<String, VirtualRouter> b = ImmutableSortedMap.naturalOrder();
     for (String vrfName : _c.getVrfs().keySet()) {
       VirtualRouter vr = new VirtualRouter(vrfName, this);
@@ -34,6 +49,12 @@ public final class Node implements Serializable {
     _virtualRouters = b.build();
   }
 
+  /** @return The data structure backing the main and BGP RIBs of this node's virtual routers */
+  @Nonnull
+  RibStorage getRibStorage() {
+    return _ribStorage;
+  }
+
   /** @return The {@link Configuration} backing this Node */
   @Nonnull
   public Configuration getConfiguration() {
@@ -0,0 +1,107 @@
+package org.batfish.dataplane.ibdp;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.dataplane.rib.RouteAdvertisement;
+
+/**
+ * A thread-safe message queue of {@link RouteAdvertisement route advertisements} exchanged between
+ * virtual routers, which keeps track of the sum of the hash codes of the advertisements it
+ * contains.
+ *
+ * <p>The fingerprint is updated on every enqueue and dequeue, so computing the iteration hash code
+ * of a virtual router costs time proportional to the number of queues rather than the number of
+ * queued advertisements.
+ *
+ * @param <R> route type
+ */
+@ParametersAreNonnullByDefault
+final class RouteAdvertisementQueue<R extends AbstractRoute>
+    extends AbstractQueue<RouteAdvertisement<R>> {
+
+  private final Queue<RouteAdvertisement<R>> _queue;
+
+  private final AtomicInteger _fingerprint;
+
+  RouteAdvertisementQueue() {
+    _queue = new ConcurrentLinkedQueue<>();
+    _fingerprint = new AtomicInteger();
+  }
+
+  /**
+   * Return the sum of the hash codes of all advertisements currently in this queue. Only guaranteed
+   * to be exact when no other thread is modifying the queue.
+   */
+  int getFingerprint() {
+    return _fingerprint.get();
+  }
+
+  @Nonnull
+  @Override
+  public Iterator<RouteAdvertisement<R>> iterator() {
+    Iterator<RouteAdvertisement<R>> iterator = _queue.iterator();
+    return new Iterator<RouteAdvertisement<R>>() {
+      @Nullable private RouteAdvertisement<R> _last;
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public RouteAdvertisement<R> next() {
+        _last = iterator.next();
+        return _last;
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+        if (_last != null) {
+          _fingerprint.addAndGet(-_last.hashCode());
+          _last = null;
+        }
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return _queue.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _queue.isEmpty();
+  }
+
+  @Override
+  public boolean offer(RouteAdvertisement<R> advertisement) {
+    _queue.offer(advertisement);
+    _fingerprint.addAndGet(advertisement.hashCode());
+    return true;
+  }
+
+  @Nullable
+  @Override
+  public RouteAdvertisement<R> poll() {
+    RouteAdvertisement<R> advertisement = _queue.poll();
+    if (advertisement != null) {
+      _fingerprint.addAndGet(-advertisement.hashCode());
+    }
+    return advertisement;
+  }
+
+  @Nullable
+  @Override
+  public RouteAdvertisement<R> peek() {
+    return _queue.peek();
+  }
+}
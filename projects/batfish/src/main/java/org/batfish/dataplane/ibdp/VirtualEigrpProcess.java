@@ -13,7 +13,6 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.SortedMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
@@ -74,7 +73,7 @@ class VirtualEigrpProcess {
 
   /** Incoming messages into this router from each EIGRP adjacency */
   @VisibleForTesting
-  SortedMap<EigrpEdge, Queue<RouteAdvertisement<EigrpExternalRoute>>> _incomingRoutes;
+  SortedMap<EigrpEdge, RouteAdvertisementQueue<EigrpExternalRoute>> _incomingRoutes;
 
   private EigrpExternalRib _externalStagingRib;
 
@@ -179,11 +178,8 @@ class VirtualEigrpProcess {
    * @return integer hashcode
    */
   int computeIterationHashCode() {
-    return _externalRib.getRoutes().hashCode()
-        + _incomingRoutes.values().stream()
-            .flatMap(Queue::stream)
-            .mapToInt(RouteAdvertisement::hashCode)
-            .sum();
+    return _externalRib.getRoutesHashCode()
+        + _incomingRoutes.values().stream().mapToInt(RouteAdvertisementQueue::getFingerprint).sum();
   }
 
   long getAsn() {
@@ -222,7 +218,8 @@ class VirtualEigrpProcess {
         _interfaces.stream()
             .filter(eigrpTopology.nodes()::contains)
             .flatMap(n -> eigrpTopology.inEdges(n).stream())
-            .collect(toImmutableSortedMap(Function.identity(), e -> new ConcurrentLinkedQueue<>()));
+            .collect(
+                toImmutableSortedMap(Function.identity(), e -> new RouteAdvertisementQueue<>()));
   }
 
   /**
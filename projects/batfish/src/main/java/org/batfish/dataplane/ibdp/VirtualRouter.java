@@ -24,9 +24,11 @@ import com.google.common.graph.Network;
 import com.google.common.graph.ValueGraph;
 import java.io.Serializable;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -37,7 +39,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -59,7 +60,6 @@ import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConnectedRoute;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.Fib;
-import org.batfish.datamodel.FibImpl;
 import org.batfish.datamodel.GeneratedRoute;
 import org.batfish.datamodel.GenericRib;
 import org.batfish.datamodel.Interface;
@@ -106,6 +106,7 @@ import org.batfish.datamodel.ospf.OspfProcess;
 import org.batfish.datamodel.ospf.StubType;
 import org.batfish.datamodel.routing_policy.Environment.Direction;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.dataplane.IncrementalFib;
 import org.batfish.dataplane.exceptions.BgpRoutePropagationException;
 import org.batfish.dataplane.protocols.BgpProtocolHelper;
 import org.batfish.dataplane.protocols.GeneratedRouteHelper;
@@ -123,6 +124,7 @@ import org.batfish.dataplane.rib.OspfRib;
 import org.batfish.dataplane.rib.Rib;
 import org.batfish.dataplane.rib.RibDelta;
 import org.batfish.dataplane.rib.RibDelta.Builder;
+import org.batfish.dataplane.rib.RibStorage;
 import org.batfish.dataplane.rib.RipInternalRib;
 import org.batfish.dataplane.rib.RipRib;
 import org.batfish.dataplane.rib.RouteAdvertisement;
@@ -142,7 +144,7 @@ public class VirtualRouter implements Serializable {
       new RouteDependencyTracker<>();
 
   /** Incoming messages into this router from each BGP neighbor */
-  transient SortedMap<BgpEdgeId, Queue<RouteAdvertisement<BgpRoute>>> _bgpIncomingRoutes;
+  transient SortedMap<BgpEdgeId, RouteAdvertisementQueue<BgpRoute>> _bgpIncomingRoutes;
 
   /** Combined BGP (both iBGP and eBGP) RIB */
   BgpRib _bgpRib;
@@ -157,7 +159,7 @@ public class VirtualRouter implements Serializable {
    * Queues containing routes that are coming in from other VRFs (as a result of explicitly
    * configured leaking or applied RIB groups).
    */
-  private transient SortedMap<CrossVrfEdgeId, Queue<RouteAdvertisement<AbstractRoute>>>
+  private transient SortedMap<CrossVrfEdgeId, RouteAdvertisementQueue<AbstractRoute>>
       _crossVrfIncomingRoutes;
 
   /** Helper RIB containing all paths obtained with external BGP */
@@ -183,7 +185,7 @@ public class VirtualRouter implements Serializable {
   transient Rib _independentRib;
 
   /** Incoming messages into this router from each IS-IS circuit */
-  transient SortedMap<IsisEdge, Queue<RouteAdvertisement<IsisRoute>>> _isisIncomingRoutes;
+  transient SortedMap<IsisEdge, RouteAdvertisementQueue<IsisRoute>> _isisIncomingRoutes;
 
   transient IsisLevelRib _isisL1Rib;
 
@@ -218,7 +220,7 @@ public class VirtualRouter implements Serializable {
   transient OspfExternalType2Rib _ospfExternalType2StagingRib;
 
   @VisibleForTesting
-  transient SortedMap<OspfEdge, Queue<RouteAdvertisement<OspfExternalRoute>>>
+  transient SortedMap<OspfEdge, RouteAdvertisementQueue<OspfExternalRoute>>
       _ospfExternalIncomingRoutes;
 
   transient OspfInterAreaRib _ospfInterAreaRib;
@@ -242,7 +244,7 @@ public class VirtualRouter implements Serializable {
   transient StaticRib _staticNextHopRib;
 
   /** FIB (forwarding information base) built from the main RIB */
-  private Fib _fib;
+  private IncrementalFib _fib;
 
   /** RIB containing generated routes */
   private transient Rib _generatedRib;
@@ -281,7 +283,7 @@ public class VirtualRouter implements Serializable {
                 ImmutableSortedMap.toImmutableSortedMap(
                     Ordering.natural(),
                     vrfName -> new CrossVrfEdgeId(vrfName, RibId.DEFAULT_RIB_NAME),
-                    v -> new ConcurrentLinkedQueue<>()));
+                    v -> new RouteAdvertisementQueue<>()));
   }
 
   /**
@@ -425,11 +427,11 @@ public class VirtualRouter implements Serializable {
                 .map(OspfEdge::reverse)
                 .collect(
                     ImmutableSortedMap
-                        .<OspfEdge, OspfEdge, Queue<RouteAdvertisement<OspfExternalRoute>>>
+                        .<OspfEdge, OspfEdge, RouteAdvertisementQueue<OspfExternalRoute>>
                             toImmutableSortedMap(
                                 Comparator.naturalOrder(),
                                 Function.identity(),
-                                p -> new ConcurrentLinkedQueue<>()));
+                                p -> new RouteAdvertisementQueue<>()));
       }
     }
   }
@@ -459,7 +461,7 @@ public class VirtualRouter implements Serializable {
                   dst ->
                       bgpTopology.adjacentNodes(dst).stream().map(src -> new BgpEdgeId(src, dst)))
               .collect(
-                  toImmutableSortedMap(Function.identity(), e -> new ConcurrentLinkedQueue<>()));
+                  toImmutableSortedMap(Function.identity(), e -> new RouteAdvertisementQueue<>()));
     }
   }
 
@@ -483,7 +485,7 @@ public class VirtualRouter implements Serializable {
               .filter(isisTopology.nodes()::contains)
               .flatMap(n -> isisTopology.inEdges(n).stream())
               .collect(
-                  toImmutableSortedMap(Function.identity(), e -> new ConcurrentLinkedQueue<>()));
+                  toImmutableSortedMap(Function.identity(), e -> new RouteAdvertisementQueue<>()));
     }
   }
 
@@ -567,7 +569,12 @@ public class VirtualRouter implements Serializable {
 
   /** Compute the FIB from the main RIB */
   public void computeFib() {
-    _fib = new FibImpl(_mainRib);
+    if (_fib == null || !_fib.isFibOf(_mainRib)) {
+      _fib = new IncrementalFib(_mainRib);
+      return;
+    }
+    // The main RIB is changed in many places, so it records its changes for the FIB itself
+    _fib.update(_fib.getRibDelta());
   }
 
   boolean computeInterAreaSummaries() {
@@ -600,13 +607,16 @@ public class VirtualRouter implements Serializable {
 
         Long metric = summary.getMetric();
         if (summary.getMetric() == null) {
-          // No metric was configured; compute it from any possible contributing routes.
-          for (OspfIntraAreaRoute contributingRoute : _ospfIntraAreaRib.getRoutes()) {
+          // No metric was configured; compute it from any possible contributing routes, which
+          // must be contained in the summary prefix.
+          for (OspfIntraAreaRoute contributingRoute :
+              _ospfIntraAreaRib.getRoutesCoveredBy(prefix)) {
             metric =
                 OspfProtocolHelper.computeUpdatedOspfSummaryMetric(
                     contributingRoute, prefix, metric, areaNum, useMin);
           }
-          for (OspfInterAreaRoute contributingRoute : _ospfInterAreaRib.getRoutes()) {
+          for (OspfInterAreaRoute contributingRoute :
+              _ospfInterAreaRib.getRoutesCoveredBy(prefix)) {
             metric =
                 OspfProtocolHelper.computeUpdatedOspfSummaryMetric(
                     contributingRoute, prefix, metric, areaNum, useMin);
@@ -1215,8 +1225,11 @@ public class VirtualRouter implements Serializable {
     _generatedRib = new Rib();
     _independentRib = new Rib();
 
+    // RIBs that may hold full Internet tables can use a more compact representation
+    RibStorage storage = _node.getRibStorage();
+
     // Main RIB + delta builder
-    _mainRibs = ImmutableMap.of(RibId.DEFAULT_RIB_NAME, new Rib());
+    _mainRibs = ImmutableMap.of(RibId.DEFAULT_RIB_NAME, new Rib(storage));
     _mainRib = _mainRibs.get(RibId.DEFAULT_RIB_NAME);
     _mainRibRouteDeltaBuilder = RibDelta.builder();
 
@@ -1230,25 +1243,28 @@ public class VirtualRouter implements Serializable {
             _mainRib,
             tieBreaker,
             proc == null || proc.getMultipathEbgp() ? null : 1,
-            mpTieBreaker);
+            mpTieBreaker,
+            storage);
     _ibgpRib =
         new BgpRib(
             null,
             _mainRib,
             tieBreaker,
             proc == null || proc.getMultipathIbgp() ? null : 1,
-            mpTieBreaker);
+            mpTieBreaker,
+            storage);
     _bgpRib =
         new BgpRib(
             null,
             _mainRib,
             tieBreaker,
             proc == null || proc.getMultipathEbgp() || proc.getMultipathIbgp() ? null : 1,
-            mpTieBreaker);
+            mpTieBreaker,
+            storage);
     _bgpDeltaBuilder = RibDelta.builder();
 
-    _ebgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker);
-    _ibgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker);
+    _ebgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker, storage);
+    _ibgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker, storage);
 
     // ISIS
     _isisRib = new IsisRib(isL1Only());
@@ -1349,7 +1365,7 @@ public class VirtualRouter implements Serializable {
     ribDeltas.put(_ibgpStagingRib, RibDelta.builder());
 
     // Process updates from each neighbor
-    for (Entry<BgpEdgeId, Queue<RouteAdvertisement<BgpRoute>>> e : _bgpIncomingRoutes.entrySet()) {
+    for (Entry<BgpEdgeId, RouteAdvertisementQueue<BgpRoute>> e : _bgpIncomingRoutes.entrySet()) {
 
       // Grab the queue containing all messages from remoteBgpPeerConfig
       Queue<RouteAdvertisement<BgpRoute>> queue = e.getValue();
@@ -2034,17 +2050,23 @@ public class VirtualRouter implements Serializable {
       final Map<String, Node> allNodes,
       ValueGraph<BgpPeerConfigId, BgpSessionProperties> bgpTopology,
       NetworkConfigurations networkConfigurations) {
+    // Sessions in the same update group export each route identically, up to checks made by the
+    // receiver, so the export is computed once per group
+    Map<BgpUpdateGroupKey, List<BgpEdgeId>> updateGroups = new LinkedHashMap<>();
     for (BgpEdgeId edge : _bgpIncomingRoutes.keySet()) {
-      final BgpSessionProperties session = getBgpSessionProperties(bgpTopology, edge);
-
-      BgpPeerConfigId remoteConfigId = edge.src();
-      BgpPeerConfigId ourConfigId = edge.dst();
-      BgpPeerConfig ourConfig = networkConfigurations.getBgpPeerConfig(edge.dst());
-      BgpPeerConfig remoteConfig = networkConfigurations.getBgpPeerConfig(edge.src());
-      VirtualRouter remoteVirtualRouter = getRemoteBgpNeighborVR(remoteConfigId, allNodes);
-      if (remoteVirtualRouter == null) {
+      if (getRemoteBgpNeighborVR(edge.src(), allNodes) == null) {
         continue;
       }
+      BgpUpdateGroupKey key =
+          new BgpUpdateGroupKey(
+              networkConfigurations.getBgpPeerConfig(edge.dst()),
+              networkConfigurations.getBgpPeerConfig(edge.src()),
+              getBgpSessionProperties(bgpTopology, edge));
+      updateGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(edge);
+    }
+
+    for (List<BgpEdgeId> updateGroup : updateGroups.values()) {
+      final BgpSessionProperties session = getBgpSessionProperties(bgpTopology, updateGroup.get(0));
 
       Builder<AbstractRoute> finalBuilder = RibDelta.builder();
 
@@ -2066,9 +2088,6 @@ public class VirtualRouter implements Serializable {
          */
         if (mainDelta != null) {
           for (Prefix p : mainDelta.getPrefixes()) {
-            if (_bgpRib.getRoutes(p) == null) {
-              continue;
-            }
             finalBuilder.add(_bgpRib.getRoutes(p));
           }
         }
@@ -2081,37 +2100,35 @@ public class VirtualRouter implements Serializable {
         continue;
       }
 
-      // Compute a set of advertisements that can be queued on remote VR
-      Set<RouteAdvertisement<BgpRoute>> exportedAdvertisements =
-          routesToExport.getActions().stream()
-              .map(
-                  adv -> {
-                    BgpRoute transformedRoute =
-                        exportBgpRoute(
-                            adv.getRoute(),
-                            ourConfigId,
-                            remoteConfigId,
-                            ourConfig,
-                            remoteConfig,
-                            allNodes,
-                            session);
-                    return transformedRoute == null
-                        ? null
+      // Compute the sets of advertisements that can be queued on the remote VRs
+      Map<BgpEdgeId, ImmutableSet.Builder<RouteAdvertisement<BgpRoute>>> exportedAdvertisements =
+          new LinkedHashMap<>();
+      updateGroup.forEach(edge -> exportedAdvertisements.put(edge, ImmutableSet.builder()));
+      for (RouteAdvertisement<AbstractRoute> adv : routesToExport.getActions()) {
+        Map<BgpEdgeId, BgpRoute> transformedRoutes =
+            exportBgpRouteToUpdateGroup(
+                adv.getRoute(), updateGroup, networkConfigurations, allNodes, session);
+        transformedRoutes.forEach(
+            (edge, transformedRoute) ->
+                exportedAdvertisements
+                    .get(edge)
+                    .add(
                         // REPLACE does not make sense across routers, update with WITHDRAW
-                        : RouteAdvertisement.<BgpRoute>builder()
+                        RouteAdvertisement.<BgpRoute>builder()
                             .setReason(
                                 adv.getReason() == Reason.REPLACE
                                     ? Reason.WITHDRAW
                                     : adv.getReason())
                             .setWithdraw(adv.isWithdrawn())
                             .setRoute(transformedRoute)
-                            .build();
-                  })
-              .filter(Objects::nonNull)
-              .collect(ImmutableSet.toImmutableSet());
+                            .build()));
+      }
 
-      // Call this on the REMOTE VR and REVERSE the edge!
-      remoteVirtualRouter.enqueueBgpMessages(edge.reverse(), exportedAdvertisements);
+      exportedAdvertisements.forEach(
+          (edge, advertisements) ->
+              // Call this on the REMOTE VR and REVERSE the edge!
+              requireNonNull(getRemoteBgpNeighborVR(edge.src(), allNodes))
+                  .enqueueBgpMessages(edge.reverse(), advertisements.build()));
     }
   }
 
@@ -2368,8 +2385,9 @@ public class VirtualRouter implements Serializable {
      */
     BgpTieBreaker tieBreaker = getBestPathTieBreaker();
     MultipathEquivalentAsPathMatchMode mpTieBreaker = getBgpMpTieBreaker();
-    _ebgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker);
-    _ibgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker);
+    RibStorage storage = _node.getRibStorage();
+    _ebgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker, storage);
+    _ibgpStagingRib = new BgpRib(null, _mainRib, tieBreaker, null, mpTieBreaker, storage);
     _ospfExternalType1StagingRib = new OspfExternalType1Rib(getHostname(), null);
     _ospfExternalType2StagingRib = new OspfExternalType2Rib(getHostname(), null);
 
@@ -2665,30 +2683,29 @@ public class VirtualRouter implements Serializable {
    *   <li>message queues ({@link #_bgpIncomingRoutes} and {@link #_ospfExternalIncomingRoutes})
    * </ul>
    *
+   * <p>Both are fingerprinted incrementally as routes are merged, withdrawn, and queued, so this
+   * takes time proportional to the number of RIBs and queues rather than the number of routes.
+   *
    * @return integer hashcode
    */
   int computeIterationHashCode() {
-    return _mainRib.getRoutes().hashCode()
-        + _ospfExternalType1Rib.getRoutes().hashCode()
-        + _ospfExternalType2Rib.getRoutes().hashCode()
+    return _mainRib.getRoutesHashCode()
+        + _ospfExternalType1Rib.getRoutesHashCode()
+        + _ospfExternalType2Rib.getRoutesHashCode()
         + _bgpIncomingRoutes.values().stream()
-            .flatMap(Queue::stream)
-            .mapToInt(RouteAdvertisement::hashCode)
+            .mapToInt(RouteAdvertisementQueue::getFingerprint)
             .sum()
         + _ospfExternalIncomingRoutes.values().stream()
-            .flatMap(Queue::stream)
-            .mapToInt(RouteAdvertisement::hashCode)
+            .mapToInt(RouteAdvertisementQueue::getFingerprint)
             .sum()
         + _isisIncomingRoutes.values().stream()
-            .flatMap(Queue::stream)
-            .mapToInt(RouteAdvertisement::hashCode)
+            .mapToInt(RouteAdvertisementQueue::getFingerprint)
             .sum()
         + _virtualEigrpProcesses.values().stream()
             .mapToInt(VirtualEigrpProcess::computeIterationHashCode)
             .sum()
         + _crossVrfIncomingRoutes.values().stream()
-            .flatMap(Queue::stream)
-            .mapToInt(RouteAdvertisement::hashCode)
+            .mapToInt(RouteAdvertisementQueue::getFingerprint)
             .sum();
   }
 
@@ -2718,21 +2735,19 @@ public class VirtualRouter implements Serializable {
       @Nonnull BgpSessionProperties sessionProperties) {
 
     RoutingPolicy exportPolicy = _c.getRoutingPolicies().get(ourConfig.getExportPolicy());
-    BgpRoute.Builder transformedOutgoingRouteBuilder;
-    try {
-      transformedOutgoingRouteBuilder =
-          BgpProtocolHelper.transformBgpRouteOnExport(
-              ourConfig,
-              remoteConfig,
-              sessionProperties,
-              _vrf,
-              requireNonNull(getRemoteBgpNeighborVR(remoteConfigId, allNodes))._vrf,
-              exportCandidate);
-    } catch (BgpRoutePropagationException e) {
-      // TODO: Log a warning
+    VirtualRouter remoteVr = requireNonNull(getRemoteBgpNeighborVR(remoteConfigId, allNodes));
+    if (BgpProtocolHelper.isOriginatedByReceiver(
+        sessionProperties, remoteVr._vrf, exportCandidate)) {
       return null;
     }
-    if (transformedOutgoingRouteBuilder == null) {
+    BgpRoute.Builder transformedOutgoingRouteBuilder =
+        transformBgpRouteOnExport(ourConfig, remoteConfig, sessionProperties, exportCandidate);
+    if (transformedOutgoingRouteBuilder == null
+        || BgpProtocolHelper.isClusterListRejectedByReceiver(
+            sessionProperties,
+            remoteVr._vrf,
+            exportCandidate,
+            transformedOutgoingRouteBuilder.getClusterList())) {
       // This route could not be exported for core bgp protocol reasons
       return null;
     }
@@ -2747,12 +2762,11 @@ public class VirtualRouter implements Serializable {
             ourConfigId.getVrfName(),
             Direction.OUT);
 
-    VirtualRouter remoteVr = getRemoteBgpNeighborVR(remoteConfigId, allNodes);
     if (!shouldExport) {
       // This route could not be exported due to export policy
       _prefixTracer.filtered(
           exportCandidate.getNetwork(),
-          requireNonNull(remoteVr).getHostname(),
+          remoteVr.getHostname(),
           remoteConfig.getLocalIp(),
           remoteConfigId.getVrfName(),
           ourConfig.getExportPolicy(),
@@ -2772,6 +2786,135 @@ public class VirtualRouter implements Serializable {
     return transformedOutgoingRoute;
   }
 
+  /**
+   * Runs the BGP outbound transformations of {@code exportCandidate} that do not depend on the
+   * receiving {@link VirtualRouter}, shared by {@link #exportBgpRoute} and {@link
+   * #exportBgpRouteToUpdateGroup}.
+   *
+   * @return The transformed route builder, or {@code null} if the route cannot be exported
+   */
+  @Nullable
+  private BgpRoute.Builder transformBgpRouteOnExport(
+      @Nonnull BgpPeerConfig ourConfig,
+      @Nonnull BgpPeerConfig remoteConfig,
+      @Nonnull BgpSessionProperties sessionProperties,
+      @Nonnull AbstractRoute exportCandidate) {
+    try {
+      return BgpProtocolHelper.transformBgpRouteOnExport(
+          ourConfig, remoteConfig, sessionProperties, _vrf, exportCandidate);
+    } catch (BgpRoutePropagationException e) {
+      // TODO: Log a warning
+      return null;
+    }
+  }
+
+  /**
+   * Exports {@code exportCandidate} over every session of an update group. The BGP outbound
+   * transformations and export policy are run once for the whole group, after which only the checks
+   * made by each receiver remain. If the export policy depends on the peer, falls back to {@link
+   * #exportBgpRoute} for each session.
+   *
+   * @param updateGroup the edges of sessions with the same {@link BgpUpdateGroupKey}
+   * @return The transformed route for each edge over which it should be exported
+   */
+  @Nonnull
+  private Map<BgpEdgeId, BgpRoute> exportBgpRouteToUpdateGroup(
+      @Nonnull AbstractRoute exportCandidate,
+      @Nonnull List<BgpEdgeId> updateGroup,
+      @Nonnull NetworkConfigurations networkConfigurations,
+      @Nonnull Map<String, Node> allNodes,
+      @Nonnull BgpSessionProperties sessionProperties) {
+    List<BgpEdgeId> receivers =
+        updateGroup.stream()
+            .filter(
+                edge ->
+                    !BgpProtocolHelper.isOriginatedByReceiver(
+                        sessionProperties,
+                        requireNonNull(getRemoteBgpNeighborVR(edge.src(), allNodes))._vrf,
+                        exportCandidate))
+            .collect(ImmutableList.toImmutableList());
+    if (receivers.isEmpty()) {
+      return ImmutableMap.of();
+    }
+
+    // Any member can stand in for the group, since they agree on everything the export reads
+    BgpEdgeId representative = receivers.get(0);
+    BgpPeerConfig ourConfig = networkConfigurations.getBgpPeerConfig(representative.dst());
+    BgpPeerConfig representativeConfig =
+        networkConfigurations.getBgpPeerConfig(representative.src());
+    RoutingPolicy exportPolicy = _c.getRoutingPolicies().get(ourConfig.getExportPolicy());
+    BgpRoute.Builder transformedOutgoingRouteBuilder =
+        transformBgpRouteOnExport(
+            ourConfig, representativeConfig, sessionProperties, exportCandidate);
+    if (transformedOutgoingRouteBuilder == null) {
+      // This route could not be exported for core bgp protocol reasons
+      return ImmutableMap.of();
+    }
+    // The export policy may replace the cluster list, but the receiver checks the original one
+    Set<Long> outgoingClusterList = transformedOutgoingRouteBuilder.getClusterList();
+
+    // Process transformed outgoing route by the export policy
+    Boolean shouldExport =
+        exportPolicy.processForAnyPeer(
+            exportCandidate,
+            transformedOutgoingRouteBuilder,
+            representativeConfig.getLocalIp(),
+            representative.dst().getRemotePeerPrefix(),
+            representative.dst().getVrfName(),
+            Direction.OUT);
+    if (shouldExport == null) {
+      // The export policy depends on the peer, so each member needs its own export
+      ImmutableMap.Builder<BgpEdgeId, BgpRoute> transformedRoutes = ImmutableMap.builder();
+      for (BgpEdgeId edge : receivers) {
+        BgpRoute transformedRoute =
+            exportBgpRoute(
+                exportCandidate,
+                edge.dst(),
+                edge.src(),
+                networkConfigurations.getBgpPeerConfig(edge.dst()),
+                networkConfigurations.getBgpPeerConfig(edge.src()),
+                allNodes,
+                sessionProperties);
+        if (transformedRoute != null) {
+          transformedRoutes.put(edge, transformedRoute);
+        }
+      }
+      return transformedRoutes.build();
+    }
+
+    BgpRoute transformedOutgoingRoute =
+        shouldExport ? transformedOutgoingRouteBuilder.build() : null;
+    ImmutableMap.Builder<BgpEdgeId, BgpRoute> transformedRoutes = ImmutableMap.builder();
+    for (BgpEdgeId edge : receivers) {
+      VirtualRouter remoteVr = requireNonNull(getRemoteBgpNeighborVR(edge.src(), allNodes));
+      if (BgpProtocolHelper.isClusterListRejectedByReceiver(
+          sessionProperties, remoteVr._vrf, exportCandidate, outgoingClusterList)) {
+        continue;
+      }
+      BgpPeerConfig remoteConfig = networkConfigurations.getBgpPeerConfig(edge.src());
+      if (transformedOutgoingRoute == null) {
+        // This route could not be exported due to export policy
+        _prefixTracer.filtered(
+            exportCandidate.getNetwork(),
+            remoteVr.getHostname(),
+            remoteConfig.getLocalIp(),
+            edge.src().getVrfName(),
+            ourConfig.getExportPolicy(),
+            Direction.OUT);
+        continue;
+      }
+      // Successfully exported route
+      _prefixTracer.sentTo(
+          transformedOutgoingRoute.getNetwork(),
+          remoteVr.getHostname(),
+          remoteConfig.getLocalIp(),
+          edge.src().getVrfName(),
+          ourConfig.getExportPolicy());
+      transformedRoutes.put(edge, transformedOutgoingRoute);
+    }
+    return transformedRoutes.build();
+  }
+
   Optional<Rib> getRib(RibId id) {
     if (!_name.equals(id.getVrfName())) {
       return Optional.empty();
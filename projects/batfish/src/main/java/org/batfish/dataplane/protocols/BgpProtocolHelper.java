@@ -43,6 +43,32 @@ public class BgpProtocolHelper {
       Vrf toVrf,
       AbstractRoute route)
       throws BgpRoutePropagationException {
+    if (isOriginatedByReceiver(sessionProperties, toVrf, route)) {
+      return null;
+    }
+    BgpRoute.Builder transformedOutgoingRouteBuilder =
+        transformBgpRouteOnExport(fromNeighbor, toNeighbor, sessionProperties, fromVrf, route);
+    if (transformedOutgoingRouteBuilder == null
+        || isClusterListRejectedByReceiver(
+            sessionProperties, toVrf, route, transformedOutgoingRouteBuilder.getClusterList())) {
+      return null;
+    }
+    return transformedOutgoingRouteBuilder;
+  }
+
+  /**
+   * Perform the BGP export transformations on a given route that do not depend on the receiving
+   * {@link Vrf}. The checks that do are {@link #isOriginatedByReceiver} and {@link
+   * #isClusterListRejectedByReceiver}; the route must not be sent if either holds.
+   */
+  @Nullable
+  public static BgpRoute.Builder transformBgpRouteOnExport(
+      BgpPeerConfig fromNeighbor,
+      BgpPeerConfig toNeighbor,
+      BgpSessionProperties sessionProperties,
+      Vrf fromVrf,
+      AbstractRoute route)
+      throws BgpRoutePropagationException {
 
     BgpRoute.Builder transformedOutgoingRouteBuilder = new BgpRoute.Builder();
 
@@ -114,15 +140,6 @@ public class BgpProtocolHelper {
        * originator
        */
 
-      Ip remoteOriginatorIp = bgpRemoteRoute.getOriginatorIp();
-      /*
-       *  iBGP speaker should not send out routes to iBGP neighbor whose router-id is
-       *  same as originator id of advertisement
-       */
-      if (!sessionProperties.isEbgp()
-          && toVrf.getBgpProcess().getRouterId().equals(remoteOriginatorIp)) {
-        return null;
-      }
       if (remoteRouteProtocol.equals(RoutingProtocol.IBGP) && !sessionProperties.isEbgp()) {
         /*
          *  The remote route is iBGP. The session is iBGP. We consider whether to reflect, and
@@ -153,14 +170,6 @@ public class BgpProtocolHelper {
           long newClusterId = remoteReceivedFromSession.getClusterId();
           transformedOutgoingRouteBuilder.addToClusterList(newClusterId);
         }
-        Set<Long> localClusterIds = toVrf.getBgpProcess().getClusterIds();
-        Set<Long> outgoingClusterList = transformedOutgoingRouteBuilder.getClusterList();
-        if (localClusterIds.stream().anyMatch(outgoingClusterList::contains)) {
-          /*
-           *  receiver will reject new route if it contains any of its local cluster ids
-           */
-          return null;
-        }
       }
     }
 
@@ -207,6 +216,34 @@ public class BgpProtocolHelper {
     return transformedOutgoingRouteBuilder;
   }
 
+  /**
+   * Returns whether {@code route} must not be sent to {@code toVrf} because it is an iBGP peer
+   * whose router-id is the originator id of the advertisement.
+   */
+  public static boolean isOriginatedByReceiver(
+      BgpSessionProperties sessionProperties, Vrf toVrf, AbstractRoute route) {
+    RoutingProtocol protocol = route.getProtocol();
+    return !sessionProperties.isEbgp()
+        && (protocol == RoutingProtocol.IBGP || protocol == RoutingProtocol.BGP)
+        && toVrf.getBgpProcess().getRouterId().equals(((BgpRoute) route).getOriginatorIp());
+  }
+
+  /**
+   * Returns whether {@code toVrf} would reject a route reflected over an iBGP session with the
+   * given outgoing cluster list, because the list contains one of its local cluster ids.
+   */
+  public static boolean isClusterListRejectedByReceiver(
+      BgpSessionProperties sessionProperties,
+      Vrf toVrf,
+      AbstractRoute route,
+      Set<Long> outgoingClusterList) {
+    if (sessionProperties.isEbgp() || route.getProtocol() != RoutingProtocol.IBGP) {
+      return false;
+    }
+    Set<Long> localClusterIds = toVrf.getBgpProcess().getClusterIds();
+    return localClusterIds.stream().anyMatch(outgoingClusterList::contains);
+  }
+
   /** Perform BGP import transformations on a given route after receiving an advertisement */
   @Nullable
   public static BgpRoute.Builder transformBgpRouteOnImport(
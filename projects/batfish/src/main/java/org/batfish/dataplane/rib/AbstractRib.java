@@ -1,5 +1,7 @@
 package org.batfish.dataplane.rib;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import com.google.common.collect.ImmutableSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -36,24 +38,50 @@ public abstract class AbstractRib<R extends AbstractRoute> implements GenericRib
    */
   protected long _logicalClock;
 
-  /** Map to keep track when routes were merged in. */
+  /**
+   * Map to keep track when routes were merged in. Only populated if {@link #tracksArrivalTime()}.
+   */
   protected Map<R, Long> _logicalArrivalTime;
 
-  private RibTree<R> _tree;
+  private RibStore<R> _tree;
 
   @Nullable private Set<R> _allRoutes;
 
+  /**
+   * The net changes to the routes of this RIB since {@link #trackChanges()} or {@link
+   * #takeChanges()} was last called: {@code true} for each route added, and {@code false} for each
+   * route removed. {@code null} if changes are not tracked. Not serialized.
+   */
+  @Nullable private transient Map<R, Boolean> _changes;
+
+  /**
+   * Sum of the hash codes of all routes in {@link #_tree}. Kept up to date as routes are added and
+   * removed, so that it always equals the hash code of the set of all routes.
+   */
+  private int _routesHashCode;
+
   /**
    * Keep a Sorted Set of alternative routes. Used to update the RIB if best routes are withdrawn
    */
   @Nullable protected final Map<Prefix, SortedSet<R>> _backupRoutes;
 
   public AbstractRib(@Nullable Map<Prefix, SortedSet<R>> backupRoutes) {
+    this(backupRoutes, RibStorage.TREE);
+  }
+
+  /**
+   * Create a new RIB
+   *
+   * @param backupRoutes alternative routes used when best routes are withdrawn, or {@code null}
+   * @param storage the data structure in which to store routes
+   */
+  public AbstractRib(@Nullable Map<Prefix, SortedSet<R>> backupRoutes, RibStorage storage) {
     _allRoutes = ImmutableSet.of();
     _backupRoutes = backupRoutes;
     _logicalArrivalTime = new HashMap<>();
     _logicalClock = 0;
-    _tree = new RibTree<>(this);
+    _routesHashCode = 0;
+    _tree = storage.create(this);
   }
 
   /**
@@ -108,11 +136,44 @@ public abstract class AbstractRib<R extends AbstractRoute> implements GenericRib
     return _allRoutes;
   }
 
-  public final Set<R> getRoutes(Prefix p) {
-    // Collect routes that match the prefix
-    return getRoutes().stream()
-        .filter(r -> r.getNetwork().equals(p))
-        .collect(ImmutableSet.toImmutableSet());
+  /**
+   * Return the hash code of the set of all routes stored in this RIB, without materializing that
+   * set. Equal to {@code getRoutes().hashCode()} unless a subclass overrides {@link #getRoutes()}.
+   *
+   * <p>This is maintained incrementally as routes are merged and removed, so it takes constant
+   * time.
+   */
+  public final int getRoutesHashCode() {
+    return _routesHashCode;
+  }
+
+  /**
+   * Return the routes in this RIB whose network is exactly the given prefix.
+   *
+   * <p>Looks up the prefix in the underlying tree, so it does not materialize {@link #getRoutes()}.
+   */
+  public Set<R> getRoutes(Prefix p) {
+    return _tree.getRoutes(p);
+  }
+
+  /**
+   * Return the routes in this RIB whose networks are contained in (or equal to) the given prefix.
+   *
+   * <p>Only visits the part of the underlying tree below the prefix, so it does not materialize
+   * {@link #getRoutes()}.
+   */
+  public Set<R> getRoutesCoveredBy(Prefix p) {
+    return _tree.getRoutesCoveredBy(p);
+  }
+
+  /**
+   * Return the routes in this RIB whose networks contain (or are equal to) the given prefix.
+   *
+   * <p>Only visits the path from the root of the underlying tree to the prefix, so it does not
+   * materialize {@link #getRoutes()}.
+   */
+  public Set<R> getRoutesCovering(Prefix p) {
+    return _tree.getRoutesCovering(p);
   }
 
   /**
@@ -155,7 +216,9 @@ public abstract class AbstractRib<R extends AbstractRoute> implements GenericRib
     if (!delta.isEmpty()) {
       // A change to routes has been made
       _allRoutes = null;
-      _logicalArrivalTime.put(route, _logicalClock);
+      if (tracksArrivalTime()) {
+        _logicalArrivalTime.put(route, _logicalClock);
+      }
       _logicalClock++;
     }
     return delta;
@@ -232,6 +295,66 @@ public abstract class AbstractRib<R extends AbstractRoute> implements GenericRib
     return d;
   }
 
+  /**
+   * Whether this RIB needs the arrival time of its routes in {@link #_logicalArrivalTime}. Off by
+   * default, since the map costs an entry per route.
+   */
+  protected boolean tracksArrivalTime() {
+    return false;
+  }
+
+  /** Called by the {@link RibStore} whenever a route is stored. */
+  void routeAdded(R route) {
+    _routesHashCode += route.hashCode();
+    recordChange(route, true);
+  }
+
+  /** Called by the {@link RibStore} whenever a route is removed. */
+  void routeRemoved(R route) {
+    _routesHashCode -= route.hashCode();
+    recordChange(route, false);
+  }
+
+  private void recordChange(R route, boolean added) {
+    if (_changes != null && _changes.remove(route) == null) {
+      _changes.put(route, added);
+    }
+    // otherwise, the route was removed after being added, or added back after being removed
+  }
+
+  /**
+   * Start recording the routes added to and removed from this RIB, however they are changed, for
+   * {@link #takeChanges()}. Discards the changes recorded so far, if any. Only one consumer can
+   * track the changes of a RIB.
+   */
+  public final void trackChanges() {
+    _changes = new HashMap<>();
+  }
+
+  /**
+   * Returns the net changes to the routes of this RIB since {@link #trackChanges()} or this method
+   * was last called, and starts recording again. Routes that were removed are withdrawn with {@link
+   * Reason#WITHDRAW}.
+   *
+   * @throws IllegalStateException if changes are not tracked, e.g. because this RIB was
+   *     deserialized since {@link #trackChanges()} was called
+   */
+  @Nonnull
+  public final RibDelta<R> takeChanges() {
+    checkState(_changes != null, "Changes to this RIB are not tracked");
+    RibDelta.Builder<R> delta = RibDelta.builder();
+    _changes.forEach(
+        (route, added) -> {
+          if (added) {
+            delta.add(route);
+          } else {
+            delta.remove(route, Reason.WITHDRAW);
+          }
+        });
+    _changes = new HashMap<>();
+    return delta.build();
+  }
+
   /**
    * Extract routes stored for this exact prefix, if any.
    *
@@ -252,13 +375,22 @@ public abstract class AbstractRib<R extends AbstractRoute> implements GenericRib
    */
   @Override
   public boolean equals(@Nullable Object other) {
-    return (this == other)
-        || (other instanceof AbstractRib<?> && _tree.equals(((AbstractRib<?>) other)._tree));
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof AbstractRib<?>)) {
+      return false;
+    }
+    RibStore<?> otherTree = ((AbstractRib<?>) other)._tree;
+    return otherTree.getClass() == _tree.getClass()
+        ? _tree.equals(otherTree)
+        : _tree.getRoutes().equals(otherTree.getRoutes());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(_tree);
+    // Same as hashing the tree, whose hash code is the sum of those of its routes
+    return Objects.hash(_routesHashCode);
   }
 
   @Override
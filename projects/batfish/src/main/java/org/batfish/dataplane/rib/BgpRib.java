@@ -54,7 +54,23 @@ public class BgpRib extends AbstractRib<BgpRoute> {
       BgpTieBreaker tieBreaker,
       @Nullable Integer maxPaths,
       @Nullable MultipathEquivalentAsPathMatchMode multipathEquivalentAsPathMatchMode) {
-    super(backupRoutes);
+    this(
+        backupRoutes,
+        mainRib,
+        tieBreaker,
+        maxPaths,
+        multipathEquivalentAsPathMatchMode,
+        RibStorage.TREE);
+  }
+
+  public BgpRib(
+      @Nullable Map<Prefix, SortedSet<BgpRoute>> backupRoutes,
+      @Nullable Rib mainRib,
+      BgpTieBreaker tieBreaker,
+      @Nullable Integer maxPaths,
+      @Nullable MultipathEquivalentAsPathMatchMode multipathEquivalentAsPathMatchMode,
+      RibStorage storage) {
+    super(backupRoutes, storage);
     _mainRib = mainRib;
     _tieBreaker = tieBreaker;
     checkArgument(maxPaths == null || maxPaths > 0, "Invalid max-paths value %s", maxPaths);
@@ -122,6 +138,11 @@ public class BgpRib extends AbstractRib<BgpRoute> {
     }
   }
 
+  @Override
+  protected boolean tracksArrivalTime() {
+    return _tieBreaker == BgpTieBreaker.ARRIVAL_ORDER;
+  }
+
   @Nonnull
   @Override
   public RibDelta<BgpRoute> mergeRouteGetDelta(BgpRoute route) {
@@ -151,6 +172,32 @@ public class BgpRib extends AbstractRib<BgpRoute> {
     }
   }
 
+  @Override
+  public final Set<BgpRoute> getRoutes(Prefix p) {
+    if (isMultipath()) {
+      return super.getRoutes(p);
+    }
+    BgpRoute bestPath = _bestPaths.get(p);
+    return bestPath == null ? ImmutableSet.of() : ImmutableSet.of(bestPath);
+  }
+
+  @Override
+  public final Set<BgpRoute> getRoutesCoveredBy(Prefix p) {
+    return isMultipath() ? super.getRoutesCoveredBy(p) : onlyBestPaths(super.getRoutesCoveredBy(p));
+  }
+
+  @Override
+  public final Set<BgpRoute> getRoutesCovering(Prefix p) {
+    return isMultipath() ? super.getRoutesCovering(p) : onlyBestPaths(super.getRoutesCovering(p));
+  }
+
+  /** Restrict the given routes to those selected as best paths for their prefix */
+  private Set<BgpRoute> onlyBestPaths(Set<BgpRoute> routes) {
+    return routes.stream()
+        .filter(r -> r.equals(_bestPaths.get(r.getNetwork())))
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
   public Set<BgpRoute> getBestPathRoutes() {
     return ImmutableSet.copyOf(_bestPaths.values());
   }
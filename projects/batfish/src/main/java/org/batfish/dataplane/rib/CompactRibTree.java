@@ -0,0 +1,537 @@
+package org.batfish.dataplane.rib;
+
+import static org.batfish.dataplane.rib.RouteAdvertisement.Reason.REPLACE;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.Prefix;
+import org.batfish.dataplane.rib.RouteAdvertisement.Reason;
+
+/**
+ * A {@link RibStore} that keeps a path-compressed binary trie in parallel primitive arrays instead
+ * of one object per trie node.
+ *
+ * <p>Each node is an index into the arrays, which hold the node's 32-bit network address, prefix
+ * length, and children. As in {@link RibTree}, nodes only exist for prefixes that have (or had)
+ * routes and for the branching points between them. The routes of a node are stored directly if
+ * there is only one, or in an exactly-sized array otherwise, rather than in a {@link
+ * java.util.HashSet}.
+ *
+ * <p>Nodes are never deleted, so a trie that has held a route for a prefix keeps its node after the
+ * route is removed. The same is true of {@link RibTree}.
+ *
+ * @param <R> route type
+ */
+final class CompactRibTree<R extends AbstractRoute> implements RibStore<R> {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final int NONE = -1;
+
+  private static final int ROOT = 0;
+
+  private final AbstractRib<R> _owner;
+
+  /** Left (0-bit) child of each node, or {@link #NONE} */
+  private int[] _left;
+
+  /** Prefix length of each node */
+  private byte[] _lengths;
+
+  /** Right (1-bit) child of each node, or {@link #NONE} */
+  private int[] _right;
+
+  /** Routes of each node: {@code null} if none, a single route, or an array of routes */
+  private Object[] _routes;
+
+  /** Number of nodes in use */
+  private int _size;
+
+  /** Network address of each node, as an unsigned 32-bit value */
+  private int[] _starts;
+
+  CompactRibTree(AbstractRib<R> owner) {
+    _owner = owner;
+    _left = new int[INITIAL_CAPACITY];
+    _lengths = new byte[INITIAL_CAPACITY];
+    _right = new int[INITIAL_CAPACITY];
+    _routes = new Object[INITIAL_CAPACITY];
+    _starts = new int[INITIAL_CAPACITY];
+    _size = 0;
+    newNode(0L, 0);
+  }
+
+  /*
+   * Trie structure
+   */
+
+  private static long bitsOf(Prefix prefix) {
+    return prefix.getStartIp().asLong();
+  }
+
+  private int newNode(long bits, int prefixLength) {
+    if (_size == _starts.length) {
+      int capacity = _size + (_size >> 1);
+      _left = Arrays.copyOf(_left, capacity);
+      _lengths = Arrays.copyOf(_lengths, capacity);
+      _right = Arrays.copyOf(_right, capacity);
+      _routes = Arrays.copyOf(_routes, capacity);
+      _starts = Arrays.copyOf(_starts, capacity);
+    }
+    int node = _size++;
+    _left[node] = NONE;
+    _lengths[node] = (byte) prefixLength;
+    _right[node] = NONE;
+    _routes[node] = null;
+    _starts[node] = (int) bits;
+    return node;
+  }
+
+  private int length(int node) {
+    return _lengths[node];
+  }
+
+  private long start(int node) {
+    return Integer.toUnsignedLong(_starts[node]);
+  }
+
+  private Prefix prefix(int node) {
+    return Prefix.create(Ip.create(start(node)), length(node));
+  }
+
+  private int child(int node, boolean right) {
+    return right ? _right[node] : _left[node];
+  }
+
+  private void setChild(int node, boolean right, int child) {
+    if (right) {
+      _right[node] = child;
+    } else {
+      _left[node] = child;
+    }
+  }
+
+  /**
+   * Check whether the node's prefix contains the prefix with the given start bits and a length at
+   * least that of the node's prefix.
+   */
+  private boolean isPrefixOf(int node, long bits) {
+    int length = length(node);
+    return length == 0 || ((bits ^ start(node)) >>> (Prefix.MAX_PREFIX_LENGTH - length)) == 0;
+  }
+
+  /** Number of leading bits shared by the given addresses, capped at {@code max} */
+  private static int commonPrefixLength(long bits1, long bits2, int max) {
+    int common = Integer.numberOfLeadingZeros((int) (bits1 ^ bits2));
+    return Math.min(common, max);
+  }
+
+  /** Return the node for exactly the given prefix, or {@link #NONE} */
+  private int findNode(long bits, int prefixLength) {
+    int node = ROOT;
+    while (node != NONE) {
+      int length = length(node);
+      if (length > prefixLength || !isPrefixOf(node, bits)) {
+        return NONE;
+      }
+      if (length == prefixLength) {
+        return node;
+      }
+      node = child(node, Ip.getBitAtPosition(bits, length));
+    }
+    return NONE;
+  }
+
+  /** Return the node for exactly the given prefix, creating it if necessary */
+  private int findOrCreateNode(long bits, int prefixLength) {
+    int node = ROOT;
+    while (length(node) != prefixLength) {
+      boolean bit = Ip.getBitAtPosition(bits, length(node));
+      int child = child(node, bit);
+      if (child == NONE) {
+        int newNode = newNode(bits, prefixLength);
+        setChild(node, bit, newNode);
+        return newNode;
+      }
+      int childLength = length(child);
+      long childBits = start(child);
+      int common = commonPrefixLength(bits, childBits, Math.min(prefixLength, childLength));
+      if (common == childLength) {
+        // The child is on the path to the prefix
+        node = child;
+        continue;
+      }
+      if (common == prefixLength) {
+        // The prefix belongs between this node and the child
+        int newNode = newNode(bits, prefixLength);
+        setChild(node, bit, newNode);
+        setChild(newNode, Ip.getBitAtPosition(childBits, prefixLength), child);
+        return newNode;
+      }
+      // The prefix and the child diverge below this node: add a branching node for both
+      long branchBits = bits & (0xFFFFFFFFL << (Prefix.MAX_PREFIX_LENGTH - common));
+      int branch = newNode(branchBits, common);
+      int newNode = newNode(bits, prefixLength);
+      setChild(node, bit, branch);
+      setChild(branch, Ip.getBitAtPosition(bits, common), newNode);
+      setChild(branch, Ip.getBitAtPosition(childBits, common), child);
+      return newNode;
+    }
+    return node;
+  }
+
+  /*
+   * Per-node route storage
+   */
+
+  @SuppressWarnings("unchecked")
+  private List<R> routesOf(int node) {
+    Object routes = _routes[node];
+    if (routes == null) {
+      return ImmutableList.of();
+    } else if (routes instanceof Object[]) {
+      return (List<R>) (List<?>) Arrays.asList((Object[]) routes);
+    } else {
+      return ImmutableList.of((R) routes);
+    }
+  }
+
+  private boolean hasRoutes(int node) {
+    return _routes[node] != null;
+  }
+
+  private boolean hasRoute(int node, R route) {
+    Object routes = _routes[node];
+    if (routes == null) {
+      return false;
+    } else if (routes instanceof Object[]) {
+      for (Object r : (Object[]) routes) {
+        if (r.equals(route)) {
+          return true;
+        }
+      }
+      return false;
+    } else {
+      return routes.equals(route);
+    }
+  }
+
+  /** Add a route that is not yet present to the node */
+  private void addRoute(int node, R route) {
+    Object routes = _routes[node];
+    if (routes == null) {
+      _routes[node] = route;
+    } else if (routes instanceof Object[]) {
+      Object[] oldRoutes = (Object[]) routes;
+      Object[] newRoutes = Arrays.copyOf(oldRoutes, oldRoutes.length + 1);
+      newRoutes[oldRoutes.length] = route;
+      _routes[node] = newRoutes;
+    } else {
+      _routes[node] = new Object[] {routes, route};
+    }
+    _owner.routeAdded(route);
+  }
+
+  private boolean removeRoute(int node, R route) {
+    Object routes = _routes[node];
+    if (routes == null) {
+      return false;
+    } else if (routes instanceof Object[]) {
+      Object[] oldRoutes = (Object[]) routes;
+      for (int i = 0; i < oldRoutes.length; i++) {
+        if (oldRoutes[i].equals(route)) {
+          if (oldRoutes.length == 2) {
+            _routes[node] = oldRoutes[1 - i];
+          } else {
+            Object[] newRoutes = new Object[oldRoutes.length - 1];
+            System.arraycopy(oldRoutes, 0, newRoutes, 0, i);
+            System.arraycopy(oldRoutes, i + 1, newRoutes, i, oldRoutes.length - i - 1);
+            _routes[node] = newRoutes;
+          }
+          _owner.routeRemoved(route);
+          return true;
+        }
+      }
+      return false;
+    } else if (routes.equals(route)) {
+      _routes[node] = null;
+      _owner.routeRemoved(route);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  private void clearRoutes(int node) {
+    routesOf(node).forEach(_owner::routeRemoved);
+    _routes[node] = null;
+  }
+
+  private boolean hasForwardingRoute(int node) {
+    return !routesOf(node).stream().allMatch(AbstractRoute::getNonForwarding);
+  }
+
+  /*
+   * RibStore
+   */
+
+  @Nonnull
+  @Override
+  public RibDelta<R> mergeRoute(R route) {
+    Prefix prefix = route.getNetwork();
+    int node = findOrCreateNode(bitsOf(prefix), prefix.getPrefixLength());
+    if (!hasRoutes(node)) {
+      addRoute(node, route);
+      return RibDelta.<R>builder().add(route).build();
+    }
+    /*
+     * All routes already stored for this prefix have the same preference level, so the new route
+     * is either better than all of them, worse than all of them, or equally preferred.
+     */
+    int preferenceComparison = _owner.comparePreference(route, routesOf(node).get(0));
+    if (preferenceComparison < 0) {
+      return RibDelta.empty();
+    }
+    if (preferenceComparison == 0) {
+      if (hasRoute(node, route)) {
+        return RibDelta.empty();
+      }
+      addRoute(node, route);
+      return RibDelta.<R>builder().add(route).build();
+    }
+    RibDelta<R> delta = RibDelta.<R>builder().remove(routesOf(node), REPLACE).add(route).build();
+    clearRoutes(node);
+    addRoute(node, route);
+    return delta;
+  }
+
+  @Nonnull
+  @Override
+  public RibDelta<R> removeRouteGetDelta(R route, Reason reason) {
+    Prefix prefix = route.getNetwork();
+    int node = findNode(bitsOf(prefix), prefix.getPrefixLength());
+    if (node == NONE || !removeRoute(node, route)) {
+      return RibDelta.empty();
+    }
+    RibDelta.Builder<R> b = RibDelta.<R>builder().remove(route, reason);
+    if (!hasRoutes(node) && _owner._backupRoutes != null) {
+      SortedSet<? extends R> backups =
+          _owner._backupRoutes.getOrDefault(prefix, ImmutableSortedSet.of());
+      if (!backups.isEmpty()) {
+        addRoute(node, backups.first());
+        b.add(backups.first());
+      }
+    }
+    return b.build();
+  }
+
+  @Nonnull
+  @Override
+  public RibDelta<R> clearRoutes(Prefix prefix) {
+    int node = findNode(bitsOf(prefix), prefix.getPrefixLength());
+    if (node == NONE) {
+      return RibDelta.empty();
+    }
+    RibDelta<R> delta = RibDelta.<R>builder().remove(routesOf(node), REPLACE).build();
+    clearRoutes(node);
+    return delta;
+  }
+
+  @Override
+  public boolean containsRoute(R route) {
+    Prefix prefix = route.getNetwork();
+    int node = findNode(bitsOf(prefix), prefix.getPrefixLength());
+    return node != NONE && hasRoute(node, route);
+  }
+
+  @Nonnull
+  @Override
+  public Set<R> getLongestPrefixMatch(Ip address, int maxPrefixLength) {
+    // Use the forwarding routes of the longest matching prefix that has any
+    long bits = address.asLong();
+    int best = NONE;
+    int node = ROOT;
+    while (node != NONE) {
+      int length = length(node);
+      if (length > maxPrefixLength || !isPrefixOf(node, bits)) {
+        break;
+      }
+      if (hasForwardingRoute(node)) {
+        best = node;
+      }
+      if (length == maxPrefixLength) {
+        break;
+      }
+      node = child(node, Ip.getBitAtPosition(bits, length));
+    }
+    if (best == NONE) {
+      return ImmutableSet.of();
+    }
+    return routesOf(best).stream()
+        .filter(r -> !r.getNonForwarding())
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  @Nonnull
+  @Override
+  public Set<R> getRoutes() {
+    ImmutableSet.Builder<R> routes = ImmutableSet.builder();
+    collectRoutes(ROOT, routes);
+    return routes.build();
+  }
+
+  /** Collect the routes in the subtree of the given node, children first */
+  private void collectRoutes(int node, ImmutableSet.Builder<R> routes) {
+    if (_left[node] != NONE) {
+      collectRoutes(_left[node], routes);
+    }
+    if (_right[node] != NONE) {
+      collectRoutes(_right[node], routes);
+    }
+    routes.addAll(routesOf(node));
+  }
+
+  @Nonnull
+  @Override
+  public Set<R> getRoutes(Prefix prefix) {
+    int node = findNode(bitsOf(prefix), prefix.getPrefixLength());
+    return node == NONE ? ImmutableSet.of() : ImmutableSet.copyOf(routesOf(node));
+  }
+
+  @Nonnull
+  @Override
+  public Set<R> getRoutesCoveredBy(Prefix prefix) {
+    ImmutableSet.Builder<R> routes = ImmutableSet.builder();
+    long bits = bitsOf(prefix);
+    int prefixLength = prefix.getPrefixLength();
+    int node = ROOT;
+    while (node != NONE) {
+      int length = length(node);
+      if (length >= prefixLength) {
+        // The first node at or below the prefix length is the only candidate subtree
+        if (prefix.containsIp(Ip.create(start(node)))) {
+          collectRoutes(node, routes);
+        }
+        break;
+      }
+      if (!isPrefixOf(node, bits)) {
+        break;
+      }
+      node = child(node, Ip.getBitAtPosition(bits, length));
+    }
+    return routes.build();
+  }
+
+  @Nonnull
+  @Override
+  public Set<R> getRoutesCovering(Prefix prefix) {
+    ImmutableSet.Builder<R> routes = ImmutableSet.builder();
+    long bits = bitsOf(prefix);
+    int prefixLength = prefix.getPrefixLength();
+    int node = ROOT;
+    while (node != NONE) {
+      int length = length(node);
+      if (length > prefixLength || !isPrefixOf(node, bits)) {
+        break;
+      }
+      routes.addAll(routesOf(node));
+      if (length == prefixLength) {
+        break;
+      }
+      node = child(node, Ip.getBitAtPosition(bits, length));
+    }
+    return routes.build();
+  }
+
+  @Nonnull
+  @Override
+  public Map<Prefix, IpSpace> getMatchingIps() {
+    ImmutableMap.Builder<Prefix, IpSpace> builder = ImmutableMap.builder();
+    addMatchingIps(ROOT, builder);
+    return builder.build();
+  }
+
+  private void addMatchingIps(int node, ImmutableMap.Builder<Prefix, IpSpace> builder) {
+    int left = _left[node];
+    int right = _right[node];
+    if (left != NONE) {
+      addMatchingIps(left, builder);
+    }
+    if (right != NONE) {
+      addMatchingIps(right, builder);
+    }
+    if (hasForwardingRoute(node)) {
+      IpWildcardSetIpSpace.Builder matchingIps = IpWildcardSetIpSpace.builder();
+      if (left != NONE) {
+        excludeRoutableIps(left, matchingIps);
+      }
+      if (right != NONE) {
+        excludeRoutableIps(right, matchingIps);
+      }
+      Prefix prefix = prefix(node);
+      matchingIps.including(new IpWildcard(prefix));
+      builder.put(prefix, matchingIps.build());
+    }
+  }
+
+  @Nonnull
+  @Override
+  public IpSpace getRoutableIps() {
+    IpWildcardSetIpSpace.Builder builder = IpWildcardSetIpSpace.builder();
+    addRoutableIps(ROOT, builder, true);
+    return builder.build();
+  }
+
+  /**
+   * Include (or exclude) the IPs matched by the shortest prefixes with forwarding routes in the
+   * subtree of the given node.
+   */
+  private void addRoutableIps(int node, IpWildcardSetIpSpace.Builder builder, boolean include) {
+    if (hasForwardingRoute(node)) {
+      if (include) {
+        builder.including(new IpWildcard(prefix(node)));
+      } else {
+        builder.excluding(new IpWildcard(prefix(node)));
+      }
+      return;
+    }
+    if (_left[node] != NONE) {
+      addRoutableIps(_left[node], builder, include);
+    }
+    if (_right[node] != NONE) {
+      addRoutableIps(_right[node], builder, include);
+    }
+  }
+
+  private void excludeRoutableIps(int node, IpWildcardSetIpSpace.Builder builder) {
+    addRoutableIps(node, builder, false);
+  }
+
+  @Override
+  public int hashCode() {
+    return getRoutes().hashCode();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    return obj == this
+        || (obj instanceof CompactRibTree
+            && getRoutes().equals(((CompactRibTree<?>) obj).getRoutes()));
+  }
+}
@@ -18,6 +18,11 @@ public class Rib extends AbstractRib<AbstractRoute> implements Serializable {
     super(null);
   }
 
+  /** Create a new empty RIB, backed by the given {@link RibStorage}. */
+  public Rib(RibStorage storage) {
+    super(null, storage);
+  }
+
   @Override
   public int comparePreference(@Nonnull AbstractRoute lhs, @Nonnull AbstractRoute rhs) {
     // Flipped rhs & lhs because lower values are preferable.
@@ -0,0 +1,25 @@
+package org.batfish.dataplane.rib;
+
+import org.batfish.datamodel.AbstractRoute;
+
+/** The data structures available to back an {@link AbstractRib} */
+public enum RibStorage {
+  /** A binary tree with one object (and one route set) per stored or branching prefix */
+  TREE,
+  /**
+   * A path-compressed binary trie held in primitive arrays, with compact per-prefix route arrays.
+   * Uses considerably less memory for large (e.g., full Internet) tables.
+   */
+  COMPACT;
+
+  <R extends AbstractRoute> RibStore<R> create(AbstractRib<R> owner) {
+    switch (this) {
+      case TREE:
+        return new RibTree<>(owner);
+      case COMPACT:
+        return new CompactRibTree<>(owner);
+      default:
+        throw new IllegalStateException("Unsupported RIB storage: " + this);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.batfish.dataplane.rib;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.Prefix;
+import org.batfish.dataplane.rib.RouteAdvertisement.Reason;
+
+/**
+ * The data structure backing an {@link AbstractRib}: stores routes indexed by their network and
+ * supports longest prefix match.
+ *
+ * <p>Implementations apply the route preference semantics of their owning RIB (via {@link
+ * AbstractRib#comparePreference}), fall back to its backup routes when the last route for a prefix
+ * is removed, and notify it of every route they store or drop.
+ *
+ * @param <R> route type
+ */
+interface RibStore<R extends AbstractRoute> extends Serializable {
+
+  /**
+   * Add a new route, potentially replacing other routes for the same prefix
+   *
+   * @return a {@link RibDelta} indicating which routes were added and evicted
+   */
+  @Nonnull
+  RibDelta<R> mergeRoute(R route);
+
+  /** Remove a single route if it exists, returning the resulting {@link RibDelta} */
+  @Nonnull
+  RibDelta<R> removeRouteGetDelta(R route, Reason reason);
+
+  /** Remove all routes for exactly the given prefix, returning the resulting {@link RibDelta} */
+  @Nonnull
+  RibDelta<R> clearRoutes(Prefix prefix);
+
+  /** Check if the route is present */
+  boolean containsRoute(R route);
+
+  /**
+   * Returns the forwarding routes that match the given address and have the longest prefix length
+   * within the specified maximum, or the empty set if there are none.
+   */
+  @Nonnull
+  Set<R> getLongestPrefixMatch(Ip address, int maxPrefixLength);
+
+  /** Return all stored routes */
+  @Nonnull
+  Set<R> getRoutes();
+
+  /** Return the routes stored for exactly the given prefix */
+  @Nonnull
+  Set<R> getRoutes(Prefix prefix);
+
+  /** Return the routes whose networks are contained in (or equal to) the given prefix */
+  @Nonnull
+  Set<R> getRoutesCoveredBy(Prefix prefix);
+
+  /** Return the routes whose networks contain (or are equal to) the given prefix */
+  @Nonnull
+  Set<R> getRoutesCovering(Prefix prefix);
+
+  /** See {@link org.batfish.datamodel.GenericRib#getMatchingIps()} */
+  @Nonnull
+  Map<Prefix, IpSpace> getMatchingIps();
+
+  /** See {@link org.batfish.datamodel.GenericRib#getRoutableIps()} */
+  @Nonnull
+  IpSpace getRoutableIps();
+}
@@ -2,7 +2,6 @@ package org.batfish.dataplane.rib;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -20,7 +19,7 @@ import org.batfish.dataplane.rib.RouteAdvertisement.Reason;
  * where the wildcard symbols can appear only after (to-the-right-of) non wildcard symbols in the
  * bit vector. E.g., 101010**, but not 1*001***
  */
-class RibTree<R extends AbstractRoute> implements Serializable {
+class RibTree<R extends AbstractRoute> implements RibStore<R> {
 
   private static final long serialVersionUID = 1L;
 
@@ -37,7 +36,8 @@ class RibTree<R extends AbstractRoute> implements Serializable {
    * @return {@link RibDelta} if the route was removed, otherwise {@code null};
    */
   @Nonnull
-  RibDelta<R> removeRouteGetDelta(R route, Reason reason) {
+  @Override
+  public RibDelta<R> removeRouteGetDelta(R route, Reason reason) {
     Prefix prefix = route.getNetwork();
     int prefixLength = prefix.getPrefixLength();
     long bits = prefix.getStartIp().asLong();
@@ -50,7 +50,8 @@ class RibTree<R extends AbstractRoute> implements Serializable {
    * @param route route to find
    * @return true if the route exists in the RIB
    */
-  boolean containsRoute(R route) {
+  @Override
+  public boolean containsRoute(R route) {
     Prefix prefix = route.getNetwork();
     int prefixLength = prefix.getPrefixLength();
     long bits = prefix.getStartIp().asLong();
@@ -64,7 +65,8 @@ class RibTree<R extends AbstractRoute> implements Serializable {
    * <p>Returns the empty set if there are no forwarding routes that match.
    */
   @Nonnull
-  Set<R> getLongestPrefixMatch(Ip address, int maxPrefixLength) {
+  @Override
+  public Set<R> getLongestPrefixMatch(Ip address, int maxPrefixLength) {
     return _root.getLongestPrefixMatch(address, address.asLong(), maxPrefixLength);
   }
 
@@ -73,6 +75,8 @@ class RibTree<R extends AbstractRoute> implements Serializable {
    *
    * @return a {@link Set} of routes
    */
+  @Nonnull
+  @Override
   public Set<R> getRoutes() {
     ImmutableSet.Builder<R> routes = ImmutableSet.builder();
     _root.collectRoutes(routes);
@@ -80,10 +84,30 @@ class RibTree<R extends AbstractRoute> implements Serializable {
   }
 
   /** Retrieve stored routes for a particular prefix only. */
+  @Nonnull
+  @Override
   public Set<R> getRoutes(Prefix prefix) {
     return _root.getRoutes(prefix);
   }
 
+  /** Retrieve stored routes whose networks are contained in (or equal to) the given prefix. */
+  @Nonnull
+  @Override
+  public Set<R> getRoutesCoveredBy(Prefix prefix) {
+    ImmutableSet.Builder<R> routes = ImmutableSet.builder();
+    _root.collectRoutesCoveredBy(prefix, routes);
+    return routes.build();
+  }
+
+  /** Retrieve stored routes whose networks contain (or are equal to) the given prefix. */
+  @Nonnull
+  @Override
+  public Set<R> getRoutesCovering(Prefix prefix) {
+    ImmutableSet.Builder<R> routes = ImmutableSet.builder();
+    _root.collectRoutesCovering(prefix, routes);
+    return routes.build();
+  }
+
   /**
    * Add a new route into the RIB, potentially replacing other routes
    *
@@ -92,7 +116,8 @@ class RibTree<R extends AbstractRoute> implements Serializable {
    *     RIB
    */
   @Nonnull
-  RibDelta<R> mergeRoute(R route) {
+  @Override
+  public RibDelta<R> mergeRoute(R route) {
     Prefix prefix = route.getNetwork();
     int prefixLength = prefix.getPrefixLength();
     long bits = prefix.getStartIp().asLong();
@@ -109,17 +134,23 @@ class RibTree<R extends AbstractRoute> implements Serializable {
     return (obj == this) || (obj instanceof RibTree && this._root.equals(((RibTree<?>) obj)._root));
   }
 
+  @Nonnull
+  @Override
   public RibDelta<R> clearRoutes(Prefix prefix) {
     return _root.clearRoutes(prefix);
   }
 
+  @Nonnull
+  @Override
   public Map<Prefix, IpSpace> getMatchingIps() {
     ImmutableMap.Builder<Prefix, IpSpace> builder = ImmutableMap.builder();
     _root.addMatchingIps(builder);
     return builder.build();
   }
 
-  IpSpace getRoutableIps() {
+  @Nonnull
+  @Override
+  public IpSpace getRoutableIps() {
     IpWildcardSetIpSpace.Builder builder = IpWildcardSetIpSpace.builder();
     _root.addRoutableIps(builder);
     return builder.build();
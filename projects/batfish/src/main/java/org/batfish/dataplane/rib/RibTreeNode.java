@@ -46,6 +46,30 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
     _owner = owner;
   }
 
+  /** Add a route to this node, keeping the owner's fingerprint up to date */
+  private boolean addRoute(R route) {
+    if (_routes.add(route)) {
+      _owner.routeAdded(route);
+      return true;
+    }
+    return false;
+  }
+
+  /** Remove a route from this node, keeping the owner's fingerprint up to date */
+  private boolean removeRoute(R route) {
+    if (_routes.remove(route)) {
+      _owner.routeRemoved(route);
+      return true;
+    }
+    return false;
+  }
+
+  /** Remove all routes from this node, keeping the owner's fingerprint up to date */
+  private void clearRoutes() {
+    _routes.forEach(_owner::routeRemoved);
+    _routes.clear();
+  }
+
   void collectRoutes(ImmutableCollection.Builder<R> routes) {
     if (_left != null) {
       _left.collectRoutes(routes);
@@ -56,8 +80,25 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
     routes.addAll(_routes);
   }
 
+  /**
+   * Check whether this node's prefix contains the prefix with the given start IP bits and a length
+   * at least that of this node's prefix.
+   */
+  private boolean isPrefixOf(long bits) {
+    int nodePrefixLength = _prefix.getPrefixLength();
+    return nodePrefixLength == 0
+        || ((bits ^ _prefix.getStartIp().asLong())
+                >>> (Prefix.MAX_PREFIX_LENGTH - nodePrefixLength))
+            == 0;
+  }
+
   @Nullable
   private RibTreeNode<R> findRouteNode(long bits, int prefixLength, int firstUnmatchedBitIndex) {
+    // Nodes off the path to the prefix can share its length or be longer; they never match.
+    if (_prefix.getPrefixLength() > prefixLength || !isPrefixOf(bits)) {
+      return null;
+    }
+
     // If prefix lengths match, this is the node where such route would be stored.
     if (prefixLength == _prefix.getPrefixLength()) {
       return this;
@@ -162,6 +203,51 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
     return ImmutableSet.copyOf(node._routes);
   }
 
+  /**
+   * Collect the routes whose networks are contained in (or equal to) the given prefix.
+   *
+   * <p>Only visits the nodes on the path to the prefix and the subtree below it.
+   */
+  void collectRoutesCoveredBy(Prefix p, ImmutableCollection.Builder<R> routes) {
+    RibTreeNode<R> node = this;
+    long bits = p.getStartIp().asLong();
+    int prefixLength = p.getPrefixLength();
+    while (node != null) {
+      if (p.containsPrefix(node._prefix)) {
+        node.collectRoutes(routes);
+        return;
+      }
+      int nodePrefixLength = node._prefix.getPrefixLength();
+      if (nodePrefixLength >= prefixLength || !node.isPrefixOf(bits)) {
+        // Node diverges from the prefix, so nothing below it can be covered
+        return;
+      }
+      node = Ip.getBitAtPosition(bits, nodePrefixLength) ? node._right : node._left;
+    }
+  }
+
+  /**
+   * Collect the routes whose networks contain (or are equal to) the given prefix.
+   *
+   * <p>Only visits the nodes on the path to the prefix.
+   */
+  void collectRoutesCovering(Prefix p, ImmutableCollection.Builder<R> routes) {
+    RibTreeNode<R> node = this;
+    long bits = p.getStartIp().asLong();
+    int prefixLength = p.getPrefixLength();
+    while (node != null) {
+      int nodePrefixLength = node._prefix.getPrefixLength();
+      if (nodePrefixLength > prefixLength || !node.isPrefixOf(bits)) {
+        return;
+      }
+      routes.addAll(node._routes);
+      if (nodePrefixLength == prefixLength) {
+        return;
+      }
+      node = Ip.getBitAtPosition(bits, nodePrefixLength) ? node._right : node._left;
+    }
+  }
+
   private void assignChild(RibTreeNode<R> parent, RibTreeNode<R> child, boolean branchRight) {
     if (branchRight) {
       parent._right = child;
@@ -203,7 +289,7 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
     // for the given route
     if (node == null) {
       node = new RibTreeNode<>(route.getNetwork(), _owner);
-      node._routes.add(route);
+      node.addRoute(route);
       // don't forget to assign new node object to parent node
       assignChild(parent, node, rightBranch);
       return RibDelta.<R>builder().add(route).build();
@@ -253,7 +339,7 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
       currentNodeAddressBit = Ip.getBitAtPosition(nodeAddressBits, nextUnmatchedBit);
       RibTreeNode<R> oldNode = node;
       node = new RibTreeNode<>(route.getNetwork(), _owner);
-      node._routes.add(route);
+      node.addRoute(route);
       assignChild(parent, node, rightBranch);
       assignChild(node, oldNode, currentNodeAddressBit);
       return RibDelta.<R>builder().add(route).build();
@@ -273,7 +359,7 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
     Prefix newNetwork = Prefix.create(route.getNetwork().getStartIp(), nextUnmatchedBit);
     node = new RibTreeNode<>(newNetwork, _owner); // node is the node we are inserting in the middle
     RibTreeNode<R> child = new RibTreeNode<>(route.getNetwork(), _owner);
-    child._routes.add(route);
+    child.addRoute(route);
     assignChild(parent, node, rightBranch);
     // child and old node become siblings, children of the newly inserted node
     assignChild(node, child, currentAddressBit);
@@ -293,7 +379,7 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
 
       // No routes with this prefix, so just add it. No comparison necessary
       if (_routes.isEmpty()) {
-        _routes.add(route);
+        addRoute(route);
         return RibDelta.<R>builder().add(route).build();
       }
 
@@ -314,7 +400,7 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
           return RibDelta.empty();
         }
         // Otherwise add the route
-        if (_routes.add(route)) {
+        if (addRoute(route)) {
           return RibDelta.<R>builder().add(route).build();
         } else {
           return RibDelta.empty();
@@ -326,8 +412,8 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
        * replace them with this one.
        */
       RibDelta<R> delta = RibDelta.<R>builder().remove(_routes, REPLACE).add(route).build();
-      _routes.clear();
-      _routes.add(route);
+      clearRoutes();
+      addRoute(route);
       return delta;
     }
     /*
@@ -353,13 +439,13 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
       return RibDelta.empty();
     }
     Builder<R> b = RibDelta.builder();
-    if (node._routes.remove(route)) {
+    if (node.removeRoute(route)) {
       b.remove(route, reason);
       if (node._routes.isEmpty() && _owner._backupRoutes != null) {
         SortedSet<? extends R> backups =
             _owner._backupRoutes.getOrDefault(route.getNetwork(), ImmutableSortedSet.of());
         if (!backups.isEmpty()) {
-          node._routes.add(backups.first());
+          node.addRoute(backups.first());
           b.add(backups.first());
         }
       }
@@ -398,10 +484,10 @@ class RibTreeNode<R extends AbstractRoute> implements Serializable {
     long bits = prefix.getStartIp().asLong();
     RibTreeNode<R> node = findRouteNode(bits, prefix.getPrefixLength(), 0);
     if (node == null) {
-      return null;
+      return RibDelta.empty();
     }
     RibDelta<R> delta = RibDelta.<R>builder().remove(node._routes, REPLACE).build();
-    node._routes.clear();
+    node.clearRoutes();
     return delta;
   }
 
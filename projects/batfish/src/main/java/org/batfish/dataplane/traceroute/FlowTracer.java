@@ -44,6 +44,7 @@ import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IpAccessList;
 import org.batfish.datamodel.IpSpace;
 import org.batfish.datamodel.Route;
+import org.batfish.datamodel.acl.CompiledAcl;
 import org.batfish.datamodel.acl.Evaluator;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.flow.ExitOutputIfaceStep;
@@ -620,10 +621,8 @@ class FlowTracer {
         createFilterStep(
             _currentFlow,
             _ingressInterface,
-            filter,
+            CompiledAcl.forConfiguration(_currentConfig, filter),
             filterType,
-            _aclDefinitions,
-            _namedIpSpaces,
             _tracerouteContext.getIgnoreFilters());
     _steps.add(filterStep);
     if (filterStep.getAction() == DENIED) {
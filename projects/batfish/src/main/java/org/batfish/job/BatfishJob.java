@@ -14,4 +14,13 @@ public abstract class BatfishJob<R extends BatfishJobResult<?, ?>> implements Ca
     _settings = settings;
     _logger = new BatfishLogger(_settings.getLogLevel(), _settings.getTimestamp());
   }
+
+  /**
+   * Returns a rough estimate of how long this job will take to run, in arbitrary units. When jobs
+   * run in parallel, jobs with a higher estimated cost are started first, so that a few large jobs
+   * do not end up running alone after all others are done.
+   */
+  public long getEstimatedCost() {
+    return 0L;
+  }
 }
@@ -3,7 +3,10 @@ package org.batfish.job;
 import com.google.common.base.Throwables;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
@@ -14,6 +17,8 @@ import org.batfish.common.BatfishLogger;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.answers.AnswerElement;
+import org.batfish.datamodel.answers.InitStepAnswerElement;
+import org.batfish.datamodel.answers.JobTimings;
 import org.batfish.main.Driver;
 
 /**
@@ -22,6 +27,16 @@ import org.batfish.main.Driver;
  */
 public class BatfishJobExecutor {
 
+  /**
+   * An output of {@link #runJobsInPipeline} that finishes applying some results in the background,
+   * e.g. by persisting them on another thread. Until they are finished, those results still hold
+   * memory, so they count against the window of the pipeline.
+   */
+  public interface BackgroundOutput {
+    /** Returns the number of results applied to this output that are not yet finished. */
+    int getPendingResults();
+  }
+
   private final BatfishLogger _logger;
 
   private final Settings _settings;
@@ -68,7 +83,40 @@ public class BatfishJobExecutor {
           boolean haltOnProcessingError,
           String description) {
     getBatfishJobExecutor(settings, logger)
-        .executeJobs(jobs, output, answerElement, haltOnProcessingError, description);
+        .executeJobs(jobs, output, answerElement, haltOnProcessingError, description, jobs.size());
+  }
+
+  /**
+   * Like {@link #runJobsInExecutor(Settings, BatfishLogger, List, Object, AnswerElement, boolean,
+   * String)}, but keeps at most {@code window} jobs in flight at any time. A new job is only
+   * submitted once the result of an earlier job has been applied to {@code output}, so as long as
+   * {@code output} does not retain what is applied to it (e.g. it persists results as they arrive),
+   * the memory held by jobs and their results is bounded by the window rather than by the number of
+   * jobs. If {@code output} is a {@link BackgroundOutput}, its pending results also count against
+   * the window, except that one job is always kept in flight.
+   *
+   * @param window maximum number of jobs submitted but whose results are not yet applied; must be
+   *     positive
+   */
+  public static <
+          JobT extends BatfishJob<JobResultT>,
+          AnswerElementT extends AnswerElement,
+          JobResultT extends BatfishJobResult<OutputT, AnswerElementT>,
+          OutputT>
+      void runJobsInPipeline(
+          Settings settings,
+          BatfishLogger logger,
+          List<JobT> jobs,
+          OutputT output,
+          AnswerElementT answerElement,
+          boolean haltOnProcessingError,
+          String description,
+          int window) {
+    if (window <= 0) {
+      throw new BatfishException("Pipeline window must be positive, but was: " + window);
+    }
+    getBatfishJobExecutor(settings, logger)
+        .executeJobs(jobs, output, answerElement, haltOnProcessingError, description, window);
   }
 
   static BatfishJobExecutor getBatfishJobExecutor(Settings settings, BatfishLogger logger) {
@@ -82,6 +130,8 @@ public class BatfishJobExecutor {
    * @param answerElement {@link AnswerElement} containing the detail of the jobs executed
    * @param haltOnProcessingError whether to halt on processing error
    * @param description description of the jobs submitted to the executor
+   * @param window maximum number of jobs submitted to the pool whose results have not yet been
+   *     handled
    * @param <JobT> type of job executed in the executor
    * @param <AnswerElementT> type of {@link AnswerElement} to which {@link BatfishJobResult} will be
    *     applied
@@ -98,18 +148,31 @@ public class BatfishJobExecutor {
           OutputT output,
           AnswerElementT answerElement,
           boolean haltOnProcessingError,
-          String description) {
+          String description,
+          int window) {
 
     // Initializing executors
     ExecutorService pool = createExecutorService();
     ExecutorCompletionService<JobResultT> completionService = new ExecutorCompletionService<>(pool);
 
-    if (!_settings.getSequential() && _settings.getShuffleJobs()) {
-      Collections.shuffle(jobs);
+    if (!_settings.getSequential()) {
+      if (_settings.getShuffleJobs()) {
+        Collections.shuffle(jobs);
+      }
+      // Longest job first; the sort is stable, so jobs of equal cost stay shuffled. Estimating a
+      // cost may touch the disk, so each job is estimated once rather than on every comparison.
+      Map<JobT, Long> costs = new IdentityHashMap<>(jobs.size());
+      jobs.forEach(job -> costs.put(job, job.getEstimatedCost()));
+      jobs.sort(Comparator.comparingLong((JobT job) -> costs.get(job)).reversed());
     }
+    long startTime = System.currentTimeMillis();
+    JobTimings.Builder timings = JobTimings.builder();
 
-    for (JobT job : jobs) {
-      completionService.submit(job);
+    // Submit up to window jobs now; the rest are submitted as earlier results are handled
+    int submitted = 0;
+    while (submitted < jobs.size() && submitted < window) {
+      completionService.submit(jobs.get(submitted));
+      submitted++;
     }
 
     initializeJobsStats(jobs, description);
@@ -130,15 +193,27 @@ public class BatfishJobExecutor {
         }
 
         markJobCompleted();
+        timings.add(result.getElapsedTime());
         boolean jobResultError =
             handleJobResult(result, output, answerElement, failureCauses, haltOnProcessingError);
         if (jobResultError) {
           processingError = true;
         }
+        int inFlight = submitted - i - 1;
+        while (submitted < jobs.size()
+            && (inFlight == 0 || inFlight + getPendingResults(output) < window)) {
+          completionService.submit(jobs.get(submitted));
+          submitted++;
+          inFlight++;
+        }
       }
     } finally {
       pool.shutdown();
     }
+    recordTimings(
+        timings.build(System.currentTimeMillis() - startTime, getThreads()),
+        answerElement,
+        description);
 
     if (processingError) {
       handleProcessingError(jobs, failureCauses, haltOnProcessingError);
@@ -147,12 +222,24 @@ public class BatfishJobExecutor {
     }
   }
 
+  private static int getPendingResults(Object output) {
+    return output instanceof BackgroundOutput ? ((BackgroundOutput) output).getPendingResults() : 0;
+  }
+
   private ExecutorService createExecutorService() {
-    if (_settings.getSequential()) {
-      return Executors.newSingleThreadExecutor();
+    return Executors.newFixedThreadPool(getThreads());
+  }
+
+  private int getThreads() {
+    return _settings.getSequential() ? 1 : _settings.getAvailableThreads();
+  }
+
+  /** Log {@code timings}, and add them to {@code answerElement} if it has a place for them. */
+  private void recordTimings(JobTimings timings, AnswerElement answerElement, String description) {
+    _logger.infof("Timings of %s: %s\n", description, timings);
+    if (answerElement instanceof InitStepAnswerElement) {
+      ((InitStepAnswerElement) answerElement).setJobTimings(timings);
     }
-    // if parallel processing is allowed
-    return Executors.newFixedThreadPool(_settings.getAvailableThreads());
   }
 
   <
@@ -17,14 +17,31 @@ public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResu
 
   private Object _configObject;
 
+  private final long _estimatedCost;
+
   private String _name;
 
   public ConvertConfigurationJob(Settings settings, Object configObject, String name) {
+    this(settings, configObject, name, 0L);
+  }
+
+  /**
+   * @param estimatedCost Estimate of the conversion cost, e.g. the size of the serialized vendor
+   *     configuration
+   */
+  public ConvertConfigurationJob(
+      Settings settings, Object configObject, String name, long estimatedCost) {
     super(settings);
     _configObject = configObject;
+    _estimatedCost = estimatedCost;
     _name = name;
   }
 
+  @Override
+  public long getEstimatedCost() {
+    return _estimatedCost;
+  }
+
   @Override
   public ConvertConfigurationResult call() {
     long startTime = System.currentTimeMillis();
@@ -0,0 +1,70 @@
+package org.batfish.job;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.batfish.common.plugin.PluginConsumer;
+import org.batfish.config.Settings;
+import org.batfish.vendor.VendorConfiguration;
+
+/**
+ * Parses a configuration file like {@link ParseVendorConfigurationJob}, then immediately converts
+ * the resulting {@link VendorConfiguration} like {@link ConvertConfigurationJob} on the same
+ * thread, so that the vendor-specific form need not be written to and read back from disk between
+ * the two steps.
+ */
+public class ParseAndConvertConfigurationJob
+    extends BatfishJob<ParseAndConvertConfigurationResult> {
+
+  private final Map<String, VendorConfiguration> _overlayConfigurations;
+
+  private final ParseVendorConfigurationJob _parseJob;
+
+  @Nullable private final PluginConsumer _serializer;
+
+  /**
+   * @param parseJob The job that parses the file
+   * @param overlayConfigurations Overlay host configurations by hostname. Only read.
+   * @param serializer If not {@code null}, used to serialize the vendor-specific configuration
+   *     before it is converted, so that it can be persisted
+   */
+  public ParseAndConvertConfigurationJob(
+      Settings settings,
+      ParseVendorConfigurationJob parseJob,
+      Map<String, VendorConfiguration> overlayConfigurations,
+      @Nullable PluginConsumer serializer) {
+    super(settings);
+    _overlayConfigurations = overlayConfigurations;
+    _parseJob = parseJob;
+    _serializer = serializer;
+  }
+
+  @Override
+  public ParseAndConvertConfigurationResult call() throws Exception {
+    ParseVendorConfigurationResult parseResult = _parseJob.call();
+    VendorConfiguration vc = parseResult.getVendorConfiguration();
+    if (parseResult.getFailureCause() != null || vc == null) {
+      return new ParseAndConvertConfigurationResult(parseResult, null, null);
+    }
+    String hostname = vc.getHostname();
+    VendorConfiguration overlayConfiguration = _overlayConfigurations.get(hostname);
+    if (overlayConfiguration != null) {
+      vc.setOverlayConfiguration(overlayConfiguration);
+    }
+    // Conversion may modify the vendor configuration, so serialize it first
+    byte[] serializedVc = null;
+    if (_serializer != null) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      _serializer.serializeObject(vc, out);
+      serializedVc = out.toByteArray();
+    }
+    ConvertConfigurationResult convertResult =
+        new ConvertConfigurationJob(_settings, vc, hostname).call();
+    return new ParseAndConvertConfigurationResult(parseResult, convertResult, serializedVc);
+  }
+
+  @Override
+  public long getEstimatedCost() {
+    return _parseJob.getEstimatedCost();
+  }
+}
@@ -0,0 +1,93 @@
+package org.batfish.job;
+
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.batfish.common.BatfishLogger;
+import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
+import org.batfish.vendor.VendorConfiguration;
+
+/**
+ * The result of a {@link ParseAndConvertConfigurationJob}. Applying it applies the parse result;
+ * the conversion result is left to the {@link Output}, since it is only valid if the parsed
+ * configuration keeps its hostname.
+ */
+public class ParseAndConvertConfigurationResult
+    extends BatfishJobResult<
+        ParseAndConvertConfigurationResult.Output, ParseVendorConfigurationAnswerElement> {
+
+  /** Where the results of {@link ParseAndConvertConfigurationJob} are applied. */
+  public interface Output {
+    /**
+     * Returns the map of vendor configurations to which the parse result of {@code result} is
+     * applied. See {@link ParseVendorConfigurationResult#applyTo}.
+     */
+    Map<String, VendorConfiguration> getVendorConfigurations(
+        ParseAndConvertConfigurationResult result);
+  }
+
+  @Nullable private final ConvertConfigurationResult _convertResult;
+
+  private final ParseVendorConfigurationResult _parseResult;
+
+  @Nullable private final byte[] _serializedVendorConfiguration;
+
+  ParseAndConvertConfigurationResult(
+      ParseVendorConfigurationResult parseResult,
+      @Nullable ConvertConfigurationResult convertResult,
+      @Nullable byte[] serializedVendorConfiguration) {
+    super(
+        parseResult.getElapsedTime()
+            + (convertResult == null ? 0L : convertResult.getElapsedTime()),
+        parseResult.getHistory(),
+        parseResult.getFailureCause());
+    _convertResult = convertResult;
+    _parseResult = parseResult;
+    _serializedVendorConfiguration = serializedVendorConfiguration;
+  }
+
+  @Override
+  public void appendHistory(BatfishLogger logger) {
+    _parseResult.appendHistory(logger);
+  }
+
+  @Override
+  public void applyTo(
+      Output output, BatfishLogger logger, ParseVendorConfigurationAnswerElement answerElement) {
+    _parseResult.applyTo(output.getVendorConfigurations(this), logger, answerElement);
+  }
+
+  /**
+   * Returns the result of converting {@link #getVendorConfiguration()} under its parsed hostname,
+   * or {@code null} if parsing did not produce a configuration.
+   */
+  @Nullable
+  public ConvertConfigurationResult getConvertResult() {
+    return _convertResult;
+  }
+
+  /** Returns the name of the parsed file, relative to the testrig base. */
+  public String getFilename() {
+    return _parseResult.getFilename();
+  }
+
+  /**
+   * Returns the vendor configuration as it was before conversion, serialized with {@link
+   * org.batfish.common.plugin.PluginConsumer#serializeObject(java.io.Serializable,
+   * java.io.OutputStream)}, or {@code null} if it was not serialized.
+   */
+  @Nullable
+  public byte[] getSerializedVendorConfiguration() {
+    return _serializedVendorConfiguration;
+  }
+
+  /** Returns the parsed configuration. It may have been modified by conversion. */
+  @Nullable
+  public VendorConfiguration getVendorConfiguration() {
+    return _parseResult.getVendorConfiguration();
+  }
+
+  @Override
+  public String toString() {
+    return _parseResult.toString();
+  }
+}
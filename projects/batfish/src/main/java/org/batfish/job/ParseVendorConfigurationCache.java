@@ -0,0 +1,201 @@
+package org.batfish.job;
+
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
+import org.batfish.common.ParseTreeSentences;
+import org.batfish.common.Version;
+import org.batfish.common.Warnings;
+import org.batfish.common.plugin.PluginConsumer;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.answers.ParseStatus;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.storage.StorageProvider;
+import org.batfish.vendor.VendorConfiguration;
+
+/**
+ * A network-wide cache of the results of {@link ParseVendorConfigurationJob}, stored as network
+ * objects of a {@link StorageProvider}. Entries are keyed by a hash of the file content and name,
+ * the Batfish version, and every setting that affects parsing, so that consecutive snapshots of a
+ * network only parse the files that changed. Failed parses are never cached.
+ *
+ * <p>Cache errors are logged and treated as misses, since the cache is only an optimization.
+ */
+@ParametersAreNonnullByDefault
+public final class ParseVendorConfigurationCache {
+
+  /** A cached parse result */
+  static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Nullable private final ParseTreeSentences _parseTree;
+
+    @Nullable private final ParseStatus _status;
+
+    @Nullable private final VendorConfiguration _vc;
+
+    private final Warnings _warnings;
+
+    private Entry(
+        @Nullable VendorConfiguration vc,
+        Warnings warnings,
+        @Nullable ParseTreeSentences parseTree,
+        @Nullable ParseStatus status) {
+      _parseTree = parseTree;
+      _status = status;
+      _vc = vc;
+      _warnings = warnings;
+    }
+
+    /**
+     * Recreate the result of the cached parse. Cached warnings are added to {@code warnings}, whose
+     * recording settings (which are not serialized) are those of the current job.
+     */
+    ParseVendorConfigurationResult toResult(
+        long elapsedTime,
+        BatfishLoggerHistory history,
+        String filename,
+        Warnings warnings,
+        Multimap<String, String> duplicateHostnames) {
+      warnings.getParseWarnings().addAll(_warnings.getParseWarnings());
+      warnings.getPedanticWarnings().addAll(_warnings.getPedanticWarnings());
+      warnings.getRedFlagWarnings().addAll(_warnings.getRedFlagWarnings());
+      warnings.getUnimplementedWarnings().addAll(_warnings.getUnimplementedWarnings());
+      if (_vc == null) {
+        return new ParseVendorConfigurationResult(
+            elapsedTime, history, filename, warnings, _status);
+      }
+      _vc.setWarnings(warnings);
+      return new ParseVendorConfigurationResult(
+          elapsedTime, history, filename, _vc, warnings, _parseTree, duplicateHostnames);
+    }
+  }
+
+  private static final String KEY_PREFIX = "parse_cache/";
+
+  private final AtomicInteger _hits;
+
+  private final AtomicInteger _misses;
+
+  private final NetworkId _network;
+
+  private final PluginConsumer _serializer;
+
+  private final String _settingsFingerprint;
+
+  private final StorageProvider _storage;
+
+  /**
+   * Create a cache for the given network.
+   *
+   * @param storage Where cache entries are stored
+   * @param network The network whose snapshots share the cache
+   * @param serializer Used to serialize and deserialize entries
+   * @param settings The settings used for parsing
+   */
+  public ParseVendorConfigurationCache(
+      StorageProvider storage, NetworkId network, PluginConsumer serializer, Settings settings) {
+    _hits = new AtomicInteger();
+    _misses = new AtomicInteger();
+    _network = network;
+    _serializer = serializer;
+    _settingsFingerprint = settingsFingerprint(settings);
+    _storage = storage;
+  }
+
+  /** Returns a string that changes whenever a setting that can affect parse results changes. */
+  private static String settingsFingerprint(Settings settings) {
+    BatfishLogger logger = settings.getLogger();
+    return String.join(
+        ",",
+        Version.getVersion(),
+        Boolean.toString(settings.getDisableUnrecognized()),
+        Integer.toString(settings.getMaxParserContextLines()),
+        Integer.toString(settings.getMaxParserContextTokens()),
+        Integer.toString(settings.getMaxParseTreePrintLength()),
+        Boolean.toString(settings.getPrintParseTree()),
+        Boolean.toString(settings.getPrintParseTreeLineNums()),
+        Boolean.toString(settings.getThrowOnLexerError()),
+        Boolean.toString(settings.getThrowOnParserError()),
+        Boolean.toString(settings.ignoreUnknown()),
+        Boolean.toString(settings.ignoreUnsupported()),
+        // which warnings are recorded, see Batfish#buildWarnings
+        Boolean.toString(
+            settings.getPedanticRecord() && logger.isActive(BatfishLogger.LEVEL_PEDANTIC)),
+        Boolean.toString(
+            settings.getRedFlagRecord() && logger.isActive(BatfishLogger.LEVEL_REDFLAG)),
+        Boolean.toString(
+            settings.getUnimplementedRecord()
+                && logger.isActive(BatfishLogger.LEVEL_UNIMPLEMENTED)),
+        String.join("\u0000", settings.ignoreFilesWithStrings()));
+  }
+
+  /** Returns the cache key for parsing {@code fileText} from {@code filename} as {@code format}. */
+  String computeKey(String filename, String fileText, ConfigurationFormat format) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String part : new String[] {_settingsFingerprint, format.name(), filename, fileText}) {
+      hasher.putInt(part.length()).putString(part, StandardCharsets.UTF_8);
+    }
+    return KEY_PREFIX + hasher.hash();
+  }
+
+  /** Returns the cached parse result for {@code key}, or {@code null} if there is none. */
+  @Nullable
+  Entry load(String key, BatfishLogger logger) {
+    try (InputStream in = _storage.loadNetworkObject(_network, key)) {
+      Entry entry = _serializer.deserializeObject(in, Entry.class);
+      _hits.incrementAndGet();
+      return entry;
+    } catch (FileNotFoundException e) {
+      // not cached yet
+    } catch (IOException | BatfishException e) {
+      logger.warnf("Ignoring unreadable parse cache entry %s: %s\n", key, e);
+    }
+    _misses.incrementAndGet();
+    return null;
+  }
+
+  /** Store {@code result} under {@code key}, unless it is a failure. */
+  void store(String key, ParseVendorConfigurationResult result, BatfishLogger logger) {
+    if (result.getFailureCause() != null) {
+      return;
+    }
+    Entry entry =
+        new Entry(
+            result.getVendorConfiguration(),
+            result.getWarnings(),
+            result.getParseTree(),
+            result.getStatus());
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      _serializer.serializeObject(entry, out);
+      _storage.storeNetworkObject(new ByteArrayInputStream(out.toByteArray()), _network, key);
+    } catch (IOException | BatfishException e) {
+      logger.warnf("Could not store parse cache entry %s: %s\n", key, e);
+    }
+  }
+
+  /** Returns the number of lookups that found a cached result. */
+  public int getHits() {
+    return _hits.get();
+  }
+
+  /** Returns the number of lookups that did not find a cached result. */
+  public int getMisses() {
+    return _misses.get();
+  }
+}
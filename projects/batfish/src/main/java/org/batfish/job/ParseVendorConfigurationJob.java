@@ -6,6 +6,9 @@ import io.opentracing.ActiveSpan;
 import io.opentracing.References;
 import io.opentracing.SpanContext;
 import io.opentracing.util.GlobalTracer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -14,6 +17,7 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.batfish.common.BatfishException;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warnings;
+import org.batfish.common.util.CommonUtil;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.answers.ParseStatus;
@@ -71,12 +75,21 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     }
   }
 
+  /** Where parse results are reused from and stored, or {@code null} if they are not cached */
+  @Nullable private ParseVendorConfigurationCache _cache;
+
   /** Information about duplicate hostnames is collected here */
   private Multimap<String, String> _duplicateHostnames;
 
   /** The name of the parsed file, relative to the testrig base. */
   private String _filename;
 
+  /**
+   * The file to read the configuration text from when the job is run, or {@code null} if the text
+   * was supplied up front.
+   */
+  @Nullable private Path _file;
+
   private String _fileText;
 
   private ConfigurationFormat _format;
@@ -105,6 +118,69 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     _spanContext = spanContext;
   }
 
+  /**
+   * Creates a job that reads the text of {@code file} only when run, and releases it once done.
+   * This keeps the text of queued jobs out of memory when parsing is pipelined.
+   */
+  public ParseVendorConfigurationJob(
+      Settings settings,
+      Path file,
+      String filename,
+      Warnings warnings,
+      ConfigurationFormat configurationFormat,
+      Multimap<String, String> duplicateHostnames,
+      @Nullable SpanContext spanContext) {
+    this(
+        settings,
+        (String) null,
+        filename,
+        warnings,
+        configurationFormat,
+        duplicateHostnames,
+        spanContext);
+    _file = file;
+  }
+
+  /** Reuse parse results from {@code cache}, and store new ones in it. */
+  public void setCache(@Nullable ParseVendorConfigurationCache cache) {
+    _cache = cache;
+  }
+
+  /**
+   * Estimates the parse cost from the size of the file and its declared format. The format is not
+   * detected here, since that would require reading the file on the thread scheduling the jobs.
+   */
+  @Override
+  public long getEstimatedCost() {
+    long size;
+    if (_fileText != null) {
+      size = _fileText.length();
+    } else {
+      try {
+        size = Files.size(_file);
+      } catch (IOException e) {
+        size = 0L;
+      }
+    }
+    return estimateCost(size, _format);
+  }
+
+  /**
+   * Returns the estimated cost of parsing {@code size} characters of the given format. Hierarchical
+   * formats are flattened before they are parsed, which roughly doubles the work.
+   */
+  @VisibleForTesting
+  static long estimateCost(long size, ConfigurationFormat format) {
+    switch (format) {
+      case JUNIPER:
+      case PALO_ALTO_NESTED:
+      case VYOS:
+        return 2 * size;
+      default:
+        return size;
+    }
+  }
+
   private static final Pattern WHITESPACE_ONLY = Pattern.compile("^\\s*$");
 
   /**
@@ -133,9 +209,48 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     }
   }
 
-  @SuppressWarnings("fallthrough")
   @Override
   public ParseVendorConfigurationResult call() throws Exception {
+    if (_file == null) {
+      return parseOrLoad();
+    }
+    try {
+      _logger.debugf("Reading: \"%s\"\n", _file);
+      String fileTextRaw = CommonUtil.readFile(_file.toAbsolutePath());
+      _fileText = fileTextRaw + ((fileTextRaw.length() != 0) ? "\n" : "");
+      return parseOrLoad();
+    } finally {
+      _fileText = null;
+    }
+  }
+
+  /** Returns the cached result of parsing the file if there is one, and parses it otherwise. */
+  private ParseVendorConfigurationResult parseOrLoad() {
+    if (_cache == null) {
+      return parse();
+    }
+    long startTime = System.currentTimeMillis();
+    String key = _cache.computeKey(_filename, _fileText, _format);
+    ParseVendorConfigurationCache.Entry cached = _cache.load(key, _logger);
+    if (cached != null) {
+      _logger.infof("Reusing cached parse of: '%s'\n", _filename);
+      ParseVendorConfigurationResult result =
+          cached.toResult(
+              System.currentTimeMillis() - startTime,
+              _logger.getHistory(),
+              _filename,
+              _warnings,
+              _duplicateHostnames);
+      Batfish.logWarnings(_logger, _warnings);
+      return result;
+    }
+    ParseVendorConfigurationResult result = parse();
+    _cache.store(key, result, _logger);
+    return result;
+  }
+
+  @SuppressWarnings("fallthrough")
+  private ParseVendorConfigurationResult parse() {
     long startTime = System.currentTimeMillis();
     _logger.infof("Processing: '%s'\n", _filename);
 
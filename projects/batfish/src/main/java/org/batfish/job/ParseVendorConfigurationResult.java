@@ -4,6 +4,7 @@ import com.google.common.collect.Multimap;
 import java.io.File;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
@@ -160,10 +161,29 @@ public class ParseVendorConfigurationResult
     return baseName + "__" + filename.replaceAll(File.separator, "__");
   }
 
+  /** Returns the parse trees, or {@code null} unless a {@link VendorConfiguration} was produced. */
+  @Nullable
+  ParseTreeSentences getParseTree() {
+    return _parseTree;
+  }
+
+  /**
+   * Returns the status of a parse that produced no {@link VendorConfiguration}, or {@code null} if
+   * the status is determined from the {@link VendorConfiguration}.
+   */
+  @Nullable
+  ParseStatus getStatus() {
+    return _status;
+  }
+
   public VendorConfiguration getVendorConfiguration() {
     return _vc;
   }
 
+  Warnings getWarnings() {
+    return _warnings;
+  }
+
   @Override
   public String toString() {
     if (_vc == null) {
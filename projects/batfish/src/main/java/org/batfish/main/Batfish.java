@@ -1,8 +1,10 @@
 package org.batfish.main;
 
+import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.regex.Pattern.CASE_INSENSITIVE;
 import static java.util.stream.Collectors.toMap;
 import static org.batfish.bddreachability.BDDMultipathInconsistency.computeMultipathInconsistencies;
@@ -22,6 +24,7 @@ import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.SOURCE_
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.referencedSources;
 import static org.batfish.main.ReachabilityParametersResolver.resolveReachabilityParameters;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
@@ -34,19 +37,23 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.opentracing.ActiveSpan;
 import io.opentracing.SpanContext;
 import io.opentracing.util.GlobalTracer;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.Writer;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.AbstractMap;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -65,6 +72,12 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.regex.Pattern;
@@ -79,6 +92,8 @@ import org.apache.commons.configuration2.ImmutableConfiguration;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.bddreachability.BDDReachabilityAnalysis;
 import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.bddreachability.BDDReachabilityCacheKey;
+import org.batfish.bddreachability.ParallelBDDReachabilityAnalysis;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishException.BatfishStackTrace;
@@ -103,6 +118,7 @@ import org.batfish.common.plugin.ExternalBgpAdvertisementPlugin;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.plugin.PluginClientType;
 import org.batfish.common.plugin.PluginConsumer;
+import org.batfish.common.plugin.PluginConsumer.SerializationFormat;
 import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.topology.Layer2Topology;
@@ -120,6 +136,8 @@ import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.DeviceType;
 import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.FlowHistory;
@@ -146,7 +164,6 @@ import org.batfish.datamodel.acl.AclLineMatchExpr;
 import org.batfish.datamodel.acl.MatchHeaderSpace;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerElement;
-import org.batfish.datamodel.answers.AnswerMetadataUtil;
 import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.answers.AnswerSummary;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
@@ -155,6 +172,7 @@ import org.batfish.datamodel.answers.DataPlaneAnswerElement;
 import org.batfish.datamodel.answers.FlattenVendorConfigurationAnswerElement;
 import org.batfish.datamodel.answers.InitInfoAnswerElement;
 import org.batfish.datamodel.answers.InitStepAnswerElement;
+import org.batfish.datamodel.answers.JobTimings;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.NodAnswerElement;
 import org.batfish.datamodel.answers.ParseAnswerElement;
@@ -197,10 +215,15 @@ import org.batfish.identifiers.QuestionSettingsId;
 import org.batfish.identifiers.SnapshotId;
 import org.batfish.job.BatfishJobExecutor;
 import org.batfish.job.ConvertConfigurationJob;
+import org.batfish.job.ConvertConfigurationResult;
 import org.batfish.job.FlattenVendorConfigurationJob;
+import org.batfish.job.ParseAndConvertConfigurationJob;
+import org.batfish.job.ParseAndConvertConfigurationResult;
 import org.batfish.job.ParseEnvironmentBgpTableJob;
 import org.batfish.job.ParseEnvironmentRoutingTableJob;
+import org.batfish.job.ParseVendorConfigurationCache;
 import org.batfish.job.ParseVendorConfigurationJob;
+import org.batfish.job.ParseVendorConfigurationResult;
 import org.batfish.question.ReachabilityParameters;
 import org.batfish.question.ResolvedReachabilityParameters;
 import org.batfish.question.SearchFiltersParameters;
@@ -229,6 +252,7 @@ import org.batfish.specifier.SpecifierContext;
 import org.batfish.specifier.SpecifierContextImpl;
 import org.batfish.specifier.UnionLocationSpecifier;
 import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.LazyConfigurationMap;
 import org.batfish.storage.StorageProvider;
 import org.batfish.symbolic.abstraction.BatfishCompressor;
 import org.batfish.symbolic.abstraction.Roles;
@@ -436,6 +460,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private SortedMap<BgpTableFormat, BgpTablePlugin> _bgpTablePlugins;
 
+  /**
+   * Reachability graphs, with their {@link BDDPacket}, of recently queried snapshots, including the
+   * worker graphs of {@link ParallelBDDReachabilityAnalysis}. Entries are built at most once per
+   * key, even by concurrent callers.
+   */
+  private final Cache<BDDReachabilityCacheKey, List<BDDReachabilityAnalysisFactory>>
+      _cachedBddReachabilityAnalysisFactories;
+
   private final Cache<NetworkSnapshot, SortedMap<String, Configuration>>
       _cachedCompressedConfigurations;
 
@@ -461,6 +493,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private Settings _settings;
 
+  /**
+   * The serialization format recorded for each snapshot whose objects this instance serialized or
+   * deserialized
+   */
+  private final Map<NetworkSnapshot, SerializationFormat> _serializationFormats =
+      new ConcurrentHashMap<>();
+
   private final StorageProvider _storage;
 
   // this variable is used communicate with parent thread on how the job
@@ -477,6 +516,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   public Batfish(
       Settings settings,
+      Cache<BDDReachabilityCacheKey, List<BDDReachabilityAnalysisFactory>>
+          cachedBddReachabilityAnalysisFactories,
       Cache<NetworkSnapshot, SortedMap<String, Configuration>> cachedCompressedConfigurations,
       Cache<NetworkSnapshot, SortedMap<String, Configuration>> cachedConfigurations,
       Cache<NetworkSnapshot, DataPlane> cachedCompressedDataPlanes,
@@ -485,9 +526,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Map<NetworkSnapshot, SortedMap<String, RoutesByVrf>> cachedEnvironmentRoutingTables,
       @Nullable StorageProvider alternateStorageProvider,
       @Nullable IdResolver alternateIdResolver) {
-    super(settings.getSerializeToText());
+    super(settings.getSerializeToText(), settings.getSerializationFormat());
     _settings = settings;
     _bgpTablePlugins = new TreeMap<>();
+    _cachedBddReachabilityAnalysisFactories = cachedBddReachabilityAnalysisFactories;
     _cachedCompressedConfigurations = cachedCompressedConfigurations;
     _cachedConfigurations = cachedConfigurations;
     _cachedCompressedDataPlanes = cachedCompressedDataPlanes;
@@ -506,7 +548,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _storage =
         alternateStorageProvider != null
             ? alternateStorageProvider
-            : new FileBasedStorage(_settings.getStorageBase(), _logger, this::newBatch);
+            : new FileBasedStorage(
+                _settings.getStorageBase(),
+                _logger,
+                this::newBatch,
+                _settings.getSerializationFormat());
     _idResolver =
         alternateIdResolver != null
             ? alternateIdResolver
@@ -576,7 +622,6 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 }
                 try {
                   outputAnswer(currentAnswer);
-                  outputAnswerMetadata(currentAnswer);
                   ae.getAnswers().put(questionName, currentAnswer);
                 } catch (Exception e) {
                   Answer errorAnswer = new Answer();
@@ -814,6 +859,12 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return computeDataPlane();
   }
 
+  @Override
+  public SortedMap<String, FailureScenarioResult> computeFailureScenarios(
+      Collection<FailureScenario> scenarios) {
+    return getDataPlanePlugin().computeFailureScenarios(loadDataPlane(), scenarios);
+  }
+
   /* Write the dataplane to disk and cache, and write the answer element to disk.
    */
   private void saveDataPlane(
@@ -832,6 +883,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
         compressed ? _cachedCompressedDataPlanes : _cachedDataPlanes;
 
     cache.put(getNetworkSnapshot(), dataPlane);
+    if (!compressed) {
+      // reachability graphs built from a previous data plane are stale
+      NetworkSnapshot snapshot = getNetworkSnapshot();
+      _cachedBddReachabilityAnalysisFactories
+          .asMap()
+          .keySet()
+          .removeIf(key -> key.getSnapshots().contains(snapshot));
+    }
 
     _logger.resetTimer();
     newBatch("Writing data plane to disk", 0);
@@ -871,8 +930,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return _storage.loadLayer1Topology(networkSnapshot.getNetwork(), networkSnapshot.getSnapshot());
   }
 
+  /**
+   * Convert the given vendor configurations, which were deserialized from {@code
+   * serializedVendorConfigPath}. The size of each serialized file is used to estimate its
+   * conversion cost, so that the largest configurations are converted first.
+   */
   private Map<String, Configuration> convertConfigurations(
       Map<String, GenericConfigObject> vendorConfigurations,
+      Path serializedVendorConfigPath,
       ConvertConfigurationAnswerElement answerElement) {
     _logger.info("\n*** CONVERTING VENDOR CONFIGURATIONS TO INDEPENDENT FORMAT ***\n");
     _logger.resetTimer();
@@ -880,7 +945,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
     List<ConvertConfigurationJob> jobs = new ArrayList<>();
     for (Entry<String, GenericConfigObject> config : vendorConfigurations.entrySet()) {
       GenericConfigObject vc = config.getValue();
-      ConvertConfigurationJob job = new ConvertConfigurationJob(_settings, vc, config.getKey());
+      long estimatedCost;
+      try {
+        estimatedCost = Files.size(serializedVendorConfigPath.resolve(config.getKey()));
+      } catch (IOException e) {
+        estimatedCost = 0L;
+      }
+      ConvertConfigurationJob job =
+          new ConvertConfigurationJob(_settings, vc, config.getKey(), estimatedCost);
       jobs.add(job);
     }
     BatfishJobExecutor.runJobsInExecutor(
@@ -988,6 +1060,12 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   public Map<String, GenericConfigObject> deserializeVendorConfigurations(
       Path serializedVendorConfigPath) {
+    return deserializeVendorConfigurations(serializedVendorConfigPath, ImmutableSet.of());
+  }
+
+  /** Deserializes the vendor configurations under the given path, except for {@code excluded}. */
+  private Map<String, GenericConfigObject> deserializeVendorConfigurations(
+      Path serializedVendorConfigPath, Set<String> excluded) {
     _logger.info("\n*** DESERIALIZING VENDOR CONFIGURATION STRUCTURES ***\n");
     _logger.resetTimer();
     Map<Path, String> namesByPath = new TreeMap<>();
@@ -995,7 +1073,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
         Files.newDirectoryStream(serializedVendorConfigPath)) {
       for (Path serializedConfig : serializedConfigs) {
         String name = serializedConfig.getFileName().toString();
-        namesByPath.put(serializedConfig, name);
+        if (!excluded.contains(name)) {
+          namesByPath.put(serializedConfig, name);
+        }
       }
     } catch (IOException e) {
       throw new BatfishException("Error reading vendor configs directory", e);
@@ -1144,15 +1224,69 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   public Map<String, Configuration> getConfigurations(
       Path serializedVendorConfigPath, ConvertConfigurationAnswerElement answerElement) {
+    return getConfigurations(serializedVendorConfigPath, ImmutableSortedMap.of(), answerElement);
+  }
+
+  /**
+   * Like {@link #getConfigurations(Path, ConvertConfigurationAnswerElement)}, but uses the given
+   * results for configurations that were already converted, instead of converting them again.
+   */
+  private Map<String, Configuration> getConfigurations(
+      Path serializedVendorConfigPath,
+      SortedMap<String, ConvertConfigurationResult> converted,
+      ConvertConfigurationAnswerElement answerElement) {
     Map<String, GenericConfigObject> vendorConfigurations =
-        deserializeVendorConfigurations(serializedVendorConfigPath);
+        deserializeVendorConfigurations(serializedVendorConfigPath, converted.keySet());
     Map<String, Configuration> configurations =
-        convertConfigurations(vendorConfigurations, answerElement);
+        convertConfigurations(vendorConfigurations, serializedVendorConfigPath, answerElement);
+    applyConvertResults(converted.values(), configurations, answerElement);
 
     identifyDeviceTypes(configurations.values());
     return configurations;
   }
 
+  /**
+   * Applies the results of conversions that were run outside of {@link #convertConfigurations(Map,
+   * Path, ConvertConfigurationAnswerElement)}, handling failures the same way.
+   */
+  private void applyConvertResults(
+      Collection<ConvertConfigurationResult> results,
+      Map<String, Configuration> configurations,
+      ConvertConfigurationAnswerElement answerElement) {
+    List<BatfishException> failureCauses = new ArrayList<>();
+    JobTimings.Builder timings = JobTimings.builder();
+    for (ConvertConfigurationResult result : results) {
+      timings.add(result.getElapsedTime());
+      Throwable failureCause = result.getFailureCause();
+      if (failureCause != null) {
+        _logger.errorf(
+            "Failed to convert %s:\n\t%s",
+            result.getName(), Throwables.getStackTraceAsString(failureCause));
+        failureCauses.add(
+            new BatfishException("Failed to convert " + result.getName(), failureCause));
+        if (_settings.getHaltOnConvertError()) {
+          continue;
+        }
+      }
+      result.applyTo(configurations, _logger, answerElement);
+    }
+    // These conversions ran during an earlier step, so they count as jobs of this one but add
+    // nothing to its wall time.
+    JobTimings convertTimings = answerElement.getJobTimings();
+    if (convertTimings != null) {
+      timings.addAll(convertTimings);
+    }
+    answerElement.setJobTimings(
+        timings.build(
+            convertTimings == null ? 0L : convertTimings.getWallMs(),
+            convertTimings == null ? 1 : convertTimings.getThreads()));
+    if (!failureCauses.isEmpty() && _settings.getHaltOnConvertError()) {
+      BatfishException e = new BatfishException("Failed to convert at least one configuration");
+      failureCauses.forEach(e::addSuppressed);
+      throw e;
+    }
+  }
+
   @Override
   public NetworkId getContainerName() {
     return _settings.getContainer();
@@ -1650,10 +1784,19 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _logger.debugf("Loading configurations for %s, cache miss", snapshot);
 
     // Next, see if we have an up-to-date configurations on disk.
-    configurations = _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
+    if (_settings.getLazyConfigurations()) {
+      configurations = loadConfigurationsLazily(snapshot);
+      if (configurations != null) {
+        storeCompletionMetadataLazily(snapshot, configurations);
+      }
+    } else {
+      configurations = _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
+      if (configurations != null) {
+        postProcessSnapshot(configurations);
+      }
+    }
     if (configurations != null) {
       _logger.debugf("Loaded configurations for %s off disk", snapshot);
-      postProcessSnapshot(configurations);
     } else {
       // Otherwise, we have to parse the configurations. Fall back to old, hacky code.
       configurations = parseConfigurationsAndApplyEnvironment();
@@ -1663,6 +1806,36 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return configurations;
   }
 
+  /**
+   * Returns a map of the up-to-date configurations on disk for the given snapshot that loads and
+   * post-processes each configuration only when it is accessed, or {@code null} if there are no
+   * such configurations on disk.
+   */
+  private @Nullable SortedMap<String, Configuration> loadConfigurationsLazily(
+      NetworkSnapshot snapshot) {
+    NetworkId network = snapshot.getNetwork();
+    SnapshotId snapshotId = snapshot.getSnapshot();
+    SortedSet<String> hostnames = _storage.loadConfigurationHostnames(network, snapshotId);
+    if (hostnames == null) {
+      return null;
+    }
+    SortedSet<String> nodeBlacklist = getNodeBlacklist(snapshot);
+    SortedSet<NodeInterfacePair> interfaceBlacklist = getInterfaceBlacklist(snapshot);
+    return new LazyConfigurationMap(
+        hostnames,
+        hostname -> {
+          Configuration c = _storage.loadConfiguration(network, snapshotId, hostname);
+          if (c == null) {
+            throw new BatfishException(
+                String.format(
+                    "Configuration for node '%s' in %s is missing from disk", hostname, snapshot));
+          }
+          postProcessConfigurations(
+              ImmutableSortedMap.of(hostname, c), nodeBlacklist, interfaceBlacklist);
+          return c;
+        });
+  }
+
   @Nonnull
   private SortedMap<String, Configuration> parseConfigurationsAndApplyEnvironment() {
     _logger.infof("Repairing configurations for testrig %s", _testrigSettings.getName());
@@ -1950,19 +2123,17 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private void outputAnswer(Answer answer, boolean writeLog) {
     try {
-      String answerString = BatfishObjectMapper.writePrettyString(answer) + '\n';
-      _logger.debug(answerString);
-      @Nullable String logString = writeLog ? answerString : null;
-      writeJsonAnswerWithLog(logString, answerString);
+      if (_logger.isActive(BatfishLogger.LEVEL_DEBUG)) {
+        _logger.debug(BatfishObjectMapper.writePrettyString(answer) + '\n');
+      }
+      writeJsonAnswerWithLog(answer, writeLog);
     } catch (Exception e) {
       BatfishException be = new BatfishException("Error in sending answer", e);
       try {
         Answer failureAnswer = Answer.failureAnswer(e.toString(), answer.getQuestion());
         failureAnswer.addAnswerElement(be.getBatfishStackTrace());
-        String answerString = BatfishObjectMapper.writePrettyString(failureAnswer) + '\n';
-        _logger.error(answerString);
-        @Nullable String logString = writeLog ? answerString : null;
-        writeJsonAnswerWithLog(logString, answerString);
+        _logger.error(BatfishObjectMapper.writePrettyString(failureAnswer) + '\n');
+        writeJsonAnswerWithLog(failureAnswer, writeLog);
       } catch (Exception e1) {
         _logger.errorf(
             "Could not serialize failure answer. %s", Throwables.getStackTraceAsString(e1));
@@ -1971,11 +2142,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
-  void outputAnswerMetadata(Answer answer) {
+  private AnswerId getBaseAnswerId() {
     QuestionId questionId = _settings.getQuestionName();
-    if (questionId == null) {
-      return;
-    }
     SnapshotId deltaSnapshot = _settings.getDiffQuestion() ? _deltaTestrigSettings.getName() : null;
     NetworkId networkId = _settings.getContainer();
     AnalysisId analysisId = _settings.getAnalysisName();
@@ -1994,18 +2162,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
         _idResolver.hasNetworkNodeRolesId(networkId)
             ? _idResolver.getNetworkNodeRolesId(networkId)
             : NodeRolesId.DEFAULT_NETWORK_NODE_ROLES_ID;
-    AnswerId baseAnswerId =
-        _idResolver.getBaseAnswerId(
-            networkId,
-            _baseTestrigSettings.getName(),
-            questionId,
-            questionSettingsId,
-            networkNodeRolesId,
-            deltaSnapshot,
-            analysisId);
-
-    _storage.storeAnswerMetadata(
-        AnswerMetadataUtil.computeAnswerMetadata(answer, _logger), baseAnswerId);
+    return _idResolver.getBaseAnswerId(
+        networkId,
+        _baseTestrigSettings.getName(),
+        questionId,
+        questionSettingsId,
+        networkNodeRolesId,
+        deltaSnapshot,
+        analysisId);
   }
 
   private ParserRuleContext parse(BatfishCombinedParser<?, ?> parser) {
@@ -2119,6 +2283,26 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return routingTables;
   }
 
+  /**
+   * Returns the cache of parse results shared by the snapshots of the current network, or {@code
+   * null} if parse results should not be cached.
+   */
+  @Nullable
+  private ParseVendorConfigurationCache getParseCache() {
+    NetworkId network = _settings.getContainer();
+    if (!_settings.getParseCache() || network == null) {
+      return null;
+    }
+    return new ParseVendorConfigurationCache(_storage, network, this, _settings);
+  }
+
+  private void logParseCacheStats(@Nullable ParseVendorConfigurationCache parseCache) {
+    if (parseCache != null) {
+      _logger.infof(
+          "Parse cache: %d hits, %d misses\n", parseCache.getHits(), parseCache.getMisses());
+    }
+  }
+
   private SortedMap<String, VendorConfiguration> parseVendorConfigurations(
       Map<Path, String> configurationData,
       ParseVendorConfigurationAnswerElement answerElement,
@@ -2127,6 +2311,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _logger.resetTimer();
     SortedMap<String, VendorConfiguration> vendorConfigurations = new TreeMap<>();
     List<ParseVendorConfigurationJob> jobs = new ArrayList<>();
+    ParseVendorConfigurationCache parseCache = getParseCache();
     for (Entry<Path, String> vendorFile : configurationData.entrySet()) {
       Path currentFile = vendorFile.getKey();
       String fileText = vendorFile.getValue();
@@ -2152,6 +2337,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
               configurationFormat,
               duplicateHostnames,
               parseVendorConfigurationSpanContext);
+      job.setCache(parseCache);
       jobs.add(job);
     }
     BatfishJobExecutor.runJobsInExecutor(
@@ -2162,6 +2348,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
         answerElement,
         _settings.getHaltOnParseError(),
         "Parse configurations");
+    logParseCacheStats(parseCache);
     _logger.printElapsedTime();
     return vendorConfigurations;
   }
@@ -2403,8 +2590,12 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
-  @VisibleForTesting
-  static void postProcessInterfaceDependencies(Map<String, Configuration> configurations) {
+  /**
+   * Deactivates the interfaces of {@code configurations} that cannot be up because an interface
+   * they depend on is not active, e.g. subinterfaces of inactive interfaces, or aggregated
+   * interfaces without active members.
+   */
+  public static void postProcessInterfaceDependencies(Map<String, Configuration> configurations) {
     configurations
         .values()
         .forEach(
@@ -2841,6 +3032,15 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   private void repairConfigurations() {
+    if (_settings.getFuseParseConvert() && !vendorConfigurationsUsable()) {
+      // parse again, converting configurations as they are parsed
+      Path outputPath = _testrigSettings.getSerializeVendorPath();
+      CommonUtil.deleteDirectory(outputPath);
+      SortedMap<String, ConvertConfigurationResult> convertedNetworkConfigs = new TreeMap<>();
+      serializeVendorConfigs(_testrigSettings.getInputPath(), outputPath, convertedNetworkConfigs);
+      serializeIndependentConfigs(outputPath, convertedNetworkConfigs);
+      return;
+    }
     ParseVendorConfigurationAnswerElement pvcae = loadParseVendorConfigurationAnswerElement();
     if (!Version.isCompatibleVersion("Service", "Old parsed configurations", pvcae.getVersion())) {
       repairVendorConfigurations();
@@ -2849,6 +3049,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
     serializeIndependentConfigs(inputPath);
   }
 
+  /**
+   * Returns whether vendor configurations were parsed by a compatible version and written to disk,
+   * so that they can be converted without parsing again.
+   */
+  private boolean vendorConfigurationsUsable() {
+    if (!_settings.getFusedSerializeVendor()
+        || !Files.exists(_testrigSettings.getParseAnswerPath())) {
+      return false;
+    }
+    ParseVendorConfigurationAnswerElement pvcae =
+        deserializeObject(
+            _testrigSettings.getParseAnswerPath(), ParseVendorConfigurationAnswerElement.class);
+    return Version.isCompatibleVersion("Service", "Old parsed configurations", pvcae.getVersion());
+  }
+
   private void repairDataPlane(boolean compressed) {
     Path dataPlanePath =
         compressed
@@ -2878,10 +3093,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
    *   <li>Process interface dependencies and deactivate interfaces that cannot be up
    * </ul>
    */
-  private void updateBlacklistedAndInactiveConfigs(Map<String, Configuration> configurations) {
+  private void updateBlacklistedAndInactiveConfigs(
+      Map<String, Configuration> configurations,
+      SortedSet<String> nodeBlacklist,
+      Set<NodeInterfacePair> interfaceBlacklist) {
     NetworkConfigurations nc = NetworkConfigurations.of(configurations);
-    processInterfaceBlacklist(nodeToInterfaceBlacklist(getNodeBlacklist(), nc), nc);
-    processInterfaceBlacklist(getInterfaceBlacklist(), nc);
+    processInterfaceBlacklist(nodeToInterfaceBlacklist(nodeBlacklist, nc), nc);
+    processInterfaceBlacklist(interfaceBlacklist, nc);
     if (_settings.ignoreManagementInterfaces()) {
       processManagementInterfaces(configurations);
     }
@@ -2908,10 +3126,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
    * </ul>
    */
   private void postProcessSnapshot(Map<String, Configuration> configurations) {
-    updateBlacklistedAndInactiveConfigs(configurations);
+    postProcessConfigurations(configurations, getNodeBlacklist(), getInterfaceBlacklist());
+    computeAndStoreCompletionMetadata(configurations);
+  }
+
+  /**
+   * Performs the post-processing of {@link #postProcessSnapshot(Map)} that only depends on each
+   * configuration by itself, and so may be applied to configurations one at a time.
+   */
+  private void postProcessConfigurations(
+      Map<String, Configuration> configurations,
+      SortedSet<String> nodeBlacklist,
+      Set<NodeInterfacePair> interfaceBlacklist) {
+    updateBlacklistedAndInactiveConfigs(configurations, nodeBlacklist, interfaceBlacklist);
     postProcessAggregatedInterfaces(configurations);
     postProcessOspfCosts(configurations);
-    computeAndStoreCompletionMetadata(configurations);
   }
 
   private void computeAndStoreCompletionMetadata(Map<String, Configuration> configurations) {
@@ -2925,6 +3154,54 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  /**
+   * Does the work of {@link #computeAndStoreCompletionMetadata(Map)} for configurations loaded by
+   * {@link #loadConfigurationsLazily(NetworkSnapshot)}, without loading them when possible.
+   *
+   * <p>The serialized configurations of a snapshot and its blacklists never change, so the parts of
+   * the completion metadata derived from configurations only need to be computed once, the first
+   * time they are loaded. That loads every configuration, but the lazy map only keeps them softly
+   * referenced. Later loads only refresh the parts derived from the reference library, which may
+   * change.
+   */
+  private void storeCompletionMetadataLazily(
+      NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
+    NetworkId network = snapshot.getNetwork();
+    SnapshotId snapshotId = snapshot.getSnapshot();
+    CompletionMetadata stored;
+    try {
+      stored = _storage.loadCompletionMetadata(network, snapshotId);
+    } catch (IOException e) {
+      _logger.errorf("Error loading CompletionMetadata: %s", e);
+      stored = CompletionMetadata.EMPTY;
+    }
+    CompletionMetadata completionMetadata;
+    if (stored.equals(CompletionMetadata.EMPTY)) {
+      completionMetadata = computeCompletionMetadata(configurations);
+    } else {
+      ReferenceLibrary referenceLibrary = getReferenceLibraryData();
+      completionMetadata =
+          new CompletionMetadata(
+              getAddressBooks(referenceLibrary),
+              getAddressGroups(referenceLibrary),
+              stored.getFilterNames(),
+              stored.getInterfaces(),
+              stored.getIps(),
+              stored.getPrefixes(),
+              stored.getStructureNames(),
+              stored.getVrfs(),
+              stored.getZones());
+      if (completionMetadata.equals(stored)) {
+        return;
+      }
+    }
+    try {
+      _storage.storeCompletionMetadata(completionMetadata, network, snapshotId);
+    } catch (IOException e) {
+      _logger.errorf("Error storing CompletionMetadata: %s", e);
+    }
+  }
+
   private CompletionMetadata computeCompletionMetadata(Map<String, Configuration> configurations) {
     ReferenceLibrary referenceLibrary = getReferenceLibraryData();
     return new CompletionMetadata(
@@ -2975,16 +3252,43 @@ public class Batfish extends PluginConsumer implements IBatfish {
       return answer;
     }
 
-    if (_settings.getSerializeVendor()) {
+    // Network configurations converted while they were parsed, if parsing and conversion are fused
+    SortedMap<String, ConvertConfigurationResult> convertedNetworkConfigs =
+        _settings.getSerializeVendor()
+                && _settings.getSerializeIndependent()
+                && _settings.getFuseParseConvert()
+            ? new TreeMap<>()
+            : null;
+
+    // A snapshot forked without changing its configuration files shares the parsed and converted
+    // configurations of its base snapshot. Its blacklists are applied when they are loaded.
+    boolean forkedConfigurations =
+        _settings.getSerializeVendor()
+            && _settings.getSerializeIndependent()
+            && _storage.hasForkedConfigurations(
+                _settings.getContainer(), _testrigSettings.getName());
+    if (forkedConfigurations) {
+      _logger.infof(
+          "Reusing configurations shared with snapshot %s by its base snapshot\n",
+          _testrigSettings.getName());
+      if (_settings.getVerboseParse()) {
+        answer.addAnswerElement(loadParseVendorConfigurationAnswerElement());
+        answer.addAnswerElement(loadConvertConfigurationAnswerElementOrReparse());
+      }
+    }
+
+    if (_settings.getSerializeVendor() && !forkedConfigurations) {
       Path testRigPath = _testrigSettings.getInputPath();
       Path outputPath = _testrigSettings.getSerializeVendorPath();
-      answer.append(serializeVendorConfigs(testRigPath, outputPath));
+      answer.append(serializeVendorConfigs(testRigPath, outputPath, convertedNetworkConfigs));
       action = true;
     }
 
     if (_settings.getSerializeIndependent()) {
-      Path inputPath = _testrigSettings.getSerializeVendorPath();
-      answer.append(serializeIndependentConfigs(inputPath));
+      if (!forkedConfigurations) {
+        Path inputPath = _testrigSettings.getSerializeVendorPath();
+        answer.append(serializeIndependentConfigs(inputPath, convertedNetworkConfigs));
+      }
       // TODO: compute topology on initialization in cleaner way
       initializeTopology(getNetworkSnapshot());
       updateSnapshotNodeRoles();
@@ -3203,6 +3507,18 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   private Answer serializeIndependentConfigs(Path vendorConfigPath) {
+    return serializeIndependentConfigs(vendorConfigPath, null);
+  }
+
+  /**
+   * Converts and stores the vendor configurations serialized under {@code vendorConfigPath}.
+   *
+   * @param convertedNetworkConfigs Network configurations that were already converted when they
+   *     were parsed, by vendor hostname, or {@code null}. They are not converted again.
+   */
+  private Answer serializeIndependentConfigs(
+      Path vendorConfigPath,
+      @Nullable SortedMap<String, ConvertConfigurationResult> convertedNetworkConfigs) {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("Serialize vendor-independent configs").startActive()) {
       assert span != null; // avoid unused warning
@@ -3218,7 +3534,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
               .buildSpan("Convert vendor-specific configs to vendor-independent configs")
               .startActive()) {
         assert convertSpan != null; // avoid unused warning
-        configurations = getConfigurations(vendorConfigPath, answerElement);
+        configurations =
+            getConfigurations(
+                vendorConfigPath,
+                firstNonNull(convertedNetworkConfigs, ImmutableSortedMap.of()),
+                answerElement);
       }
 
       try (ActiveSpan storeSpan =
@@ -3263,6 +3583,12 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Path outputPath,
       ParseVendorConfigurationAnswerElement answerElement,
       SortedMap<String, VendorConfiguration> overlayHostConfigurations) {
+    int pipelineWindow = _settings.getParsePipelineWindow();
+    if (pipelineWindow > 0) {
+      streamNetworkConfigs(
+          testRigPath, outputPath, answerElement, overlayHostConfigurations, pipelineWindow);
+      return;
+    }
     Map<Path, String> configurationData =
         readConfigurationFiles(testRigPath, BfConsts.RELPATH_CONFIGURATIONS_DIR);
     Map<String, VendorConfiguration> vendorConfigurations;
@@ -3289,14 +3615,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       vendorConfigurations.forEach(
           (name, vc) -> {
             if (name.contains(File.separator)) {
-              // iptables will get a hostname like configs/iptables-save if they
-              // are not set up correctly using host files
-              _logger.errorf("Cannot serialize configuration with hostname %s\n", name);
-              answerElement.addRedFlagWarning(
-                  name,
-                  new Warning(
-                      "Cannot serialize network config. Bad hostname " + name.replace("\\", "/"),
-                      "MISCELLANEOUS"));
+              warnBadHostname(name, answerElement);
             } else {
               // apply overlay if it exists
               VendorConfiguration overlayConfig = overlayHostConfigurations.get(name);
@@ -3320,6 +3639,558 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  /**
+   * Parses and serializes the network configs under {@code testRigPath} as a pipeline with at most
+   * {@code window} files in flight. Each job reads its own file, and each parsed configuration is
+   * serialized as soon as its result is handled, so peak memory is bounded by the window rather
+   * than by the size of the snapshot.
+   */
+  private void streamNetworkConfigs(
+      Path testRigPath,
+      Path outputPath,
+      ParseVendorConfigurationAnswerElement answerElement,
+      SortedMap<String, VendorConfiguration> overlayHostConfigurations,
+      int window) {
+    _logger.info("\n*** PARSING AND SERIALIZING VENDOR CONFIGURATION FILES ***\n");
+    _logger.resetTimer();
+    createDirectories(outputPath);
+    Path inputPath = _settings.getActiveTestrigSettings().getInputPath();
+    @Nullable
+    SpanContext parseVendorConfigurationSpanContext =
+        GlobalTracer.get().activeSpan() == null ? null : GlobalTracer.get().activeSpan().context();
+    List<ParseVendorConfigurationJob> jobs = new ArrayList<>();
+    ParseVendorConfigurationCache parseCache = getParseCache();
+    for (Path file : listAllFiles(testRigPath.resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR))) {
+      ParseVendorConfigurationJob job =
+          new ParseVendorConfigurationJob(
+              _settings,
+              file,
+              inputPath.relativize(file).toString(),
+              buildWarnings(_settings),
+              ConfigurationFormat.UNKNOWN,
+              HashMultimap.create(),
+              parseVendorConfigurationSpanContext);
+      job.setCache(parseCache);
+      jobs.add(job);
+    }
+    SerializingVendorConfigurationMap vendorConfigurations =
+        new SerializingVendorConfigurationMap(
+            outputPath,
+            answerElement,
+            overlayHostConfigurations,
+            Math.min(window, _settings.getAvailableThreads()));
+    try (ActiveSpan parseNetworkConfigsSpan =
+        GlobalTracer.get().buildSpan("Parse and serialize network configs").startActive()) {
+      assert parseNetworkConfigsSpan != null; // avoid unused warning
+      BatfishJobExecutor.runJobsInPipeline(
+          _settings,
+          _logger,
+          jobs,
+          vendorConfigurations,
+          answerElement,
+          _settings.getHaltOnParseError(),
+          "Parse and serialize configurations",
+          window);
+    } finally {
+      vendorConfigurations.awaitWrites();
+    }
+    logParseCacheStats(parseCache);
+    _logger.infof(
+        "Testrig:%s in container:%s has total number of network configs:%d",
+        getTestrigName(), getContainerName(), vendorConfigurations.size());
+
+    // warn about unused overlays
+    overlayHostConfigurations.forEach(
+        (name, overlay) ->
+            answerElement.getParseStatus().put(overlay.getFilename(), ParseStatus.ORPHANED));
+    _logger.printElapsedTime();
+  }
+
+  /**
+   * A map of vendor configurations that serializes each configuration to disk as soon as it is
+   * added and keeps only hostnames in memory. Configurations are serialized on a pool of writer
+   * threads; those not yet written count against the window of the pipeline that adds them (see
+   * {@link BatfishJobExecutor.BackgroundOutput}).
+   *
+   * <p>Values are not kept in memory, so each {@link #get} of a hostname other than the last one
+   * read waits for its configuration to be written and deserializes it from disk, and so does
+   * iterating over {@link #entrySet} for every entry. Only the configuration last read is cached.
+   * This is cheap in practice: {@link org.batfish.job.ParseVendorConfigurationResult} only looks up
+   * configurations to rename those with duplicate hostnames, and then removes the one it just read.
+   * For the same reason, {@link #put} and {@link #remove} return the previous value as required by
+   * {@link Map}, but read it from disk if it is not the one cached.
+   */
+  private final class SerializingVendorConfigurationMap
+      extends AbstractMap<String, VendorConfiguration>
+      implements BatfishJobExecutor.BackgroundOutput {
+
+    private final ParseVendorConfigurationAnswerElement _answerElement;
+
+    private final SortedSet<String> _hostnames;
+
+    /** The hostname of the configuration last read by {@link #get}, or {@code null} if none */
+    @Nullable private String _lastReadHostname;
+
+    /** The configuration last read by {@link #get} */
+    @Nullable private VendorConfiguration _lastRead;
+
+    private final Path _outputPath;
+
+    private final Map<String, VendorConfiguration> _overlayHostConfigurations;
+
+    /** The number of configurations submitted to {@link #_writer} and not yet written */
+    private final AtomicInteger _pendingWrites;
+
+    private final ExecutorService _writer;
+
+    /** The write of each configuration, by hostname */
+    private final Map<String, Future<?>> _writes;
+
+    private SerializingVendorConfigurationMap(
+        Path outputPath,
+        ParseVendorConfigurationAnswerElement answerElement,
+        Map<String, VendorConfiguration> overlayHostConfigurations,
+        int writerThreads) {
+      _answerElement = answerElement;
+      _hostnames = new TreeSet<>();
+      _outputPath = outputPath;
+      _overlayHostConfigurations = overlayHostConfigurations;
+      _pendingWrites = new AtomicInteger();
+      _writer = Executors.newFixedThreadPool(Math.max(writerThreads, 1));
+      _writes = new HashMap<>();
+    }
+
+    /** Waits until all vendor configurations are written to disk. */
+    private void awaitWrites() {
+      _writer.shutdown();
+      for (String hostname : _writes.keySet()) {
+        awaitWrite(hostname);
+      }
+    }
+
+    /** Waits until the configuration of {@code hostname}, if any was submitted, is written. */
+    private void awaitWrite(Object hostname) {
+      Future<?> write = _writes.get(hostname);
+      if (write == null) {
+        return;
+      }
+      try {
+        write.get();
+      } catch (ExecutionException e) {
+        throw new BatfishException("Could not write vendor configuration", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BatfishException("Interrupted while writing vendor configurations", e);
+      }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return _hostnames.contains(key);
+    }
+
+    @Override
+    public Set<Entry<String, VendorConfiguration>> entrySet() {
+      return Maps.asMap(_hostnames, this::get).entrySet();
+    }
+
+    @Override
+    public @Nullable VendorConfiguration get(Object key) {
+      if (!containsKey(key)) {
+        return null;
+      }
+      if (key.equals(_lastReadHostname)) {
+        return _lastRead;
+      }
+      awaitWrite(key);
+      VendorConfiguration vc =
+          deserializeObject(_outputPath.resolve((String) key), VendorConfiguration.class);
+      _lastReadHostname = (String) key;
+      _lastRead = vc;
+      return vc;
+    }
+
+    /** Forgets the configuration last read by {@link #get} if it is that of {@code hostname}. */
+    private void invalidateLastRead(Object hostname) {
+      if (hostname.equals(_lastReadHostname)) {
+        _lastReadHostname = null;
+        _lastRead = null;
+      }
+    }
+
+    @Override
+    public int getPendingResults() {
+      return _pendingWrites.get();
+    }
+
+    @Override
+    public @Nullable VendorConfiguration put(String hostname, VendorConfiguration vc) {
+      if (hostname.contains(File.separator)) {
+        warnBadHostname(hostname, _answerElement);
+        return null;
+      }
+      VendorConfiguration previous = get(hostname);
+      invalidateLastRead(hostname);
+      // apply overlay if it exists
+      VendorConfiguration overlayConfig = _overlayHostConfigurations.remove(hostname);
+      if (overlayConfig != null) {
+        vc.setOverlayConfiguration(overlayConfig);
+      }
+      Path path = _outputPath.resolve(hostname);
+      _pendingWrites.incrementAndGet();
+      _writes.put(
+          hostname,
+          _writer.submit(
+              () -> {
+                try {
+                  serializeObject(vc, path);
+                } finally {
+                  _pendingWrites.decrementAndGet();
+                }
+              }));
+      _hostnames.add(hostname);
+      return previous;
+    }
+
+    @Override
+    public @Nullable VendorConfiguration remove(Object key) {
+      VendorConfiguration previous = get(key);
+      if (_hostnames.remove(key)) {
+        invalidateLastRead(key);
+        _writes.remove(key);
+        Path path = _outputPath.resolve((String) key);
+        try {
+          Files.delete(path);
+        } catch (IOException e) {
+          throw new BatfishException("Could not delete serialized configuration: " + path, e);
+        }
+      }
+      return previous;
+    }
+
+    @Override
+    public int size() {
+      return _hostnames.size();
+    }
+  }
+
+  /**
+   * Parses the network configs under {@code testRigPath} and converts each one as soon as it is
+   * parsed, on the same thread. The conversion results are added to {@code converted}, and the
+   * vendor-specific configurations are written to {@code outputPath} in the background, or not at
+   * all if {@link Settings#getFusedSerializeVendor()} is off.
+   */
+  private void parseAndConvertNetworkConfigs(
+      Path testRigPath,
+      Path outputPath,
+      ParseVendorConfigurationAnswerElement answerElement,
+      SortedMap<String, VendorConfiguration> overlayHostConfigurations,
+      SortedMap<String, ConvertConfigurationResult> converted) {
+    _logger.info("\n*** PARSING AND CONVERTING VENDOR CONFIGURATION FILES ***\n");
+    _logger.resetTimer();
+    createDirectories(outputPath);
+    Path inputPath = _settings.getActiveTestrigSettings().getInputPath();
+    @Nullable
+    SpanContext parseVendorConfigurationSpanContext =
+        GlobalTracer.get().activeSpan() == null ? null : GlobalTracer.get().activeSpan().context();
+    // jobs only read overlays, while results remove the ones they use
+    Map<String, VendorConfiguration> overlays = ImmutableMap.copyOf(overlayHostConfigurations);
+    List<ParseAndConvertConfigurationJob> jobs = new ArrayList<>();
+    ParseVendorConfigurationCache parseCache = getParseCache();
+    for (Path file : listAllFiles(testRigPath.resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR))) {
+      ParseVendorConfigurationJob parseJob =
+          new ParseVendorConfigurationJob(
+              _settings,
+              file,
+              inputPath.relativize(file).toString(),
+              buildWarnings(_settings),
+              ConfigurationFormat.UNKNOWN,
+              HashMultimap.create(),
+              parseVendorConfigurationSpanContext);
+      parseJob.setCache(parseCache);
+      jobs.add(
+          new ParseAndConvertConfigurationJob(
+              _settings, parseJob, overlays, _settings.getFusedSerializeVendor() ? this : null));
+    }
+    ConvertingVendorConfigurationMap vendorConfigurations =
+        new ConvertingVendorConfigurationMap(
+            outputPath, answerElement, overlayHostConfigurations, converted);
+    try (ActiveSpan parseNetworkConfigsSpan =
+        GlobalTracer.get().buildSpan("Parse and convert network configs").startActive()) {
+      assert parseNetworkConfigsSpan != null; // avoid unused warning
+      int pipelineWindow = _settings.getParsePipelineWindow();
+      BatfishJobExecutor.runJobsInPipeline(
+          _settings,
+          _logger,
+          jobs,
+          vendorConfigurations,
+          answerElement,
+          _settings.getHaltOnParseError(),
+          "Parse and convert configurations",
+          pipelineWindow > 0 ? pipelineWindow : Math.max(jobs.size(), 1));
+    } finally {
+      vendorConfigurations.awaitWrites();
+    }
+    logParseCacheStats(parseCache);
+    _logger.infof(
+        "Testrig:%s in container:%s has total number of network configs:%d",
+        getTestrigName(), getContainerName(), vendorConfigurations.size());
+
+    // warn about unused overlays
+    overlayHostConfigurations.forEach(
+        (name, overlay) ->
+            answerElement.getParseStatus().put(overlay.getFilename(), ParseStatus.ORPHANED));
+    _logger.printElapsedTime();
+  }
+
+  /**
+   * Returns a fresh copy of the vendor configuration in {@code filename}, relative to the testrig
+   * base, by parsing it again.
+   */
+  private VendorConfiguration reparseVendorConfiguration(String filename) {
+    Path file = _settings.getActiveTestrigSettings().getInputPath().resolve(filename);
+    ParseVendorConfigurationResult result;
+    try {
+      result =
+          new ParseVendorConfigurationJob(
+                  _settings,
+                  file,
+                  filename,
+                  buildWarnings(_settings),
+                  ConfigurationFormat.UNKNOWN,
+                  HashMultimap.create(),
+                  null)
+              .call();
+    } catch (Exception e) {
+      throw new BatfishException("Could not parse configuration again: " + filename, e);
+    }
+    if (result.getVendorConfiguration() == null) {
+      throw new BatfishException("Could not parse configuration again: " + filename);
+    }
+    return result.getVendorConfiguration();
+  }
+
+  /**
+   * The map of vendor configurations to which the results of {@link
+   * ParseAndConvertConfigurationJob} are applied. Like {@link SerializingVendorConfigurationMap},
+   * it keeps only hostnames in memory. Each {@link #get}, and each entry of {@link #entrySet},
+   * parses the configuration file again, except that the configuration last returned while applying
+   * a result is cached. {@link #put} and {@link #remove} return the previous value as required by
+   * {@link Map}, which only costs a parse when it is not the cached one, that is, when a hostname
+   * is replaced without being looked up first.
+   *
+   * <p>A conversion result is kept if its configuration is added under the hostname it was
+   * converted with. Configurations renamed because of duplicate hostnames were already modified by
+   * conversion, so they are parsed again, renamed, and written to disk to be converted later with
+   * the configurations that were not parsed by jobs, such as host configurations.
+   */
+  private final class ConvertingVendorConfigurationMap
+      extends AbstractMap<String, VendorConfiguration>
+      implements ParseAndConvertConfigurationResult.Output {
+
+    private final ParseVendorConfigurationAnswerElement _answerElement;
+
+    private final SortedMap<String, ConvertConfigurationResult> _converted;
+
+    /** The result being applied */
+    @Nullable private ParseAndConvertConfigurationResult _current;
+
+    /**
+     * The hostname of the configuration last returned by {@link #get} while applying {@link
+     * #_current}, or {@code null} if there is none
+     */
+    @Nullable private String _reparsedHostname;
+
+    /** The configuration last returned by {@link #get} while applying {@link #_current} */
+    @Nullable private VendorConfiguration _reparsed;
+
+    /** The name of the parsed file of each configuration, by hostname */
+    private final SortedMap<String, String> _filenames;
+
+    private final Path _outputPath;
+
+    private final Map<String, VendorConfiguration> _overlayHostConfigurations;
+
+    /** Writes vendor configurations to disk, in the order in which they are submitted */
+    private final ExecutorService _writer;
+
+    private final List<Future<?>> _writes;
+
+    private ConvertingVendorConfigurationMap(
+        Path outputPath,
+        ParseVendorConfigurationAnswerElement answerElement,
+        Map<String, VendorConfiguration> overlayHostConfigurations,
+        SortedMap<String, ConvertConfigurationResult> converted) {
+      _answerElement = answerElement;
+      _converted = converted;
+      _filenames = new TreeMap<>();
+      _outputPath = outputPath;
+      _overlayHostConfigurations = overlayHostConfigurations;
+      _writer = Executors.newSingleThreadExecutor();
+      _writes = new ArrayList<>();
+    }
+
+    /** Waits until all vendor configurations are written to disk. */
+    private void awaitWrites() {
+      _writer.shutdown();
+      try {
+        for (Future<?> write : _writes) {
+          write.get();
+        }
+      } catch (ExecutionException e) {
+        throw new BatfishException("Could not write vendor configuration", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BatfishException("Interrupted while writing vendor configurations", e);
+      }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return _filenames.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, VendorConfiguration>> entrySet() {
+      return Maps.asMap(_filenames.keySet(), this::get).entrySet();
+    }
+
+    @Override
+    public @Nullable VendorConfiguration get(Object key) {
+      String filename = _filenames.get(key);
+      if (filename == null) {
+        return null;
+      }
+      if (key.equals(_reparsedHostname)) {
+        // applying a result looks up the same configuration more than once; parse it only once
+        return _reparsed;
+      }
+      VendorConfiguration vc = reparseVendorConfiguration(filename);
+      vc.setOverlayConfiguration(_overlayHostConfigurations.get(key));
+      _reparsedHostname = (String) key;
+      _reparsed = vc;
+      return vc;
+    }
+
+    @Override
+    public Map<String, VendorConfiguration> getVendorConfigurations(
+        ParseAndConvertConfigurationResult result) {
+      _current = result;
+      _reparsedHostname = null;
+      _reparsed = null;
+      return this;
+    }
+
+    /**
+     * Forgets the configuration last returned by {@link #get} if it is that of {@code hostname}.
+     */
+    private void invalidateReparsed(Object hostname) {
+      if (hostname.equals(_reparsedHostname)) {
+        _reparsedHostname = null;
+        _reparsed = null;
+      }
+    }
+
+    @Override
+    public @Nullable VendorConfiguration put(String hostname, VendorConfiguration vc) {
+      if (hostname.contains(File.separator)) {
+        warnBadHostname(hostname, _answerElement);
+        return null;
+      }
+      VendorConfiguration previous = get(hostname);
+      invalidateReparsed(hostname);
+      Path path = _outputPath.resolve(hostname);
+      VendorConfiguration overlayConfig = _overlayHostConfigurations.remove(hostname);
+      ConvertConfigurationResult convertResult =
+          _current != null && vc == _current.getVendorConfiguration()
+              ? _current.getConvertResult()
+              : null;
+      if (convertResult != null && hostname.equals(convertResult.getName())) {
+        // the job converted it under this name, with the same overlay
+        _converted.put(hostname, convertResult);
+        byte[] serialized = _current.getSerializedVendorConfiguration();
+        if (serialized != null) {
+          _writes.add(_writer.submit(() -> Files.write(path, serialized)));
+        }
+      } else {
+        VendorConfiguration freshVc = vc;
+        if (convertResult != null) {
+          freshVc = reparseVendorConfiguration(vc.getFilename());
+          freshVc.setHostname(hostname);
+        }
+        if (overlayConfig != null) {
+          freshVc.setOverlayConfiguration(overlayConfig);
+        }
+        VendorConfiguration toWrite = freshVc;
+        _writes.add(_writer.submit(() -> serializeObject(toWrite, path)));
+      }
+      _filenames.put(hostname, vc.getFilename());
+      return previous;
+    }
+
+    @Override
+    public @Nullable VendorConfiguration remove(Object key) {
+      VendorConfiguration previous = get(key);
+      if (_filenames.remove(key) != null) {
+        invalidateReparsed(key);
+        _converted.remove(key);
+        Path path = _outputPath.resolve((String) key);
+        _writes.add(_writer.submit(() -> Files.deleteIfExists(path)));
+      }
+      return previous;
+    }
+
+    @Override
+    public int size() {
+      return _filenames.size();
+    }
+  }
+
+  private void warnBadHostname(String name, ParseVendorConfigurationAnswerElement answerElement) {
+    // iptables will get a hostname like configs/iptables-save if they
+    // are not set up correctly using host files
+    _logger.errorf("Cannot serialize configuration with hostname %s\n", name);
+    answerElement.addRedFlagWarning(
+        name,
+        new Warning(
+            "Cannot serialize network config. Bad hostname " + name.replace("\\", "/"),
+            "MISCELLANEOUS"));
+  }
+
+  /**
+   * Serializes the given object, a file of the current snapshot, in the serialization format of the
+   * snapshot. The first object serialized for a snapshot records the configured format for it.
+   */
+  @Override
+  public void serializeObject(Serializable object, Path outputFile) {
+    NetworkSnapshot snapshot = getNetworkSnapshot();
+    SerializationFormat serializationFormat =
+        _serializationFormats.computeIfAbsent(
+            snapshot,
+            s ->
+                _storage.storeSerializationFormatIfAbsent(
+                    _settings.getSerializationFormat(), s.getNetwork(), s.getSnapshot()));
+    serializeObject(object, outputFile, serializationFormat);
+  }
+
+  /**
+   * Deserializes the given file of the current snapshot, according to the serialization format
+   * recorded for it, if any.
+   */
+  @Override
+  protected <S extends Serializable> S deserializeObject(Path inputFile, Class<S> outputClass) {
+    NetworkSnapshot snapshot = getNetworkSnapshot();
+    SerializationFormat serializationFormat = _serializationFormats.get(snapshot);
+    if (serializationFormat == null) {
+      serializationFormat =
+          _storage.loadSerializationFormat(snapshot.getNetwork(), snapshot.getSnapshot());
+      if (serializationFormat != null) {
+        _serializationFormats.putIfAbsent(snapshot, serializationFormat);
+      }
+    }
+    return deserializeObject(inputFile, outputClass, serializationFormat);
+  }
+
   public <S extends Serializable> void serializeObjects(Map<Path, S> objectsByPath) {
     if (objectsByPath.isEmpty()) {
       return;
@@ -3342,6 +4213,19 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   Answer serializeVendorConfigs(Path testRigPath, Path outputPath) {
+    return serializeVendorConfigs(testRigPath, outputPath, null);
+  }
+
+  /**
+   * Parses the configurations under {@code testRigPath} and serializes them to {@code outputPath}.
+   *
+   * @param convertedNetworkConfigs If not {@code null}, network configurations are also converted
+   *     as soon as they are parsed, and the results are added to this map by vendor hostname.
+   */
+  private Answer serializeVendorConfigs(
+      Path testRigPath,
+      Path outputPath,
+      @Nullable SortedMap<String, ConvertConfigurationResult> convertedNetworkConfigs) {
     Answer answer = new Answer();
     boolean configsFound = false;
 
@@ -3363,7 +4247,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
 
     if (Files.exists(networkConfigsPath)) {
-      serializeNetworkConfigs(testRigPath, outputPath, answerElement, overlayHostConfigurations);
+      if (convertedNetworkConfigs != null) {
+        parseAndConvertNetworkConfigs(
+            testRigPath,
+            outputPath,
+            answerElement,
+            overlayHostConfigurations,
+            convertedNetworkConfigs);
+      } else {
+        serializeNetworkConfigs(testRigPath, outputPath, answerElement, overlayHostConfigurations);
+      }
       configsFound = true;
     }
 
@@ -3761,13 +4654,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
         params.getSrcNatted() == SrcNattedConstraint.UNCONSTRAINED,
         "Requiring or forbidding Source NAT is currently unsupported");
 
-    BDDPacket pkt = new BDDPacket();
     boolean ignoreFilters = params.getIgnoreFilters();
-    BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-        getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
+    BDDPacket pkt = getBddPacketForAllBDDs(ignoreFilters);
 
     Map<IngressLocation, BDD> reachableBDDs =
-        bddReachabilityAnalysisFactory.getAllBDDs(
+        getAllBDDs(
+            pkt,
+            ignoreFilters,
             params.getSourceIpAssignment(),
             params.getHeaderSpace(),
             params.getForbiddenTransitNodes(),
@@ -3811,15 +4704,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public Set<Flow> bddLoopDetection() {
-    BDDPacket pkt = new BDDPacket();
     // TODO add ignoreFilters parameter
     boolean ignoreFilters = false;
     BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-        getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
+        getCachedBddReachabilityAnalysisFactory(ignoreFilters);
+    BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
     BDDReachabilityAnalysis analysis =
         bddReachabilityAnalysisFactory.bddReachabilityAnalysis(
             getAllSourcesInferFromLocationIpSpaceAssignment());
     Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
+    _logger.debugf("BDD loop detection fixpoint: %s\n", analysis.getStats());
 
     String flowTag = getFlowTag();
     return loopBDDs.entrySet().stream()
@@ -3849,11 +4743,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public Set<Flow> bddMultipathConsistency(MultipathConsistencyParameters parameters) {
-    BDDPacket pkt = new BDDPacket();
     // TODO add ignoreFilters parameter
     boolean ignoreFilters = false;
-    BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-        getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
+    BDDPacket pkt = getBddPacketForAllBDDs(ignoreFilters);
     IpSpaceAssignment srcIpSpaceAssignment = parameters.getSrcIpSpaceAssignment();
     Set<String> finalNodes = parameters.getFinalNodes();
     Set<FlowDisposition> failureDispositions =
@@ -3873,7 +4765,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
     Set<String> forbiddenTransitNodes = parameters.getForbiddenTransitNodes();
     Set<String> requiredTransitNodes = parameters.getRequiredTransitNodes();
     Map<IngressLocation, BDD> successBdds =
-        bddReachabilityAnalysisFactory.getAllBDDs(
+        getAllBDDs(
+            pkt,
+            ignoreFilters,
             srcIpSpaceAssignment,
             parameters.getHeaderSpace(),
             forbiddenTransitNodes,
@@ -3881,7 +4775,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
             finalNodes,
             successDispositions);
     Map<IngressLocation, BDD> failureBdds =
-        bddReachabilityAnalysisFactory.getAllBDDs(
+        getAllBDDs(
+            pkt,
+            ignoreFilters,
             srcIpSpaceAssignment,
             parameters.getHeaderSpace(),
             forbiddenTransitNodes,
@@ -3904,6 +4800,75 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return InferFromLocationIpSpaceSpecifier.INSTANCE.resolve(locations, specifierContext);
   }
 
+  /**
+   * Returns the {@link BDDPacket} to pass to {@link #getAllBDDs}: a new one with the variables of
+   * the worker graphs if the analysis is parallel, or else that of the cached reachability graph of
+   * the current snapshot.
+   */
+  private BDDPacket getBddPacketForAllBDDs(boolean ignoreFilters) {
+    return _settings.getBddReachabilityParallelism() > 1
+        ? ParallelBDDReachabilityAnalysis.createBDDPacket(loadConfigurations())
+        : getCachedBddReachabilityAnalysisFactory(ignoreFilters).getBDDPacket();
+  }
+
+  /**
+   * Compute {@link BDDReachabilityAnalysisFactory#getAllBDDs} for the current snapshot, using
+   * multiple threads if {@link Settings#getBddReachabilityParallelism()} allows. Otherwise, {@code
+   * pkt} must be the {@link BDDPacket} of the cached reachability graph of the current snapshot
+   * (see {@link #getBddPacketForAllBDDs}).
+   */
+  private Map<IngressLocation, BDD> getAllBDDs(
+      BDDPacket pkt,
+      boolean ignoreFilters,
+      IpSpaceAssignment srcIpSpaceAssignment,
+      AclLineMatchExpr initialHeaderSpace,
+      Set<String> forbiddenTransitNodes,
+      Set<String> requiredTransitNodes,
+      Set<String> finalNodes,
+      Set<FlowDisposition> actions) {
+    int parallelism = _settings.getBddReachabilityParallelism();
+    if (parallelism > 1) {
+      // Load everything up front, so that worker threads only read it
+      Map<String, Configuration> configs = loadConfigurations();
+      List<BDDReachabilityAnalysisFactory> workerFactories =
+          getCachedBddReachabilityAnalysisFactories(
+              new BDDReachabilityCacheKey(
+                  ImmutableList.of(getNetworkSnapshot()), ignoreFilters, parallelism),
+              () ->
+                  ParallelBDDReachabilityAnalysis.createWorkerFactories(
+                      configs,
+                      loadDataPlane().getForwardingAnalysis(),
+                      ignoreFilters,
+                      parallelism));
+      ParallelBDDReachabilityAnalysis analysis =
+          new ParallelBDDReachabilityAnalysis(pkt, configs, workerFactories);
+      Map<IngressLocation, BDD> bdds =
+          analysis.getAllBDDs(
+              srcIpSpaceAssignment,
+              initialHeaderSpace,
+              forbiddenTransitNodes,
+              requiredTransitNodes,
+              finalNodes,
+              actions);
+      _logger.debugf("BDD reachability fixpoint: %s\n", analysis.getFixpointStats());
+      return bdds;
+    }
+    BDDReachabilityAnalysisFactory factory = getCachedBddReachabilityAnalysisFactory(ignoreFilters);
+    checkArgument(factory.getBDDPacket() == pkt, "Not the BDDPacket of the cached graph");
+    Map<IngressLocation, BDD> bdds =
+        factory.getAllBDDs(
+            srcIpSpaceAssignment,
+            initialHeaderSpace,
+            forbiddenTransitNodes,
+            requiredTransitNodes,
+            finalNodes,
+            actions);
+    // the cached factory is shared by all queries on this snapshot
+    _logger.debugf(
+        "BDD reachability fixpoint, all queries so far: %s\n", factory.getFixpointStats());
+    return bdds;
+  }
+
   @Nonnull
   private BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
       BDDPacket pkt, boolean ignoreFilters) {
@@ -3911,6 +4876,38 @@ public class Batfish extends PluginConsumer implements IBatfish {
         pkt, loadConfigurations(), loadDataPlane().getForwardingAnalysis(), ignoreFilters);
   }
 
+  /**
+   * Returns the {@link BDDReachabilityAnalysisFactory} of the current snapshot, building it only if
+   * it is not cached. Queries using it only add their own root and query edges to its graph.
+   */
+  @Nonnull
+  private BDDReachabilityAnalysisFactory getCachedBddReachabilityAnalysisFactory(
+      boolean ignoreFilters) {
+    return getCachedBddReachabilityAnalysisFactories(
+            new BDDReachabilityCacheKey(ImmutableList.of(getNetworkSnapshot()), ignoreFilters),
+            () ->
+                ImmutableList.of(getBddReachabilityAnalysisFactory(new BDDPacket(), ignoreFilters)))
+        .get(0);
+  }
+
+  /**
+   * Returns the cached {@link BDDReachabilityAnalysisFactory factories} for {@code key}, or else
+   * caches and returns those built by {@code factories}.
+   */
+  @Nonnull
+  private List<BDDReachabilityAnalysisFactory> getCachedBddReachabilityAnalysisFactories(
+      BDDReachabilityCacheKey key, Callable<List<BDDReachabilityAnalysisFactory>> factories) {
+    try {
+      // Cache#get builds the factories at most once, even if several threads ask for them
+      return _cachedBddReachabilityAnalysisFactories.get(key, factories);
+    } catch (ExecutionException e) {
+      throw new BatfishException("Could not build BDD reachability graph", e.getCause());
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
   /**
    * Return a set of flows (at most 1 per source {@link Location}) for which reachability has been
    * reduced by the change from base to delta snapshot.
@@ -3920,8 +4917,6 @@ public class Batfish extends PluginConsumer implements IBatfish {
       DifferentialReachabilityParameters parameters) {
     checkArgument(
         !parameters.getFlowDispositions().isEmpty(), "Must specify at least one FlowDisposition");
-    BDDPacket pkt = new BDDPacket();
-
     AclLineMatchExpr headerSpace =
         parameters.getInvertSearch()
             ? not(parameters.getHeaderSpace())
@@ -3933,9 +4928,35 @@ public class Batfish extends PluginConsumer implements IBatfish {
      * differential reachability, but we currently won't find it because it won't be in the
      * IpSpaceAssignment.
      */
+    boolean ignoreFilters = parameters.getIgnoreFilters();
     pushBaseSnapshot();
+    NetworkSnapshot baseSnapshot = getNetworkSnapshot();
+    popSnapshot();
+    pushDeltaSnapshot();
+    NetworkSnapshot deltaSnapshot = getNetworkSnapshot();
+    popSnapshot();
+    // both graphs share a BDDPacket, so that their BDDs can be compared
+    List<BDDReachabilityAnalysisFactory> factories =
+        getCachedBddReachabilityAnalysisFactories(
+            new BDDReachabilityCacheKey(
+                ImmutableList.of(baseSnapshot, deltaSnapshot), ignoreFilters),
+            () -> {
+              BDDPacket pkt = new BDDPacket();
+              pushBaseSnapshot();
+              BDDReachabilityAnalysisFactory baseFactory =
+                  getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
+              popSnapshot();
+              pushDeltaSnapshot();
+              BDDReachabilityAnalysisFactory deltaFactory =
+                  getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
+              popSnapshot();
+              return ImmutableList.of(baseFactory, deltaFactory);
+            });
+    BDDPacket pkt = factories.get(0).getBDDPacket();
+
     Map<IngressLocation, BDD> baseAcceptBDDs =
-        getBddReachabilityAnalysisFactory(pkt, parameters.getIgnoreFilters())
+        factories
+            .get(0)
             .getAllBDDs(
                 parameters.getIpSpaceAssignment(),
                 headerSpace,
@@ -3943,11 +4964,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 parameters.getRequiredTransitNodes(),
                 parameters.getFinalNodes(),
                 parameters.getFlowDispositions());
-    popSnapshot();
 
-    pushDeltaSnapshot();
     Map<IngressLocation, BDD> deltaAcceptBDDs =
-        getBddReachabilityAnalysisFactory(pkt, parameters.getIgnoreFilters())
+        factories
+            .get(1)
             .getAllBDDs(
                 parameters.getIpSpaceAssignment(),
                 headerSpace,
@@ -3955,7 +4975,6 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 parameters.getRequiredTransitNodes(),
                 parameters.getFinalNodes(),
                 parameters.getFlowDispositions());
-    popSnapshot();
 
     Set<IngressLocation> commonSources =
         Sets.intersection(baseAcceptBDDs.keySet(), deltaAcceptBDDs.keySet());
@@ -4098,41 +5117,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
         .build();
   }
 
-  private void writeJsonAnswer(String structuredAnswerString) {
-    SnapshotId deltaSnapshot = _settings.getDiffQuestion() ? _deltaTestrigSettings.getName() : null;
-    NetworkId networkId = _settings.getContainer();
-    QuestionId questionId = _settings.getQuestionName();
-    AnalysisId analysisId = _settings.getAnalysisName();
-    QuestionSettingsId questionSettingsId;
-    try {
-      String questionClassId = _storage.loadQuestionClassId(networkId, questionId, analysisId);
-      if (_idResolver.hasQuestionSettingsId(questionClassId, networkId)) {
-        questionSettingsId = _idResolver.getQuestionSettingsId(questionClassId, networkId);
-      } else {
-        questionSettingsId = QuestionSettingsId.DEFAULT_QUESTION_SETTINGS_ID;
-      }
-    } catch (IOException e) {
-      throw new BatfishException("Failed to retrieve question settings ID", e);
-    }
-    NodeRolesId networkNodeRolesId =
-        _idResolver.hasNetworkNodeRolesId(networkId)
-            ? _idResolver.getNetworkNodeRolesId(networkId)
-            : NodeRolesId.DEFAULT_NETWORK_NODE_ROLES_ID;
-    AnswerId baseAnswerId =
-        _idResolver.getBaseAnswerId(
-            networkId,
-            _baseTestrigSettings.getName(),
-            questionId,
-            questionSettingsId,
-            networkNodeRolesId,
-            deltaSnapshot,
-            analysisId);
-    _storage.storeAnswer(structuredAnswerString, baseAnswerId);
-  }
-
-  private void writeJsonAnswerWithLog(@Nullable String logString, String structuredAnswerString) {
+  private void writeJsonAnswerWithLog(Answer answer, boolean writeLog) throws IOException {
     // Write log of WorkItem task to the configured path for logs
-    if (logString != null && _settings.getTaskId() != null) {
+    if (writeLog && _settings.getTaskId() != null) {
       Path jsonPath =
           _settings
               .getStorageBase()
@@ -4141,11 +5128,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
               .resolve(_settings.getTestrig().getId())
               .resolve(BfConsts.RELPATH_OUTPUT)
               .resolve(_settings.getTaskId() + BfConsts.SUFFIX_ANSWER_JSON_FILE);
-      CommonUtil.writeFile(jsonPath, logString);
+      try (Writer writer = Files.newBufferedWriter(jsonPath, UTF_8)) {
+        BatfishObjectMapper.prettyWriter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .writeValue(writer, answer);
+        writer.write('\n');
+      }
     }
-    // Write answer.json and answer-pretty.json if WorkItem was answering a question
+    // Write answer and its metadata if WorkItem was answering a question
     if (_settings.getQuestionName() != null) {
-      writeJsonAnswer(structuredAnswerString);
+      _storage.storeAnswer(answer, getBaseAnswerId());
     }
   }
 
@@ -44,6 +44,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.SystemUtils;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.bddreachability.BDDReachabilityCacheKey;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
@@ -119,6 +121,9 @@ public class Driver {
 
   private static ConcurrentMap<String, Task> _taskLog;
 
+  private static final Cache<BDDReachabilityCacheKey, List<BDDReachabilityAnalysisFactory>>
+      CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = buildBddReachabilityAnalysisFactoryCache();
+
   private static final Cache<NetworkSnapshot, DataPlane> CACHED_COMPRESSED_DATA_PLANES =
       buildDataPlaneCache();
 
@@ -146,6 +151,8 @@ public class Driver {
 
   static Logger httpServerLogger = Logger.getLogger(HttpServer.class.getName());
 
+  private static final int MAX_CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = 4;
+
   private static final int MAX_CACHED_DATA_PLANES = 2;
 
   private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
@@ -157,6 +164,14 @@ public class Driver {
   static Logger networkListenerLogger =
       Logger.getLogger("org.glassfish.grizzly.http.server.NetworkListener");
 
+  private static Cache<BDDReachabilityCacheKey, List<BDDReachabilityAnalysisFactory>>
+      buildBddReachabilityAnalysisFactoryCache() {
+    return CacheBuilder.newBuilder()
+        .softValues()
+        .maximumSize(MAX_CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES)
+        .build();
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> buildDataPlaneCache() {
     return CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_DATA_PLANES).build();
   }
@@ -547,6 +562,7 @@ public class Driver {
       final Batfish batfish =
           new Batfish(
               settings,
+              CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES,
               CACHED_COMPRESSED_TESTRIGS,
               CACHED_TESTRIGS,
               CACHED_COMPRESSED_DATA_PLANES,
@@ -623,7 +639,6 @@ public class Driver {
                       assert outputAnswerSpan != null;
                       if (settings.getTaskId() != null) {
                         batfish.outputAnswerWithLog(answer);
-                        batfish.outputAnswerMetadata(answer);
                       }
                     }
                   }
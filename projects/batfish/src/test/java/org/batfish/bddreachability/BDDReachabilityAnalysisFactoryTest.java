@@ -29,6 +29,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -198,6 +199,50 @@ public final class BDDReachabilityAnalysisFactoryTest {
     }
   }
 
+  @Test
+  public void testQueryIndependentEdgesReused() throws IOException {
+    SortedMap<String, Configuration> configs = TestNetworkSources.twoNodeNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, temp);
+    batfish.computeDataPlane();
+    DataPlane dataPlane = batfish.loadDataPlane();
+    BDDReachabilityAnalysisFactory factory =
+        new BDDReachabilityAnalysisFactory(PKT, configs, dataPlane.getForwardingAnalysis());
+
+    List<Map<StateExpr, Map<StateExpr, Edge>>> edgesPerQuery =
+        configs.keySet().stream()
+            .map(
+                node ->
+                    factory
+                        .bddReachabilityAnalysis(
+                            ipSpaceAssignment(batfish),
+                            matchDst(UniverseIpSpace.INSTANCE),
+                            ImmutableSet.of(),
+                            ImmutableSet.of(),
+                            ImmutableSet.of(node),
+                            ALL_DISPOSITIONS)
+                        .getEdges())
+            .collect(ImmutableList.toImmutableList());
+    Map<StateExpr, Map<StateExpr, Edge>> edges1 = edgesPerQuery.get(0);
+    Map<StateExpr, Map<StateExpr, Edge>> edges2 = edgesPerQuery.get(1);
+
+    // edges to final nodes are specific to each query
+    assertThat(edges1, not(equalTo(edges2)));
+
+    // the rest of the graph is generated once
+    List<StateExpr> preInInterfaces =
+        edges1.keySet().stream()
+            .filter(PreInInterface.class::isInstance)
+            .collect(ImmutableList.toImmutableList());
+    assertThat(preInInterfaces, not(hasSize(0)));
+    for (StateExpr preInInterface : preInInterfaces) {
+      edges1
+          .get(preInInterface)
+          .forEach(
+              (postState, edge) ->
+                  assertThat(edges2.get(preInInterface).get(postState), sameInstance(edge)));
+    }
+  }
+
   @Test
   public void testForbiddenTransitNodes() throws IOException {
     SortedMap<String, Configuration> configs = TestNetworkSources.twoNodeNetwork();
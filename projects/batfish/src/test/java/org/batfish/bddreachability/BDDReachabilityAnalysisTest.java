@@ -14,8 +14,10 @@ import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -62,6 +64,7 @@ public final class BDDReachabilityAnalysisTest {
 
   private static final BDDPacket PKT = new BDDPacket();
 
+  private IpSpaceAssignment _assignment;
   private BDDReachabilityAnalysis _graph;
   private BDDReachabilityAnalysisFactory _graphFactory;
   private TestNetwork _net;
@@ -117,13 +120,13 @@ public final class BDDReachabilityAnalysisTest {
     _graphFactory =
         new BDDReachabilityAnalysisFactory(PKT, _net._configs, dataPlane.getForwardingAnalysis());
 
-    IpSpaceAssignment assignment =
+    _assignment =
         IpSpaceAssignment.builder()
             .assign(
                 new InterfaceLocation(_net._srcNode.getHostname(), _net._link1Src.getName()),
                 UniverseIpSpace.INSTANCE)
             .build();
-    _graph = _graphFactory.bddReachabilityAnalysis(assignment);
+    _graph = _graphFactory.bddReachabilityAnalysis(_assignment);
     _bddOps = new BDDOps(PKT.getFactory());
     _dstIface1Ip = DST_PREFIX_1.getStartIp();
     _dstIface1IpBDD = dstIpBDD(_dstIface1Ip);
@@ -215,6 +218,29 @@ public final class BDDReachabilityAnalysisTest {
     assertThat(vrfAcceptBDD(_srcName), equalTo(or(_link1SrcIpBDD, _link2SrcIpBDD)));
   }
 
+  @Test
+  public void testFixpointStats() {
+    FixpointStats stats = _graph.getStats();
+    assertThat(stats.getEdgeTraversals(), equalTo(0L));
+
+    _graph.getIngressLocationReachableBDDs();
+    long edgeTraversals = stats.getEdgeTraversals();
+    assertThat(edgeTraversals, greaterThan(0L));
+    assertThat(stats.getStateUpdates(), greaterThan(0L));
+
+    // Stats accumulate over runs
+    _graph.getIngressLocationReachableBDDs();
+    assertThat(stats.getEdgeTraversals(), equalTo(2 * edgeTraversals));
+
+    // Each analysis has its own stats, and the factory's add up those of all its analyses
+    BDDReachabilityAnalysis graph2 = _graphFactory.bddReachabilityAnalysis(_assignment);
+    assertThat(graph2.getStats(), not(sameInstance(stats)));
+    graph2.getIngressLocationReachableBDDs();
+    assertThat(graph2.getStats().getEdgeTraversals(), equalTo(edgeTraversals));
+    assertThat(stats.getEdgeTraversals(), equalTo(2 * edgeTraversals));
+    assertThat(_graphFactory.getFixpointStats().getEdgeTraversals(), equalTo(3 * edgeTraversals));
+  }
+
   @Test
   public void testBDDTransitions_NodeAccept_Accept() {
     assertThat(bddTransition(_srcNodeAccept, Accept.INSTANCE), isOne());
@@ -0,0 +1,159 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.bddreachability.ParallelBDDReachabilityAnalysis.partitionDstIps;
+import static org.batfish.common.util.CommonUtil.toImmutableMap;
+import static org.batfish.datamodel.FlowDisposition.ACCEPTED;
+import static org.batfish.datamodel.FlowDisposition.LOOP;
+import static org.batfish.datamodel.FlowDisposition.NEIGHBOR_UNREACHABLE;
+import static org.batfish.datamodel.FlowDisposition.NO_ROUTE;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDD.AllSatIterator;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.IpSpaceToBDD;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.ForwardingAnalysis;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.specifier.IpSpaceAssignment;
+import org.batfish.z3.IngressLocation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link ParallelBDDReachabilityAnalysis} */
+public final class ParallelBDDReachabilityAnalysisTest {
+  @Rule public TemporaryFolder _temp = new TemporaryFolder();
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  /**
+   * Rebuild {@code bdd} in {@code factory} from its satisfying assignments, independently of the
+   * save and load used by {@link ParallelBDDReachabilityAnalysis}.
+   */
+  private static BDD copy(BDD bdd, BDDFactory factory) {
+    BDD result = factory.zero();
+    AllSatIterator cubes = bdd.allsat();
+    while (cubes.hasNext()) {
+      byte[] cube = cubes.nextSat();
+      BDD cubeBdd = factory.one();
+      for (int var = 0; var < cube.length; var++) {
+        if (cube[var] == 0) {
+          cubeBdd.andWith(factory.nithVar(var));
+        } else if (cube[var] == 1) {
+          cubeBdd.andWith(factory.ithVar(var));
+        }
+      }
+      result.orWith(cubeBdd);
+    }
+    return result;
+  }
+
+  private void assertSameAsSequential(
+      SortedMap<String, Configuration> configs, Set<FlowDisposition> actions) throws IOException {
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, _temp);
+    batfish.computeDataPlane();
+    ForwardingAnalysis forwardingAnalysis = batfish.loadDataPlane().getForwardingAnalysis();
+    IpSpaceAssignment assignment = batfish.getAllSourcesInferFromLocationIpSpaceAssignment();
+
+    BDDReachabilityAnalysisFactory sequentialFactory =
+        new BDDReachabilityAnalysisFactory(new BDDPacket(), configs, forwardingAnalysis);
+    Map<IngressLocation, BDD> sequential =
+        sequentialFactory.getAllBDDs(
+            assignment,
+            matchDst(UniverseIpSpace.INSTANCE),
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            configs.keySet(),
+            actions);
+
+    // As in production, results are merged into a fresh BDDPacket, not that of any factory
+    BDDPacket pkt = ParallelBDDReachabilityAnalysis.createBDDPacket(configs);
+    assertThat(
+        pkt.getFactory().varNum(), equalTo(sequentialFactory.getBDDPacket().getFactory().varNum()));
+    List<BDDReachabilityAnalysisFactory> workerFactories =
+        ParallelBDDReachabilityAnalysis.createWorkerFactories(
+            configs, forwardingAnalysis, false, 4);
+    ParallelBDDReachabilityAnalysis analysis =
+        new ParallelBDDReachabilityAnalysis(pkt, configs, workerFactories);
+    Map<IngressLocation, BDD> expected =
+        toImmutableMap(
+            sequential, Entry::getKey, entry -> copy(entry.getValue(), pkt.getFactory()));
+
+    // The worker factories are reused by later queries
+    for (int i = 0; i < 2; i++) {
+      Map<IngressLocation, BDD> parallel =
+          analysis.getAllBDDs(
+              assignment,
+              matchDst(UniverseIpSpace.INSTANCE),
+              ImmutableSet.of(),
+              ImmutableSet.of(),
+              configs.keySet(),
+              actions);
+      assertThat(parallel, equalTo(expected));
+    }
+  }
+
+  @Test
+  public void testBDDPacketWithoutWorkerVariables() throws IOException {
+    SortedMap<String, Configuration> configs = new TestNetwork()._configs;
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, _temp);
+    batfish.computeDataPlane();
+    List<BDDReachabilityAnalysisFactory> workerFactories =
+        ParallelBDDReachabilityAnalysis.createWorkerFactories(
+            configs, batfish.loadDataPlane().getForwardingAnalysis(), false, 2);
+
+    _thrown.expect(IllegalArgumentException.class);
+    new ParallelBDDReachabilityAnalysis(new BDDPacket(), configs, workerFactories);
+  }
+
+  @Test
+  public void testGetAllBDDs() throws IOException {
+    assertSameAsSequential(
+        new TestNetwork()._configs, ImmutableSet.of(ACCEPTED, NEIGHBOR_UNREACHABLE, NO_ROUTE));
+  }
+
+  @Test
+  public void testGetAllBDDsWithLoops() throws IOException {
+    assertSameAsSequential(MPIWithLoopNetwork.testMPIWithLoopNetwork(), ImmutableSet.of(LOOP));
+  }
+
+  @Test
+  public void testPartitionDstIps() throws IOException {
+    SortedMap<String, Configuration> configs = new TestNetwork()._configs;
+    BDDPacket pkt = new BDDPacket();
+    IpSpaceToBDD toBDD = new IpSpaceToBDD(pkt.getDstIp());
+
+    List<IpSpace> partitions = partitionDstIps(configs.values(), 4);
+    assertThat(partitions, hasSize(4));
+
+    // The partitions are disjoint and cover all IPs
+    BDD union = pkt.getFactory().zero();
+    for (IpSpace partition : partitions) {
+      BDD bdd = toBDD.visit(partition);
+      assertThat(bdd.and(union).isZero(), equalTo(true));
+      union = union.or(bdd);
+    }
+    assertThat(union.isOne(), equalTo(true));
+
+    assertThat(
+        partitionDstIps(configs.values(), 1), equalTo(ImmutableList.of(UniverseIpSpace.INSTANCE)));
+  }
+}
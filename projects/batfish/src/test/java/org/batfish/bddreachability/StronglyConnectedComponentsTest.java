@@ -0,0 +1,62 @@
+package org.batfish.bddreachability;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+/** Tests of {@link StronglyConnectedComponents} */
+public final class StronglyConnectedComponentsTest {
+
+  private static List<Set<Integer>> compute(Map<Integer, Collection<Integer>> graph) {
+    return StronglyConnectedComponents.compute(
+        graph.keySet(), v -> graph.getOrDefault(v, ImmutableList.of()));
+  }
+
+  @Test
+  public void testReverseTopologicalOrder() {
+    // 1 -> {2, 3} is a cycle feeding 4, which feeds the cycle {5, 6}; 7 is isolated
+    Map<Integer, Collection<Integer>> graph =
+        ImmutableMap.<Integer, Collection<Integer>>builder()
+            .put(1, ImmutableList.of(2))
+            .put(2, ImmutableList.of(3))
+            .put(3, ImmutableList.of(1, 4))
+            .put(4, ImmutableList.of(5))
+            .put(5, ImmutableList.of(6))
+            .put(6, ImmutableList.of(5))
+            .put(7, ImmutableList.of())
+            .build();
+    assertThat(
+        compute(graph),
+        equalTo(
+            ImmutableList.of(
+                ImmutableSet.of(5, 6),
+                ImmutableSet.of(4),
+                ImmutableSet.of(1, 2, 3),
+                ImmutableSet.of(7))));
+  }
+
+  @Test
+  public void testDeepGraph() {
+    // A long chain must not overflow the stack
+    int length = 100_000;
+    Map<Integer, Collection<Integer>> graph =
+        IntStream.range(0, length)
+            .boxed()
+            .collect(
+                Collectors.toMap(
+                    i -> i, i -> i + 1 < length ? ImmutableList.of(i + 1) : ImmutableList.of(0)));
+    List<Set<Integer>> components = compute(graph);
+    assertThat(components.size(), equalTo(1));
+    assertThat(components.get(0).size(), equalTo(length));
+  }
+}
@@ -0,0 +1,128 @@
+package org.batfish.dataplane;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.FibImpl;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Route;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.dataplane.rib.Rib;
+import org.batfish.dataplane.rib.RibDelta;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link IncrementalFib} */
+public final class IncrementalFibTest {
+
+  private Rib _rib;
+
+  private static StaticRoute interfaceRoute(String network, String iface) {
+    return StaticRoute.builder()
+        .setNetwork(Prefix.parse(network))
+        .setNextHopInterface(iface)
+        .setAdministrativeCost(1)
+        .build();
+  }
+
+  private static StaticRoute nextHopIpRoute(String network, String nextHopIp) {
+    return StaticRoute.builder()
+        .setNetwork(Prefix.parse(network))
+        .setNextHopIp(Ip.parse(nextHopIp))
+        .setNextHopInterface(Route.UNSET_NEXT_HOP_INTERFACE)
+        .setAdministrativeCost(1)
+        .build();
+  }
+
+  @Before
+  public void setup() {
+    _rib = new Rib();
+    _rib.mergeRoute(interfaceRoute("10.0.0.0/8", "eth0"));
+    _rib.mergeRoute(nextHopIpRoute("1.1.1.1/32", "10.0.0.5"));
+    // resolved recursively through 1.1.1.1/32
+    _rib.mergeRoute(nextHopIpRoute("2.2.2.0/24", "1.1.1.1"));
+    // not resolvable yet
+    _rib.mergeRoute(nextHopIpRoute("3.3.3.0/24", "20.0.0.1"));
+  }
+
+  private void assertSameAsFullRecomputation(IncrementalFib fib) {
+    assertThat(fib.getNextHopInterfaces(), equalTo(new FibImpl(_rib).getNextHopInterfaces()));
+  }
+
+  @Test
+  public void testInitial() {
+    assertSameAsFullRecomputation(new IncrementalFib(_rib));
+  }
+
+  @Test
+  public void testUpdateResolvesOnlyDependentRoutes() {
+    IncrementalFib fib = new IncrementalFib(_rib);
+
+    // A more specific route for the next hop of 1.1.1.1/32 changes it and 2.2.2.0/24, which
+    // depends on it
+    RibDelta<?> delta = _rib.mergeRouteGetDelta(interfaceRoute("10.0.0.0/24", "eth1"));
+    assertThat(fib.update(delta), equalTo(3));
+    assertSameAsFullRecomputation(fib);
+
+    // A route for an unrelated prefix only resolves itself
+    assertThat(
+        fib.update(_rib.mergeRouteGetDelta(interfaceRoute("30.0.0.0/8", "eth3"))), equalTo(1));
+    assertSameAsFullRecomputation(fib);
+
+    // A route for the next hop of 3.3.3.0/24 makes it resolvable
+    assertThat(
+        fib.update(_rib.mergeRouteGetDelta(interfaceRoute("20.0.0.0/8", "eth2"))), equalTo(2));
+    assertSameAsFullRecomputation(fib);
+
+    // Withdrawing routes re-resolves their dependents
+    delta = _rib.removeRouteGetDelta(interfaceRoute("10.0.0.0/24", "eth1"));
+    assertThat(fib.update(delta), equalTo(2));
+    assertSameAsFullRecomputation(fib);
+  }
+
+  @Test
+  public void testGetRibDelta() {
+    IncrementalFib fib = new IncrementalFib(_rib);
+    assertThat(fib.getRibDelta().isEmpty(), equalTo(true));
+
+    _rib.mergeRoute(interfaceRoute("10.0.0.0/24", "eth1"));
+    _rib.removeRoute(nextHopIpRoute("3.3.3.0/24", "20.0.0.1"));
+    // Added and removed again, so not a change
+    _rib.mergeRoute(interfaceRoute("40.0.0.0/8", "eth4"));
+    _rib.removeRoute(interfaceRoute("40.0.0.0/8", "eth4"));
+    RibDelta<?> delta = fib.getRibDelta();
+    assertThat(delta.getRoutes().size(), equalTo(2));
+
+    fib.update(delta);
+    assertSameAsFullRecomputation(fib);
+    assertThat(fib.getRibDelta().isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testUpdateAfterDeserialization() {
+    IncrementalFib fib = new IncrementalFib(_rib);
+
+    // Serialize the RIB with its FIB, so that the copy of the FIB refers to the copy of the RIB
+    List<Object> copies = SerializationUtils.clone(new ArrayList<>(ImmutableList.of(_rib, fib)));
+    _rib = (Rib) copies.get(0);
+    fib = (IncrementalFib) copies.get(1);
+    assertSameAsFullRecomputation(fib);
+
+    _rib.mergeRoute(interfaceRoute("20.0.0.0/8", "eth2"));
+    fib.update(fib.getRibDelta());
+    assertSameAsFullRecomputation(fib);
+
+    // Changes are tracked again from then on
+    _rib.mergeRoute(interfaceRoute("10.0.0.0/24", "eth1"));
+    RibDelta<AbstractRoute> delta = fib.getRibDelta();
+    assertThat(delta.getRoutes().size(), equalTo(1));
+    fib.update(delta);
+    assertSameAsFullRecomputation(fib);
+  }
+}
@@ -0,0 +1,67 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.testing.EqualsTester;
+import org.batfish.datamodel.BgpActivePeerConfig;
+import org.batfish.datamodel.BgpPassivePeerConfig;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.junit.Test;
+
+/** Tests of {@link BgpUpdateGroupKey}. */
+public final class BgpUpdateGroupKeyTest {
+
+  private static BgpActivePeerConfig.Builder ourConfig() {
+    return BgpActivePeerConfig.builder()
+        .setLocalIp(Ip.parse("10.0.0.1"))
+        .setLocalAs(1L)
+        .setRemoteAs(1L)
+        .setExportPolicy("export");
+  }
+
+  private static BgpActivePeerConfig.Builder remoteConfig(String peerAddress) {
+    return BgpActivePeerConfig.builder()
+        .setLocalIp(Ip.parse(peerAddress))
+        .setPeerAddress(Ip.parse("10.0.0.1"))
+        .setLocalAs(1L)
+        .setRemoteAs(1L);
+  }
+
+  private static BgpUpdateGroupKey key(
+      BgpActivePeerConfig.Builder ourConfig, BgpActivePeerConfig.Builder remoteConfig) {
+    BgpActivePeerConfig remote = remoteConfig.build();
+    return new BgpUpdateGroupKey(
+        ourConfig.build(), remote, BgpSessionProperties.from(remote, ourConfig.build()));
+  }
+
+  @Test
+  public void testEquals() {
+    BgpPassivePeerConfig passive =
+        BgpPassivePeerConfig.builder()
+            .setLocalIp(Ip.parse("10.0.0.1"))
+            .setLocalAs(1L)
+            .setRemoteAs(ImmutableList.of(1L))
+            .setPeerPrefix(Prefix.parse("10.0.0.0/24"))
+            .setExportPolicy("export")
+            .build();
+    BgpActivePeerConfig remote2 = remoteConfig("10.0.0.2").build();
+    BgpActivePeerConfig remote3 =
+        remoteConfig("10.0.0.3").setPeerAddress(Ip.parse("10.0.0.5")).build();
+    BgpSessionProperties session = BgpSessionProperties.from(remote2, passive);
+    new EqualsTester()
+        // The address of the receiver does not matter
+        .addEqualityGroup(
+            key(ourConfig(), remoteConfig("10.0.0.2")), key(ourConfig(), remoteConfig("10.0.0.3")))
+        .addEqualityGroup(key(ourConfig().setExportPolicy("other"), remoteConfig("10.0.0.2")))
+        .addEqualityGroup(key(ourConfig().setSendCommunity(true), remoteConfig("10.0.0.2")))
+        .addEqualityGroup(key(ourConfig().setRouteReflectorClient(true), remoteConfig("10.0.0.2")))
+        .addEqualityGroup(key(ourConfig(), remoteConfig("10.0.0.2").setRouteReflectorClient(true)))
+        .addEqualityGroup(
+            key(ourConfig().setLocalIp(Ip.parse("10.0.0.9")), remoteConfig("10.0.0.2")))
+        // unless a passive peer uses the address the receiver peers with as the next hop
+        .addEqualityGroup(new BgpUpdateGroupKey(passive, remote2, session))
+        .addEqualityGroup(new BgpUpdateGroupKey(passive, remote3, session))
+        .testEquals();
+  }
+}
@@ -0,0 +1,327 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+import static org.batfish.datamodel.matchers.AbstractRouteMatchers.hasNextHopIp;
+import static org.batfish.datamodel.matchers.AbstractRouteMatchers.hasPrefix;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.topology.TopologyUtil;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.FailureScenario;
+import org.batfish.datamodel.FailureScenarioResult;
+import org.batfish.datamodel.Interface.Dependency;
+import org.batfish.datamodel.Interface.DependencyType;
+import org.batfish.datamodel.InterfaceAddress;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.LiteralOrigin;
+import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetOrigin;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link FailureScenarioEngine}. */
+public final class FailureScenarioEngineTest {
+
+  private static final Prefix BGP_LOOPBACK = Prefix.parse("4.4.4.4/32");
+  private static final Prefix LINK = Prefix.parse("10.0.0.0/31");
+  private static final Prefix LOOPBACK = Prefix.parse("2.2.2.2/32");
+  private static final Prefix SUBINTERFACE_LINK = Prefix.parse("10.0.1.0/31");
+
+  private IncrementalDataPlane _baseDataPlane;
+  private FailureScenarioEngine _engine;
+
+  /**
+   * r1[i1] -- [i1]r2, with a static route on r1 to the loopback of r2, and a second link between
+   * subinterfaces r1[i1.10] -- [i1.10]r2
+   */
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Configuration r1 = cb.setHostname("r1").build();
+    Vrf v1 = nf.vrfBuilder().setOwner(r1).setName(DEFAULT_VRF_NAME).build();
+    nf.interfaceBuilder()
+        .setOwner(r1)
+        .setVrf(v1)
+        .setName("i1")
+        .setAddress(new InterfaceAddress("10.0.0.0/31"))
+        .build();
+    nf.interfaceBuilder()
+        .setOwner(r1)
+        .setVrf(v1)
+        .setName("i1.10")
+        .setAddress(new InterfaceAddress("10.0.1.0/31"))
+        .setDependencies(ImmutableList.of(new Dependency("i1", DependencyType.BIND)))
+        .build();
+    v1.getStaticRoutes()
+        .add(
+            StaticRoute.builder()
+                .setNetwork(LOOPBACK)
+                .setNextHopIp(Ip.parse("10.0.0.1"))
+                .setAdministrativeCost(1)
+                .build());
+    Configuration r2 = cb.setHostname("r2").build();
+    Vrf v2 = nf.vrfBuilder().setOwner(r2).setName(DEFAULT_VRF_NAME).build();
+    nf.interfaceBuilder()
+        .setOwner(r2)
+        .setVrf(v2)
+        .setName("i1")
+        .setAddress(new InterfaceAddress("10.0.0.1/31"))
+        .build();
+    nf.interfaceBuilder()
+        .setOwner(r2)
+        .setVrf(v2)
+        .setName("i1.10")
+        .setAddress(new InterfaceAddress("10.0.1.1/31"))
+        .setDependencies(ImmutableList.of(new Dependency("i1", DependencyType.BIND)))
+        .build();
+    nf.interfaceBuilder()
+        .setOwner(r2)
+        .setVrf(v2)
+        .setName("lo")
+        .setAddress(new InterfaceAddress("2.2.2.2/32"))
+        .build();
+    SortedMap<String, Configuration> configurations = ImmutableSortedMap.of("r1", r1, "r2", r2);
+
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    BatfishLogger logger = new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false);
+    _baseDataPlane =
+        (IncrementalDataPlane)
+            new IncrementalBdpEngine(settings, logger, (s, i) -> new AtomicInteger())
+                .computeDataPlane(
+                    configurations,
+                    TopologyUtil.synthesizeL3Topology(configurations),
+                    Collections.emptySet())
+                ._dataPlane;
+    _engine = new FailureScenarioEngine(settings, logger, (s, i) -> new AtomicInteger());
+  }
+
+  /**
+   * eBGP network r1 -- r2 -- r4 and r1 -- r3 -- r4, in which each router is its own AS and r4
+   * advertises its loopback. Routers export their connected and BGP routes. Each link connects
+   * interfaces {@code i<peer>} on its two routers.
+   */
+  private static SortedMap<String, Configuration> bgpNetwork() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    ImmutableSortedMap.Builder<String, Configuration> configurations =
+        ImmutableSortedMap.naturalOrder();
+    for (int i = 1; i <= 4; i++) {
+      Configuration c = cb.setHostname("r" + i).build();
+      Vrf vrf = nf.vrfBuilder().setOwner(c).setName(DEFAULT_VRF_NAME).build();
+      nf.bgpProcessBuilder()
+          .setVrf(vrf)
+          .setRouterId(Ip.parse(i + "." + i + "." + i + "." + i))
+          .build();
+      nf.routingPolicyBuilder()
+          .setOwner(c)
+          .setName("EXPORT")
+          .setStatements(
+              ImmutableList.of(
+                  new If(
+                      new Disjunction(
+                          new MatchProtocol(RoutingProtocol.BGP),
+                          new MatchProtocol(RoutingProtocol.CONNECTED)),
+                      ImmutableList.of(
+                          new SetOrigin(new LiteralOrigin(OriginType.INCOMPLETE, null)),
+                          Statements.ExitAccept.toStaticStatement()),
+                      ImmutableList.of(Statements.ExitReject.toStaticStatement()))))
+          .build();
+      configurations.put(c.getHostname(), c);
+    }
+    SortedMap<String, Configuration> configs = configurations.build();
+    nf.interfaceBuilder()
+        .setOwner(configs.get("r4"))
+        .setVrf(configs.get("r4").getDefaultVrf())
+        .setName("lo")
+        .setAddress(new InterfaceAddress(BGP_LOOPBACK.getStartIp(), Prefix.MAX_PREFIX_LENGTH))
+        .build();
+    bgpLink(nf, configs, 1, 2);
+    bgpLink(nf, configs, 1, 3);
+    bgpLink(nf, configs, 2, 4);
+    bgpLink(nf, configs, 3, 4);
+    return configs;
+  }
+
+  /** Connects routers {@code r<a>} and {@code r<b>} by a link with an eBGP session over it. */
+  private static void bgpLink(
+      NetworkFactory nf, SortedMap<String, Configuration> configs, int a, int b) {
+    Ip ipA = Ip.parse("10." + a + "." + b + ".0");
+    Ip ipB = Ip.parse("10." + a + "." + b + ".1");
+    bgpPeer(nf, configs.get("r" + a), "i" + b, ipA, ipB, b);
+    bgpPeer(nf, configs.get("r" + b), "i" + a, ipB, ipA, a);
+  }
+
+  private static void bgpPeer(
+      NetworkFactory nf, Configuration c, String ifaceName, Ip localIp, Ip peerIp, long remoteAs) {
+    Vrf vrf = c.getDefaultVrf();
+    nf.interfaceBuilder()
+        .setOwner(c)
+        .setVrf(vrf)
+        .setName(ifaceName)
+        .setAddress(new InterfaceAddress(localIp, 31))
+        .build();
+    nf.bgpNeighborBuilder()
+        .setBgpProcess(vrf.getBgpProcess())
+        .setLocalAs(Long.parseLong(c.getHostname().substring(1)))
+        .setRemoteAs(remoteAs)
+        .setLocalIp(localIp)
+        .setPeerAddress(peerIp)
+        .setExportPolicy("EXPORT")
+        .build();
+  }
+
+  @Test
+  public void testLinkFailure() {
+    FailureScenario scenario =
+        FailureScenario.linkFailure(
+            new Edge(new NodeInterfacePair("r1", "i1"), new NodeInterfacePair("r2", "i1")));
+    FailureScenarioResult result =
+        _engine
+            .computeFailureScenarios(
+                _baseDataPlane, Collections.emptySet(), ImmutableList.of(scenario))
+            .get(scenario.getName());
+
+    assertThat(result.getAddedRoutes().keySet(), empty());
+    assertThat(
+        result.getRemovedRoutes().get("r1").get(DEFAULT_VRF_NAME), hasItem(hasPrefix(LOOPBACK)));
+    assertThat(result.getRemovedRoutes().get("r1").get(DEFAULT_VRF_NAME), hasItem(hasPrefix(LINK)));
+    assertThat(result.getRemovedRoutes().get("r2").get(DEFAULT_VRF_NAME), hasItem(hasPrefix(LINK)));
+    assertThat(
+        result.getRemovedRoutes().get("r2").get(DEFAULT_VRF_NAME),
+        not(hasItem(hasPrefix(LOOPBACK))));
+    assertThat(result.getFibChanges().get("r1").get(DEFAULT_VRF_NAME).get(LOOPBACK), empty());
+    assertThat(result.getFibChanges().get("r2").get(DEFAULT_VRF_NAME).get(LINK), empty());
+    assertThat(result.getFibChanges().get("r2").get(DEFAULT_VRF_NAME), not(hasKey(LOOPBACK)));
+
+    // The base data plane and its configurations are unchanged
+    assertThat(
+        _baseDataPlane.getConfigurations().get("r1").getAllInterfaces().get("i1").getActive(),
+        equalTo(true));
+    assertThat(
+        _baseDataPlane
+            .getFibs()
+            .get("r1")
+            .get(DEFAULT_VRF_NAME)
+            .getNextHopInterfaces(Ip.parse("2.2.2.2")),
+        contains("i1"));
+  }
+
+  @Test
+  public void testDependentInterfacesFail() {
+    FailureScenario scenario =
+        new FailureScenario("r1[i1]", ImmutableSet.of(new NodeInterfacePair("r1", "i1")));
+    FailureScenarioResult result =
+        _engine
+            .computeFailureScenarios(
+                _baseDataPlane, Collections.emptySet(), ImmutableList.of(scenario))
+            .get(scenario.getName());
+
+    // The subinterface of the failed interface goes down with it
+    assertThat(
+        result.getRemovedRoutes().get("r1").get(DEFAULT_VRF_NAME),
+        hasItem(hasPrefix(SUBINTERFACE_LINK)));
+    assertThat(
+        result.getFibChanges().get("r1").get(DEFAULT_VRF_NAME).get(SUBINTERFACE_LINK), empty());
+    assertThat(
+        _baseDataPlane.getConfigurations().get("r1").getAllInterfaces().get("i1.10").getActive(),
+        equalTo(true));
+  }
+
+  @Test
+  public void testNoActiveInterfaceFails() {
+    FailureScenario missing =
+        new FailureScenario("missing", ImmutableSet.of(new NodeInterfacePair("r1", "i2")));
+    FailureScenario link =
+        new FailureScenario("link", ImmutableSet.of(new NodeInterfacePair("r2", "i1")));
+    SortedMap<String, FailureScenarioResult> results =
+        _engine.computeFailureScenarios(
+            _baseDataPlane, Collections.emptySet(), ImmutableList.of(missing, link));
+
+    assertThat(results.keySet(), contains("link", "missing"));
+    assertThat(results.get("missing").isEmpty(), equalTo(true));
+    assertThat(results.get("link").isEmpty(), equalTo(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateScenarioNames() {
+    FailureScenario scenario = new FailureScenario("s", ImmutableSet.of());
+    _engine.computeFailureScenarios(
+        _baseDataPlane, Collections.emptySet(), ImmutableList.of(scenario, scenario));
+  }
+
+  @Test
+  public void testLinkFailureChangesBgpBestPath() {
+    SortedMap<String, Configuration> configurations = bgpNetwork();
+    IncrementalDataPlane baseDataPlane =
+        (IncrementalDataPlane)
+            new IncrementalBdpEngine(
+                    new IncrementalDataPlaneSettings(),
+                    new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false),
+                    (s, i) -> new AtomicInteger())
+                .computeDataPlane(
+                    configurations,
+                    TopologyUtil.synthesizeL3Topology(configurations),
+                    Collections.emptySet())
+                ._dataPlane;
+    // r1 prefers the path through r2, with the lower router ID
+    assertThat(
+        baseDataPlane
+            .getFibs()
+            .get("r1")
+            .get(DEFAULT_VRF_NAME)
+            .getNextHopInterfaces(BGP_LOOPBACK.getStartIp()),
+        contains("i2"));
+
+    FailureScenario scenario =
+        FailureScenario.linkFailure(
+            new Edge(new NodeInterfacePair("r1", "i2"), new NodeInterfacePair("r2", "i1")));
+    FailureScenarioResult result =
+        _engine
+            .computeFailureScenarios(
+                baseDataPlane, Collections.emptySet(), ImmutableList.of(scenario))
+            .get(scenario.getName());
+
+    // r1 falls back to the path through r3
+    assertThat(
+        result.getRemovedRoutes().get("r1").get(DEFAULT_VRF_NAME),
+        hasItem(allOf(hasPrefix(BGP_LOOPBACK), hasNextHopIp(equalTo(Ip.parse("10.1.2.1"))))));
+    assertThat(
+        result.getAddedRoutes().get("r1").get(DEFAULT_VRF_NAME),
+        hasItem(allOf(hasPrefix(BGP_LOOPBACK), hasNextHopIp(equalTo(Ip.parse("10.1.3.1"))))));
+    assertThat(
+        result.getFibChanges().get("r1").get(DEFAULT_VRF_NAME).get(BGP_LOOPBACK), contains("i3"));
+    // r4 no longer learns the link between r1 and r2
+    assertThat(
+        result.getRemovedRoutes().get("r4").get(DEFAULT_VRF_NAME),
+        hasItem(hasPrefix(Prefix.parse("10.1.2.0/31"))));
+  }
+}
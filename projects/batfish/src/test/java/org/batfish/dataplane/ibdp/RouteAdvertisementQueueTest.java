@@ -0,0 +1,51 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Iterator;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.dataplane.rib.RouteAdvertisement;
+import org.junit.Test;
+
+/** Tests of {@link RouteAdvertisementQueue} */
+public class RouteAdvertisementQueueTest {
+
+  private static RouteAdvertisement<StaticRoute> advertisement(String prefix) {
+    return new RouteAdvertisement<>(
+        StaticRoute.builder()
+            .setNetwork(Prefix.parse(prefix))
+            .setNextHopInterface("foo")
+            .setAdministrativeCost(1)
+            .build());
+  }
+
+  @Test
+  public void testFingerprint() {
+    RouteAdvertisementQueue<StaticRoute> queue = new RouteAdvertisementQueue<>();
+    RouteAdvertisement<StaticRoute> a1 = advertisement("1.1.1.0/24");
+    RouteAdvertisement<StaticRoute> a2 = advertisement("2.2.2.0/24");
+    RouteAdvertisement<StaticRoute> a3 = advertisement("3.3.3.0/24");
+
+    assertThat(queue.getFingerprint(), equalTo(0));
+
+    queue.add(a1);
+    queue.addAll(ImmutableList.of(a2, a3));
+    assertThat(ImmutableList.copyOf(queue), equalTo(ImmutableList.of(a1, a2, a3)));
+    assertThat(queue.getFingerprint(), equalTo(a1.hashCode() + a2.hashCode() + a3.hashCode()));
+
+    assertThat(queue.remove(), equalTo(a1));
+    assertThat(queue.getFingerprint(), equalTo(a2.hashCode() + a3.hashCode()));
+
+    Iterator<RouteAdvertisement<StaticRoute>> iterator = queue.iterator();
+    iterator.next();
+    iterator.remove();
+    assertThat(ImmutableList.copyOf(queue), equalTo(ImmutableList.of(a3)));
+    assertThat(queue.getFingerprint(), equalTo(a3.hashCode()));
+
+    queue.clear();
+    assertThat(queue.getFingerprint(), equalTo(0));
+  }
+}
@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.util.Set;
 import org.batfish.common.WellKnownCommunity;
@@ -119,6 +120,40 @@ public final class BgpProtocolHelperTransformBgpRouteOnExportTest {
     }
   }
 
+  /**
+   * Test that the checks made by the receiver are left out of the receiver-independent
+   * transformation, but applied when the receiving VRF is given
+   */
+  @Test
+  public void testReceiverChecks() throws BgpRoutePropagationException {
+    setUpPeers(true);
+    // The receiver originated the route
+    BgpRoute route = _baseBgpRouteBuilder.setOriginatorIp(DEST_IP).build();
+    assertThat(
+        BgpProtocolHelper.isOriginatedByReceiver(_sessionProperties, _toVrf, route), equalTo(true));
+    assertThat(runTransformBgpRouteOnExport(route), nullValue());
+    assertThat(
+        BgpProtocolHelper.transformBgpRouteOnExport(
+            _fromNeighbor, _toNeighbor, _sessionProperties, _fromVrf, route),
+        not(nullValue()));
+
+    // The receiver's cluster ids come from its neighbors
+    _toVrf
+        .getBgpProcess()
+        .getActiveNeighbors()
+        .put(
+            Prefix.parse("10.0.0.1/32"),
+            _nf.bgpNeighborBuilder().setLocalAs(AS1).setRemoteAs(AS1).setClusterId(5L).build());
+    assertThat(
+        BgpProtocolHelper.isClusterListRejectedByReceiver(
+            _sessionProperties, _toVrf, _baseBgpRouteBuilder.build(), ImmutableSet.of(5L)),
+        equalTo(true));
+    assertThat(
+        BgpProtocolHelper.isClusterListRejectedByReceiver(
+            _sessionProperties, _toVrf, _baseBgpRouteBuilder.build(), ImmutableSet.of(6L)),
+        equalTo(false));
+  }
+
   /** Test that transformBgpRouteOnExport copies the tag from the input route */
   @Test
   public void testTagInTransformedRoute() throws BgpRoutePropagationException {
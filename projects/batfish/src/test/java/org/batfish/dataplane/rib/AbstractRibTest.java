@@ -496,6 +496,86 @@ public class AbstractRibTest {
     assertThat(_rib.getRoutes(), hasSize(0));
   }
 
+  @Test
+  public void testClearMissingPrefix() {
+    StaticRoute r =
+        StaticRoute.builder()
+            .setNetwork(Prefix.parse("11.0.0.0/24"))
+            .setNextHopIp(Ip.ZERO)
+            .setNextHopInterface(null)
+            .setAdministrativeCost(1)
+            .setMetric(0L)
+            .setTag(1)
+            .build();
+    _rib.mergeRoute(r);
+
+    // A prefix of the same length in the same subtree is not a match
+    assertThat(_rib.clearRoutes(Prefix.parse("10.0.0.0/24")).isEmpty(), equalTo(true));
+    assertThat(_rib.getRoutes(), contains(r));
+  }
+
+  /** Routes for the prefixes 10.0.0.0/8, 10.0.0.0/16, 10.0.0.0/24, 10.1.0.0/16, and 11.0.0.0/8 */
+  private List<StaticRoute> addPrefixIndexRoutes() {
+    StaticRoute.Builder b =
+        StaticRoute.builder()
+            .setNextHopIp(Ip.ZERO)
+            .setNextHopInterface(null)
+            .setAdministrativeCost(1)
+            .setMetric(0L)
+            .setTag(0);
+    List<StaticRoute> routes = new ArrayList<>();
+    for (String prefix :
+        new String[] {"10.0.0.0/8", "10.0.0.0/16", "10.0.0.0/24", "10.1.0.0/16", "11.0.0.0/8"}) {
+      StaticRoute route = b.setNetwork(Prefix.parse(prefix)).build();
+      _rib.mergeRoute(route);
+      routes.add(route);
+    }
+    return routes;
+  }
+
+  @Test
+  public void testGetRoutesForPrefix() {
+    List<StaticRoute> routes = addPrefixIndexRoutes();
+
+    assertThat(_rib.getRoutes(Prefix.parse("10.0.0.0/16")), contains(routes.get(1)));
+    assertThat(_rib.getRoutes(Prefix.parse("11.0.0.0/8")), contains(routes.get(4)));
+    // Missing prefixes, including ones with the same length as a stored prefix in the subtree
+    assertThat(_rib.getRoutes(Prefix.parse("10.2.0.0/16")), empty());
+    assertThat(_rib.getRoutes(Prefix.parse("10.0.0.0/12")), empty());
+    assertThat(_rib.getRoutes(Prefix.parse("10.0.0.0/32")), empty());
+  }
+
+  @Test
+  public void testGetRoutesCoveredBy() {
+    List<StaticRoute> routes = addPrefixIndexRoutes();
+
+    assertThat(
+        _rib.getRoutesCoveredBy(Prefix.parse("10.0.0.0/8")),
+        containsInAnyOrder(routes.get(0), routes.get(1), routes.get(2), routes.get(3)));
+    assertThat(
+        _rib.getRoutesCoveredBy(Prefix.parse("10.0.0.0/16")),
+        containsInAnyOrder(routes.get(1), routes.get(2)));
+    assertThat(_rib.getRoutesCoveredBy(Prefix.parse("10.1.0.0/16")), contains(routes.get(3)));
+    assertThat(_rib.getRoutesCoveredBy(Prefix.parse("10.2.0.0/16")), empty());
+    assertThat(_rib.getRoutesCoveredBy(Prefix.parse("10.0.0.0/32")), empty());
+    assertThat(_rib.getRoutesCoveredBy(Prefix.ZERO), equalTo(_rib.getRoutes()));
+  }
+
+  @Test
+  public void testGetRoutesCovering() {
+    List<StaticRoute> routes = addPrefixIndexRoutes();
+
+    assertThat(
+        _rib.getRoutesCovering(Prefix.parse("10.0.0.0/24")),
+        containsInAnyOrder(routes.get(0), routes.get(1), routes.get(2)));
+    assertThat(
+        _rib.getRoutesCovering(Prefix.parse("10.1.2.0/24")),
+        containsInAnyOrder(routes.get(0), routes.get(3)));
+    assertThat(_rib.getRoutesCovering(Prefix.parse("10.0.0.0/8")), contains(routes.get(0)));
+    assertThat(_rib.getRoutesCovering(Prefix.parse("12.0.0.0/8")), empty());
+    assertThat(_rib.getRoutesCovering(Prefix.ZERO), empty());
+  }
+
   @Test
   public void testLengthLimit() {
     StaticRoute.Builder builder =
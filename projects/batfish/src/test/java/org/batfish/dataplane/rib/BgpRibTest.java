@@ -10,6 +10,7 @@ import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -358,6 +359,25 @@ public class BgpRibTest {
     assertThat(bestPathRib.getBestPathRoutes(), equalTo(Collections.singleton(bestPath)));
   }
 
+  @Test
+  public void testPrefixLookupsReturnOnlyBestPaths() {
+    BgpRoute bestPath = _rb.build();
+    _bestPathRib.mergeRoute(_rb.setReceivedFromIp(Ip.parse("2.2.2.2")).build());
+    _bestPathRib.mergeRoute(bestPath);
+    BgpRoute moreSpecific = _rb.setNetwork(Prefix.parse("10.1.0.0/16")).build();
+    _bestPathRib.mergeRoute(moreSpecific);
+
+    assertThat(
+        _bestPathRib.getRoutes(Prefix.parse("10.0.0.0/8")),
+        equalTo(Collections.singleton(bestPath)));
+    assertThat(
+        _bestPathRib.getRoutesCoveredBy(Prefix.parse("10.0.0.0/8")),
+        equalTo(ImmutableSet.of(bestPath, moreSpecific)));
+    assertThat(
+        _bestPathRib.getRoutesCovering(Prefix.parse("10.1.0.0/16")),
+        equalTo(ImmutableSet.of(bestPath, moreSpecific)));
+  }
+
   @Test
   public void testMergeMultiplePrefixes() {
     _multiPathRib.mergeRoute(_rb.build());
@@ -0,0 +1,134 @@
+package org.batfish.dataplane.rib;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.dataplane.rib.RouteAdvertisement.Reason;
+import org.junit.Test;
+
+/**
+ * Tests of {@link CompactRibTree}, by checking that a {@link Rib} backed by it behaves exactly like
+ * one backed by {@link RibTree}.
+ */
+public class CompactRibTreeTest {
+
+  private static final int OPERATIONS = 5000;
+
+  /** A compact RIB that prefers routes with lower administrative cost */
+  private static final class AdminCostRib extends AbstractRib<AbstractRoute> {
+
+    private static final long serialVersionUID = 1L;
+
+    AdminCostRib(Map<Prefix, SortedSet<AbstractRoute>> backupRoutes) {
+      super(backupRoutes, RibStorage.COMPACT);
+    }
+
+    @Override
+    public int comparePreference(AbstractRoute lhs, AbstractRoute rhs) {
+      return Integer.compare(rhs.getAdministrativeCost(), lhs.getAdministrativeCost());
+    }
+  }
+
+  /** The advertisements of a delta, ignoring the order of routes replaced at the same time */
+  private static Set<RouteAdvertisement<AbstractRoute>> actions(RibDelta<AbstractRoute> delta) {
+    return ImmutableSet.copyOf(delta.getActions());
+  }
+
+  private static StaticRoute randomRoute(Random random) {
+    // Draw from a small address space so that prefixes overlap and collide often
+    long ip = (10L << 24) + ((long) random.nextInt(1 << 12) << 12);
+    return StaticRoute.builder()
+        .setNetwork(Prefix.create(Ip.create(ip), 8 + random.nextInt(25)))
+        .setNextHopIp(Ip.create(random.nextInt(4) + 1))
+        .setAdministrativeCost(random.nextInt(3))
+        .setNonForwarding(random.nextInt(8) == 0)
+        .build();
+  }
+
+  private static void assertSameRoutes(Rib compact, Rib tree, Random random) {
+    assertThat(compact.getRoutes(), equalTo(tree.getRoutes()));
+    assertThat(compact.getRoutesHashCode(), equalTo(tree.getRoutesHashCode()));
+    assertThat(compact, equalTo(tree));
+    for (int i = 0; i < 20; i++) {
+      Prefix prefix = randomRoute(random).getNetwork();
+      assertThat(compact.getRoutes(prefix), equalTo(tree.getRoutes(prefix)));
+      assertThat(compact.getRoutesCoveredBy(prefix), equalTo(tree.getRoutesCoveredBy(prefix)));
+      assertThat(compact.getRoutesCovering(prefix), equalTo(tree.getRoutesCovering(prefix)));
+      Ip ip = Ip.create(prefix.getStartIp().asLong() + random.nextInt(256));
+      assertThat(compact.longestPrefixMatch(ip), equalTo(tree.longestPrefixMatch(ip)));
+      int maxPrefixLength = random.nextInt(33);
+      assertThat(
+          compact.longestPrefixMatch(ip, maxPrefixLength),
+          equalTo(tree.longestPrefixMatch(ip, maxPrefixLength)));
+    }
+  }
+
+  @Test
+  public void testEquivalentToRibTree() {
+    Random random = new Random(0L);
+    Rib compact = new Rib(RibStorage.COMPACT);
+    Rib tree = new Rib(RibStorage.TREE);
+    List<AbstractRoute> merged = new ArrayList<>();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int op = random.nextInt(10);
+      if (op < 6 || merged.isEmpty()) {
+        StaticRoute route = randomRoute(random);
+        merged.add(route);
+        assertThat(
+            actions(compact.mergeRouteGetDelta(route)),
+            equalTo(actions(tree.mergeRouteGetDelta(route))));
+      } else if (op < 9) {
+        AbstractRoute route = merged.get(random.nextInt(merged.size()));
+        assertThat(
+            actions(compact.removeRouteGetDelta(route, Reason.WITHDRAW)),
+            equalTo(actions(tree.removeRouteGetDelta(route, Reason.WITHDRAW))));
+      } else {
+        Prefix prefix = merged.get(random.nextInt(merged.size())).getNetwork();
+        assertThat(
+            actions(compact.clearRoutes(prefix)), equalTo(actions(tree.clearRoutes(prefix))));
+      }
+      if (i % 100 == 0) {
+        assertSameRoutes(compact, tree, random);
+      }
+    }
+    assertSameRoutes(compact, tree, random);
+    assertThat(compact.getMatchingIps(), equalTo(tree.getMatchingIps()));
+    assertThat(compact.getRoutableIps(), equalTo(tree.getRoutableIps()));
+  }
+
+  @Test
+  public void testBackupRoutes() {
+    StaticRoute.Builder rb =
+        StaticRoute.builder().setNetwork(Prefix.parse("10.0.0.0/24")).setNextHopInterface("eth0");
+    StaticRoute best = rb.setAdministrativeCost(1).build();
+    StaticRoute backup = rb.setAdministrativeCost(5).build();
+    Map<Prefix, SortedSet<AbstractRoute>> backupRoutes = new TreeMap<>();
+    backupRoutes.put(backup.getNetwork(), ImmutableSortedSet.of(backup));
+    AbstractRib<AbstractRoute> compact = new AdminCostRib(backupRoutes);
+
+    compact.mergeRoute(backup);
+    compact.mergeRoute(best);
+    assertThat(compact.getRoutes(best.getNetwork()), equalTo(ImmutableSortedSet.of(best)));
+
+    // Removing the best route falls back to the backup
+    RibDelta<AbstractRoute> delta = compact.removeRouteGetDelta(best, Reason.WITHDRAW);
+    assertThat(
+        delta,
+        equalTo(
+            RibDelta.<AbstractRoute>builder().remove(best, Reason.WITHDRAW).add(backup).build()));
+    assertThat(compact.getRoutes(), equalTo(ImmutableSortedSet.of(backup)));
+  }
+}
@@ -0,0 +1,179 @@
+package org.batfish.dataplane.rib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the prefix-indexed lookups of {@link AbstractRib} ({@link
+ * AbstractRib#getRoutes(Prefix)}, {@link AbstractRib#getRoutesCoveredBy(Prefix)}, {@link
+ * AbstractRib#getRoutesCovering(Prefix)}) against filtering the full route set, on a synthetic
+ * Internet-sized table, for each {@link RibStorage}.
+ *
+ * <p>Not run as part of the test suite. Run {@link #main} from the test classpath. Use {@code -p
+ * numRoutes=...} to change the size of the table, and {@code -prof gc} to compare the memory
+ * footprint of the storages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class RibLookupBenchmark {
+
+  /** Number of distinct queries of each kind, cycled through by the benchmarks */
+  private static final int NUM_QUERIES = 1 << 13;
+
+  /** Prefix lengths of the synthetic table, roughly following the shape of a full BGP table. */
+  private static final int[] PREFIX_LENGTHS = {
+    24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 23, 23, 22, 22, 21, 20, 19, 18, 17, 16
+  };
+
+  /** Number of queries of each kind on which the indexed and full-scan lookups must agree */
+  private static final int NUM_CHECKED_QUERIES = 20;
+
+  private static final long SEED = 42L;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RibLookupBenchmark.class.getName()).build()).run();
+  }
+
+  @Param({"800000"})
+  public int numRoutes;
+
+  @Param({"TREE", "COMPACT"})
+  public RibStorage storage;
+
+  /** Stored prefixes */
+  private Prefix[] _exact;
+
+  /** Index of the next query */
+  private int _next;
+
+  /** Host routes within stored prefixes */
+  private Prefix[] _narrow;
+
+  private Rib _rib;
+
+  /** The covering /8s of stored prefixes */
+  private Prefix[] _wide;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(SEED);
+    _rib = new Rib(storage);
+    List<Prefix> prefixes = new ArrayList<>(numRoutes);
+    StaticRoute.Builder rb =
+        StaticRoute.builder().setNextHopInterface("eth0").setAdministrativeCost(1);
+    while (prefixes.size() < numRoutes) {
+      Prefix prefix = randomPrefix(random);
+      if (_rib.mergeRoute(rb.setNetwork(prefix).build())) {
+        prefixes.add(prefix);
+      }
+    }
+    _exact = sample(random, prefixes, p -> p);
+    _wide = sample(random, prefixes, p -> Prefix.create(p.getStartIp(), 8));
+    _narrow = sample(random, prefixes, p -> Prefix.create(p.getStartIp(), 32));
+    for (int i = 0; i < NUM_CHECKED_QUERIES; i++) {
+      checkAgree(_rib.getRoutes(_exact[i]), exactScan(_exact[i]), _exact[i]);
+      checkAgree(_rib.getRoutesCoveredBy(_wide[i]), coveredByScan(_wide[i]), _wide[i]);
+      checkAgree(_rib.getRoutesCovering(_narrow[i]), coveringScan(_narrow[i]), _narrow[i]);
+    }
+  }
+
+  @Benchmark
+  public Set<AbstractRoute> coveredByFullScan() {
+    return coveredByScan(_wide[nextQuery()]);
+  }
+
+  @Benchmark
+  public Set<AbstractRoute> coveredByIndexed() {
+    return _rib.getRoutesCoveredBy(_wide[nextQuery()]);
+  }
+
+  @Benchmark
+  public Set<AbstractRoute> coveringFullScan() {
+    return coveringScan(_narrow[nextQuery()]);
+  }
+
+  @Benchmark
+  public Set<AbstractRoute> coveringIndexed() {
+    return _rib.getRoutesCovering(_narrow[nextQuery()]);
+  }
+
+  @Benchmark
+  public Set<AbstractRoute> exactFullScan() {
+    return exactScan(_exact[nextQuery()]);
+  }
+
+  @Benchmark
+  public Set<AbstractRoute> exactIndexed() {
+    return _rib.getRoutes(_exact[nextQuery()]);
+  }
+
+  private Set<AbstractRoute> coveredByScan(Prefix p) {
+    return filter(r -> p.containsPrefix(r.getNetwork()));
+  }
+
+  private Set<AbstractRoute> coveringScan(Prefix p) {
+    return filter(r -> r.getNetwork().containsPrefix(p));
+  }
+
+  private Set<AbstractRoute> exactScan(Prefix p) {
+    return filter(r -> r.getNetwork().equals(p));
+  }
+
+  private Set<AbstractRoute> filter(Predicate<AbstractRoute> predicate) {
+    return _rib.getRoutes().stream().filter(predicate).collect(Collectors.toSet());
+  }
+
+  private int nextQuery() {
+    return _next++ & (NUM_QUERIES - 1);
+  }
+
+  private static void checkAgree(
+      Set<AbstractRoute> indexed, Set<AbstractRoute> fullScan, Prefix query) {
+    if (!indexed.equals(fullScan)) {
+      throw new IllegalStateException(String.format("Lookup of %s disagrees", query));
+    }
+  }
+
+  private static Prefix randomPrefix(Random random) {
+    // Stay within unicast space, 1.0.0.0 - 223.255.255.255
+    long ip = (1L << 24) + (random.nextLong() & 0xFFFFFFFFL) % (223L << 24);
+    return Prefix.create(Ip.create(ip), PREFIX_LENGTHS[random.nextInt(PREFIX_LENGTHS.length)]);
+  }
+
+  private static Prefix[] sample(
+      Random random, List<Prefix> prefixes, Function<Prefix, Prefix> transform) {
+    Prefix[] sample = new Prefix[NUM_QUERIES];
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      sample[i] = transform.apply(prefixes.get(random.nextInt(prefixes.size())));
+    }
+    return sample;
+  }
+}
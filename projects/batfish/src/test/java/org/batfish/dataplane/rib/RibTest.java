@@ -100,4 +100,36 @@ public class RibTest {
     // non-forwarding routes don't subtract from the match space of forwarding routes
     assertThat(matchingIps.get(prefix1), containsIp(prefix11.getStartIp()));
   }
+
+  @Test
+  public void testGetRoutesHashCode() {
+    Rib rib = new Rib();
+    StaticRoute.Builder sb = StaticRoute.builder().setNextHopInterface("foo");
+    Prefix prefix = Prefix.parse("10.0.0.0/8");
+    AbstractRoute worse = sb.setNetwork(prefix).setAdministrativeCost(100).build();
+    AbstractRoute better1 = sb.setNetwork(prefix).setAdministrativeCost(1).setTag(1).build();
+    AbstractRoute better2 = sb.setNetwork(prefix).setAdministrativeCost(1).setTag(2).build();
+    AbstractRoute other = sb.setNetwork(Prefix.parse("10.0.0.0/24")).build();
+
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+
+    // Add, replace with better routes, and add an equally preferred route
+    rib.mergeRoute(worse);
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+    rib.mergeRoute(other);
+    rib.mergeRoute(better1);
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+    rib.mergeRoute(better2);
+    rib.mergeRoute(better2);
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+
+    // Remove routes, including ones that are not present
+    rib.removeRoute(worse);
+    rib.removeRoute(better1);
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+    rib.clearRoutes(prefix);
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+    rib.removeRoute(other);
+    assertThat(rib.getRoutesHashCode(), equalTo(0));
+  }
 }
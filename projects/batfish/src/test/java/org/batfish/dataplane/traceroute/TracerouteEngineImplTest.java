@@ -78,6 +78,7 @@ import org.batfish.datamodel.RoutingProtocol;
 import org.batfish.datamodel.StaticRoute;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.acl.AclLineMatchExprs;
+import org.batfish.datamodel.acl.CompiledAcl;
 import org.batfish.datamodel.acl.MatchSrcInterface;
 import org.batfish.datamodel.acl.OriginatingFromDevice;
 import org.batfish.datamodel.collections.NodeInterfacePair;
@@ -500,17 +501,13 @@ public class TracerouteEngineImplTest {
                             matchSrc(Prefix.parse(prefix))))))
             .build();
 
+    CompiledAcl compiledFilter =
+        CompiledAcl.compile(filter, ImmutableMap.of(filterName, filter), ImmutableMap.of());
     Flow flow = makeFlow();
 
     FilterStep step =
         TracerouteUtils.createFilterStep(
-            flow,
-            iface1,
-            filter,
-            FilterType.INGRESS_FILTER,
-            ImmutableMap.of(filterName, filter),
-            ImmutableMap.of(),
-            false);
+            flow, iface1, compiledFilter, FilterType.INGRESS_FILTER, false);
 
     assertThat(step.getAction(), equalTo(StepAction.PERMITTED));
 
@@ -519,13 +516,7 @@ public class TracerouteEngineImplTest {
 
     step =
         TracerouteUtils.createFilterStep(
-            flow,
-            iface2,
-            filter,
-            FilterType.INGRESS_FILTER,
-            ImmutableMap.of(filterName, filter),
-            ImmutableMap.of(),
-            false);
+            flow, iface2, compiledFilter, FilterType.INGRESS_FILTER, false);
 
     assertThat(step.getAction(), equalTo(StepAction.DENIED));
 
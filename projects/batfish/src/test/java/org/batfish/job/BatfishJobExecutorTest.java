@@ -2,12 +2,15 @@ package org.batfish.job;
 
 import static org.junit.Assert.assertEquals;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
@@ -49,6 +52,97 @@ public class BatfishJobExecutorTest {
     assertEquals(output, Sets.newHashSet("result1", "result2"));
   }
 
+  @Test
+  public void testRunJobsInPipelineResults() {
+    Settings settings = new Settings();
+
+    List<BfTestJob> jobs = new ArrayList<>();
+    jobs.add(new BfTestJob(settings, "result1"));
+    jobs.add(new BfTestJob(settings, "result2"));
+    jobs.add(new BfTestJob(settings, "result3"));
+
+    Set<String> output = new HashSet<>();
+    BfTestAnswerElement ae = new BfTestAnswerElement();
+    BatfishJobExecutor.runJobsInPipeline(
+        settings, _logger, jobs, output, ae, false, TEST_EXECUTOR_DESC, 1);
+
+    // every job should run even though only one is in flight at a time
+    assertEquals(output, Sets.newHashSet("result1", "result2", "result3"));
+  }
+
+  @Test
+  public void testRunJobsInPipelineBackgroundOutput() {
+    Settings settings = new Settings();
+    settings.setSequential(false);
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<BfTestJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      jobs.add(new BfSlowTestJob(settings, "result" + i, running, maxRunning));
+    }
+
+    // with one result always pending, a window of two leaves room for a single job
+    BackgroundTestOutput output = new BackgroundTestOutput(1);
+    BatfishJobExecutor.runJobsInPipeline(
+        settings, _logger, jobs, output, new BfTestAnswerElement(), false, TEST_EXECUTOR_DESC, 2);
+
+    assertEquals(5, output.size());
+    assertEquals(1, maxRunning.get());
+  }
+
+  @Test
+  public void testRunJobsInPipelineBackgroundOutputFull() {
+    Settings settings = new Settings();
+
+    List<BfTestJob> jobs = new ArrayList<>();
+    jobs.add(new BfTestJob(settings, "result1"));
+    jobs.add(new BfTestJob(settings, "result2"));
+
+    // more pending results than the window still lets one job at a time through
+    BackgroundTestOutput output = new BackgroundTestOutput(5);
+    BatfishJobExecutor.runJobsInPipeline(
+        settings, _logger, jobs, output, new BfTestAnswerElement(), false, TEST_EXECUTOR_DESC, 2);
+
+    assertEquals(Sets.newHashSet("result1", "result2"), output);
+  }
+
+  @Test
+  public void testLongestJobFirst() {
+    Settings settings = new Settings();
+    settings.setSequential(false);
+
+    List<BfTestJob> jobs = new ArrayList<>();
+    jobs.add(new BfTestJob(settings, "small", 1L));
+    jobs.add(new BfTestJob(settings, "large", 100L));
+    jobs.add(new BfTestJob(settings, "medium", 10L));
+
+    // with a window of one, results are applied in the order in which jobs are started
+    Set<String> output = new LinkedHashSet<>();
+    BatfishJobExecutor.runJobsInPipeline(
+        settings, _logger, jobs, output, new BfTestAnswerElement(), false, TEST_EXECUTOR_DESC, 1);
+
+    assertEquals(ImmutableList.copyOf(output), ImmutableList.of("large", "medium", "small"));
+    // the cost of each job is estimated once, not on every comparison of the sort
+    jobs.forEach(job -> assertEquals(1, job._estimates));
+  }
+
+  @Test
+  public void testRunJobsInPipelineInvalidWindow() {
+    Settings settings = new Settings();
+
+    _thrown.expect(BatfishException.class);
+    BatfishJobExecutor.runJobsInPipeline(
+        settings,
+        _logger,
+        new ArrayList<BfTestJob>(),
+        new HashSet<>(),
+        new BfTestAnswerElement(),
+        false,
+        TEST_EXECUTOR_DESC,
+        0);
+  }
+
   @Test
   public void testHandleJobResultSuccess() {
     Settings settings = new Settings();
@@ -120,13 +214,26 @@ public class BatfishJobExecutorTest {
 
   /** Class for Batfish test job */
   private class BfTestJob extends BatfishJob<BfTestResult> {
+    private final long _estimatedCost;
+    private int _estimates;
     private String _testValue;
 
     public BfTestJob(Settings settings, String testValue) {
+      this(settings, testValue, 0L);
+    }
+
+    public BfTestJob(Settings settings, String testValue, long estimatedCost) {
       super(settings);
+      _estimatedCost = estimatedCost;
       _testValue = testValue;
     }
 
+    @Override
+    public long getEstimatedCost() {
+      _estimates++;
+      return _estimatedCost;
+    }
+
     @Override
     public BfTestResult call() {
       long startTime = System.currentTimeMillis();
@@ -135,6 +242,49 @@ public class BatfishJobExecutorTest {
     }
   }
 
+  /** A job that records the largest number of jobs running at once. */
+  private class BfSlowTestJob extends BfTestJob {
+    private final AtomicInteger _maxRunning;
+    private final AtomicInteger _running;
+
+    public BfSlowTestJob(
+        Settings settings, String testValue, AtomicInteger running, AtomicInteger maxRunning) {
+      super(settings, testValue);
+      _maxRunning = maxRunning;
+      _running = running;
+    }
+
+    @Override
+    public BfTestResult call() {
+      _maxRunning.accumulateAndGet(_running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        _running.decrementAndGet();
+      }
+      return super.call();
+    }
+  }
+
+  /** An output with a fixed number of results pending in the background. */
+  private static class BackgroundTestOutput extends HashSet<String>
+      implements BatfishJobExecutor.BackgroundOutput {
+    private static final long serialVersionUID = 1L;
+
+    private final int _pendingResults;
+
+    BackgroundTestOutput(int pendingResults) {
+      _pendingResults = pendingResults;
+    }
+
+    @Override
+    public int getPendingResults() {
+      return _pendingResults;
+    }
+  }
+
   private class BfTestResult extends BatfishJobResult<Set<String>, BfTestAnswerElement> {
     private String _result;
 
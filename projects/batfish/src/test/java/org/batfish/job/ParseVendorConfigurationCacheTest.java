@@ -0,0 +1,163 @@
+package org.batfish.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import java.util.TreeMap;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.Warnings;
+import org.batfish.common.plugin.PluginClientType;
+import org.batfish.common.plugin.PluginConsumer;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.answers.ParseStatus;
+import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.storage.FileBasedStorage;
+import org.batfish.vendor.VendorConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link ParseVendorConfigurationCache}. */
+public final class ParseVendorConfigurationCacheTest {
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static final String CONFIG = "!\nhostname r1\n!\ninterface Loopback0\n!\n";
+
+  private static final class TestPluginConsumer extends PluginConsumer {
+    private TestPluginConsumer() {
+      super(false);
+    }
+
+    @Override
+    public PluginClientType getType() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BatfishLogger getLogger() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private Settings _settings;
+
+  private FileBasedStorage _storage;
+
+  @Before
+  public void setup() throws Exception {
+    BatfishLogger logger = new BatfishLogger(BatfishLogger.LEVELSTR_WARN, false);
+    _settings = new Settings();
+    _settings.setLogger(logger);
+    _storage = new FileBasedStorage(_folder.newFolder().toPath(), logger);
+  }
+
+  private ParseVendorConfigurationCache newCache() {
+    return new ParseVendorConfigurationCache(
+        _storage, new NetworkId("network"), new TestPluginConsumer(), _settings);
+  }
+
+  private ParseVendorConfigurationResult parse(
+      ParseVendorConfigurationCache cache, String text, String filename) throws Exception {
+    ParseVendorConfigurationJob job =
+        new ParseVendorConfigurationJob(
+            _settings,
+            text,
+            filename,
+            new Warnings(true, true, true),
+            ConfigurationFormat.CISCO_IOS,
+            HashMultimap.create(),
+            null);
+    job.setCache(cache);
+    return job.call();
+  }
+
+  @Test
+  public void testReuse() throws Exception {
+    ParseVendorConfigurationResult parsed = parse(newCache(), CONFIG, "configs/r1.cfg");
+    assertThat(parsed.getFailureCause(), nullValue());
+
+    // A new cache instance, e.g. for the next snapshot, reuses the stored result
+    ParseVendorConfigurationCache cache = newCache();
+    ParseVendorConfigurationResult cached = parse(cache, CONFIG, "configs/r1.cfg");
+    assertThat(cache.getHits(), equalTo(1));
+    assertThat(cache.getMisses(), equalTo(0));
+
+    VendorConfiguration vc = cached.getVendorConfiguration();
+    assertThat(vc, not(sameInstance(parsed.getVendorConfiguration())));
+    assertThat(vc.getHostname(), equalTo("r1"));
+    assertThat(vc.getFilename(), equalTo("configs/r1.cfg"));
+    assertThat(vc.getWarnings(), sameInstance(cached.getWarnings()));
+
+    // The cached result is applied like a fresh one
+    ParseVendorConfigurationAnswerElement parsedAnswer =
+        new ParseVendorConfigurationAnswerElement();
+    parsed.applyTo(new TreeMap<>(), _settings.getLogger(), parsedAnswer);
+    ParseVendorConfigurationAnswerElement cachedAnswer =
+        new ParseVendorConfigurationAnswerElement();
+    cached.applyTo(new TreeMap<>(), _settings.getLogger(), cachedAnswer);
+    assertThat(cachedAnswer.getParseStatus(), equalTo(parsedAnswer.getParseStatus()));
+    assertThat(cachedAnswer.getFileMap(), equalTo(parsedAnswer.getFileMap()));
+  }
+
+  @Test
+  public void testKey() {
+    ParseVendorConfigurationCache cache = newCache();
+    String key = cache.computeKey("r1.cfg", CONFIG, ConfigurationFormat.UNKNOWN);
+    assertThat(cache.computeKey("r1.cfg", CONFIG, ConfigurationFormat.UNKNOWN), equalTo(key));
+
+    // content, name, and format are part of the key
+    assertThat(
+        cache.computeKey("r1.cfg", CONFIG + "!\n", ConfigurationFormat.UNKNOWN), not(equalTo(key)));
+    assertThat(cache.computeKey("r2.cfg", CONFIG, ConfigurationFormat.UNKNOWN), not(equalTo(key)));
+    assertThat(
+        cache.computeKey("r1.cfg", CONFIG, ConfigurationFormat.CISCO_IOS), not(equalTo(key)));
+
+    // so are grammar settings
+    _settings.setIgnoreFilesWithStrings(ImmutableList.of("foo"));
+    assertThat(
+        newCache().computeKey("r1.cfg", CONFIG, ConfigurationFormat.UNKNOWN), not(equalTo(key)));
+  }
+
+  @Test
+  public void testChangedFileIsParsed() throws Exception {
+    parse(newCache(), CONFIG, "r1.cfg");
+
+    ParseVendorConfigurationCache cache = newCache();
+    ParseVendorConfigurationResult result = parse(cache, CONFIG.replace("r1", "r2"), "r1.cfg");
+    assertThat(cache.getHits(), equalTo(0));
+    assertThat(cache.getMisses(), equalTo(1));
+    assertThat(result.getVendorConfiguration().getHostname(), equalTo("r2"));
+  }
+
+  @Test
+  public void testStatusCached() throws Exception {
+    parse(newCache(), "\n", "empty.cfg");
+
+    ParseVendorConfigurationCache cache = newCache();
+    ParseVendorConfigurationResult result = parse(cache, "\n", "empty.cfg");
+    assertThat(cache.getHits(), equalTo(1));
+    assertThat(result.getVendorConfiguration(), nullValue());
+    assertThat(result.getStatus(), equalTo(ParseStatus.EMPTY));
+  }
+
+  @Test
+  public void testFailureNotCached() throws Exception {
+    String invalid = "!\nhostname r1\n!\nthis is not a cisco command\n";
+    _settings.setDisableUnrecognized(true);
+    ParseVendorConfigurationResult failed = parse(newCache(), invalid, "r1.cfg");
+    assertThat(failed.getFailureCause(), notNullValue());
+
+    ParseVendorConfigurationCache cache = newCache();
+    parse(cache, invalid, "r1.cfg");
+    assertThat(cache.getHits(), equalTo(0));
+  }
+}
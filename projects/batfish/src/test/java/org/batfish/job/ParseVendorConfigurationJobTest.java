@@ -1,6 +1,7 @@
 package org.batfish.job;
 
 import static org.batfish.job.ParseVendorConfigurationJob.detectFormat;
+import static org.batfish.job.ParseVendorConfigurationJob.estimateCost;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
@@ -96,4 +97,26 @@ public class ParseVendorConfigurationJobTest {
         detectFormat(fileText, settings, ConfigurationFormat.UNKNOWN),
         equalTo(ConfigurationFormat.IGNORED));
   }
+
+  @Test
+  public void testEstimateCost() {
+    assertThat(estimateCost(100L, ConfigurationFormat.CISCO_IOS), equalTo(100L));
+    assertThat(estimateCost(100L, ConfigurationFormat.UNKNOWN), equalTo(100L));
+    // flattened before parsing
+    assertThat(estimateCost(100L, ConfigurationFormat.JUNIPER), equalTo(200L));
+  }
+
+  @Test
+  public void testGetEstimatedCost() {
+    ParseVendorConfigurationJob job =
+        new ParseVendorConfigurationJob(
+            new Settings(),
+            "hostname r1\n",
+            "r1.cfg",
+            new Warnings(),
+            ConfigurationFormat.CISCO_IOS,
+            ImmutableMultimap.of(),
+            null);
+    assertThat(job.getEstimatedCost(), equalTo(12L));
+  }
 }
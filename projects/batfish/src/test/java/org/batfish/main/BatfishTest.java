@@ -8,6 +8,8 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.junit.Assert.assertEquals;
@@ -19,6 +21,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -34,10 +37,13 @@ import java.util.TreeSet;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BfConsts;
+import org.batfish.common.CompletionMetadata;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.topology.Layer1Edge;
 import org.batfish.common.topology.Layer1Node;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.topology.TopologyUtil;
+import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
@@ -64,6 +70,9 @@ import org.batfish.identifiers.QuestionSettingsId;
 import org.batfish.identifiers.TestIdResolver;
 import org.batfish.job.ParseVendorConfigurationResult;
 import org.batfish.representation.host.HostConfiguration;
+import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.LazyConfigurationMap;
+import org.batfish.storage.StorageProvider;
 import org.batfish.storage.TestStorageProvider;
 import org.batfish.vendor.VendorConfiguration;
 import org.junit.Rule;
@@ -200,6 +209,126 @@ public class BatfishTest {
     assertThat(batfish2.loadConfigurations().keySet(), equalTo(ImmutableSet.of("rtr1", "rtr2")));
   }
 
+  @Test
+  public void testInitTestrigWithDuplicateHostnamesPipelined() throws IOException {
+    // rtr1 and rtr2 have the same hostname
+    String testrigResourcePrefix = "org/batfish/main/snapshots/duplicate_hostnames";
+    List<String> configurationNames = ImmutableList.of("rtr1", "rtr2", "rtr3");
+
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(testrigResourcePrefix, configurationNames)
+                .build(),
+            _folder);
+    batfish.getSettings().setParsePipelineWindow(1);
+
+    // Renaming already-serialized duplicates should give the same result as without pipelining
+    assertThat(
+        batfish.loadConfigurations().keySet(),
+        containsInAnyOrder(
+            ParseVendorConfigurationResult.getModifiedNameBase("rtr1", "configs/rtr1"),
+            ParseVendorConfigurationResult.getModifiedNameBase("rtr1", "configs/rtr2"),
+            "rtr3"));
+  }
+
+  @Test
+  public void testInitTestrigFused() throws IOException {
+    // rtr1 and rtr2 have the same hostname
+    String testrigResourcePrefix = "org/batfish/main/snapshots/duplicate_hostnames";
+    List<String> configurationNames = ImmutableList.of("rtr1", "rtr2", "rtr3");
+    TestrigText testrigText =
+        TestrigText.builder()
+            .setConfigurationText(testrigResourcePrefix, configurationNames)
+            .build();
+
+    Batfish batfish = BatfishTestUtils.getBatfishFromTestrigText(testrigText, _folder);
+    SortedMap<String, Configuration> configurations = batfish.loadConfigurations();
+
+    Batfish fusedBatfish = BatfishTestUtils.getBatfishFromTestrigText(testrigText, _folder);
+    fusedBatfish.getSettings().setFuseParseConvert(true);
+    SortedMap<String, Configuration> fusedConfigurations = fusedBatfish.loadConfigurations();
+
+    // Converting while parsing, including renamed duplicates, gives the same result
+    assertThat(fusedConfigurations.keySet(), equalTo(configurations.keySet()));
+    for (String hostname : configurations.keySet()) {
+      assertThat(
+          BatfishObjectMapper.writePrettyString(fusedConfigurations.get(hostname)),
+          equalTo(BatfishObjectMapper.writePrettyString(configurations.get(hostname))));
+    }
+    assertThat(
+        fusedBatfish.loadConvertConfigurationAnswerElementOrReparse().getConvertStatus(),
+        equalTo(batfish.loadConvertConfigurationAnswerElementOrReparse().getConvertStatus()));
+    assertThat(
+        fusedBatfish.loadParseVendorConfigurationAnswerElement().getParseStatus(),
+        equalTo(batfish.loadParseVendorConfigurationAnswerElement().getParseStatus()));
+    // conversions run while parsing are counted as conversion jobs
+    assertThat(
+        fusedBatfish.loadConvertConfigurationAnswerElementOrReparse().getJobTimings().getCount(),
+        equalTo(
+            batfish.loadConvertConfigurationAnswerElementOrReparse().getJobTimings().getCount()));
+  }
+
+  @Test
+  public void testInitTestrigFusedWithoutSerializingVendor() throws IOException {
+    String testrigResourcePrefix = "org/batfish/main/snapshots/duplicate_hostnames2";
+    List<String> configurationNames = ImmutableList.of("rtr1", "rtr2");
+
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(testrigResourcePrefix, configurationNames)
+                .build(),
+            _folder);
+    batfish.getSettings().setFuseParseConvert(true);
+    batfish.getSettings().setFusedSerializeVendor(false);
+
+    assertThat(batfish.loadConfigurations().keySet(), equalTo(ImmutableSet.of("rtr1", "rtr2")));
+    // vendor-specific configurations were not written to disk
+    Path vendorPath = batfish.getSettings().getActiveTestrigSettings().getSerializeVendorPath();
+    assertThat(Files.exists(vendorPath.resolve("rtr1")), equalTo(false));
+  }
+
+  @Test
+  public void testLoadConfigurationsLazily() throws IOException {
+    String testrigResourcePrefix = "org/batfish/main/snapshots/duplicate_hostnames";
+    List<String> configurationNames = ImmutableList.of("rtr1", "rtr2", "rtr3");
+
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(testrigResourcePrefix, configurationNames)
+                .build(),
+            _folder);
+    SortedMap<String, Configuration> configurations = batfish.loadConfigurations();
+
+    // Forget the completion metadata computed by the eager load
+    NetworkSnapshot snapshot = batfish.getNetworkSnapshot();
+    StorageProvider storage =
+        new FileBasedStorage(batfish.getSettings().getStorageBase(), batfish.getLogger());
+    CompletionMetadata completionMetadata =
+        storage.loadCompletionMetadata(snapshot.getNetwork(), snapshot.getSnapshot());
+    assertThat(completionMetadata, not(equalTo(CompletionMetadata.EMPTY)));
+    storage.storeCompletionMetadata(
+        CompletionMetadata.EMPTY, snapshot.getNetwork(), snapshot.getSnapshot());
+
+    // Load the already-serialized configurations with a fresh in-memory cache
+    batfish.getSettings().setLazyConfigurations(true);
+    Batfish lazyBatfish = BatfishTestUtils.getBatfishWithEmptyCaches(batfish.getSettings());
+    SortedMap<String, Configuration> lazyConfigurations = lazyBatfish.loadConfigurations();
+    assertThat(
+        storage.loadCompletionMetadata(snapshot.getNetwork(), snapshot.getSnapshot()),
+        equalTo(completionMetadata));
+
+    assertThat(lazyConfigurations, instanceOf(LazyConfigurationMap.class));
+    assertThat(lazyConfigurations.keySet(), equalTo(configurations.keySet()));
+    for (String hostname : configurations.keySet()) {
+      assertThat(
+          BatfishObjectMapper.writePrettyString(lazyConfigurations.get(hostname)),
+          equalTo(BatfishObjectMapper.writePrettyString(configurations.get(hostname))));
+    }
+  }
+
   @Test
   public void testInitTestrigWithLayer1Topology() throws IOException {
     String testrigResourcePrefix = "org/batfish/common/topology/testrigs/layer1";
@@ -7,12 +7,15 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.commons.collections4.map.LRUMap;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.bddreachability.BDDReachabilityCacheKey;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.NetworkSnapshot;
@@ -53,10 +56,36 @@ public class BatfishTestUtils {
     return Collections.synchronizedMap(new LRUMap<>(4));
   }
 
+  private static Cache<BDDReachabilityCacheKey, List<BDDReachabilityAnalysisFactory>>
+      makeBddReachabilityCache() {
+    return CacheBuilder.newBuilder().softValues().maximumSize(4).build();
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> makeDataPlaneCache() {
     return CacheBuilder.newBuilder().softValues().maximumSize(2).build();
   }
 
+  /**
+   * Returns a new {@link Batfish} using the given settings, e.g. those of an existing {@link
+   * Batfish} instance, but with all in-memory caches empty.
+   */
+  static Batfish getBatfishWithEmptyCaches(Settings settings) {
+    Batfish batfish =
+        new Batfish(
+            settings,
+            makeBddReachabilityCache(),
+            makeTestrigCache(),
+            makeTestrigCache(),
+            makeDataPlaneCache(),
+            makeDataPlaneCache(),
+            makeEnvBgpCache(),
+            makeEnvRouteCache(),
+            null,
+            new TestFileBasedIdResolver(settings.getStorageBase()));
+    registerDataPlanePlugins(batfish);
+    return batfish;
+  }
+
   private static Batfish initBatfish(
       SortedMap<String, Configuration> configurations, @Nonnull TemporaryFolder tempFolder)
       throws IOException {
@@ -82,6 +111,7 @@ public class BatfishTestUtils {
     Batfish batfish =
         new Batfish(
             settings,
+            makeBddReachabilityCache(),
             compressedTestrigs,
             testrigs,
             makeDataPlaneCache(),
@@ -129,6 +159,7 @@ public class BatfishTestUtils {
     Batfish batfish =
         new Batfish(
             settings,
+            makeBddReachabilityCache(),
             compressedTestrigs,
             testrigs,
             makeDataPlaneCache(),
@@ -210,6 +241,7 @@ public class BatfishTestUtils {
     Batfish batfish =
         new Batfish(
             settings,
+            makeBddReachabilityCache(),
             makeTestrigCache(),
             makeTestrigCache(),
             makeDataPlaneCache(),
@@ -266,6 +298,7 @@ public class BatfishTestUtils {
     Batfish batfish =
         new Batfish(
             settings,
+            makeBddReachabilityCache(),
             compressedTestrigs,
             testrigs,
             makeDataPlaneCache(),
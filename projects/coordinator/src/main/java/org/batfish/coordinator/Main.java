@@ -184,6 +184,11 @@ public class Main {
     _workManager = workManager;
   }
 
+  @VisibleForTesting
+  static void setPoolMgr(PoolMgr poolManager) {
+    _poolManager = poolManager;
+  }
+
   public static void setAuthorizer(Authorizer authorizer) {
     _authorizer = authorizer;
   }
@@ -419,6 +424,10 @@ public class Main {
     } catch (Exception ex) {
       String stackTrace = Throwables.getStackTraceAsString(ex);
       System.err.println(stackTrace);
+    } finally {
+      // release the connections to workers
+      _workManager.closeWorkerClient();
+      _poolManager.closeWorkerClient();
     }
   }
 }
@@ -1,5 +1,6 @@
 package org.batfish.coordinator;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -35,6 +36,15 @@ public class PoolMgr {
 
   private final Settings _settings;
 
+  /**
+   * Client for worker status requests, shared so that connections to workers are reused. Created on
+   * first use; guarded by {@code this}.
+   */
+  private @Nullable Client _workerClient;
+
+  /** Notified whenever a worker becomes idle */
+  private volatile @Nullable Runnable _workerIdleListener;
+
   // the key should be of the form <ip or hostname>:<port>
   private Map<String, WorkerStatus> _workerPool;
 
@@ -46,13 +56,47 @@ public class PoolMgr {
 
   public synchronized void addToPool(final String worker) {
     // start out as unknown and trigger refresh in the background
-    _workerPool.put(worker, new WorkerStatus(WorkerStatus.StatusCode.UNKNOWN));
+    putWorker(worker, WorkerStatus.StatusCode.UNKNOWN);
 
     Thread thread = new Thread(() -> refreshWorkerStatus(worker));
 
     thread.start();
   }
 
+  /** Returns the client for requests to workers, creating it if needed. */
+  private synchronized Client getWorkerClient() {
+    if (_workerClient == null) {
+      _workerClient =
+          CommonUtil.createHttpClientBuilder(
+                  _settings.getSslPoolDisable(),
+                  _settings.getSslPoolTrustAllCerts(),
+                  _settings.getSslPoolKeystoreFile(),
+                  _settings.getSslPoolKeystorePassword(),
+                  _settings.getSslPoolTruststoreFile(),
+                  _settings.getSslPoolTruststorePassword(),
+                  false)
+              .build();
+    }
+    return _workerClient;
+  }
+
+  /**
+   * Closes the client for requests to workers, releasing its pooled connections. A new client is
+   * created for any later request.
+   */
+  public synchronized void closeWorkerClient() {
+    if (_workerClient != null) {
+      _workerClient.close();
+      _workerClient = null;
+    }
+  }
+
+  /** Adds {@code worker} to the pool with the given status, without refreshing it. */
+  @VisibleForTesting
+  synchronized void putWorker(String worker, WorkerStatus.StatusCode status) {
+    _workerPool.put(worker, new WorkerStatus(status));
+  }
+
   public synchronized void deleteFromPool(String worker) {
     _workerPool.remove(worker);
   }
@@ -111,25 +155,14 @@ public class PoolMgr {
   public void refreshWorkerStatus(String worker) {
     // _logger.debug("PM:RefreshWorkerStatus: refreshing status of " + worker
     // +"\n");
-    Client client = null;
     try {
-      // Client client = ClientBuilder.newClient();
-      client =
-          CommonUtil.createHttpClientBuilder(
-                  _settings.getSslPoolDisable(),
-                  _settings.getSslPoolTrustAllCerts(),
-                  _settings.getSslPoolKeystoreFile(),
-                  _settings.getSslPoolKeystorePassword(),
-                  _settings.getSslPoolTruststoreFile(),
-                  _settings.getSslPoolTruststorePassword(),
-                  false)
-              .build();
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client.target(
-              String.format(
-                  "%s://%s%s/%s",
-                  protocol, worker, BfConsts.SVC_BASE_RSC, BfConsts.SVC_GET_STATUS_RSC));
+          getWorkerClient()
+              .target(
+                  String.format(
+                      "%s://%s%s/%s",
+                      protocol, worker, BfConsts.SVC_BASE_RSC, BfConsts.SVC_GET_STATUS_RSC));
       Invocation.Builder invocationBuilder = webTarget.request(MediaType.APPLICATION_JSON);
       Response response = invocationBuilder.get();
 
@@ -137,6 +170,7 @@ public class PoolMgr {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.errorf("PM:RefreshWorkerStatus: Got non-OK response %s\n", response.getStatus());
+        response.close();
       } else {
         String sobj = response.readEntity(String.class);
         JSONArray array = new JSONArray(sobj);
@@ -160,14 +194,7 @@ public class PoolMgr {
           return;
         }
 
-        boolean status = jObj.getBoolean("idle");
-
-        // update the status, except leave the ones with TRYINGTOASSIGN
-        // alone
-        if (getWorkerStatus(worker).getStatus() != WorkerStatus.StatusCode.TRYINGTOASSIGN) {
-          updateWorkerStatus(
-              worker, status ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY);
-        }
+        updateWorkerIdleness(worker, jObj.getBoolean("idle"));
       }
     } catch (ProcessingException e) {
       _logger.error(String.format("unable to connect to %s: %s\n", worker, e.getMessage()));
@@ -176,13 +203,36 @@ public class PoolMgr {
       String stackTrace = Throwables.getStackTraceAsString(e);
       _logger.error(String.format("exception: %s\n", stackTrace));
       updateWorkerStatus(worker, WorkerStatus.StatusCode.UNKNOWN);
-    } finally {
-      if (client != null) {
-        client.close();
+    }
+  }
+
+  /**
+   * Records whether {@code worker} reported itself idle, and notifies the idle listener if it was
+   * not idle before.
+   */
+  @VisibleForTesting
+  void updateWorkerIdleness(String worker, boolean idle) {
+    // update the status, except leave the ones with TRYINGTOASSIGN
+    // alone
+    WorkerStatus.StatusCode oldStatus = getWorkerStatus(worker).getStatus();
+    if (oldStatus != WorkerStatus.StatusCode.TRYINGTOASSIGN) {
+      updateWorkerStatus(
+          worker, idle ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY);
+      Runnable workerIdleListener = _workerIdleListener;
+      if (idle && oldStatus != WorkerStatus.StatusCode.IDLE && workerIdleListener != null) {
+        workerIdleListener.run();
       }
     }
   }
 
+  /**
+   * Sets the listener to notify whenever a worker becomes idle, i.e., when its status is refreshed
+   * and found to be idle after having been busy or of unknown status.
+   */
+  public void setWorkerIdleListener(@Nullable Runnable workerIdleListener) {
+    _workerIdleListener = workerIdleListener;
+  }
+
   public void startPoolManager() {
     Runnable workerStatusRefreshTask = new WorkerStatusRefreshTask();
     Executors.newScheduledThreadPool(1)
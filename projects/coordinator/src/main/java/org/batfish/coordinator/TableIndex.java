@@ -0,0 +1,279 @@
+package org.batfish.coordinator;
+
+import static com.google.common.collect.Comparators.lexicographical;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Comparators;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.datamodel.acl.AclTrace;
+import org.batfish.datamodel.acl.TraceEvent;
+import org.batfish.datamodel.answers.Issue;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.Schema.Type;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Step;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.pojo.Node;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+
+/**
+ * A column-oriented index over the rows of a {@link TableAnswerElement}, for serving paged queries
+ * with filters and sort orders without re-evaluating them on every row for each page.
+ *
+ * <p>Columns are indexed lazily, the first time a query filters or sorts on them: the filter text
+ * and the typed value of each row in a column are computed once, and the rows matching each filter
+ * and the permutation of the rows for each sort order are cached. Rows are identified by their
+ * index in {@link TableAnswerElement#getRowsList()}.
+ *
+ * <p>An index lives only in memory. {@link WorkMgr} keeps indexes of recently paged answers in a
+ * soft-valued cache, and builds them again from the full answer JSON after they are evicted or the
+ * coordinator restarts.
+ */
+@ParametersAreNonnullByDefault
+final class TableIndex {
+
+  private static final Comparator<AclTrace> COMPARATOR_ACL_TRACE =
+      Comparator.comparing(
+          AclTrace::getEvents,
+          Comparators.lexicographical(Comparator.comparing(TraceEvent::getDescription)));
+
+  private static final Comparator<Node> COMPARATOR_NODE = Comparator.comparing(Node::getName);
+
+  private static final Comparator<Trace> COMPARATOR_TRACE =
+      Comparator.comparing(Trace::getDisposition)
+          .thenComparing(
+              Trace::getHops,
+              Comparators.lexicographical(
+                  Comparator.comparing(Hop::getNode, Comparator.comparing(Node::getName))
+                      .thenComparing(
+                          Hop::getSteps,
+                          Comparators.lexicographical(
+                              Comparator.<Step<?>, String>comparing(
+                                      step -> step.getDetail().toString())
+                                  .thenComparing(Step::getAction)))));
+
+  /** Maximum number of distinct filters whose matching rows are cached */
+  private static final int MAX_CACHED_FILTERS = 64;
+
+  /** Maximum number of distinct sort orders whose permutations are cached */
+  private static final int MAX_CACHED_SORT_ORDERS = 16;
+
+  private final Map<String, ColumnMetadata> _columnMap;
+
+  /** For each column, the lower-case JSON text of each row's value, as matched by filters */
+  private final LoadingCache<String, String[]> _filterTexts;
+
+  /** For each filter, the rows it matches */
+  private final LoadingCache<ColumnFilter, BitSet> _filterMatches;
+
+  private final Row[] _rows;
+
+  /** For each sort order, the indices of the rows in that order */
+  private final LoadingCache<List<ColumnSortOption>, int[]> _sortedRows;
+
+  private final TableAnswerElement _table;
+
+  /** For each column, the typed value of each row, as compared by sort orders */
+  private final LoadingCache<String, Object[]> _values;
+
+  private final Function<ColumnMetadata, Comparator<Object>> _valueComparators;
+
+  /**
+   * Create an index over the rows of {@code table}, whose columns are sorted as specified by {@link
+   * #valueComparator(ColumnMetadata)}.
+   */
+  TableIndex(TableAnswerElement table) {
+    this(table, TableIndex::valueComparator);
+  }
+
+  /**
+   * Create an index over the rows of {@code table}, whose columns are sorted using the comparator
+   * returned by {@code valueComparators} for their typed values.
+   */
+  TableIndex(
+      TableAnswerElement table, Function<ColumnMetadata, Comparator<Object>> valueComparators) {
+    _table = table;
+    _columnMap = table.getMetadata().toColumnMap();
+    _rows = table.getRowsList().toArray(new Row[0]);
+    _valueComparators = valueComparators;
+    _filterTexts = CacheBuilder.newBuilder().build(CacheLoader.from(this::computeFilterTexts));
+    _values = CacheBuilder.newBuilder().build(CacheLoader.from(this::computeValues));
+    _filterMatches =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_FILTERS)
+            .build(CacheLoader.from(this::computeFilterMatches));
+    _sortedRows =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_SORT_ORDERS)
+            .build(CacheLoader.from(this::computeSortedRows));
+  }
+
+  /** Returns the indexed table. */
+  @Nonnull
+  TableAnswerElement getTable() {
+    return _table;
+  }
+
+  /** Returns the row with the given index. */
+  @Nonnull
+  Row getRow(int index) {
+    return _rows[index];
+  }
+
+  /**
+   * Returns the indices of the rows matched by all of {@code filters}, sorted by {@code sortOrder}.
+   * Rows that are equal according to {@code sortOrder} are in table order.
+   *
+   * @throws java.util.NoSuchElementException if a filter column is not in the table
+   * @throws NullPointerException if a sort column is not in the table
+   */
+  @Nonnull
+  int[] query(List<ColumnFilter> filters, List<ColumnSortOption> sortOrder) {
+    BitSet matches = new BitSet(_rows.length);
+    matches.set(0, _rows.length);
+    for (ColumnFilter filter : filters) {
+      matches.and(get(_filterMatches, filter));
+    }
+    if (sortOrder.isEmpty()) {
+      return matches.stream().toArray();
+    }
+    return Arrays.stream(get(_sortedRows, ImmutableList.copyOf(sortOrder)))
+        .filter(matches::get)
+        .toArray();
+  }
+
+  private @Nonnull String[] computeFilterTexts(String column) {
+    String[] texts = new String[_rows.length];
+    for (int i = 0; i < _rows.length; i++) {
+      texts[i] = _rows[i].get(column).toString().toLowerCase();
+    }
+    return texts;
+  }
+
+  /** Matches rows as {@link ColumnFilter#matches(Row)} does. */
+  private @Nonnull BitSet computeFilterMatches(ColumnFilter filter) {
+    String[] texts = get(_filterTexts, filter.getColumn());
+    String filterText = filter.getFilterText().toLowerCase();
+    BitSet matches = new BitSet(_rows.length);
+    for (int i = 0; i < texts.length; i++) {
+      if (texts[i].contains(filterText)) {
+        matches.set(i);
+      }
+    }
+    return matches;
+  }
+
+  private @Nonnull Object[] computeValues(String column) {
+    ColumnMetadata columnMetadata = _columnMap.get(column);
+    Object[] values = new Object[_rows.length];
+    for (int i = 0; i < _rows.length; i++) {
+      values[i] = _rows[i].get(column, columnMetadata.getSchema());
+    }
+    return values;
+  }
+
+  private @Nonnull int[] computeSortedRows(List<ColumnSortOption> sortOrder) {
+    Comparator<Integer> comparator = null;
+    for (ColumnSortOption columnSortOption : sortOrder) {
+      Object[] values = get(_values, columnSortOption.getColumn());
+      Comparator<Object> valueComparator =
+          _valueComparators.apply(_columnMap.get(columnSortOption.getColumn()));
+      Comparator<Integer> columnComparator =
+          (i, j) -> valueComparator.compare(values[i], values[j]);
+      if (columnSortOption.getReversed()) {
+        columnComparator = columnComparator.reversed();
+      }
+      comparator =
+          comparator == null ? columnComparator : comparator.thenComparing(columnComparator);
+    }
+    // Stable, so equal rows stay in table order
+    return IntStream.range(0, _rows.length)
+        .boxed()
+        .sorted(comparator)
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  /**
+   * Returns the order of the typed values of the column of {@code columnMetadata}, with {@code
+   * null} first.
+   */
+  @SuppressWarnings("unchecked")
+  @VisibleForTesting
+  static @Nonnull Comparator<Object> valueComparator(ColumnMetadata columnMetadata) {
+    return nullsFirst((Comparator<Object>) schemaComparator(columnMetadata.getSchema()));
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static @Nonnull Comparator<?> schemaComparator(Schema schema) {
+    if (schema.equals(Schema.ACL_TRACE)) {
+      return COMPARATOR_ACL_TRACE;
+    } else if (schema.equals(Schema.BOOLEAN)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.DOUBLE)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.FLOW)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.FLOW_TRACE)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.INTEGER)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.INTERFACE)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.IP)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.ISSUE)) {
+      return comparing(Issue::getSeverity);
+    } else if (schema.getType() == Type.LIST) {
+      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
+      return lexicographical(nullsFirst(schemaComparator));
+    } else if (schema.equals(Schema.LONG)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.NODE)) {
+      return COMPARATOR_NODE;
+    } else if (schema.equals(Schema.PREFIX)) {
+      return naturalOrder();
+    } else if (schema.getType() == Type.SET) {
+      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
+      return lexicographical(nullsFirst(schemaComparator));
+    } else if (schema.equals(Schema.STRING)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.TRACE)) {
+      return COMPARATOR_TRACE;
+    } else {
+      return comparing(Object::toString);
+    }
+  }
+
+  /** Loads a cache entry, rethrowing unchecked exceptions thrown while computing it. */
+  private static <K, V> V get(LoadingCache<K, V> cache, K key) {
+    try {
+      return cache.getUnchecked(key);
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -2,10 +2,6 @@ package org.batfish.coordinator;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Comparators.lexicographical;
-import static java.util.Comparator.comparing;
-import static java.util.Comparator.naturalOrder;
-import static java.util.Comparator.nullsFirst;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toCollection;
 
@@ -19,13 +15,16 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
-import com.google.common.collect.Comparators;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.errorprone.annotations.MustBeClosed;
 import io.opentracing.ActiveSpan;
 import io.opentracing.References;
@@ -35,15 +34,18 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -56,8 +58,10 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -75,7 +79,6 @@ import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.BfConsts.TaskStatus;
-import org.batfish.common.ColumnSortOption;
 import org.batfish.common.CompletionMetadata;
 import org.batfish.common.Container;
 import org.batfish.common.CoordConsts.WorkStatusCode;
@@ -102,8 +105,6 @@ import org.batfish.datamodel.InitializationMetadata.ProcessingStatus;
 import org.batfish.datamodel.Protocol;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SnapshotMetadataEntry;
-import org.batfish.datamodel.acl.AclTrace;
-import org.batfish.datamodel.acl.TraceEvent;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.AnswerMetadata;
@@ -117,11 +118,7 @@ import org.batfish.datamodel.answers.Metrics;
 import org.batfish.datamodel.answers.MinorIssueConfig;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
 import org.batfish.datamodel.answers.Schema;
-import org.batfish.datamodel.answers.Schema.Type;
 import org.batfish.datamodel.collections.NodeInterfacePair;
-import org.batfish.datamodel.flow.Hop;
-import org.batfish.datamodel.flow.Step;
-import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.pojo.Topology;
 import org.batfish.datamodel.questions.BgpPeerPropertySpecifier;
@@ -174,31 +171,15 @@ public class WorkMgr extends AbstractCoordinator {
           .add(".svn")
           .build();
 
-  private static final Comparator<AclTrace> COMPARATOR_ACL_TRACE =
-      Comparator.comparing(
-          AclTrace::getEvents,
-          Comparators.lexicographical(Comparator.comparing(TraceEvent::getDescription)));
-
-  private static final Comparator<Node> COMPARATOR_NODE = Comparator.comparing(Node::getName);
-
-  private static final Comparator<Trace> COMPARATOR_TRACE =
-      Comparator.comparing(Trace::getDisposition)
-          .thenComparing(
-              Trace::getHops,
-              Comparators.lexicographical(
-                  Comparator.comparing(Hop::getNode, Comparator.comparing(Node::getName))
-                      .thenComparing(
-                          Hop::getSteps,
-                          Comparators.lexicographical(
-                              Comparator.<Step<?>, String>comparing(
-                                      step -> step.getDetail().toString())
-                                  .thenComparing(Step::getAction)))));
-
+  /**
+   * Checks the status of assigned work, and assigns queued work in case an event that made it
+   * assignable was missed, e.g., a worker that became idle without the coordinator hearing of it.
+   */
   static final class AssignWorkTask implements Runnable {
     @Override
     public void run() {
       Main.getWorkMgr().checkTasks();
-      Main.getWorkMgr().assignWork();
+      Main.getWorkMgr().requestAssignWork();
     }
   }
 
@@ -216,6 +197,39 @@ public class WorkMgr extends AbstractCoordinator {
 
   private static final int MAX_SHOWN_SNAPSHOT_INFO_SUBDIR_ENTRIES = 10;
 
+  /** Maximum number of answer tables indexed for paged queries */
+  private static final int MAX_INDEXED_ANSWER_TABLES = 16;
+
+  /** The index of the table of a stored answer, and a hash of the answer text it indexes */
+  private static final class IndexedAnswer {
+    private final TableIndex _index;
+    private final HashCode _answerHash;
+
+    private IndexedAnswer(TableIndex index, HashCode answerHash) {
+      _index = index;
+      _answerHash = answerHash;
+    }
+  }
+
+  /**
+   * Indexes of answer tables by the ID of their answers, so that pages of the same answer are
+   * served without parsing and sorting it again. This is an in-memory cache only: the stored answer
+   * is still read for each page to check that it did not change, and an index is rebuilt from the
+   * full answer JSON after it is evicted (soft values, so indexes are released in times of memory
+   * pressure) or the coordinator restarts. Nothing columnar is stored on disk.
+   */
+  private final Cache<AnswerId, IndexedAnswer> _answerTableIndexes =
+      CacheBuilder.newBuilder().softValues().maximumSize(MAX_INDEXED_ANSWER_TABLES).build();
+
+  /**
+   * Runs the passes that assign queued work to idle workers, one at a time so that they never
+   * compete for the same work or worker.
+   */
+  private final Executor _assignWorkExecutor;
+
+  /** Whether a pass assigning work has been requested but has not started yet */
+  private final AtomicBoolean _assignWorkRequested = new AtomicBoolean();
+
   private final IdManager _idManager;
 
   private final BatfishLogger _logger;
@@ -226,12 +240,37 @@ public class WorkMgr extends AbstractCoordinator {
 
   private final StorageProvider _storage;
 
+  /**
+   * Client for requests to workers. Shared by all requests, so that connections to workers are kept
+   * alive and reused instead of being established, with a new SSL context, for every request.
+   * Created on first use; guarded by {@code this}.
+   */
+  private @Nullable Client _workerClient;
+
   public WorkMgr(
       Settings settings,
       BatfishLogger logger,
       @Nonnull IdManager idManager,
       @Nonnull StorageProvider storage) {
+    this(
+        settings,
+        logger,
+        idManager,
+        storage,
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("assign-work-%d").build()));
+  }
+
+  /** Creates a work manager that runs its work assignment passes on {@code assignWorkExecutor}. */
+  @VisibleForTesting
+  WorkMgr(
+      Settings settings,
+      BatfishLogger logger,
+      @Nonnull IdManager idManager,
+      @Nonnull StorageProvider storage,
+      @Nonnull Executor assignWorkExecutor) {
     super(false);
+    _assignWorkExecutor = assignWorkExecutor;
     _settings = settings;
     _idManager = idManager;
     _storage = storage;
@@ -239,46 +278,100 @@ public class WorkMgr extends AbstractCoordinator {
     _workQueueMgr = new WorkQueueMgr(logger);
   }
 
+  /** Returns the client for requests to workers, creating it if needed. */
+  private synchronized @Nonnull Client getWorkerClient() {
+    if (_workerClient == null) {
+      _workerClient =
+          CommonUtil.createHttpClientBuilder(
+                  _settings.getSslPoolDisable(),
+                  _settings.getSslPoolTrustAllCerts(),
+                  _settings.getSslPoolKeystoreFile(),
+                  _settings.getSslPoolKeystorePassword(),
+                  _settings.getSslPoolTruststoreFile(),
+                  _settings.getSslPoolTruststorePassword(),
+                  true)
+              .build();
+    }
+    return _workerClient;
+  }
+
+  /**
+   * Closes the client for requests to workers, releasing its pooled connections. A new client is
+   * created for any later request.
+   */
+  public synchronized void closeWorkerClient() {
+    if (_workerClient != null) {
+      _workerClient.close();
+      _workerClient = null;
+    }
+  }
+
+  @VisibleForTesting
+  @Nonnull
+  WorkQueueMgr getWorkQueueMgr() {
+    return _workQueueMgr;
+  }
+
   @VisibleForTesting
   public @Nonnull StorageProvider getStorage() {
     return _storage;
   }
 
-  private void assignWork() {
+  /**
+   * Requests a pass assigning queued work to idle workers, to run as soon as the current pass (if
+   * any) ends. Called whenever work is queued or a worker becomes idle. Requests made while a pass
+   * is pending are coalesced into it.
+   */
+  public void requestAssignWork() {
+    if (_assignWorkRequested.compareAndSet(false, true)) {
+      _assignWorkExecutor.execute(this::assignWork);
+    }
+  }
 
+  /**
+   * Assigns queued work to idle workers until either runs out, or an assignment fails. In the
+   * latter case, the work is left for a later pass rather than retried right away.
+   */
+  private void assignWork() {
+    // cleared before looking for work, so that work queued during this pass triggers another
+    _assignWorkRequested.set(false);
     try {
-      QueuedWork work = _workQueueMgr.getWorkForAssignment();
+      while (true) {
+        QueuedWork work = _workQueueMgr.getWorkForAssignment();
 
-      // get out if no work was found
-      if (work == null) {
-        // _logger.info("WM:AssignWork: No unassigned work\n");
-        return;
-      }
+        // get out if no work was found
+        if (work == null) {
+          return;
+        }
 
-      String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
+        String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
 
-      // get out if no idle worker was found, but release the work first
-      if (idleWorker == null) {
-        _workQueueMgr.markAssignmentFailure(work);
+        // get out if no idle worker was found, but release the work first
+        if (idleWorker == null) {
+          _workQueueMgr.markAssignmentFailure(work);
 
-        _logger.info("WM:AssignWork: No idle worker\n");
-        return;
-      }
+          _logger.info("WM:AssignWork: No idle worker\n");
+          return;
+        }
 
-      assignWork(work, idleWorker);
+        if (!assignWork(work, idleWorker)) {
+          return;
+        }
+      }
     } catch (Exception e) {
       _logger.errorf("Got exception in assignWork: %s\n", Throwables.getStackTraceAsString(e));
     }
   }
 
-  private void assignWork(QueuedWork work, String worker) {
+  /** Returns whether {@code work} was assigned to {@code worker}. */
+  @VisibleForTesting
+  boolean assignWork(QueuedWork work, String worker) {
 
     _logger.infof("WM:AssignWork: Trying to assign %s to %s\n", work, worker);
 
     boolean assignmentError = false;
     boolean assigned = false;
 
-    Client client = null;
     SpanContext queueWorkSpan = work.getWorkItem().getSourceSpan();
     try (ActiveSpan assignWorkSpan =
         GlobalTracer.get()
@@ -294,20 +387,9 @@ public class WorkMgr extends AbstractCoordinator {
           Main.getSettings().getContainersLocation().toAbsolutePath().toString());
       task.put(BfConsts.ARG_TESTRIG, work.getWorkItem().getTestrigName());
 
-      client =
-          CommonUtil.createHttpClientBuilder(
-                  _settings.getSslPoolDisable(),
-                  _settings.getSslPoolTrustAllCerts(),
-                  _settings.getSslPoolKeystoreFile(),
-                  _settings.getSslPoolKeystorePassword(),
-                  _settings.getSslPoolTruststoreFile(),
-                  _settings.getSslPoolTruststorePassword(),
-                  true)
-              .build();
-
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client
+          getWorkerClient()
               .target(
                   String.format(
                       "%s://%s%s/%s",
@@ -325,6 +407,8 @@ public class WorkMgr extends AbstractCoordinator {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.errorf("WM:AssignWork: Got non-OK response %s\n", response.getStatus());
+        // discard the body, so the connection can be reused
+        response.close();
       } else {
         String sobj = response.readEntity(String.class);
         JSONArray array = new JSONArray(sobj);
@@ -348,17 +432,13 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       String stackTrace = Throwables.getStackTraceAsString(e);
       _logger.error(String.format("Exception assigning work: %s\n", stackTrace));
-    } finally {
-      if (client != null) {
-        client.close();
-      }
     }
 
     if (work.getStatus() == WorkStatusCode.TERMINATEDBYUSER) {
       if (assigned) {
         killWork(work, worker);
       }
-      return;
+      return assigned;
     }
 
     // mark the assignment results for both work and worker
@@ -382,6 +462,7 @@ public class WorkMgr extends AbstractCoordinator {
     }
 
     Main.getPoolMgr().markAssignmentResult(worker, assigned);
+    return assigned;
   }
 
   private void checkTasks() {
@@ -646,7 +727,6 @@ public class WorkMgr extends AbstractCoordinator {
 
     Task task = new Task(TaskStatus.UnreachableOrBadResponse);
 
-    Client client = null;
     SpanContext queueWorkSpan = work.getWorkItem().getSourceSpan();
     try (ActiveSpan checkTaskSpan =
         GlobalTracer.get()
@@ -654,20 +734,10 @@ public class WorkMgr extends AbstractCoordinator {
             .addReference(References.FOLLOWS_FROM, queueWorkSpan)
             .startActive()) {
       assert checkTaskSpan != null; // avoid unused warning
-      client =
-          CommonUtil.createHttpClientBuilder(
-                  _settings.getSslPoolDisable(),
-                  _settings.getSslPoolTrustAllCerts(),
-                  _settings.getSslPoolKeystoreFile(),
-                  _settings.getSslPoolKeystorePassword(),
-                  _settings.getSslPoolTruststoreFile(),
-                  _settings.getSslPoolTruststorePassword(),
-                  true)
-              .build();
 
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client
+          getWorkerClient()
               .target(
                   String.format(
                       "%s://%s%s/%s",
@@ -680,6 +750,7 @@ public class WorkMgr extends AbstractCoordinator {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.errorf("WM:CheckTask: Got non-OK response %s\n", response.getStatus());
+        response.close();
       } else {
         String sobj = response.readEntity(String.class);
         JSONArray array = new JSONArray(sobj);
@@ -703,10 +774,6 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       String stackTrace = Throwables.getStackTraceAsString(e);
       _logger.error(String.format("exception: %s\n", stackTrace));
-    } finally {
-      if (client != null) {
-        client.close();
-      }
     }
 
     if (work.getStatus() == WorkStatusCode.TERMINATEDBYUSER) {
@@ -719,9 +786,11 @@ public class WorkMgr extends AbstractCoordinator {
       _logger.errorf("exception: %s\n", Throwables.getStackTraceAsString(e));
     }
 
-    // if the task ended, send a hint to the pool manager to look up worker status
+    // if the task ended, send a hint to the pool manager to look up worker status, and assign
+    // work to the freed worker, including work that was waiting for this task to end
     if (task.getStatus().isTerminated()) {
       Main.getPoolMgr().refreshWorkerStatus(worker);
+      requestAssignWork();
     }
   }
 
@@ -991,6 +1060,49 @@ public class WorkMgr extends AbstractCoordinator {
     return true;
   }
 
+  /**
+   * Returns the ID of the final answer to the given question, computing that answer from the base
+   * answer if needed, or {@code null} if the question has not been answered.
+   */
+  private @Nullable AnswerId getFinalAnswerId(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis)
+      throws IOException {
+    NetworkId networkId = _idManager.getNetworkId(network);
+    AnalysisId analysisId = analysis != null ? _idManager.getAnalysisId(analysis, networkId) : null;
+    QuestionId questionId = _idManager.getQuestionId(question, networkId, analysisId);
+    SnapshotId snapshotId = _idManager.getSnapshotId(snapshot, networkId);
+    SnapshotId referenceSnapshotId =
+        referenceSnapshot != null ? _idManager.getSnapshotId(referenceSnapshot, networkId) : null;
+    QuestionSettingsId questionSettingsId =
+        getOrDefaultQuestionSettingsId(networkId, questionId, analysisId);
+    NodeRolesId networkNodeRolesId = getOrDefaultNodeRolesId(networkId);
+    AnswerId baseAnswerId =
+        _idManager.getBaseAnswerId(
+            networkId,
+            snapshotId,
+            questionId,
+            questionSettingsId,
+            networkNodeRolesId,
+            referenceSnapshotId,
+            analysisId);
+    if (!_storage.hasAnswerMetadata(baseAnswerId)) {
+      return null;
+    }
+    AnswerMetadata baseAnswerMetadata = _storage.loadAnswerMetadata(baseAnswerId);
+    return computeFinalAnswerAndId(
+        baseAnswerMetadata,
+        networkId,
+        snapshotId,
+        questionId,
+        baseAnswerId,
+        referenceSnapshotId,
+        analysisId);
+  }
+
   public String getAnswer(
       String network,
       String snapshot,
@@ -1000,40 +1112,13 @@ public class WorkMgr extends AbstractCoordinator {
       throws JsonProcessingException, FileNotFoundException {
     String answer = "unknown";
     try {
-      NetworkId networkId = _idManager.getNetworkId(network);
-      AnalysisId analysisId =
-          analysis != null ? _idManager.getAnalysisId(analysis, networkId) : null;
-      QuestionId questionId = _idManager.getQuestionId(question, networkId, analysisId);
-      SnapshotId snapshotId = _idManager.getSnapshotId(snapshot, networkId);
-      SnapshotId referenceSnapshotId =
-          referenceSnapshot != null ? _idManager.getSnapshotId(referenceSnapshot, networkId) : null;
-      QuestionSettingsId questionSettingsId =
-          getOrDefaultQuestionSettingsId(networkId, questionId, analysisId);
-      NodeRolesId networkNodeRolesId = getOrDefaultNodeRolesId(networkId);
-      AnswerId baseAnswerId =
-          _idManager.getBaseAnswerId(
-              networkId,
-              snapshotId,
-              questionId,
-              questionSettingsId,
-              networkNodeRolesId,
-              referenceSnapshotId,
-              analysisId);
-      if (!_storage.hasAnswerMetadata(baseAnswerId)) {
+      AnswerId finalAnswerId =
+          getFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+      if (finalAnswerId == null) {
         Answer ans = Answer.failureAnswer("Not answered", null);
         ans.setStatus(AnswerStatus.NOTFOUND);
         return BatfishObjectMapper.writePrettyString(ans);
       }
-      AnswerMetadata baseAnswerMetadata = _storage.loadAnswerMetadata(baseAnswerId);
-      AnswerId finalAnswerId =
-          computeFinalAnswerAndId(
-              baseAnswerMetadata,
-              networkId,
-              snapshotId,
-              questionId,
-              baseAnswerId,
-              referenceSnapshotId,
-              analysisId);
       return _storage.loadAnswer(finalAnswerId);
     } catch (IOException e) {
       String message =
@@ -1965,6 +2050,17 @@ public class WorkMgr extends AbstractCoordinator {
     // Use initSnapshot to handle creating metadata, etc.
     initSnapshot(
         networkName, snapshotName, newSnapshotInputsDir.getParent(), false, baseSnapshotId);
+
+    // Only the blacklists changed, so share the base snapshot's parsed and converted configurations
+    // instead of parsing and converting them again
+    if (forkSnapshotBean.zipFile == null) {
+      SnapshotId snapshotId = _idManager.getSnapshotId(snapshotName, networkId);
+      if (_storage.forkConfigurations(networkId, baseSnapshotId, snapshotId)) {
+        _logger.infof(
+            "Shared configurations of snapshot: %s with new snapshot: %s in network: %s\n",
+            baseSnapshotName, snapshotName, networkName);
+      }
+    }
   }
 
   @VisibleForTesting
@@ -2064,7 +2160,6 @@ public class WorkMgr extends AbstractCoordinator {
   }
 
   private boolean killWork(QueuedWork work, String worker) {
-    Client client = null;
     boolean killed = false;
 
     SpanContext queueWorkSpan = work.getWorkItem().getSourceSpan();
@@ -2074,20 +2169,10 @@ public class WorkMgr extends AbstractCoordinator {
             .addReference(References.FOLLOWS_FROM, queueWorkSpan)
             .startActive()) {
       assert killTaskSpan != null; // avoid unused warning
-      client =
-          CommonUtil.createHttpClientBuilder(
-                  _settings.getSslPoolDisable(),
-                  _settings.getSslPoolTrustAllCerts(),
-                  _settings.getSslPoolKeystoreFile(),
-                  _settings.getSslPoolKeystorePassword(),
-                  _settings.getSslPoolTruststoreFile(),
-                  _settings.getSslPoolTruststorePassword(),
-                  true)
-              .build();
 
       String protocol = _settings.getSslPoolDisable() ? "http" : "https";
       WebTarget webTarget =
-          client
+          getWorkerClient()
               .target(
                   String.format(
                       "%s://%s%s/%s",
@@ -2100,6 +2185,7 @@ public class WorkMgr extends AbstractCoordinator {
 
       if (response.getStatus() != Response.Status.OK.getStatusCode()) {
         _logger.errorf("WM:KillTask: Got non-OK response %s\n", response.getStatus());
+        response.close();
       } else {
         try {
           String sobj = response.readEntity(String.class);
@@ -2125,10 +2211,6 @@ public class WorkMgr extends AbstractCoordinator {
       _logger.errorf("unable to connect to %s: %s\n", worker, Throwables.getStackTraceAsString(e));
     } catch (Exception e) {
       _logger.errorf("exception: %s\n", Throwables.getStackTraceAsString(e));
-    } finally {
-      if (client != null) {
-        client.close();
-      }
     }
     return killed;
   }
@@ -2319,10 +2401,9 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       throw new BatfishException(String.format("Failed to queue work: %s", e.getMessage()), e);
     }
-    // as an optimization trigger AssignWork to see if we can schedule this (or another) work
+    // assign this (or other) work right away, rather than waiting for the periodic task
     if (success) {
-      Thread thread = new Thread(this::assignWork);
-      thread.start();
+      requestAssignWork();
     }
     return success;
   }
@@ -2401,6 +2482,8 @@ public class WorkMgr extends AbstractCoordinator {
 
     loadPlugins();
 
+    // assign work as soon as a worker becomes idle
+    Main.getPoolMgr().setWorkerIdleListener(this::requestAssignWork);
     Executors.newScheduledThreadPool(1)
         .scheduleAtFixedRate(
             new AssignWorkTask(),
@@ -2537,6 +2620,97 @@ public class WorkMgr extends AbstractCoordinator {
                 rawAnswersEntry.getValue(), answersRowsOptions.get(rawAnswersEntry.getKey())));
   }
 
+  /**
+   * Returns the rows of the answer to the given question selected by {@code options}, like {@link
+   * #processAnswerRows(String, AnswerRowsOptions)} on the answer returned by {@link #getAnswer}.
+   * The table of a stored answer is indexed the first time its rows are requested, and the index is
+   * reused until the answer is stored again.
+   */
+  public @Nonnull Answer getAnswerRows(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws JsonProcessingException, FileNotFoundException {
+    TableIndex tableIndex =
+        getAnswerTableIndex(network, snapshot, question, referenceSnapshot, analysis);
+    if (tableIndex == null) {
+      return processAnswerRows(
+          getAnswer(network, snapshot, question, referenceSnapshot, analysis), options);
+    }
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(processAnswerTable(tableIndex, options));
+    return answer;
+  }
+
+  /**
+   * Same as {@link #getAnswerRows}, but returns the rows as a {@link TableView}, like {@link
+   * #processAnswerRows2(String, AnswerRowsOptions)}.
+   */
+  public @Nonnull Answer getAnswerRows2(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws JsonProcessingException, FileNotFoundException {
+    TableIndex tableIndex =
+        getAnswerTableIndex(network, snapshot, question, referenceSnapshot, analysis);
+    if (tableIndex == null) {
+      return processAnswerRows2(
+          getAnswer(network, snapshot, question, referenceSnapshot, analysis), options);
+    }
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(processAnswerTable2(tableIndex, options));
+    return answer;
+  }
+
+  /**
+   * Returns the index of the table of the stored answer to the given question, or {@code null} if
+   * there is no such answer or it is not a successful table answer. A cached index is only used if
+   * the hash of the stored answer text is that of the answer it was built from, since an answer may
+   * be stored again under the same ID with the same metadata but different rows.
+   */
+  private @Nullable TableIndex getAnswerTableIndex(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis) {
+    try {
+      AnswerId answerId =
+          getFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+      if (answerId == null) {
+        return null;
+      }
+      String rawAnswerStr = _storage.loadAnswer(answerId);
+      HashCode answerHash = Hashing.murmur3_128().hashString(rawAnswerStr, StandardCharsets.UTF_8);
+      IndexedAnswer indexedAnswer = _answerTableIndexes.getIfPresent(answerId);
+      if (indexedAnswer != null && indexedAnswer._answerHash.equals(answerHash)) {
+        return indexedAnswer._index;
+      }
+      Answer rawAnswer =
+          BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
+      if (rawAnswer.getStatus() != AnswerStatus.SUCCESS
+          || rawAnswer.getAnswerElements().isEmpty()
+          || !(rawAnswer.getAnswerElements().get(0) instanceof TableAnswerElement)) {
+        return null;
+      }
+      TableIndex tableIndex =
+          newTableIndex((TableAnswerElement) rawAnswer.getAnswerElements().get(0));
+      _answerTableIndexes.put(answerId, new IndexedAnswer(tableIndex, answerHash));
+      return tableIndex;
+    } catch (Exception e) {
+      // leave it to getAnswer and processAnswerRows to report
+      return null;
+    }
+  }
+
   @VisibleForTesting
   @Nonnull
   Answer processAnswerRows(String rawAnswerStr, AnswerRowsOptions options) {
@@ -2554,9 +2728,10 @@ public class WorkMgr extends AbstractCoordinator {
         return rawAnswer;
       }
       TableAnswerElement rawTable = (TableAnswerElement) rawAnswer.getAnswerElements().get(0);
+      TableIndex tableIndex = newTableIndex(rawTable);
       Answer answer = new Answer();
-      answer.setStatus(rawAnswer.getStatus());
-      answer.addAnswerElement(processAnswerTable(rawTable, options));
+      answer.setStatus(AnswerStatus.SUCCESS);
+      answer.addAnswerElement(processAnswerTable(tableIndex, options));
       return answer;
     } catch (Exception e) {
       _logger.errorf("Failed to convert answer string to Answer: %s", e.getMessage());
@@ -2584,10 +2759,10 @@ public class WorkMgr extends AbstractCoordinator {
       if (!(answerElement instanceof TableAnswerElement)) {
         return rawAnswer;
       }
-      TableAnswerElement rawTable = (TableAnswerElement) answerElement;
+      TableIndex tableIndex = newTableIndex((TableAnswerElement) answerElement);
       Answer answer = new Answer();
-      answer.setStatus(rawAnswer.getStatus());
-      answer.addAnswerElement(processAnswerTable2(rawTable, options));
+      answer.setStatus(AnswerStatus.SUCCESS);
+      answer.addAnswerElement(processAnswerTable2(tableIndex, options));
       return answer;
     } catch (Exception e) {
       _logger.errorf(
@@ -2599,17 +2774,14 @@ public class WorkMgr extends AbstractCoordinator {
   @VisibleForTesting
   @Nonnull
   TableAnswerElement processAnswerTable(TableAnswerElement rawTable, AnswerRowsOptions options) {
-    Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
-    List<Row> filteredRows =
-        rawTable.getRowsList().stream()
-            .filter(row -> options.getFilters().stream().allMatch(filter -> filter.matches(row)))
-            .collect(ImmutableList.toImmutableList());
+    return processAnswerTable(newTableIndex(rawTable), options);
+  }
 
-    Stream<Row> rowStream = filteredRows.stream();
-    if (!options.getSortOrder().isEmpty()) {
-      // sort using specified sort order
-      rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
-    }
+  private @Nonnull TableAnswerElement processAnswerTable(
+      TableIndex tableIndex, AnswerRowsOptions options) {
+    TableAnswerElement rawTable = tableIndex.getTable();
+    int[] rowIds = tableIndex.query(options.getFilters(), options.getSortOrder());
+    Stream<Row> rowStream = Arrays.stream(rowIds).mapToObj(tableIndex::getRow);
     TableAnswerElement table;
     if (options.getColumns().isEmpty()) {
       table = new TableAnswerElement(rawTable.getMetadata());
@@ -2617,13 +2789,7 @@ public class WorkMgr extends AbstractCoordinator {
       // project to desired columns
       rowStream =
           rowStream.map(rawRow -> Row.builder().putAll(rawRow, options.getColumns()).build());
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
-      table =
-          new TableAnswerElement(
-              new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc()));
+      table = new TableAnswerElement(projectTableMetadata(rawTable.getMetadata(), options));
     }
     if (options.getUniqueRows()) {
       // uniquify if desired
@@ -2631,27 +2797,21 @@ public class WorkMgr extends AbstractCoordinator {
     }
     // offset, truncate, and add to table
     rowStream.skip(options.getRowOffset()).limit(options.getMaxRows()).forEach(table::addRow);
-    table.setSummary(rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    table.getSummary().setNumResults(filteredRows.size());
+    table.setSummary(copySummary(rawTable.getSummary(), rowIds.length));
     return table;
   }
 
   @VisibleForTesting
   @Nonnull
   TableView processAnswerTable2(TableAnswerElement rawTable, AnswerRowsOptions options) {
-    Map<Row, Integer> rowIds = Maps.newIdentityHashMap();
-    CommonUtil.forEachWithIndex(rawTable.getRowsList(), (i, row) -> rowIds.put(row, i));
-    Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
-    List<Row> filteredRows =
-        rawTable.getRowsList().stream()
-            .filter(row -> options.getFilters().stream().allMatch(filter -> filter.matches(row)))
-            .collect(ImmutableList.toImmutableList());
+    return processAnswerTable2(newTableIndex(rawTable), options);
+  }
 
-    Stream<Row> rowStream = filteredRows.stream();
-    if (!options.getSortOrder().isEmpty()) {
-      // sort using specified sort order
-      rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
-    }
+  private @Nonnull TableView processAnswerTable2(TableIndex tableIndex, AnswerRowsOptions options) {
+    TableAnswerElement rawTable = tableIndex.getTable();
+    int[] rowIds = tableIndex.query(options.getFilters(), options.getSortOrder());
+    Stream<TableViewRow> rowStream =
+        Arrays.stream(rowIds).mapToObj(id -> new TableViewRow(id, tableIndex.getRow(id)));
     TableMetadata tableMetadata;
     if (options.getColumns().isEmpty()) {
       tableMetadata = rawTable.getMetadata();
@@ -2659,20 +2819,16 @@ public class WorkMgr extends AbstractCoordinator {
       // project to desired columns
       rowStream =
           rowStream.map(
-              rawRow -> {
-                Row row = Row.builder().putAll(rawRow, options.getColumns()).build();
-                rowIds.put(row, rowIds.get(rawRow));
-                return row;
-              });
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
-      tableMetadata = new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc());
+              rawRow ->
+                  new TableViewRow(
+                      rawRow.getId(),
+                      Row.builder().putAll(rawRow.getRow(), options.getColumns()).build()));
+      tableMetadata = projectTableMetadata(rawTable.getMetadata(), options);
     }
     if (options.getUniqueRows()) {
-      // uniquify if desired
-      rowStream = rowStream.distinct();
+      // uniquify if desired, keeping the first of equal rows
+      Set<Row> seenRows = new HashSet<>();
+      rowStream = rowStream.filter(row -> seenRows.add(row.getRow()));
     }
     // offset, truncate, and add to table
     TableView tableView =
@@ -2681,87 +2837,35 @@ public class WorkMgr extends AbstractCoordinator {
             rowStream
                 .skip(options.getRowOffset())
                 .limit(options.getMaxRows())
-                .map(row -> new TableViewRow(rowIds.get(row), row))
                 .collect(ImmutableList.toImmutableList()),
             tableMetadata);
-    tableView.setSummary(
-        rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    tableView.getSummary().setNumResults(filteredRows.size());
+    tableView.setSummary(copySummary(rawTable.getSummary(), rowIds.length));
     return tableView;
   }
 
-  @VisibleForTesting
-  @Nonnull
-  Comparator<Row> buildComparator(
-      Map<String, ColumnMetadata> rawColumnMap, List<ColumnSortOption> sortOrder) {
-    ColumnSortOption firstColumnSortOption = sortOrder.get(0);
-    ColumnMetadata firstMetadata = rawColumnMap.get(firstColumnSortOption.getColumn());
-    Comparator<Row> comparator = columnComparator(firstMetadata);
-    if (firstColumnSortOption.getReversed()) {
-      comparator = comparator.reversed();
-    }
-    for (int i = 1; i < sortOrder.size(); i++) {
-      ColumnSortOption columnSortOption = sortOrder.get(i);
-      Comparator<Row> nextComparator =
-          columnComparator(rawColumnMap.get(columnSortOption.getColumn()));
-      if (columnSortOption.getReversed()) {
-        nextComparator = nextComparator.reversed();
-      }
-      comparator = comparator.thenComparing(nextComparator);
-    }
-    return comparator;
+  private @Nonnull TableIndex newTableIndex(TableAnswerElement rawTable) {
+    return new TableIndex(rawTable);
   }
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
-  @VisibleForTesting
-  @Nonnull
-  Comparator<Row> columnComparator(ColumnMetadata columnMetadata) {
-    Schema schema = columnMetadata.getSchema();
-    Comparator schemaComparator = schemaComparator(schema);
-    Comparator comparator =
-        comparing((Row r) -> r.get(columnMetadata.getName(), schema), nullsFirst(schemaComparator));
-    return comparator;
-  }
-
-  @SuppressWarnings({"rawtypes", "unchecked"})
-  private @Nonnull Comparator<?> schemaComparator(Schema schema) {
-    if (schema.equals(Schema.ACL_TRACE)) {
-      return COMPARATOR_ACL_TRACE;
-    } else if (schema.equals(Schema.BOOLEAN)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.DOUBLE)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.FLOW)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.FLOW_TRACE)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.INTEGER)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.INTERFACE)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.IP)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.ISSUE)) {
-      return comparing(Issue::getSeverity);
-    } else if (schema.getType() == Type.LIST) {
-      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
-      return lexicographical(nullsFirst(schemaComparator));
-    } else if (schema.equals(Schema.LONG)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.NODE)) {
-      return COMPARATOR_NODE;
-    } else if (schema.equals(Schema.PREFIX)) {
-      return naturalOrder();
-    } else if (schema.getType() == Type.SET) {
-      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
-      return lexicographical(nullsFirst(schemaComparator));
-    } else if (schema.equals(Schema.STRING)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.TRACE)) {
-      return COMPARATOR_TRACE;
-    } else {
-      return comparing(Object::toString);
-    }
+  private static @Nonnull TableMetadata projectTableMetadata(
+      TableMetadata rawTableMetadata, AnswerRowsOptions options) {
+    Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawTableMetadata.toColumnMap());
+    columnMap.keySet().retainAll(options.getColumns());
+    List<ColumnMetadata> columnMetadata =
+        columnMap.values().stream().collect(ImmutableList.toImmutableList());
+    return new TableMetadata(columnMetadata, rawTableMetadata.getTextDesc());
+  }
+
+  /** Returns a copy of {@code rawSummary}, which may be shared by cached tables. */
+  private static @Nonnull AnswerSummary copySummary(
+      @Nullable AnswerSummary rawSummary, int numResults) {
+    return rawSummary == null
+        ? new AnswerSummary(null, 0, 0, numResults)
+        : new AnswerSummary(
+            rawSummary.getNotes(),
+            rawSummary.getNumFailed(),
+            rawSummary.getNumPassed(),
+            numResults);
   }
 
   /**
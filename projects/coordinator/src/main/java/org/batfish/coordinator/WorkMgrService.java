@@ -968,12 +968,15 @@ public class WorkMgrService {
         }
       }
 
-      String rawAnswer =
+      Answer answer =
           Main.getWorkMgr()
-              .getAnswer(
-                  networkName, snapshotName, questionName, referenceSnapshotName, analysisName);
-
-      Answer answer = Main.getWorkMgr().processAnswerRows(rawAnswer, answersRowsOptions);
+              .getAnswerRows(
+                  networkName,
+                  snapshotName,
+                  questionName,
+                  referenceSnapshotName,
+                  analysisName,
+                  answersRowsOptions);
 
       String answerStr = BatfishObjectMapper.writePrettyString(answer);
 
@@ -1067,12 +1070,15 @@ public class WorkMgrService {
         }
       }
 
-      String rawAnswer =
+      Answer answer =
           Main.getWorkMgr()
-              .getAnswer(
-                  networkName, snapshotName, questionName, referenceSnapshotName, analysisName);
-
-      Answer answer = Main.getWorkMgr().processAnswerRows2(rawAnswer, answersRowsOptions);
+              .getAnswerRows2(
+                  networkName,
+                  snapshotName,
+                  questionName,
+                  referenceSnapshotName,
+                  analysisName,
+                  answersRowsOptions);
 
       String answerStr = BatfishObjectMapper.writePrettyString(answer);
 
@@ -0,0 +1,79 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.batfish.common.BatfishLogger;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link PoolMgr}. */
+public final class PoolMgrTest {
+
+  private static final String WORKER = "worker";
+
+  private AtomicInteger _idleEvents;
+
+  private PoolMgr _poolMgr;
+
+  @Before
+  public void initPoolMgr() {
+    Main.mainInit(new String[0]);
+    _poolMgr = new PoolMgr(Main.getSettings(), new BatfishLogger("debug", false));
+    _idleEvents = new AtomicInteger();
+    _poolMgr.setWorkerIdleListener(_idleEvents::incrementAndGet);
+  }
+
+  @Test
+  public void testIdleListenerBusyToIdle() {
+    _poolMgr.putWorker(WORKER, WorkerStatus.StatusCode.BUSY);
+
+    _poolMgr.updateWorkerIdleness(WORKER, true);
+
+    assertThat(_poolMgr.getWorkerStatus(WORKER).getStatus(), equalTo(WorkerStatus.StatusCode.IDLE));
+    assertThat(_idleEvents.get(), equalTo(1));
+  }
+
+  @Test
+  public void testIdleListenerUnknownToIdle() {
+    _poolMgr.putWorker(WORKER, WorkerStatus.StatusCode.UNKNOWN);
+
+    _poolMgr.updateWorkerIdleness(WORKER, true);
+
+    assertThat(_idleEvents.get(), equalTo(1));
+  }
+
+  @Test
+  public void testIdleListenerStillIdle() {
+    _poolMgr.putWorker(WORKER, WorkerStatus.StatusCode.IDLE);
+
+    _poolMgr.updateWorkerIdleness(WORKER, true);
+
+    // no new idle worker, so no event
+    assertThat(_idleEvents.get(), equalTo(0));
+  }
+
+  @Test
+  public void testIdleListenerBusy() {
+    _poolMgr.putWorker(WORKER, WorkerStatus.StatusCode.IDLE);
+
+    _poolMgr.updateWorkerIdleness(WORKER, false);
+
+    assertThat(_poolMgr.getWorkerStatus(WORKER).getStatus(), equalTo(WorkerStatus.StatusCode.BUSY));
+    assertThat(_idleEvents.get(), equalTo(0));
+  }
+
+  @Test
+  public void testIdleListenerTryingToAssign() {
+    _poolMgr.putWorker(WORKER, WorkerStatus.StatusCode.TRYINGTOASSIGN);
+
+    _poolMgr.updateWorkerIdleness(WORKER, true);
+
+    // the status is left to the assignment in progress
+    assertThat(
+        _poolMgr.getWorkerStatus(WORKER).getStatus(),
+        equalTo(WorkerStatus.StatusCode.TRYINGTOASSIGN));
+    assertThat(_idleEvents.get(), equalTo(0));
+  }
+}
@@ -0,0 +1,431 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Collections;
+import java.util.Comparator;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.FlowTrace;
+import org.batfish.datamodel.FlowTraceHop;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.acl.AclTrace;
+import org.batfish.datamodel.acl.DefaultDeniedByIpAccessList;
+import org.batfish.datamodel.answers.Issue;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.SelfDescribingObject;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.pojo.Node;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.datamodel.table.TableMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link TableIndex} */
+public final class TableIndexTest {
+
+  private static final String NAME = "name";
+
+  private static final String VALUE = "value";
+
+  private TableIndex _index;
+
+  @Before
+  public void setup() {
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata(NAME, Schema.STRING, "name"),
+                    new ColumnMetadata(VALUE, Schema.INTEGER, "value"))));
+    table.addRow(Row.of(NAME, "b", VALUE, 2));
+    table.addRow(Row.of(NAME, "a", VALUE, 1));
+    table.addRow(Row.of(NAME, "Ab", VALUE, 2));
+    table.addRow(Row.of(NAME, "c", VALUE, null));
+    _index =
+        new TableIndex(
+            table, columnMetadata -> Comparator.nullsFirst(TableIndexTest::compareValues));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareValues(Object a, Object b) {
+    return ((Comparable<Object>) a).compareTo(b);
+  }
+
+  /** Orders rows by their values in the column of {@code columnMetadata}, like the index does */
+  private static Comparator<Row> columnComparator(ColumnMetadata columnMetadata) {
+    String name = columnMetadata.getName();
+    Schema schema = columnMetadata.getSchema();
+    Comparator<Object> valueComparator = TableIndex.valueComparator(columnMetadata);
+    return (r1, r2) -> valueComparator.compare(r1.get(name, schema), r2.get(name, schema));
+  }
+
+  @Test
+  public void testQueryAll() {
+    assertThat(
+        _index.query(ImmutableList.of(), ImmutableList.of()), equalTo(new int[] {0, 1, 2, 3}));
+  }
+
+  @Test
+  public void testQueryFilters() {
+    // case-insensitive, like ColumnFilter
+    assertThat(
+        _index.query(ImmutableList.of(new ColumnFilter(NAME, "A")), ImmutableList.of()),
+        equalTo(new int[] {1, 2}));
+    assertThat(
+        _index.query(
+            ImmutableList.of(new ColumnFilter(NAME, "a"), new ColumnFilter(VALUE, "2")),
+            ImmutableList.of()),
+        equalTo(new int[] {2}));
+  }
+
+  @Test
+  public void testQuerySortOrders() {
+    // stable: rows 0 and 2 have equal values
+    assertThat(
+        _index.query(ImmutableList.of(), ImmutableList.of(new ColumnSortOption(VALUE, false))),
+        equalTo(new int[] {3, 1, 0, 2}));
+    assertThat(
+        _index.query(
+            ImmutableList.of(),
+            ImmutableList.of(new ColumnSortOption(VALUE, true), new ColumnSortOption(NAME, false))),
+        equalTo(new int[] {2, 0, 1, 3}));
+    assertThat(
+        _index.query(
+            ImmutableList.of(new ColumnFilter(NAME, "b")),
+            ImmutableList.of(new ColumnSortOption(NAME, true))),
+        equalTo(new int[] {0, 2}));
+  }
+
+  @Test
+  public void testQuerySortOrderColumns() {
+    String col1 = "col1";
+    String col2 = "col2";
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata(col1, Schema.INTEGER, "blah"),
+                    new ColumnMetadata(col2, Schema.INTEGER, "bloop"))));
+    table.addRow(Row.of(col1, 2, col2, 20));
+    table.addRow(Row.of(col1, 1, col2, 20));
+    table.addRow(Row.of(col1, 2, col2, 10));
+    table.addRow(Row.of(col1, 1, col2, 10));
+    TableIndex index = new TableIndex(table);
+
+    assertThat(
+        index.query(ImmutableList.of(), ImmutableList.of(new ColumnSortOption(col1, false))),
+        equalTo(new int[] {1, 3, 0, 2}));
+    assertThat(
+        index.query(ImmutableList.of(), ImmutableList.of(new ColumnSortOption(col1, true))),
+        equalTo(new int[] {0, 2, 1, 3}));
+    assertThat(
+        index.query(ImmutableList.of(), ImmutableList.of(new ColumnSortOption(col2, false))),
+        equalTo(new int[] {2, 3, 0, 1}));
+    assertThat(
+        index.query(ImmutableList.of(), ImmutableList.of(new ColumnSortOption(col2, true))),
+        equalTo(new int[] {0, 1, 2, 3}));
+    assertThat(
+        index.query(
+            ImmutableList.of(),
+            ImmutableList.of(new ColumnSortOption(col1, false), new ColumnSortOption(col2, false))),
+        equalTo(new int[] {3, 1, 2, 0}));
+    assertThat(
+        index.query(
+            ImmutableList.of(),
+            ImmutableList.of(new ColumnSortOption(col2, false), new ColumnSortOption(col1, false))),
+        equalTo(new int[] {3, 2, 1, 0}));
+  }
+
+  @Test
+  public void testColumnComparator() {
+    String colInteger = "colInteger";
+    String colIssue = "colIssue";
+    String colString = "colString";
+
+    ColumnMetadata columnMetadataInteger =
+        new ColumnMetadata(colInteger, Schema.INTEGER, "colIntegerDesc");
+    ColumnMetadata columnMetadataIssue = new ColumnMetadata(colIssue, Schema.ISSUE, "colIssueDesc");
+    ColumnMetadata columnMetadataString =
+        new ColumnMetadata(colString, Schema.STRING, "colStringDesc");
+
+    Comparator<Row> comInteger = columnComparator(columnMetadataInteger);
+    Comparator<Row> comIssue = columnComparator(columnMetadataIssue);
+    Comparator<Row> comString = columnComparator(columnMetadataString);
+
+    Row r1 =
+        Row.of(
+            colInteger,
+            1,
+            colIssue,
+            new Issue("blah", 1, new Issue.Type("major", "minor")),
+            colString,
+            "a");
+    Row r2 =
+        Row.of(
+            colInteger,
+            2,
+            colIssue,
+            new Issue("blah", 2, new Issue.Type("major", "minor")),
+            colString,
+            "b");
+
+    assertThat(comInteger.compare(r1, r2), lessThan(0));
+    assertThat(comIssue.compare(r1, r2), lessThan(0));
+    assertThat(comString.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorAclTrace() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.ACL_TRACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 =
+        Row.of(col, new AclTrace(ImmutableList.of(new DefaultDeniedByIpAccessList("a", "a", "a"))));
+    Row r2 =
+        Row.of(col, new AclTrace(ImmutableList.of(new DefaultDeniedByIpAccessList("b", "b", "b"))));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorBoolean() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.BOOLEAN, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, false);
+    Row r2 = Row.of(col, true);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorFlow() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.FLOW, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, Flow.builder().setDstIp(Ip.ZERO).setIngressNode("a").setTag("a").build());
+    Row r2 = Row.of(col, Flow.builder().setDstIp(Ip.MAX).setIngressNode("a").setTag("a").build());
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorFlowTrace() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.FLOW_TRACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new FlowTrace(FlowDisposition.ACCEPTED, ImmutableList.of(), ""));
+    Row r2 =
+        Row.of(col, new FlowTrace(FlowDisposition.DELIVERED_TO_SUBNET, ImmutableList.of(), ""));
+    Row r3 =
+        Row.of(
+            col,
+            new FlowTrace(
+                FlowDisposition.ACCEPTED,
+                ImmutableList.of(
+                    new FlowTraceHop(
+                        Edge.of("a", "a", "b", "b"),
+                        ImmutableSortedSet.of(),
+                        "a",
+                        "a",
+                        Flow.builder().setDstIp(Ip.ZERO).setIngressNode("a").setTag("a").build())),
+                ""));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorInteger() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.INTEGER, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, 0);
+    Row r2 = Row.of(col, 1);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorInterface() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.INTERFACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new NodeInterfacePair("a", "a"));
+    Row r2 = Row.of(col, new NodeInterfacePair("a", "b"));
+    Row r3 = Row.of(col, new NodeInterfacePair("b", "a"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorIp() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.IP, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, Ip.ZERO);
+    Row r2 = Row.of(col, Ip.MAX);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorIssue() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.ISSUE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new Issue("a", 1, new Issue.Type("major", "minor")));
+    Row r2 = Row.of(col, new Issue("a", 2, new Issue.Type("major", "minor")));
+    Row r3 = Row.of(col, new Issue("b", 1, new Issue.Type("major", "minor")));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), equalTo(0));
+    assertThat(comparator.compare(r2, r3), greaterThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorList() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.list(Schema.STRING), "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, ImmutableList.of());
+    Row r2 = Row.of(col, ImmutableList.of("a"));
+    Row r3 = Row.of(col, ImmutableList.of("a", "b"));
+    Row r4 = Row.of(col, ImmutableList.of("b"));
+    Row r5 = Row.of(col, ImmutableList.of("b", "a"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r1, r4), lessThan(0));
+    assertThat(comparator.compare(r1, r5), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r4), lessThan(0));
+    assertThat(comparator.compare(r2, r5), lessThan(0));
+    assertThat(comparator.compare(r3, r4), lessThan(0));
+    assertThat(comparator.compare(r3, r5), lessThan(0));
+    assertThat(comparator.compare(r4, r5), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorLong() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.LONG, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, 0L);
+    Row r2 = Row.of(col, 1L);
+    Row r3 = Row.of(col, Long.MAX_VALUE);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorNode() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.NODE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new Node("a"));
+    Row r2 = Row.of(col, new Node("b"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorPrefix() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.PREFIX, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, Prefix.parse("1.1.2.1/32"));
+    Row r2 = Row.of(col, Prefix.parse("1.1.11.1/32"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorSet() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.set(Schema.STRING), "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r0 = Row.of(col, null);
+    Row r1 = Row.of(col, ImmutableSet.of());
+    Row r2 = Row.of(col, ImmutableSet.of("a"));
+    Row r3 = Row.of(col, ImmutableSet.of("b"));
+    Row r4 = Row.of(col, ImmutableSet.of("a", "b"));
+    Row r5 = Row.of(col, ImmutableSet.of("b", "a"));
+    Row r6 = Row.of(col, Collections.singleton(null));
+
+    assertThat(comparator.compare(r0, r1), lessThan(0));
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r1, r4), lessThan(0));
+    assertThat(comparator.compare(r1, r5), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r4), not(equalTo(0)));
+    assertThat(comparator.compare(r2, r5), not(equalTo(0)));
+    assertThat(comparator.compare(r6, r2), lessThan(0));
+    assertThat(comparator.compare(r3, r4), not(equalTo(0)));
+    assertThat(comparator.compare(r3, r5), not(equalTo(0)));
+    // sets in r4 and r5 might end up in same order, so no guarantee on comparison order
+  }
+
+  @Test
+  public void testColumnComparatorString() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.STRING, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, "a");
+    Row r2 = Row.of(col, "b");
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorSelfDescribingObject() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.SELF_DESCRIBING, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new SelfDescribingObject(Schema.STRING, "a"));
+    Row r2 = Row.of(col, new SelfDescribingObject(Schema.STRING, "b"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorTrace() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.TRACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new Trace(FlowDisposition.ACCEPTED, ImmutableList.of()));
+    Row r2 =
+        Row.of(
+            col,
+            new Trace(
+                FlowDisposition.ACCEPTED,
+                ImmutableList.of(new Hop(new Node("a"), ImmutableList.of()))));
+    Row r3 = Row.of(col, new Trace(FlowDisposition.DELIVERED_TO_SUBNET, ImmutableList.of()));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+}
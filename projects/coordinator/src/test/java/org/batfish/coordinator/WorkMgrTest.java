@@ -52,10 +52,8 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyIterable;
-import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.iterableWithSize;
-import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.io.FileMatchers.anExistingFile;
@@ -77,6 +75,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -85,7 +84,6 @@ import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -113,31 +111,21 @@ import org.batfish.coordinator.WorkDetails.WorkType;
 import org.batfish.coordinator.id.IdManager;
 import org.batfish.coordinator.resources.ForkSnapshotBean;
 import org.batfish.datamodel.Edge;
-import org.batfish.datamodel.Flow;
-import org.batfish.datamodel.FlowDisposition;
-import org.batfish.datamodel.FlowTrace;
-import org.batfish.datamodel.FlowTraceHop;
 import org.batfish.datamodel.InitializationMetadata.ProcessingStatus;
-import org.batfish.datamodel.Ip;
-import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SnapshotMetadataEntry;
-import org.batfish.datamodel.acl.AclTrace;
-import org.batfish.datamodel.acl.DefaultDeniedByIpAccessList;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.AnswerMetadataUtil;
 import org.batfish.datamodel.answers.AnswerStatus;
+import org.batfish.datamodel.answers.AnswerSummary;
 import org.batfish.datamodel.answers.AutocompleteSuggestion;
 import org.batfish.datamodel.answers.Issue;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.MinorIssueConfig;
 import org.batfish.datamodel.answers.Schema;
-import org.batfish.datamodel.answers.SelfDescribingObject;
 import org.batfish.datamodel.answers.StringAnswerElement;
 import org.batfish.datamodel.collections.NodeInterfacePair;
-import org.batfish.datamodel.flow.Hop;
-import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.pojo.Topology;
 import org.batfish.datamodel.questions.Exclusion;
@@ -1678,6 +1666,163 @@ public final class WorkMgrTest {
     assertThat(processedRows, equalTo(table.getRowsList()));
   }
 
+  @Test
+  public void testProcessAnswerRowsPages() throws IOException {
+    String columnName = "col";
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(new ColumnMetadata(columnName, Schema.INTEGER, "foobar"))));
+    table.addRow(Row.of(columnName, 2));
+    table.addRow(Row.of(columnName, 3));
+    table.addRow(Row.of(columnName, 1));
+    table.setSummary(new AnswerSummary("notes", 0, 0, 3));
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    answer.setStatus(AnswerStatus.SUCCESS);
+    String answerStr = BatfishObjectMapper.writePrettyString(answer);
+
+    List<Row> pages = new ArrayList<>();
+    for (int rowOffset = 0; rowOffset < 3; rowOffset++) {
+      AnswerRowsOptions options =
+          new AnswerRowsOptions(
+              ImmutableSet.of(),
+              ImmutableList.of(new ColumnFilter(columnName, "")),
+              1,
+              rowOffset,
+              ImmutableList.of(new ColumnSortOption(columnName, false)),
+              false);
+      TableAnswerElement page =
+          (TableAnswerElement)
+              _manager.processAnswerRows(answerStr, options).getAnswerElements().get(0);
+      assertThat(page.getSummary().getNumResults(), equalTo(3));
+      assertThat(page.getSummary().getNotes(), equalTo("notes"));
+      pages.addAll(page.getRowsList());
+    }
+
+    assertThat(
+        pages,
+        equalTo(
+            ImmutableList.of(Row.of(columnName, 1), Row.of(columnName, 2), Row.of(columnName, 3))));
+  }
+
+  @Test
+  public void testGetAnswerRows() throws IOException {
+    String networkName = "network1";
+    String snapshotName = "snapshot1";
+    Question question = new TestQuestion();
+    String questionContent = BatfishObjectMapper.writeString(question);
+    String questionName = "question2Name";
+    _manager.initNetwork(networkName, null);
+    _manager.uploadQuestion(networkName, questionName, questionContent, false);
+    NetworkId networkId = _idManager.getNetworkId(networkName);
+    SnapshotId snapshotId = _idManager.generateSnapshotId();
+    _idManager.assignSnapshot(snapshotName, networkId, snapshotId);
+    QuestionId questionId = _idManager.getQuestionId(questionName, networkId, null);
+    AnswerId baseAnswerId =
+        _idManager.getBaseAnswerId(
+            networkId,
+            snapshotId,
+            questionId,
+            DEFAULT_QUESTION_SETTINGS_ID,
+            DEFAULT_NETWORK_NODE_ROLES_ID,
+            null,
+            null);
+    String columnName = "col";
+    AnswerRowsOptions options =
+        new AnswerRowsOptions(
+            ImmutableSet.of(),
+            ImmutableList.of(),
+            1,
+            1,
+            ImmutableList.of(new ColumnSortOption(columnName, false)),
+            false);
+
+    // not answered yet
+    assertThat(
+        _manager
+            .getAnswerRows(networkName, snapshotName, questionName, null, null, options)
+            .getStatus(),
+        equalTo(AnswerStatus.NOTFOUND));
+
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(new ColumnMetadata(columnName, Schema.INTEGER, "foobar"))));
+    table.addRow(Row.of(columnName, 2));
+    table.addRow(Row.of(columnName, 3));
+    table.addRow(Row.of(columnName, 1));
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(table);
+    _storage.storeAnswerMetadata(
+        AnswerMetadataUtil.computeAnswerMetadata(answer, Main.getLogger()), baseAnswerId);
+    _storage.storeAnswer(BatfishObjectMapper.writeString(answer), baseAnswerId);
+
+    // the second page, twice: the second time from the index of the answer
+    for (int i = 0; i < 2; i++) {
+      assertThat(
+          ((TableAnswerElement)
+                  _manager
+                      .getAnswerRows(networkName, snapshotName, questionName, null, null, options)
+                      .getAnswerElements()
+                      .get(0))
+              .getRowsList(),
+          equalTo(ImmutableList.of(Row.of(columnName, 2))));
+      assertThat(
+          ((TableView)
+                  _manager
+                      .getAnswerRows2(networkName, snapshotName, questionName, null, null, options)
+                      .getAnswerElements()
+                      .get(0))
+              .getInnerRows(),
+          equalTo(ImmutableList.of(Row.of(columnName, 2))));
+    }
+
+    // storing the final answer again replaces its index
+    AnswerId finalAnswerId = _idManager.getFinalAnswerId(baseAnswerId, ImmutableSet.of());
+    table.addRow(Row.of(columnName, 0));
+    _storage.storeAnswerMetadata(
+        AnswerMetadataUtil.computeAnswerMetadata(answer, Main.getLogger()), finalAnswerId);
+    _storage.storeAnswer(BatfishObjectMapper.writeString(answer), finalAnswerId);
+
+    assertThat(
+        ((TableAnswerElement)
+                _manager
+                    .getAnswerRows(networkName, snapshotName, questionName, null, null, options)
+                    .getAnswerElements()
+                    .get(0))
+            .getRowsList(),
+        equalTo(ImmutableList.of(Row.of(columnName, 1))));
+
+    // so does storing an answer with different rows but the same metadata
+    TableAnswerElement sameShapeTable =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(new ColumnMetadata(columnName, Schema.INTEGER, "foobar"))));
+    sameShapeTable.addRow(Row.of(columnName, 3));
+    sameShapeTable.addRow(Row.of(columnName, -1));
+    sameShapeTable.addRow(Row.of(columnName, -3));
+    sameShapeTable.addRow(Row.of(columnName, -2));
+    Answer sameShapeAnswer = new Answer();
+    sameShapeAnswer.setStatus(AnswerStatus.SUCCESS);
+    sameShapeAnswer.addAnswerElement(sameShapeTable);
+    AnswerMetadata sameShapeMetadata =
+        AnswerMetadataUtil.computeAnswerMetadata(sameShapeAnswer, Main.getLogger());
+    assertThat(sameShapeMetadata, equalTo(_storage.loadAnswerMetadata(finalAnswerId)));
+    _storage.storeAnswerMetadata(sameShapeMetadata, finalAnswerId);
+    _storage.storeAnswer(BatfishObjectMapper.writeString(sameShapeAnswer), finalAnswerId);
+
+    assertThat(
+        ((TableAnswerElement)
+                _manager
+                    .getAnswerRows(networkName, snapshotName, questionName, null, null, options)
+                    .getAnswerElements()
+                    .get(0))
+            .getRowsList(),
+        equalTo(ImmutableList.of(Row.of(columnName, -2))));
+  }
+
   @Test
   public void testProcessAnswerRowsFailure() throws IOException {
     String columnName = "issue";
@@ -2009,358 +2154,6 @@ public final class WorkMgrTest {
         equalTo(ImmutableList.of(row1)));
   }
 
-  @Test
-  public void testBuildComparator() {
-    String col1 = "col1";
-    String col2 = "col2";
-    Map<String, ColumnMetadata> rawColumnMap =
-        ImmutableMap.of(
-            col1,
-            new ColumnMetadata(col1, Schema.INTEGER, "blah"),
-            col2,
-            new ColumnMetadata(col2, Schema.INTEGER, "bloop"));
-    Comparator<Row> comCol1 =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col1, false)));
-    Comparator<Row> comCol1Reversed =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col1, true)));
-    Comparator<Row> comCol2 =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col2, false)));
-    Comparator<Row> comCol2Reversed =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col2, true)));
-    Comparator<Row> comCol1Then2 =
-        _manager.buildComparator(
-            rawColumnMap,
-            ImmutableList.of(new ColumnSortOption(col1, false), new ColumnSortOption(col2, false)));
-    Comparator<Row> comCol2Then1 =
-        _manager.buildComparator(
-            rawColumnMap,
-            ImmutableList.of(new ColumnSortOption(col2, false), new ColumnSortOption(col1, false)));
-
-    Row row1 = Row.of(col1, 1, col2, 10);
-    Row row2 = Row.of(col1, 1, col2, 20);
-    Row row3 = Row.of(col1, 2, col2, 10);
-    Row row4 = Row.of(col1, 2, col2, 20);
-
-    assertThat(comCol1.compare(row1, row2), equalTo(0));
-    assertThat(comCol1.compare(row1, row3), equalTo(-1));
-    assertThat(comCol1.compare(row1, row4), equalTo(-1));
-    assertThat(comCol1.compare(row2, row3), equalTo(-1));
-    assertThat(comCol1.compare(row2, row4), equalTo(-1));
-    assertThat(comCol1.compare(row3, row4), equalTo(0));
-
-    assertThat(comCol1Reversed.compare(row1, row2), equalTo(0));
-    assertThat(comCol1Reversed.compare(row1, row3), equalTo(1));
-    assertThat(comCol1Reversed.compare(row1, row4), equalTo(1));
-    assertThat(comCol1Reversed.compare(row2, row3), equalTo(1));
-    assertThat(comCol1Reversed.compare(row2, row4), equalTo(1));
-    assertThat(comCol1Reversed.compare(row3, row4), equalTo(0));
-
-    assertThat(comCol2.compare(row1, row2), equalTo(-1));
-    assertThat(comCol2.compare(row1, row3), equalTo(0));
-    assertThat(comCol2.compare(row1, row4), equalTo(-1));
-    assertThat(comCol2.compare(row2, row3), equalTo(1));
-    assertThat(comCol2.compare(row2, row4), equalTo(0));
-    assertThat(comCol2.compare(row3, row4), equalTo(-1));
-
-    assertThat(comCol2Reversed.compare(row1, row2), equalTo(1));
-    assertThat(comCol2Reversed.compare(row1, row3), equalTo(0));
-    assertThat(comCol2Reversed.compare(row1, row4), equalTo(1));
-    assertThat(comCol2Reversed.compare(row2, row3), equalTo(-1));
-    assertThat(comCol2Reversed.compare(row2, row4), equalTo(0));
-    assertThat(comCol2Reversed.compare(row3, row4), equalTo(1));
-
-    assertThat(comCol1Then2.compare(row1, row2), equalTo(-1));
-    assertThat(comCol1Then2.compare(row1, row3), equalTo(-1));
-    assertThat(comCol1Then2.compare(row1, row4), equalTo(-1));
-    assertThat(comCol1Then2.compare(row2, row3), equalTo(-1));
-    assertThat(comCol1Then2.compare(row2, row4), equalTo(-1));
-    assertThat(comCol1Then2.compare(row3, row4), equalTo(-1));
-
-    assertThat(comCol2Then1.compare(row1, row2), equalTo(-1));
-    assertThat(comCol2Then1.compare(row1, row3), equalTo(-1));
-    assertThat(comCol2Then1.compare(row1, row4), equalTo(-1));
-    assertThat(comCol2Then1.compare(row2, row3), equalTo(1));
-    assertThat(comCol2Then1.compare(row2, row4), equalTo(-1));
-    assertThat(comCol2Then1.compare(row3, row4), equalTo(-1));
-  }
-
-  @Test
-  public void testColumnComparator() {
-    String colInteger = "colInteger";
-    String colIssue = "colIssue";
-    String colString = "colString";
-
-    ColumnMetadata columnMetadataInteger =
-        new ColumnMetadata(colInteger, Schema.INTEGER, "colIntegerDesc");
-    ColumnMetadata columnMetadataIssue = new ColumnMetadata(colIssue, Schema.ISSUE, "colIssueDesc");
-    ColumnMetadata columnMetadataString =
-        new ColumnMetadata(colString, Schema.STRING, "colStringDesc");
-
-    Comparator<Row> comInteger = _manager.columnComparator(columnMetadataInteger);
-    Comparator<Row> comIssue = _manager.columnComparator(columnMetadataIssue);
-    Comparator<Row> comString = _manager.columnComparator(columnMetadataString);
-
-    Row r1 =
-        Row.of(
-            colInteger,
-            1,
-            colIssue,
-            new Issue("blah", 1, new Issue.Type("major", "minor")),
-            colString,
-            "a");
-    Row r2 =
-        Row.of(
-            colInteger,
-            2,
-            colIssue,
-            new Issue("blah", 2, new Issue.Type("major", "minor")),
-            colString,
-            "b");
-
-    assertThat(comInteger.compare(r1, r2), lessThan(0));
-    assertThat(comIssue.compare(r1, r2), lessThan(0));
-    assertThat(comString.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorAclTrace() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.ACL_TRACE, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 =
-        Row.of(col, new AclTrace(ImmutableList.of(new DefaultDeniedByIpAccessList("a", "a", "a"))));
-    Row r2 =
-        Row.of(col, new AclTrace(ImmutableList.of(new DefaultDeniedByIpAccessList("b", "b", "b"))));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorBoolean() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.BOOLEAN, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, false);
-    Row r2 = Row.of(col, true);
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorFlow() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.FLOW, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, Flow.builder().setDstIp(Ip.ZERO).setIngressNode("a").setTag("a").build());
-    Row r2 = Row.of(col, Flow.builder().setDstIp(Ip.MAX).setIngressNode("a").setTag("a").build());
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorFlowTrace() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.FLOW_TRACE, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, new FlowTrace(FlowDisposition.ACCEPTED, ImmutableList.of(), ""));
-    Row r2 =
-        Row.of(col, new FlowTrace(FlowDisposition.DELIVERED_TO_SUBNET, ImmutableList.of(), ""));
-    Row r3 =
-        Row.of(
-            col,
-            new FlowTrace(
-                FlowDisposition.ACCEPTED,
-                ImmutableList.of(
-                    new FlowTraceHop(
-                        Edge.of("a", "a", "b", "b"),
-                        ImmutableSortedSet.of(),
-                        "a",
-                        "a",
-                        Flow.builder().setDstIp(Ip.ZERO).setIngressNode("a").setTag("a").build())),
-                ""));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), lessThan(0));
-    assertThat(comparator.compare(r2, r3), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorInteger() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.INTEGER, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, 0);
-    Row r2 = Row.of(col, 1);
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorInterface() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.INTERFACE, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, new NodeInterfacePair("a", "a"));
-    Row r2 = Row.of(col, new NodeInterfacePair("a", "b"));
-    Row r3 = Row.of(col, new NodeInterfacePair("b", "a"));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), lessThan(0));
-    assertThat(comparator.compare(r2, r3), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorIp() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.IP, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, Ip.ZERO);
-    Row r2 = Row.of(col, Ip.MAX);
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorIssue() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.ISSUE, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, new Issue("a", 1, new Issue.Type("major", "minor")));
-    Row r2 = Row.of(col, new Issue("a", 2, new Issue.Type("major", "minor")));
-    Row r3 = Row.of(col, new Issue("b", 1, new Issue.Type("major", "minor")));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), equalTo(0));
-    assertThat(comparator.compare(r2, r3), greaterThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorList() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.list(Schema.STRING), "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, ImmutableList.of());
-    Row r2 = Row.of(col, ImmutableList.of("a"));
-    Row r3 = Row.of(col, ImmutableList.of("a", "b"));
-    Row r4 = Row.of(col, ImmutableList.of("b"));
-    Row r5 = Row.of(col, ImmutableList.of("b", "a"));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), lessThan(0));
-    assertThat(comparator.compare(r1, r4), lessThan(0));
-    assertThat(comparator.compare(r1, r5), lessThan(0));
-    assertThat(comparator.compare(r2, r3), lessThan(0));
-    assertThat(comparator.compare(r2, r4), lessThan(0));
-    assertThat(comparator.compare(r2, r5), lessThan(0));
-    assertThat(comparator.compare(r3, r4), lessThan(0));
-    assertThat(comparator.compare(r3, r5), lessThan(0));
-    assertThat(comparator.compare(r4, r5), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorLong() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.LONG, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, 0L);
-    Row r2 = Row.of(col, 1L);
-    Row r3 = Row.of(col, Long.MAX_VALUE);
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), lessThan(0));
-    assertThat(comparator.compare(r2, r3), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorNode() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.NODE, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, new Node("a"));
-    Row r2 = Row.of(col, new Node("b"));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorPrefix() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.PREFIX, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, Prefix.parse("1.1.2.1/32"));
-    Row r2 = Row.of(col, Prefix.parse("1.1.11.1/32"));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorSet() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.set(Schema.STRING), "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r0 = Row.of(col, null);
-    Row r1 = Row.of(col, ImmutableSet.of());
-    Row r2 = Row.of(col, ImmutableSet.of("a"));
-    Row r3 = Row.of(col, ImmutableSet.of("b"));
-    Row r4 = Row.of(col, ImmutableSet.of("a", "b"));
-    Row r5 = Row.of(col, ImmutableSet.of("b", "a"));
-    Row r6 = Row.of(col, Collections.singleton(null));
-
-    assertThat(comparator.compare(r0, r1), lessThan(0));
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), lessThan(0));
-    assertThat(comparator.compare(r1, r4), lessThan(0));
-    assertThat(comparator.compare(r1, r5), lessThan(0));
-    assertThat(comparator.compare(r2, r3), lessThan(0));
-    assertThat(comparator.compare(r2, r4), not(equalTo(0)));
-    assertThat(comparator.compare(r2, r5), not(equalTo(0)));
-    assertThat(comparator.compare(r6, r2), lessThan(0));
-    assertThat(comparator.compare(r3, r4), not(equalTo(0)));
-    assertThat(comparator.compare(r3, r5), not(equalTo(0)));
-    // sets in r4 and r5 might end up in same order, so no guarantee on comparison order
-  }
-
-  @Test
-  public void testColumnComparatorString() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.STRING, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, "a");
-    Row r2 = Row.of(col, "b");
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorSelfDescribingObject() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.SELF_DESCRIBING, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, new SelfDescribingObject(Schema.STRING, "a"));
-    Row r2 = Row.of(col, new SelfDescribingObject(Schema.STRING, "b"));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-  }
-
-  @Test
-  public void testColumnComparatorTrace() {
-    String col = "col1";
-    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.TRACE, "colDesc");
-    Comparator<Row> comparator = _manager.columnComparator(columnMetadata);
-    Row r1 = Row.of(col, new Trace(FlowDisposition.ACCEPTED, ImmutableList.of()));
-    Row r2 =
-        Row.of(
-            col,
-            new Trace(
-                FlowDisposition.ACCEPTED,
-                ImmutableList.of(new Hop(new Node("a"), ImmutableList.of()))));
-    Row r3 = Row.of(col, new Trace(FlowDisposition.DELIVERED_TO_SUBNET, ImmutableList.of()));
-
-    assertThat(comparator.compare(r1, r2), lessThan(0));
-    assertThat(comparator.compare(r1, r3), lessThan(0));
-    assertThat(comparator.compare(r2, r3), lessThan(0));
-  }
-
   @Test
   public void testApplyIssuesConfiguration() throws IOException {
     String network = "network1";
@@ -3356,4 +3149,140 @@ public final class WorkMgrTest {
 
     _manager.autoComplete("network", "snapshot", type, "blah", 5);
   }
+
+  /** A {@link WorkMgr} that records work assignments instead of sending them to workers. */
+  private static final class RecordingWorkMgr extends WorkMgr {
+
+    private final List<String> _assignedWorkers = new ArrayList<>();
+
+    private boolean _assignmentsSucceed = true;
+
+    private RecordingWorkMgr(WorkMgr manager, List<Runnable> pendingPasses) {
+      super(
+          Main.getSettings(),
+          Main.getLogger(),
+          manager.getIdManager(),
+          manager.getStorage(),
+          pendingPasses::add);
+    }
+
+    @Override
+    boolean assignWork(QueuedWork work, String worker) {
+      _assignedWorkers.add(worker);
+      if (_assignmentsSucceed) {
+        try {
+          getWorkQueueMgr().markAssignmentSuccess(work, worker);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      } else {
+        getWorkQueueMgr().markAssignmentFailure(work);
+      }
+      Main.getPoolMgr().markAssignmentResult(worker, _assignmentsSucceed);
+      return _assignmentsSucceed;
+    }
+  }
+
+  /**
+   * Returns a {@link RecordingWorkMgr} whose passes are added to {@code pendingPasses}, with {@code
+   * numWork} items of work queued and {@code numWorkers} idle workers.
+   */
+  private RecordingWorkMgr initRecordingWorkMgr(
+      List<Runnable> pendingPasses, int numWork, int numWorkers) throws Exception {
+    String network = "network";
+    String snapshot = "snapshot";
+    _manager.initNetwork(network, null);
+    WorkMgrTestUtils.initSnapshotWithTopology(network, snapshot, ImmutableSet.of());
+    RecordingWorkMgr manager = new RecordingWorkMgr(_manager, pendingPasses);
+    Main.setWorkMgr(manager);
+    PoolMgr poolMgr = new PoolMgr(Main.getSettings(), Main.getLogger());
+    for (int i = 0; i < numWorkers; i++) {
+      poolMgr.putWorker("worker" + i, WorkerStatus.StatusCode.IDLE);
+    }
+    Main.setPoolMgr(poolMgr);
+    for (int i = 0; i < numWork; i++) {
+      WorkItem workItem = WorkMgr.resolveIds(new WorkItem(network, snapshot));
+      manager
+          .getWorkQueueMgr()
+          .queueUnassignedWork(
+              new QueuedWork(
+                  workItem, new WorkDetails(workItem.getTestrigName(), WorkType.UNKNOWN)));
+    }
+    return manager;
+  }
+
+  @Test
+  public void testRequestAssignWorkCoalesced() throws Exception {
+    List<Runnable> pendingPasses = new ArrayList<>();
+    RecordingWorkMgr manager = initRecordingWorkMgr(pendingPasses, 1, 1);
+
+    manager.requestAssignWork();
+    manager.requestAssignWork();
+    manager.requestAssignWork();
+
+    // requests made while a pass is pending are served by that pass
+    assertThat(pendingPasses, hasSize(1));
+
+    // once the pass starts, a new request needs another pass
+    pendingPasses.remove(0).run();
+    manager.requestAssignWork();
+    assertThat(pendingPasses, hasSize(1));
+  }
+
+  @Test
+  public void testAssignWorkDrainsQueue() throws Exception {
+    List<Runnable> pendingPasses = new ArrayList<>();
+    RecordingWorkMgr manager = initRecordingWorkMgr(pendingPasses, 3, 3);
+
+    manager.requestAssignWork();
+    pendingPasses.remove(0).run();
+
+    // a single pass assigns every queued item, each to a different worker
+    assertThat(manager._assignedWorkers, containsInAnyOrder("worker0", "worker1", "worker2"));
+    assertThat(manager.getWorkQueueMgr().getWorkForAssignment(), nullValue());
+  }
+
+  @Test
+  public void testAssignWorkMoreWorkThanWorkers() throws Exception {
+    List<Runnable> pendingPasses = new ArrayList<>();
+    RecordingWorkMgr manager = initRecordingWorkMgr(pendingPasses, 3, 2);
+
+    manager.requestAssignWork();
+    pendingPasses.remove(0).run();
+
+    // the pass stops when no worker is idle, leaving the rest of the work queued
+    assertThat(manager._assignedWorkers, containsInAnyOrder("worker0", "worker1"));
+    assertThat(manager.getWorkQueueMgr().getWorkForAssignment(), not(nullValue()));
+  }
+
+  @Test
+  public void testAssignWorkStopsOnFailure() throws Exception {
+    List<Runnable> pendingPasses = new ArrayList<>();
+    RecordingWorkMgr manager = initRecordingWorkMgr(pendingPasses, 3, 3);
+    manager._assignmentsSucceed = false;
+
+    manager.requestAssignWork();
+    pendingPasses.remove(0).run();
+
+    // the failed work is left for a later pass rather than retried right away
+    assertThat(manager._assignedWorkers, hasSize(1));
+    assertThat(pendingPasses, emptyIterable());
+  }
+
+  @Test
+  public void testWorkerIdleRequestsAssignWork() throws Exception {
+    List<Runnable> pendingPasses = new ArrayList<>();
+    RecordingWorkMgr manager = initRecordingWorkMgr(pendingPasses, 1, 0);
+    PoolMgr poolMgr = Main.getPoolMgr();
+    poolMgr.putWorker("worker", WorkerStatus.StatusCode.BUSY);
+    // as done by startWorkManager
+    poolMgr.setWorkerIdleListener(manager::requestAssignWork);
+
+    poolMgr.updateWorkerIdleness("worker", true);
+    assertThat(pendingPasses, hasSize(1));
+    pendingPasses.remove(0).run();
+
+    // the queued work goes to the worker that became idle
+    assertThat(manager._assignedWorkers, contains("worker"));
+  }
 }
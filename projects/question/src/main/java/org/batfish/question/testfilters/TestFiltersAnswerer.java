@@ -30,6 +30,7 @@ import org.batfish.datamodel.PacketHeaderConstraints;
 import org.batfish.datamodel.PacketHeaderConstraintsUtil;
 import org.batfish.datamodel.acl.AclTrace;
 import org.batfish.datamodel.acl.AclTracer;
+import org.batfish.datamodel.acl.CompiledAcl;
 import org.batfish.datamodel.answers.Schema;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.questions.DisplayHints;
@@ -183,7 +184,7 @@ public class TestFiltersAnswerer extends Answerer {
             c.getIpSpaces(),
             c.getIpSpaceMetadata());
     FilterResult result =
-        filter.filter(flow, flow.getIngressInterface(), c.getIpAccessLists(), c.getIpSpaces());
+        CompiledAcl.forConfiguration(c, filter).filter(flow, flow.getIngressInterface());
     Integer matchLine = result.getMatchLine();
     String lineDesc = "no-match";
     if (matchLine != null) {